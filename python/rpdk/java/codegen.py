@@ -16,13 +16,14 @@ from rpdk.core.project import ARTIFACT_TYPE_HOOK
 from rpdk.core.utils.init_utils import input_with_validation
 
 from . import __version__
-from .resolver import UNDEFINED, translate_type
+from .resolver import UNDEFINED, serde_kind, translate_type
 from .utils import (
     safe_reserved,
     safe_reserved_hook_target,
     validate_codegen_model,
     validate_namespace,
 )
+from .validator import compile_validator, sample_models
 
 LOG = logging.getLogger(__name__)
 
@@ -52,6 +53,9 @@ def logdebug(func: object):
 DEFAULT_PROTOCOL_VERSION = "2.0.0"
 PROTOCOL_VERSION_SETTING = "protocolVersion"
 DEFAULT_SETTINGS = {PROTOCOL_VERSION_SETTING: DEFAULT_PROTOCOL_VERSION}
+# opt-in: emit reflection-free Jackson (de)serializers for the resource models
+GENERATE_SERIALIZERS_SETTING = "generateSerializers"
+GENERATE_VALIDATOR_SETTING = "generateValidator"
 
 MINIMUM_JAVA_DEPENDENCY_VERSION = "2.0.0"
 MINIMUM_JAVA_DEPENDENCY_VERSION_EXECUTABLE_HANDLER_WRAPPER = "2.0.3"
@@ -90,6 +94,7 @@ class JavaLanguagePlugin(LanguagePlugin):
         )
         self.codegen_template_path = None
         self.env.filters["translate_type"] = translate_type
+        self.env.filters["serde_kind"] = serde_kind
         self.env.filters["safe_reserved"] = safe_reserved
         self.env.filters["safe_reserved_hook_target"] = safe_reserved_hook_target
         self.namespace = None
@@ -237,6 +242,9 @@ class JavaLanguagePlugin(LanguagePlugin):
             group_id=self.package_name,
             artifact_id=artifact_id,
             executable=EXECUTABLE,
+            executable_wrapper="HookHandlerWrapperExecutable"
+            if project.artifact_type == ARTIFACT_TYPE_HOOK
+            else "HandlerWrapperExecutable",
             schema_file_name=project.schema_filename,
             package_name=self.package_name,
             jacoco_maven_plugin_exclude_path_1=jacoco_excluded_paths[0],
@@ -323,6 +331,28 @@ class JavaLanguagePlugin(LanguagePlugin):
         contents = resource_stream(__name__, "data/log4j2.xml").read()
         project.safewrite(path, contents)
 
+        # sample request for the class data sharing training invocation
+        test_resources = project.root / "src" / "test" / "resources"
+        test_resources.mkdir(parents=True, exist_ok=True)
+        path = test_resources / "appcds-training-request.json"
+        LOG.debug("Writing class data sharing training request: %s", path)
+        if project.artifact_type == ARTIFACT_TYPE_HOOK:
+            template = self.env.get_template(
+                "init/shared/appcds-hook-training-request.json"
+            )
+            target_names = (
+                project.schema.get("handlers", {})
+                .get("preCreate", {})
+                .get("targetNames", ["My::Example::Resource"])
+            )
+            contents = template.render(
+                type_name=project.type_name, target_name=target_names[0]
+            )
+        else:
+            template = self.env.get_template("init/shared/appcds-training-request.json")
+            contents = template.render(type_name=project.type_name)
+        project.safewrite(path, contents)
+
         if project.artifact_type == ARTIFACT_TYPE_HOOK:
             self.init_hook_handlers(project, src, tst)
         else:
@@ -488,6 +518,8 @@ class JavaLanguagePlugin(LanguagePlugin):
 
     @logdebug
     def generate_resource(self, src, project):
+        compiled_validator = self._compile_validator(project)
+
         # write generated resource handler integration with LambdaWrapper
         path = src / "HandlerWrapper.java"
         LOG.debug("Writing handler wrapper: %s", path)
@@ -498,11 +530,15 @@ class JavaLanguagePlugin(LanguagePlugin):
             contains_type_configuration=project.configuration_schema,
             pojo_name="ResourceModel",
             wrapper_parent="LambdaWrapper",
+            generated_serializers=self._generates_serializers(project),
+            generated_validator=compiled_validator is not None,
         )
         project.overwrite(path, contents)
 
         # write generated handler integration with ExecutableWrapper
-        self._write_executable_wrapper_class(src, project)
+        self._write_executable_wrapper_class(
+            src, project, generated_validator=compiled_validator is not None
+        )
 
         path = src / "BaseConfiguration.java"
         LOG.debug("Writing base configuration: %s", path)
@@ -571,10 +607,108 @@ class JavaLanguagePlugin(LanguagePlugin):
                 )
             project.overwrite(path, contents)
 
+        if self._generates_serializers(project):
+            self._generate_serializers(project, src, models)
+
+        if compiled_validator is not None:
+            path = src / "ResourceModelValidator.java"
+            LOG.debug("Writing compiled model validator: %s", path)
+            template = self.env.get_template("generate/ResourceModelValidator.java")
+            contents = template.render(
+                package_name=self.package_name,
+                type_name=project.type_name,
+                root=compiled_validator.root,
+                definitions=compiled_validator.definitions,
+            )
+            project.overwrite(path, contents)
+
+            path = (
+                self._get_generated_tests_root(project).joinpath(*self.namespace)
+                / "ResourceModelValidatorTest.java"
+            )
+            LOG.debug("Writing compiled model validator test: %s", path)
+            template = self.env.get_template(
+                "generate/ResourceModelValidatorTest.java"
+            )
+            contents = template.render(
+                package_name=self.package_name,
+                samples=[
+                    json.dumps(sample)
+                    for sample in sample_models(
+                        project.schema, self._sample_inputs(project)
+                    )
+                ],
+            )
+            project.overwrite(path, contents)
+
         self._update_settings(project)
 
         LOG.debug("Generate complete")
 
+    @staticmethod
+    def _generates_serializers(project):
+        return bool(project.settings.get(GENERATE_SERIALIZERS_SETTING, False))
+
+    @staticmethod
+    def _compile_validator(project):
+        if not project.settings.get(GENERATE_VALIDATOR_SETTING, False):
+            return None
+        return compile_validator(project.schema)
+
+    @staticmethod
+    def _sample_inputs(project):
+        """Models of the contract test inputs, to check the compiled validator
+        with besides the models sampled from the schema"""
+        inputs = []
+        for directory in ("inputs", "example_inputs"):
+            for path in sorted((project.root / directory).glob("*.json")):
+                try:
+                    model = json.loads(path.read_text(encoding="utf-8"))
+                except ValueError:
+                    LOG.debug("Not sampling %s, it is not JSON", path)
+                    continue
+                if isinstance(model, dict):
+                    inputs.append(model)
+        return inputs
+
+    def _generate_serializers(self, project, src, models):
+        serde_src = src / "serde"
+        serde_src.mkdir(parents=True, exist_ok=True)
+        serde_test_src = self._get_generated_tests_root(project).joinpath(
+            *self.namespace, "serde"
+        )
+        serde_test_src.mkdir(parents=True, exist_ok=True)
+
+        LOG.debug("Writing %d model serializers", len(models))
+        serde_template = self.env.get_template("generate/serde/ModelSerde.java")
+        for model_name, properties in models.items():
+            path = serde_src / f"{model_name}Serde.java"
+            LOG.debug("%s serializers: %s", model_name, path)
+            contents = serde_template.render(
+                package_name=self.package_name,
+                model_name=model_name,
+                properties=properties,
+            )
+            project.overwrite(path, contents)
+
+        path = serde_src / "ModelSerializersModule.java"
+        LOG.debug("Writing model serializers module: %s", path)
+        template = self.env.get_template(
+            "generate/serde/ModelSerializersModule.java"
+        )
+        contents = template.render(
+            package_name=self.package_name,
+            type_name=project.type_name,
+            models=models,
+        )
+        project.overwrite(path, contents)
+
+        path = serde_test_src / "ModelSerializersTest.java"
+        LOG.debug("Writing model serializers round trip test: %s", path)
+        template = self.env.get_template("generate/serde/ModelSerializersTest.java")
+        contents = template.render(package_name=self.package_name, models=models)
+        project.overwrite(path, contents)
+
     @logdebug
     def generate_hook(self, src, project):  # pylint: disable=too-many-statements
         # write generated hook handler integration with HookLambdaWrapper
@@ -756,7 +890,7 @@ class JavaLanguagePlugin(LanguagePlugin):
 
         LOG.debug("Generate complete")
 
-    def _write_executable_wrapper_class(self, src, project):
+    def _write_executable_wrapper_class(self, src, project, generated_validator=False):
         try:
             java_plugin_dependency_version = self._get_java_plugin_dependency_version(
                 project
@@ -786,6 +920,8 @@ class JavaLanguagePlugin(LanguagePlugin):
                         pojo_name="ResourceModel",
                         contains_type_configuration=project.configuration_schema,
                         wrapper_parent="ExecutableWrapper",
+                        generated_serializers=self._generates_serializers(project),
+                        generated_validator=generated_validator,
                     )
                 project.overwrite(path, contents)
             else:
@@ -46,3 +46,21 @@ def translate_type(resolved_type):
         return f"Set<{item_type}>"
 
     raise ValueError(f"Unknown container type {resolved_type.container}")
+
+
+def serde_kind(resolved_type):
+    """Classifies a property type for the generated (de)serializers: "model",
+    "List", "Set", "Map", one of the boxed primitive types, or "Object" for
+    anything Jackson has to handle untyped."""
+    container = resolved_type.container
+    if container == ContainerType.MODEL:
+        return "model"
+    if container == ContainerType.LIST:
+        return "List"
+    if container == ContainerType.SET:
+        return "Set"
+    if container == ContainerType.DICT:
+        return "Map"
+    if container == ContainerType.PRIMITIVE:
+        return translate_type(resolved_type)
+    return "Object"
@@ -9,6 +9,7 @@ import software.amazon.cloudformation.Action;
 import software.amazon.cloudformation.exceptions.BaseHandlerException;
 import software.amazon.cloudformation.{{ wrapper_parent }};
 import software.amazon.cloudformation.loggers.LambdaLogPublisher;
+import software.amazon.cloudformation.metrics.ColdStart;
 import software.amazon.cloudformation.metrics.MetricsPublisher;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.CallbackAdapter;
@@ -25,6 +26,13 @@ import software.amazon.cloudformation.resource.Serializer;
 import software.amazon.cloudformation.scheduler.CloudWatchScheduler;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.fasterxml.jackson.core.type.TypeReference;
+{% if generated_serializers %}
+import com.fasterxml.jackson.databind.Module;
+import {{ package_name }}.serde.ModelSerializersModule;
+{% endif %}
+{% if generated_validator %}
+import software.amazon.cloudformation.resource.CompiledValidator;
+{% endif %}
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -34,7 +42,12 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -57,6 +70,7 @@ public class {{ "HandlerWrapper" if wrapper_parent == "LambdaWrapper" else "Hand
 
     public {{ "HandlerWrapper" if wrapper_parent == "LambdaWrapper" else "HandlerWrapperExecutable" }}() {
         initialiseHandlers();
+        prime();
     }
 
     private void initialiseHandlers() {
@@ -131,7 +145,7 @@ public class {{ "HandlerWrapper" if wrapper_parent == "LambdaWrapper" else "Hand
         }
         final String outputFile = (UUID.randomUUID().toString() + ".txt");
         try(FileOutputStream output = new FileOutputStream(outputFile)){
-            try(InputStream input=IOUtils.toInputStream(args[0],"UTF-8")){
+            try(InputStream input=IOUtils.toInputStream(readRequest(args[0]),"UTF-8")){
                 new HandlerWrapperExecutable().handleRequest(input, output);
                 output.flush();
             }
@@ -141,6 +155,16 @@ public class {{ "HandlerWrapper" if wrapper_parent == "LambdaWrapper" else "Hand
         System.out.println("__CFN_RESOURCE_END_RESPONSE__");
     }
 
+    /*
+     * The request is passed inline, or as @path to a file holding it
+     */
+    private static String readRequest(final String argument) throws IOException {
+        if (argument.startsWith("@")) {
+            return new String(Files.readAllBytes(Paths.get(argument.substring(1))), StandardCharsets.UTF_8);
+        }
+        return argument;
+    }
+
     private static void readFileToSystemOut(final String fileName) throws IOException {
         //Create object of FileReader
         final FileReader inputFile = new FileReader(fileName);
@@ -156,11 +180,25 @@ public class {{ "HandlerWrapper" if wrapper_parent == "LambdaWrapper" else "Hand
     @Override
     public JSONObject provideResourceSchemaJSONObject() {
         if (resourceSchema == null) {
-            resourceSchema = this.configuration.resourceSchemaJSONObject();
+            resourceSchema = ColdStart.time(ColdStart.PHASE_SCHEMA, this.configuration::resourceSchemaJSONObject);
         }
         return resourceSchema;
     }
 
+    {% if generated_serializers %}
+    @Override
+    protected List<Module> provideSerializerModules() {
+        return Collections.singletonList(new ModelSerializersModule());
+    }
+
+    {% endif %}
+    {% if generated_validator %}
+    @Override
+    protected CompiledValidator provideModelValidator() {
+        return ResourceModelValidator.VALIDATOR;
+    }
+
+    {% endif %}
     @Override
     public Map<String, String> provideResourceDefinedTags(final {{ pojo_name}} resourceModel) {
         return this.configuration.resourceDefinedTags(resourceModel);
@@ -175,9 +213,6 @@ public class {{ "HandlerWrapper" if wrapper_parent == "LambdaWrapper" else "Hand
         return ResourceHandlerRequest.<{{ pojo_name }}>builder()
             .clientRequestToken(request.getBearerToken())
             .desiredResourceState(requestData.getResourceProperties())
-            .previousResourceState(requestData.getPreviousResourceProperties())
-            .desiredResourceTags(getDesiredResourceTags(request))
-            .systemTags(request.getRequestData().getSystemTags())
             .awsAccountId(request.getAwsAccountId())
             .logicalResourceIdentifier(request.getRequestData().getLogicalResourceId())
             .nextToken(request.getNextToken())
@@ -0,0 +1,23 @@
+// This is a generated file. Modifications will be overwritten.
+package {{ package_name }};
+
+import static software.amazon.cloudformation.resource.CompiledValidator.*;
+
+import software.amazon.cloudformation.resource.CompiledValidator;
+
+/**
+ * Validates {@link ResourceModel} against the schema of {{ type_name }}, compiled
+ * when the handler was generated instead of being walked on every request.
+ */
+public final class ResourceModelValidator {
+    {% for field, ref, expression in definitions %}
+
+    // {{ ref }}
+    private static final CompiledValidator.ObjectNode {{ field }} = {{ expression|indent(8) }};
+    {% endfor %}
+
+    public static final CompiledValidator VALIDATOR = new CompiledValidator({{ root|indent(8) }});
+
+    private ResourceModelValidator() {
+    }
+}
@@ -0,0 +1,76 @@
+// This is a generated file. Modifications will be overwritten.
+package {{ package_name }};
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import org.json.JSONObject;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import software.amazon.cloudformation.resource.RoundTripValidator;
+import software.amazon.cloudformation.resource.Serializer;
+import software.amazon.cloudformation.resource.exceptions.ValidationException;
+
+/**
+ * Checks that the compiled {@link ResourceModelValidator} reports the same
+ * failures as the strict round trip it replaces, for the contract test inputs
+ * and for models sampled from the schema.
+ */
+public class ResourceModelValidatorTest {
+
+    private static final RoundTripValidator<ResourceModel> ROUND_TRIP = new RoundTripValidator<>(new Serializer(),
+        new TypeReference<ResourceModel>() {
+        }, new Configuration().resourceSchemaJSONObject());
+
+    static Stream<String> sampleModels() {
+        return Stream.of(
+            {% for sample in samples %}
+            {{ sample }}{{ "," if not loop.last }}
+            {% endfor %}
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("sampleModels")
+    public void validate_matchesRoundTrip(final String model) throws IOException {
+        final List<String> compiled = failures(() -> ResourceModelValidator.VALIDATOR.validate(new JSONObject(model)));
+        final List<String> roundTrip;
+        try {
+            roundTrip = failures(() -> ROUND_TRIP.validate(new JSONObject(model)));
+        } catch (final IOException e) {
+            // values Jackson cannot coerce at all are reported as type violations
+            assertThat(compiled).isNotEmpty();
+            return;
+        }
+        assertThat(compiled).isEqualTo(roundTrip);
+    }
+
+    private interface Validation {
+        void validate() throws IOException;
+    }
+
+    private static List<String> failures(final Validation validation) throws IOException {
+        try {
+            validation.validate();
+            return Collections.emptyList();
+        } catch (final ValidationException e) {
+            return describe(e);
+        }
+    }
+
+    private static List<String> describe(final ValidationException e) {
+        final List<String> lines = new ArrayList<>();
+        lines.add(String.format("%s (%s, %s)", e.getMessage(), e.getKeyword(), e.getSchemaPointer()));
+        for (final ValidationException cause : e.getCausingExceptions()) {
+            for (final String line : describe(cause)) {
+                lines.add("  " + line);
+            }
+        }
+        return lines;
+    }
+}
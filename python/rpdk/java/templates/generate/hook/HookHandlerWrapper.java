@@ -7,6 +7,7 @@ import software.amazon.cloudformation.HookInvocationPoint;
 import software.amazon.cloudformation.exceptions.BaseHandlerException;
 import software.amazon.cloudformation.{{ wrapper_parent }};
 import software.amazon.cloudformation.loggers.LambdaLogPublisher;
+import software.amazon.cloudformation.metrics.ColdStart;
 import software.amazon.cloudformation.metrics.MetricsPublisher;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
@@ -30,6 +31,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -51,6 +55,7 @@ public final class {{ "HookHandlerWrapper" if wrapper_parent == "HookLambdaWrapp
 
     public {{ "HookHandlerWrapper" if wrapper_parent == "HookLambdaWrapper" else "HookHandlerWrapperExecutable" }}() {
         initialiseHandlers();
+        prime();
     }
 
     private void initialiseHandlers() {
@@ -122,7 +127,7 @@ public final class {{ "HookHandlerWrapper" if wrapper_parent == "HookLambdaWrapp
         }
         final String outputFile = (UUID.randomUUID().toString() + ".txt");
         try(final FileOutputStream output = new FileOutputStream(outputFile)){
-            try(final InputStream input = IOUtils.toInputStream(args[0],"UTF-8")){
+            try(final InputStream input = IOUtils.toInputStream(readRequest(args[0]),"UTF-8")){
                 new HookHandlerWrapperExecutable().handleRequest(input, output);
                 output.flush();
             }
@@ -132,6 +137,16 @@ public final class {{ "HookHandlerWrapper" if wrapper_parent == "HookLambdaWrapp
         System.out.println("__CFN_HOOK_END_RESPONSE__");
     }
 
+    /*
+     * The request is passed inline, or as @path to a file holding it
+     */
+    private static String readRequest(final String argument) throws IOException {
+        if (argument.startsWith("@")) {
+            return new String(Files.readAllBytes(Paths.get(argument.substring(1))), StandardCharsets.UTF_8);
+        }
+        return argument;
+    }
+
     private static void readFileToSystemOut(final String fileName) throws IOException {
         //Create object of FileReader
         final FileReader inputFile = new FileReader(fileName);
@@ -147,7 +162,7 @@ public final class {{ "HookHandlerWrapper" if wrapper_parent == "HookLambdaWrapp
     @Override
     public JSONObject provideHookSchemaJSONObject() {
         if (hookSchema == null) {
-            hookSchema = this.configuration.hookSchemaJSONObject();
+            hookSchema = ColdStart.time(ColdStart.PHASE_SCHEMA, this.configuration::hookSchemaJSONObject);
         }
         return hookSchema;
     }
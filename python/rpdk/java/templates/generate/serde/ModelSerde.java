@@ -0,0 +1,233 @@
+// This is a generated file. Modifications will be overwritten.
+package {{ package_name }}.serde;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import {{ package_name }}.*;
+{% set model_class = model_name|uppercase_first_letter %}
+
+{% macro write_value(type, expr, depth) %}
+{% set kind = type|serde_kind %}
+{% if kind == "model" %}
+{{ type.type|uppercase_first_letter }}Serde.write({{ expr }}, gen, provider);
+{% elif kind == "String" %}
+gen.writeString({{ expr }});
+{% elif kind in ("Integer", "Long", "Double") %}
+gen.writeNumber({{ expr }});
+{% elif kind == "Boolean" %}
+gen.writeBoolean({{ expr }});
+{% elif kind in ("List", "Set") %}
+gen.writeStartArray();
+for (final {{ type.type|translate_type }} item{{ depth }} : {{ expr }}) {
+    if (item{{ depth }} == null) {
+        gen.writeNull();
+    } else {
+        {{ write_value(type.type, "item" ~ depth, depth + 1)|trim|indent(8) }}
+    }
+}
+gen.writeEndArray();
+{% elif kind == "Map" %}
+gen.writeStartObject();
+for (final Map.Entry<String, {{ type.type|translate_type }}> entry{{ depth }} : {{ expr }}.entrySet()) {
+    if (entry{{ depth }}.getValue() != null) {
+        final {{ type.type|translate_type }} value{{ depth }} = entry{{ depth }}.getValue();
+        gen.writeFieldName(entry{{ depth }}.getKey());
+        {{ write_value(type.type, "value" ~ depth, depth + 1)|trim|indent(8) }}
+    }
+}
+gen.writeEndObject();
+{% else %}
+provider.defaultSerializeValue({{ expr }}, gen);
+{% endif %}
+{% endmacro %}
+
+{% macro read_value(type, target, depth) %}
+{% set kind = type|serde_kind %}
+if (p.currentToken() == JsonToken.VALUE_NULL) {
+    {{ target }} = null;
+{% if kind == "model" %}
+} else {
+    {{ target }} = {{ type.type|uppercase_first_letter }}Serde.read(p, ctxt);
+}
+{% elif kind == "String" %}
+} else if (p.currentToken() == JsonToken.VALUE_STRING) {
+    {{ target }} = p.getText();
+} else {
+    {{ target }} = ctxt.readValue(p, String.class);
+}
+{% elif kind == "Integer" %}
+} else if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+    {{ target }} = p.getIntValue();
+} else {
+    {{ target }} = ctxt.readValue(p, Integer.class);
+}
+{% elif kind == "Long" %}
+} else if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+    {{ target }} = p.getLongValue();
+} else {
+    {{ target }} = ctxt.readValue(p, Long.class);
+}
+{% elif kind == "Double" %}
+} else if (p.currentToken().isNumeric()) {
+    {{ target }} = p.getDoubleValue();
+} else {
+    {{ target }} = ctxt.readValue(p, Double.class);
+}
+{% elif kind == "Boolean" %}
+} else if (p.currentToken().isBoolean()) {
+    {{ target }} = p.getBooleanValue();
+} else {
+    {{ target }} = ctxt.readValue(p, Boolean.class);
+}
+{% elif kind in ("List", "Set") %}
+} else {
+    expect(p, ctxt, JsonToken.START_ARRAY, {{ kind }}.class);
+    final {{ type|translate_type }} items{{ depth }} = new {{ "ArrayList" if kind == "List" else "HashSet" }}<>();
+    while (p.nextToken() != JsonToken.END_ARRAY) {
+        final {{ type.type|translate_type }} item{{ depth }};
+        {{ read_value(type.type, "item" ~ depth, depth + 1)|trim|indent(8) }}
+        items{{ depth }}.add(item{{ depth }});
+    }
+    {{ target }} = items{{ depth }};
+}
+{% elif kind == "Map" %}
+} else {
+    expect(p, ctxt, JsonToken.START_OBJECT, Map.class);
+    final {{ type|translate_type }} entries{{ depth }} = new LinkedHashMap<>();
+    while (p.nextToken() == JsonToken.FIELD_NAME) {
+        final String key{{ depth }} = p.currentName();
+        p.nextToken();
+        final {{ type.type|translate_type }} value{{ depth }};
+        {{ read_value(type.type, "value" ~ depth, depth + 1)|trim|indent(8) }}
+        entries{{ depth }}.put(key{{ depth }}, value{{ depth }});
+    }
+    {{ target }} = entries{{ depth }};
+}
+{% else %}
+} else {
+    {{ target }} = ctxt.readValue(p, Object.class);
+}
+{% endif %}
+{% endmacro %}
+/**
+ * Reads and writes {@link {{ model_class }}} without bean introspection. The
+ * output matches what Jackson produces through reflection for the runtime
+ * serializer: null properties and null map values are omitted, and property
+ * names are matched case insensitively when the mapper accepts that.
+ */
+public final class {{ model_class }}Serde {
+
+    private {{ model_class }}Serde() {
+    }
+
+    public static final class Serializer extends StdSerializer<{{ model_class }}> {
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super({{ model_class }}.class);
+        }
+
+        @Override
+        public void serialize(final {{ model_class }} model, final JsonGenerator gen, final SerializerProvider provider)
+            throws IOException {
+            write(model, gen, provider);
+        }
+    }
+
+    public static final class Deserializer extends StdDeserializer<{{ model_class }}> {
+        private static final long serialVersionUID = 1L;
+
+        public Deserializer() {
+            super({{ model_class }}.class);
+        }
+
+        @Override
+        public {{ model_class }} deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+            return read(p, ctxt);
+        }
+    }
+
+    public static void write(final {{ model_class }} model, final JsonGenerator gen, final SerializerProvider provider)
+        throws IOException {
+        gen.writeStartObject(model);
+        {% for name, type in properties.items() %}
+        {% set field = name|lowercase_first_letter|safe_reserved %}
+        {
+            final {{ type|translate_type }} property = model.get{{ field|uppercase_first_letter }}();
+            if (property != null) {
+                gen.writeFieldName("{{ name }}");
+                {{ write_value(type, "property", 0)|trim|indent(16) }}
+            }
+        }
+        {% endfor %}
+        gen.writeEndObject();
+    }
+
+    public static {{ model_class }} read(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return ({{ model_class }}) ctxt.handleUnexpectedToken({{ model_class }}.class, p);
+        }
+        final {{ model_class }} model = new {{ model_class }}();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            final String name = p.currentName();
+            p.nextToken();
+            if (!readProperty(model, name, p, ctxt)) {
+                final String canonical = ctxt.isEnabled(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+                    ? canonicalName(name) : null;
+                if (canonical == null || !readProperty(model, canonical, p, ctxt)) {
+                    ctxt.handleUnknownProperty(p, null, {{ model_class }}.class, name);
+                }
+            }
+        }
+        return model;
+    }
+
+    private static boolean readProperty(final {{ model_class }} model, final String name, final JsonParser p,
+        final DeserializationContext ctxt) throws IOException {
+        switch (name) {
+        {% for name, type in properties.items() %}
+        {% set field = name|lowercase_first_letter|safe_reserved %}
+            case "{{ name }}": {
+                final {{ type|translate_type }} property;
+                {{ read_value(type, "property", 0)|trim|indent(16) }}
+                model.set{{ field|uppercase_first_letter }}(property);
+                return true;
+            }
+        {% endfor %}
+            default:
+                return false;
+        }
+    }
+
+    private static String canonicalName(final String name) {
+        {% for name in properties %}
+        if ("{{ name }}".equalsIgnoreCase(name)) {
+            return "{{ name }}";
+        }
+        {% endfor %}
+        return null;
+    }
+
+    private static void expect(final JsonParser p, final DeserializationContext ctxt, final JsonToken token,
+        final Class<?> type) throws IOException {
+        if (p.currentToken() != token) {
+            ctxt.handleUnexpectedToken(type, p);
+        }
+    }
+}
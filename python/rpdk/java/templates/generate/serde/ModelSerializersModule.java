@@ -0,0 +1,22 @@
+// This is a generated file. Modifications will be overwritten.
+package {{ package_name }}.serde;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import {{ package_name }}.*;
+
+/**
+ * Registers the generated (de)serializers of every model of {{ type_name }}, so
+ * that Jackson does not introspect them through reflection.
+ */
+public class ModelSerializersModule extends SimpleModule {
+    private static final long serialVersionUID = 1L;
+
+    public ModelSerializersModule() {
+        super("{{ type_name }}ModelSerializers");
+        {% for model_name in models %}
+        {% set model_class = model_name|uppercase_first_letter %}
+        addSerializer({{ model_class }}.class, new {{ model_class }}Serde.Serializer());
+        addDeserializer({{ model_class }}.class, new {{ model_class }}Serde.Deserializer());
+        {% endfor %}
+    }
+}
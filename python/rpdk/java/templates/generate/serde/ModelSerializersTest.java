@@ -0,0 +1,75 @@
+// This is a generated file. Modifications will be overwritten.
+package {{ package_name }}.serde;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.resource.Serializer;
+import {{ package_name }}.*;
+
+{% macro sample(type, name) %}
+{% set kind = type|serde_kind %}
+{% if kind == "model" %}
+depth < 2 ? sample{{ type.type|uppercase_first_letter }}(depth + 1) : null
+{%- elif kind == "String" %}
+"{{ name }}"
+{%- elif kind == "Integer" %}
+Integer.valueOf(7)
+{%- elif kind == "Long" %}
+Long.valueOf(7L)
+{%- elif kind == "Double" %}
+Double.valueOf(7.5)
+{%- elif kind == "Boolean" %}
+Boolean.TRUE
+{%- elif kind == "List" %}
+Collections.singletonList({{ sample(type.type, name) }})
+{%- elif kind == "Set" %}
+Collections.singleton({{ sample(type.type, name) }})
+{%- elif kind == "Map" %}
+Collections.singletonMap("{{ name }}", {{ sample(type.type, name) }})
+{%- else %}
+"{{ name }}"
+{%- endif %}
+{% endmacro %}
+/**
+ * Checks that the generated (de)serializers produce the same JSON and the same
+ * models as Jackson does through reflection.
+ */
+public class ModelSerializersTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Serializer REFLECTIVE = new Serializer();
+    private static final Serializer GENERATED = new Serializer(false,
+        Collections.singletonList(new ModelSerializersModule()));
+    {% for model_name, properties in models.items() %}
+    {% set model_class = model_name|uppercase_first_letter %}
+
+    @Test
+    public void roundTrip_{{ model_class }}() throws IOException {
+        assertRoundTrip(sample{{ model_class }}(0), new TypeReference<{{ model_class }}>() {
+        });
+    }
+
+    private static {{ model_class }} sample{{ model_class }}(final int depth) {
+        final {{ model_class }} model = new {{ model_class }}();
+        {% for name, type in properties.items() %}
+        {% set field = name|lowercase_first_letter|safe_reserved %}
+        model.set{{ field|uppercase_first_letter }}({{ sample(type, name)|trim }});
+        {% endfor %}
+        return model;
+    }
+    {% endfor %}
+
+    private static <T> void assertRoundTrip(final T sample, final TypeReference<T> type) throws IOException {
+        final String reflective = REFLECTIVE.serialize(sample);
+        final String generated = GENERATED.serialize(sample);
+        assertThat(JSON.readTree(generated)).isEqualTo(JSON.readTree(reflective));
+
+        assertThat(GENERATED.deserialize(reflective, type)).isEqualTo(REFLECTIVE.deserialize(reflective, type));
+        assertThat(GENERATED.deserializeStrict(reflective, type)).isEqualTo(REFLECTIVE.deserializeStrict(reflective, type));
+    }
+}
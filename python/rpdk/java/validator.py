@@ -0,0 +1,309 @@
+"""Compiles a resource schema into the Java expressions that build a
+``software.amazon.cloudformation.resource.CompiledValidator``.
+
+Only the keywords the compiled validator reproduces exactly are supported.
+If the schema uses anything else, :func:`compile_validator` returns ``None``
+and the handler keeps validating against the schema at runtime.
+"""
+import json
+import logging
+import re
+
+LOG = logging.getLogger(__name__)
+
+NODE_TYPES = {
+    "string": "string()",
+    "integer": "integer()",
+    "number": "number()",
+    "boolean": "bool()",
+}
+
+# validation keywords the compiled validator does not reproduce
+UNSUPPORTED_KEYWORDS = {
+    "allOf",
+    "anyOf",
+    "oneOf",
+    "not",
+    "if",
+    "then",
+    "else",
+    "const",
+    "contains",
+    "propertyNames",
+    "patternProperties",
+    "dependencies",
+    "minProperties",
+    "maxProperties",
+    "additionalItems",
+    "multipleOf",
+    "exclusiveMinimum",
+    "exclusiveMaximum",
+}
+
+
+# formats the schema validator checks, others such as int64 only pick a Java type
+VALIDATED_FORMATS = {
+    "date",
+    "date-time",
+    "email",
+    "hostname",
+    "ipv4",
+    "ipv6",
+    "json-pointer",
+    "regex",
+    "relative-json-pointer",
+    "time",
+    "uri",
+    "uri-reference",
+    "uri-template",
+}
+
+
+class UnsupportedSchemaError(Exception):
+    pass
+
+
+class CompiledSchema:
+    """The root node expression, and the definitions it references in the
+    order they have to be declared."""
+
+    def __init__(self, root, definitions):
+        self.root = root
+        self.definitions = definitions
+
+
+def compile_validator(schema):
+    try:
+        compiler = _Compiler(schema)
+        compiler.check_keywords(schema)
+        if not schema.get("properties"):
+            raise UnsupportedSchemaError("no properties")
+        root = compiler.compile_object(schema, typed=True)
+    except UnsupportedSchemaError as e:
+        LOG.warning(
+            "Not generating a compiled validator (%s), "
+            "models are validated against the schema at runtime",
+            e,
+        )
+        return None
+    return CompiledSchema(root, compiler.definitions)
+
+
+def _literal(value):
+    if value is None:
+        raise UnsupportedSchemaError("null enum value")
+    if isinstance(value, bool):
+        return "true" if value else "false"
+    if isinstance(value, (int, float)):
+        return f'new java.math.BigDecimal("{value}")'
+    if not isinstance(value, str):
+        raise UnsupportedSchemaError("structured enum value")
+    # a JSON string literal is a valid Java string literal
+    return json.dumps(value)
+
+
+def _indent(expression):
+    return expression.replace("\n", "\n    ")
+
+
+class _Compiler:
+    def __init__(self, schema):
+        self.schema = schema
+        self.definitions = []
+        self.fields = {}
+        self.resolving = []
+
+    @staticmethod
+    def check_keywords(schema):
+        unsupported = UNSUPPORTED_KEYWORDS.intersection(schema)
+        if unsupported:
+            raise UnsupportedSchemaError(", ".join(sorted(unsupported)))
+        if schema.get("format") in VALIDATED_FORMATS:
+            raise UnsupportedSchemaError(f"format {schema['format']}")
+
+    def compile(self, schema, typed):
+        self.check_keywords(schema)
+        if "$ref" in schema:
+            return self.compile_ref(schema["$ref"], typed)
+        schema_type = schema.get("type")
+        if schema_type is None:
+            if any(key in schema for key in ("enum", "pattern", "properties")):
+                raise UnsupportedSchemaError("constraints without a type")
+            return "any()"
+        if not isinstance(schema_type, str):
+            raise UnsupportedSchemaError("multiple types")
+        if schema_type in ("object", "array") and "enum" in schema:
+            raise UnsupportedSchemaError(f"enum of type {schema_type}")
+        if schema_type == "object":
+            return self.compile_object(schema, typed)
+        if schema_type == "array":
+            return self.compile_array(schema, typed)
+        if schema_type not in NODE_TYPES:
+            raise UnsupportedSchemaError(f"type {schema_type}")
+        return self.compile_scalar(schema, schema_type)
+
+    def compile_ref(self, ref, typed):
+        if typed and ref in self.fields:
+            return self.fields[ref]
+        if ref in self.resolving:
+            raise UnsupportedSchemaError(f"recursive {ref}")
+        if not ref.startswith("#/"):
+            raise UnsupportedSchemaError(f"external {ref}")
+        target = self.schema
+        for token in ref[2:].split("/"):
+            token = token.replace("~1", "/").replace("~0", "~")
+            try:
+                target = target[token]
+            except (KeyError, TypeError) as e:
+                raise UnsupportedSchemaError(f"unresolvable {ref}") from e
+        self.resolving.append(ref)
+        expression = self.compile(target, typed)
+        self.resolving.pop()
+        if not typed or not expression.startswith("object()"):
+            # only models are shared, everything else is cheap to inline
+            return expression
+        field = self.field_name(ref)
+        self.definitions.append((field, ref, expression))
+        self.fields[ref] = field
+        return field
+
+    def field_name(self, ref):
+        name = re.sub(r"[^A-Za-z0-9]+", "_", ref.rsplit("/", 1)[-1]).upper()
+        field = f"DEFINITION_{name}"
+        taken = {field for field, _, _ in self.definitions}
+        suffix = 1
+        while field in taken:
+            suffix += 1
+            field = f"DEFINITION_{name}_{suffix}"
+        return field
+
+    def compile_object(self, schema, typed):
+        properties = schema.get("properties")
+        additional = schema.get("additionalProperties", True)
+        if not properties:
+            if additional is False or schema.get("required"):
+                raise UnsupportedSchemaError("object without properties")
+            values = (
+                self.compile(additional, typed=False)
+                if isinstance(additional, dict)
+                else "any()"
+            )
+            return f"map({values})"
+        if not typed:
+            # untyped values are not matched against the model properties
+            raise UnsupportedSchemaError("properties inside an untyped value")
+        expression = "object()"
+        for name, property_schema in properties.items():
+            node = _indent(self.compile(property_schema, typed=True))
+            expression += f"\n.property({json.dumps(name)}, {node})"
+        required = schema.get("required", [])
+        if required:
+            names = ", ".join(json.dumps(name) for name in required)
+            expression += f"\n.required({names})"
+        return expression
+
+    def compile_array(self, schema, typed):
+        if schema.get("uniqueItems", False):
+            raise UnsupportedSchemaError("uniqueItems")
+        items = schema.get("items", {})
+        if not isinstance(items, dict):
+            raise UnsupportedSchemaError("tuple items")
+        expression = f"array({_indent(self.compile(items, typed))})"
+        for keyword in ("minItems", "maxItems"):
+            if keyword in schema:
+                expression += f".{keyword}({int(schema[keyword])})"
+        return expression
+
+    @staticmethod
+    def compile_scalar(schema, schema_type):
+        expression = NODE_TYPES[schema_type]
+        for keyword in ("minLength", "maxLength"):
+            if keyword in schema:
+                expression += f".{keyword}({int(schema[keyword])})"
+        if "pattern" in schema:
+            expression += f".pattern({json.dumps(schema['pattern'])})"
+        for keyword in ("minimum", "maximum"):
+            if keyword in schema:
+                expression += f'.{keyword}("{schema[keyword]}")'
+        if "enum" in schema:
+            values = ", ".join(_literal(value) for value in schema["enum"])
+            expression += f".enumValues({values})"
+        return expression
+
+
+# a key no property matches, not even case insensitively
+EXTRANEOUS_KEY = "ExtraneousSampleKey"
+
+
+def sample_models(schema, inputs=()):
+    """Raw models to check a compiled validator against the strict round trip
+    with: the given inputs, an empty model, a model with every property set,
+    one with an extraneous key, and for each property a model where it is null
+    and one where it has the wrong type. Samples are JSON strings, without
+    duplicates and in a stable order."""
+    sampler = _Sampler(schema)
+    complete = sampler.sample(schema)
+    samples = list(inputs) + [{}, complete, {**complete, EXTRANEOUS_KEY: 1}]
+    for name, property_schema in schema.get("properties", {}).items():
+        samples.append({**complete, name: None})
+        wrong_type = sampler.wrong_type(property_schema)
+        if wrong_type is not None:
+            samples.append({**complete, name: wrong_type})
+
+    unique = []
+    for sample in samples:
+        text = json.dumps(sample, separators=(",", ":"))
+        if text not in unique:
+            unique.append(text)
+    return unique
+
+
+class _Sampler:
+    def __init__(self, schema):
+        self.schema = schema
+
+    def resolve(self, schema):
+        # recursive references are not compiled, so resolving terminates
+        while "$ref" in schema:
+            target = self.schema
+            for token in schema["$ref"][2:].split("/"):
+                target = target[token.replace("~1", "/").replace("~0", "~")]
+            schema = target
+        return schema
+
+    def sample(self, schema):
+        schema = self.resolve(schema)
+        if schema.get("enum"):
+            return schema["enum"][0]
+        schema_type = schema.get("type")
+        # the resource schema itself usually has no type
+        if schema_type == "object" or "properties" in schema:
+            if schema.get("properties"):
+                return {
+                    name: self.sample(property_schema)
+                    for name, property_schema in schema["properties"].items()
+                }
+            values = schema.get("additionalProperties")
+            return {"key": self.sample(values) if isinstance(values, dict) else "value"}
+        if schema_type == "array":
+            return [self.sample(schema.get("items", {}))] * max(
+                schema.get("minItems", 1), 1
+            )
+        if schema_type == "string":
+            return "a" * max(schema.get("minLength", 1), 1)
+        if schema_type == "integer":
+            return int(schema.get("minimum", 1))
+        if schema_type == "number":
+            return schema.get("minimum", 1.5)
+        if schema_type == "boolean":
+            return True
+        return "value"
+
+    def wrong_type(self, schema):
+        schema_type = self.resolve(schema).get("type")
+        if schema_type in ("object", "array", "integer", "number"):
+            return "text"
+        if schema_type in ("string", "boolean"):
+            return []
+        # untyped values take anything
+        return None
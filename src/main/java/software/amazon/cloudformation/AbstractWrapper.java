@@ -16,16 +16,22 @@ package software.amazon.cloudformation;
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.retry.RetryUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.exc.MismatchedInputException;
-import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Utf8;
 import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -39,45 +45,66 @@ import org.json.JSONObject;
 import org.json.JSONTokener;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.http.SdkHttpClient;
-import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.utils.StringUtils;
 import software.amazon.cloudformation.exceptions.BaseHandlerException;
 import software.amazon.cloudformation.exceptions.CfnInvalidRequestException;
 import software.amazon.cloudformation.exceptions.FileScrubberException;
+import software.amazon.cloudformation.exceptions.ResponseTooLargeException;
 import software.amazon.cloudformation.exceptions.TerminalException;
 import software.amazon.cloudformation.injection.CloudWatchLogsProvider;
 import software.amazon.cloudformation.injection.CloudWatchProvider;
 import software.amazon.cloudformation.injection.CredentialsProvider;
+import software.amazon.cloudformation.injection.HttpClientSetting;
 import software.amazon.cloudformation.injection.SessionCredentialsProvider;
+import software.amazon.cloudformation.injection.SharedHttpClient;
 import software.amazon.cloudformation.loggers.CloudWatchLogHelper;
 import software.amazon.cloudformation.loggers.CloudWatchLogPublisher;
 import software.amazon.cloudformation.loggers.LogPublisher;
+import software.amazon.cloudformation.metrics.ColdStart;
+import software.amazon.cloudformation.metrics.EmfMetricsPublisher;
 import software.amazon.cloudformation.metrics.MetricsPublisher;
 import software.amazon.cloudformation.metrics.MetricsPublisherImpl;
+import software.amazon.cloudformation.metrics.ThreadUsage;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Credentials;
-import software.amazon.cloudformation.proxy.DelayFactory;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.HandlerRequest;
+import software.amazon.cloudformation.proxy.LazySection;
 import software.amazon.cloudformation.proxy.LoggerProxy;
 import software.amazon.cloudformation.proxy.MetricsPublisherProxy;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.RequestData;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.cloudformation.proxy.ResourceModelCursor;
+import software.amazon.cloudformation.proxy.ServiceCallInterceptor;
 import software.amazon.cloudformation.proxy.WaitStrategy;
+import software.amazon.cloudformation.replay.InvocationRecorder;
+import software.amazon.cloudformation.replay.InvocationReplay;
+import software.amazon.cloudformation.resource.CompiledValidator;
 import software.amazon.cloudformation.resource.ResourceTypeSchema;
+import software.amazon.cloudformation.resource.RoundTripValidator;
 import software.amazon.cloudformation.resource.SchemaValidator;
 import software.amazon.cloudformation.resource.Serializer;
 import software.amazon.cloudformation.resource.Validator;
 import software.amazon.cloudformation.resource.exceptions.ValidationException;
+import software.amazon.cloudformation.tracing.Span;
+import software.amazon.cloudformation.tracing.SpanNames;
 
 public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
 
-    public static final SdkHttpClient HTTP_CLIENT = ApacheHttpClient.builder().build();
+    public static final SdkHttpClient HTTP_CLIENT = ColdStart.time(ColdStart.PHASE_HTTP_CLIENT, SharedHttpClient::get);
 
     private static final Set<Action> MUTATING_ACTIONS = ImmutableSet.of(Action.CREATE, Action.DELETE, Action.UPDATE);
     private static final Set<Action> VALIDATING_ACTIONS = ImmutableSet.of(Action.CREATE, Action.UPDATE);
 
+    //
+    // Synthetic request used for priming, never handed to the handler
+    //
+    private static final String PRIMING_REQUEST = "{\"action\":\"READ\",\"awsAccountId\":\"123456789012\","
+        + "\"bearerToken\":\"priming\",\"region\":\"us-east-1\",\"resourceType\":\"AWS::Priming::Resource\","
+        + "\"requestData\":{\"resourceProperties\":{},\"stackTags\":{}}}";
+
     protected final Serializer serializer;
     protected LoggerProxy loggerProxy;
     protected MetricsPublisherProxy metricsPublisherProxy;
@@ -98,12 +125,22 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
     protected CloudWatchLogHelper cloudWatchLogHelper;
     protected CloudWatchLogPublisher providerEventsLogger;
 
+    private final TempDirectoryScrubber tempDirectoryScrubber = new TempDirectoryScrubber(
+        FileUtils.getTempDirectory().toPath());
+    private TempDirectoryScrubber.Result fileScrubResult;
+    // held strongly, the checkpoint context only keeps a weak reference
+    private final CheckpointResource checkpointResource = CheckpointResource.register(this::beforeCheckpoint,
+        this::restore);
+    private final WrapperSupport support;
+
     protected AbstractWrapper() {
         this.providerCredentialsProvider = new SessionCredentialsProvider();
         this.providerCloudWatchProvider = new CloudWatchProvider(this.providerCredentialsProvider, HTTP_CLIENT);
         this.cloudWatchLogsProvider = new CloudWatchLogsProvider(this.providerCredentialsProvider, HTTP_CLIENT);
-        this.serializer = new Serializer();
-        this.validator = new Validator();
+        this.serializer = ColdStart.time(ColdStart.PHASE_SERIALIZER,
+            () -> new Serializer(false, provideSerializerModules()));
+        this.validator = ColdStart.time(ColdStart.PHASE_VALIDATOR, Validator::new);
+        this.support = new WrapperSupport(true);
         this.typeReference = getTypeReference();
         this.platformLoggerProxy = new LoggerProxy();
     }
@@ -128,6 +165,7 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
         this.serializer = serializer;
         this.validator = validator;
         this.typeReference = getTypeReference();
+        this.support = new WrapperSupport(false);
         this.platformLoggerProxy = new LoggerProxy();
 
     }
@@ -136,11 +174,14 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
      * This function initialises dependencies which are depending on credentials
      * passed at function invoke and not available during construction
      */
-    private void
-        initialiseRuntime(final String resourceType, final Credentials providerCredentials, final String providerLogGroupName) {
+    private void initialiseRuntime(final String resourceType,
+                                   final Credentials providerCredentials,
+                                   final String providerLogGroupName,
+                                   final String awsAccountId) {
 
+        final WrapperSettings settings = provideSettings();
         this.metricsPublisherProxy = new MetricsPublisherProxy();
-        this.loggerProxy = new LoggerProxy();
+        this.loggerProxy = new LoggerProxy(settings.getLogBufferCapacity());
         this.loggerProxy.addLogPublisher(this.platformLogPublisher);
 
         // Initialisation skipped if dependencies were set during injection (in unit
@@ -154,47 +195,172 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
             if (this.providerCredentialsProvider != null) {
                 this.providerCredentialsProvider.setCredentials(providerCredentials);
             }
+            // clients report to the pool statistics only when they are published
+            this.providerCloudWatchProvider.setHttpClientMetrics(settings.isHttpClientMetrics());
+            this.cloudWatchLogsProvider.setHttpClientMetrics(settings.isHttpClientMetrics());
 
-            if (this.providerMetricsPublisher == null) {
+            if (this.providerMetricsPublisher == null && !settings.isEmbeddedMetrics()) {
                 this.providerMetricsPublisher = new MetricsPublisherImpl(this.providerCloudWatchProvider, this.loggerProxy,
-                                                                         resourceType);
+                                                                         resourceType, settings.getAsyncMetricsDeadline());
+            }
+            if (this.providerMetricsPublisher != null) {
+                this.metricsPublisherProxy.addMetricsPublisher(this.providerMetricsPublisher);
+                this.providerMetricsPublisher.refreshClient();
             }
-            this.metricsPublisherProxy.addMetricsPublisher(this.providerMetricsPublisher);
-            this.providerMetricsPublisher.refreshClient();
 
             if (this.providerEventsLogger == null) {
                 this.cloudWatchLogHelper = new CloudWatchLogHelper(this.cloudWatchLogsProvider, providerLogGroupName,
-                                                                   this.platformLoggerProxy, this.metricsPublisherProxy);
+                                                                   awsAccountId, this.platformLoggerProxy,
+                                                                   this.metricsPublisherProxy);
                 this.cloudWatchLogHelper.refreshClient();
 
-                this.providerEventsLogger = new CloudWatchLogPublisher(this.cloudWatchLogsProvider, providerLogGroupName,
-                                                                       this.cloudWatchLogHelper.prepareLogStream(),
+                // the log stream is created along with the first log events
+                this.providerEventsLogger = new CloudWatchLogPublisher(this.cloudWatchLogsProvider, this.cloudWatchLogHelper,
                                                                        this.platformLoggerProxy, this.metricsPublisherProxy);
             }
             this.loggerProxy.addLogPublisher(this.providerEventsLogger);
             this.providerEventsLogger.refreshClient();
+
+            if (this.providerMetricsPublisher == null) {
+                this.providerMetricsPublisher = new EmfMetricsPublisher(this.providerEventsLogger, this.loggerProxy,
+                                                                        resourceType);
+                this.metricsPublisherProxy.addMetricsPublisher(this.providerMetricsPublisher);
+            }
+        }
+    }
+
+    /**
+     * Warms up the wrapper ahead of the first invocation, e.g. from the
+     * constructor of the generated HandlerWrapper. Otherwise the first request
+     * pays lazily for Jackson serializer discovery, schema parsing, validator
+     * setup and class loading of the AWS SDK. Priming runs a synthetic request
+     * through deserialization, validation, sanitization and response serialization
+     * and pre-builds the SDK clients used by the wrapper. It never invokes the
+     * handler, and only makes a remote call to open connections to the
+     * CloudWatch and CloudWatch Logs endpoints when
+     * {@link HttpClientSetting#PRECONNECT} is set. Failures are logged and
+     * otherwise ignored, the first real invocation then pays for whatever could
+     * not be primed.
+     */
+    public void prime() {
+        final long start = System.nanoTime();
+        try {
+            primeRequest();
+        } catch (final Throwable e) {
+            log(String.format("Priming request processing failed: %s", e));
+        }
+        try {
+            WrapperSupport.primeClients(HTTP_CLIENT);
+        } catch (final Throwable e) {
+            log(String.format("Priming AWS clients failed: %s", e));
+        }
+        try {
+            primeHandler();
+        } catch (final Throwable e) {
+            log(String.format("Priming handler failed: %s", e));
         }
+        ColdStart.record(ColdStart.PHASE_PRIME, start);
+    }
+
+    /**
+     * Called by checkpoint-restore runtimes such as CRaC or Lambda SnapStart
+     * before the JVM is checkpointed, so that the handler is restored fully warm.
+     */
+    public void beforeCheckpoint() {
+        prime();
+    }
+
+    /**
+     * Called by checkpoint-restore runtimes once the JVM has been restored, after
+     * the shared HTTP client has been reset and reconnected. The same checkpoint
+     * can be restored many times, handler implementations can override this to
+     * refresh anything that must be unique per execution environment.
+     */
+    public void afterRestore() {
+    }
+
+    private void restore() {
+        try {
+            WrapperSupport.preconnect();
+        } catch (final Throwable e) {
+            log(String.format("Reconnecting after restore failed: %s", e));
+        }
+        afterRestore();
+    }
+
+    private void primeRequest() throws IOException {
+        final HandlerRequest<ResourceT, CallbackT, ConfigurationT> request = deserializeRequest(
+            this.serializer.decompress(PRIMING_REQUEST));
+        transform(request);
+
+        ResourceT model = request.getRequestData().getResourceProperties();
+        if (provideResourceSchemaJSONObject() != null) {
+            try {
+                validateModel(new JSONObject(new JSONTokener(PRIMING_REQUEST)).getJSONObject("requestData")
+                    .getJSONObject("resourceProperties"));
+            } catch (final ValidationException e) {
+                // expected, the synthetic model carries no required properties
+            }
+            if (model != null) {
+                model = sanitizeModel(model);
+            }
+        }
+        this.serializer.serialize(ProgressEvent.<ResourceT, CallbackT>builder().status(OperationStatus.SUCCESS)
+            .resourceModel(model).build());
     }
 
     public void processRequest(final InputStream inputStream, final OutputStream outputStream) throws IOException,
         TerminalException {
+        processRequest(inputStream, outputStream, null);
+    }
+
+    /**
+     * Processes a request with every AWS call made through
+     * {@code injectCredentialsAndInvokeV2} passed to an interceptor, e.g. to
+     * replay a captured invocation with {@link InvocationReplay}. Invocations
+     * are not captured while an interceptor is given.
+     *
+     * @param inputStream the request
+     * @param outputStream receives the response
+     * @param serviceCalls intercepts the AWS calls of the handler, or null
+     * @throws IOException if the request cannot be read or the response not
+     *             written
+     * @throws TerminalException if there is no request
+     */
+    public void processRequest(final InputStream inputStream,
+                               final OutputStream outputStream,
+                               final ServiceCallInterceptor serviceCalls)
+        throws IOException,
+        TerminalException {
 
         ProgressEvent<ResourceT, CallbackT> handlerResponse = null;
         HandlerRequest<ResourceT, CallbackT, ConfigurationT> request = null;
+        InvocationRecorder recorder = null;
+        final WrapperSettings settings = provideSettings();
+        final boolean coldStart = this.support.beginInvocation(settings);
+        final Span trace = Span.root(SpanNames.INVOCATION, WrapperSupport.spanExporter(settings, this::log));
         scrubFiles();
         try {
             if (inputStream == null) {
                 throw new TerminalException("No request object received");
             }
 
+            final long decodeStart = System.nanoTime();
+            final Span decodeSpan = trace.child(SpanNames.DECODE);
             String input = this.serializer.decompress(IOUtils.toString(inputStream, StandardCharsets.UTF_8));
 
             JSONObject rawInput = new JSONObject(new JSONTokener(input));
+            if (serviceCalls == null) {
+                recorder = startCapture(rawInput);
+            }
             // deserialize incoming payload to modelled request
             try {
-                request = this.serializer.deserialize(input, typeReference);
+                request = deserializeRequest(input);
+                decodeSpan.attribute("length", input.length()).close();
+                ColdStart.recordInvocation(ColdStart.PHASE_DECODE, decodeStart);
+                trace.attribute("action", request.getAction()).attribute("resourceType", request.getResourceType());
 
-                handlerResponse = processInvocation(rawInput, request);
+                handlerResponse = processInvocation(rawInput, request, serviceCalls != null ? serviceCalls : recorder);
             } catch (MismatchedInputException e) {
                 JSONObject resourceSchemaJSONObject = provideResourceSchemaJSONObject();
                 JSONObject rawModelObject = rawInput.getJSONObject("requestData").getJSONObject("resourceProperties");
@@ -234,13 +400,70 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
         } finally {
             // A response will be output on all paths, though CloudFormation will
             // not block on invoking the handlers, but rather listen for callbacks
-            writeResponse(outputStream, handlerResponse);
-            publishExceptionCodeAndCountMetrics(request == null ? null : request.getAction(), handlerResponse.getErrorCode());
+            try {
+                this.support.flushLogs(this.metricsPublisherProxy, this.loggerProxy);
+                final long writeStart = System.nanoTime();
+                final Span writeSpan = trace.child(SpanNames.WRITE);
+                try {
+                    writeResponse(outputStream, handlerResponse, request == null ? null : request.getMaxResults());
+                } finally {
+                    writeSpan.close();
+                }
+                ColdStart.recordInvocation(ColdStart.PHASE_WRITE, writeStart);
+                publishExceptionCodeAndCountMetrics(request == null ? null : request.getAction(),
+                    handlerResponse.getErrorCode());
+                trace.attribute("status", handlerResponse.getStatus()).attribute("errorCode", handlerResponse.getErrorCode());
+                if (recorder != null) {
+                    recorder.recordResult(handlerResponse.getStatus(), handlerResponse.getErrorCode());
+                }
+                final LoggerProxy logger = this.loggerProxy != null ? this.loggerProxy : this.platformLoggerProxy;
+                if (coldStart) {
+                    this.support.publishColdStart(this.metricsPublisherProxy, logger);
+                }
+                this.support.publishResourceUsage(this.metricsPublisherProxy, logger,
+                    request == null ? null : request.getAction());
+                this.support.publishHttpClientStatistics(settings, this.metricsPublisherProxy);
+                this.support.flushLogs(this.metricsPublisherProxy, this.loggerProxy);
+            } finally {
+                if (recorder != null) {
+                    recorder.close();
+                }
+                trace.close();
+                // only once the capture is closed
+                tempDirectoryScrubber.scrubInBackground();
+            }
+        }
+    }
+
+    private InvocationRecorder startCapture(final JSONObject rawInput) {
+        final Path directory = provideSettings().getCaptureDirectory().get();
+        if (directory == null) {
+            return null;
+        }
+        if (tempDirectoryScrubber.scrubs(directory)) {
+            // the next invocation would see this one's request and service responses
+            log(String.format("Invocation not captured: %s is emptied between invocations", directory));
+            return null;
+        }
+        try {
+            final InvocationRecorder recorder = InvocationRecorder.start(directory, InvocationRecorder.redactionFor(rawInput));
+            recorder.recordRequest(rawInput.toString());
+            return recorder;
+        } catch (final IOException e) {
+            log(String.format("Invocation not captured: %s", e.toString()));
+            return null;
         }
     }
 
+    private HandlerRequest<ResourceT, CallbackT, ConfigurationT> deserializeRequest(final String input) throws IOException {
+        return provideLazyRequestBinding() ? this.serializer.deserializeLazily(input, typeReference)
+            : this.serializer.deserialize(input, typeReference);
+    }
+
     private ProgressEvent<ResourceT, CallbackT>
-        processInvocation(final JSONObject rawRequest, final HandlerRequest<ResourceT, CallbackT, ConfigurationT> request)
+        processInvocation(final JSONObject rawRequest,
+                          final HandlerRequest<ResourceT, CallbackT, ConfigurationT> request,
+                          final ServiceCallInterceptor serviceCalls)
             throws IOException,
             TerminalException {
         assert request != null : "Invalid request object received";
@@ -257,28 +480,48 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
         }
 
         // initialise dependencies
-        initialiseRuntime(request.getResourceType(), request.getRequestData().getProviderCredentials(),
-            request.getRequestData().getProviderLogGroupName());
+        try (Span span = Span.current().child(SpanNames.CREDENTIALS)) {
+            span.attribute("credentials", "provider");
+            initialiseRuntime(request.getResourceType(), request.getRequestData().getProviderCredentials(),
+                request.getRequestData().getProviderLogGroupName(), request.getAwsAccountId());
+        }
 
         // transform the request object to pass to caller
-        ResourceHandlerRequest<ResourceT> resourceHandlerRequest = transform(request);
-        ConfigurationT typeConfiguration = request.getRequestData().getTypeConfiguration();
+        final long transformStart = System.nanoTime();
+        ResourceHandlerRequest<ResourceT> resourceHandlerRequest;
+        final Span transformSpan = Span.current().child(SpanNames.TRANSFORM);
+        try {
+            resourceHandlerRequest = transform(request);
+        } finally {
+            transformSpan.close();
+        }
+        ColdStart.recordInvocation(ColdStart.PHASE_TRANSFORM, transformStart);
 
         if (resourceHandlerRequest != null) {
-            resourceHandlerRequest.setPreviousResourceTags(getPreviousResourceTags(request));
+            // sections are handed over unbound, the handler binds those it reads
+            final RequestData<ResourceT, ConfigurationT> requestData = request.getRequestData();
+            if (resourceHandlerRequest.getPreviousResourceStateSection() == null) {
+                resourceHandlerRequest.setPreviousResourceStateSection(requestData.getPreviousResourcePropertiesSection());
+            }
+            if (resourceHandlerRequest.getDesiredResourceTagsSection() == null) {
+                resourceHandlerRequest.setDesiredResourceTagsSection(LazySection.defer(() -> getDesiredResourceTags(request)));
+            }
+            if (resourceHandlerRequest.getSystemTagsSection() == null) {
+                resourceHandlerRequest.setSystemTagsSection(requestData.getSystemTagsSection());
+            }
+            resourceHandlerRequest.setPreviousResourceTagsSection(LazySection.defer(() -> getPreviousResourceTags(request)));
             resourceHandlerRequest.setStackId(getStackId(request));
             resourceHandlerRequest.setSnapshotRequested(request.getSnapshotRequested());
             resourceHandlerRequest.setRollback(request.getRollback());
             resourceHandlerRequest.setDriftable(request.getDriftable());
-            resourceHandlerRequest.setFeatures(request.getFeatures());
-            resourceHandlerRequest.setUpdatePolicy(request.getUpdatePolicy());
-            resourceHandlerRequest.setCreationPolicy(request.getCreationPolicy());
-            if (request.getRequestData() != null) {
-                resourceHandlerRequest.setPreviousSystemTags(request.getRequestData().getPreviousSystemTags());
-            }
+            resourceHandlerRequest.setFeaturesSection(request.getFeaturesSection());
+            resourceHandlerRequest.setUpdatePolicySection(request.getUpdatePolicySection());
+            resourceHandlerRequest.setCreationPolicySection(request.getCreationPolicySection());
+            resourceHandlerRequest.setPreviousSystemTagsSection(requestData.getPreviousSystemTagsSection());
         }
 
         this.metricsPublisherProxy.publishInvocationMetric(Instant.now(), request.getAction());
+        publishFileScrubMetric();
 
         // for create and update actions, validate incoming model - any error is a
         // terminal failure on
@@ -294,7 +537,14 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
             // are stripped by the Serializer (due to FAIL_ON_UNKNOWN_PROPERTIES setting)
             JSONObject rawModelObject = rawRequest.getJSONObject("requestData").getJSONObject("resourceProperties");
             try {
-                validateModel(rawModelObject);
+                final long validateStart = System.nanoTime();
+                final Span validateSpan = Span.current().child(SpanNames.VALIDATE);
+                try {
+                    validateModel(rawModelObject);
+                } finally {
+                    validateSpan.close();
+                }
+                ColdStart.recordInvocation(ColdStart.PHASE_VALIDATE, validateStart);
             } catch (final ValidationException e) {
                 // TODO: we'll need a better way to expose the stack of causing exceptions for
                 // user feedback
@@ -324,11 +574,20 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
         // in a non-AWS model)
         AmazonWebServicesClientProxy awsClientProxy = null;
         if (request.getRequestData().getCallerCredentials() != null) {
-            awsClientProxy = new AmazonWebServicesClientProxy(this.loggerProxy, request.getRequestData().getCallerCredentials(),
-                                                              DelayFactory.CONSTANT_DEFAULT_DELAY_FACTORY,
-                                                              WaitStrategy.scheduleForCallbackStrategy());
+            try (Span span = Span.current().child(SpanNames.CREDENTIALS)) {
+                span.attribute("credentials", "caller");
+                final WrapperSettings settings = provideSettings();
+                awsClientProxy = new AmazonWebServicesClientProxy(this.loggerProxy,
+                                                                  request.getRequestData().getCallerCredentials(),
+                                                                  settings.getDelayFactory(),
+                                                                  WaitStrategy.scheduleForCallbackStrategy(),
+                                                                  settings.getRateLimiter());
+                awsClientProxy.setServiceCallInterceptor(serviceCalls);
+            }
         }
 
+        // handlers take the type configuration as an argument, bind it only now
+        ConfigurationT typeConfiguration = request.getRequestData().getTypeConfiguration();
         ProgressEvent<ResourceT, CallbackT> handlerResponse = wrapInvocationAndHandleErrors(awsClientProxy,
             resourceHandlerRequest, request, callbackContext, typeConfiguration);
 
@@ -360,9 +619,16 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
                                       final ConfigurationT typeConfiguration) {
 
         Date startTime = Date.from(Instant.now());
+        final ThreadUsage handlerUsageStart = this.support.handlerStarted();
         try {
-            ProgressEvent<ResourceT, CallbackT> handlerResponse = invokeHandler(awsClientProxy, resourceHandlerRequest,
-                request.getAction(), callbackContext, typeConfiguration);
+            final long handlerStart = System.nanoTime();
+            ProgressEvent<ResourceT, CallbackT> handlerResponse;
+            try (Span span = Span.current().child(SpanNames.HANDLER)) {
+                handlerResponse = invokeHandler(awsClientProxy, resourceHandlerRequest, request.getAction(), callbackContext,
+                    typeConfiguration);
+                span.attribute("status", handlerResponse == null ? null : handlerResponse.getStatus());
+            }
+            ColdStart.recordInvocation(ColdStart.PHASE_HANDLER, handlerStart);
             if (handlerResponse != null) {
                 this.log(String.format("Handler returned %s", handlerResponse.getStatus()));
             } else {
@@ -392,6 +658,7 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
             logUnhandledError("An unknown error occurred ", request, e);
             return ProgressEvent.defaultFailureHandler(e, HandlerErrorCode.InternalFailure);
         } finally {
+            this.support.handlerFinished(handlerUsageStart);
             Date endTime = Date.from(Instant.now());
             metricsPublisherProxy.publishDurationMetric(Instant.now(), request.getAction(),
                 (endTime.getTime() - startTime.getTime()));
@@ -401,11 +668,29 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
 
     protected void writeResponse(final OutputStream outputStream, final ProgressEvent<ResourceT, CallbackT> response)
         throws IOException {
+        writeResponse(outputStream, response, null);
+    }
+
+    /**
+     * @param maxResults the maximum number of models a LIST page holds, or null
+     *            for no limit
+     */
+    protected void writeResponse(final OutputStream outputStream,
+                                 final ProgressEvent<ResourceT, CallbackT> response,
+                                 final Integer maxResults)
+        throws IOException {
         if (response.getResourceModel() != null) {
             // strip write only properties on final results, we will need the intact model
             // while provisioning
             if (response.getStatus() != OperationStatus.IN_PROGRESS) {
-                response.setResourceModel(sanitizeModel(response.getResourceModel()));
+                final long sanitizeStart = System.nanoTime();
+                final Span sanitizeSpan = Span.current().child(SpanNames.SANITIZE);
+                try {
+                    response.setResourceModel(sanitizeModel(response.getResourceModel()));
+                } finally {
+                    sanitizeSpan.close();
+                }
+                ColdStart.recordInvocation(ColdStart.PHASE_SANITIZE, sanitizeStart);
             }
         }
 
@@ -420,11 +705,118 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
             response.setAnnotations(null);
         }
 
-        String output = this.serializer.serialize(response);
-        outputStream.write(output.getBytes(StandardCharsets.UTF_8));
+        if (response.getResourceModelCursor() != null) {
+            writeResourceModelPage(outputStream, response, maxResults);
+            return;
+        }
+
+        writeLimited(outputStream, response, null);
+    }
+
+    /*
+     * Reads the page from the cursor before anything is written, so that the
+     * status can still be turned to FAILED if the cursor throws half way through
+     */
+    private void writeResourceModelPage(final OutputStream outputStream,
+                                        final ProgressEvent<ResourceT, CallbackT> response,
+                                        final Integer maxResults)
+        throws IOException {
+        final ResourceModelCursor<ResourceT> cursor = response.getResourceModelCursor();
+        response.setResourceModelCursor(null);
+        response.setResourceModels(null);
+        response.setNextToken(null);
+
+        final int limit = maxResults == null || maxResults <= 0 ? Integer.MAX_VALUE : maxResults;
+        final long budget = provideListResponseByteBudget();
+        final List<String> page = new ArrayList<>();
+        long bytes = 0L;
+        try {
+            while (cursor.hasNext()) {
+                final String resumeToken = cursor.nextToken();
+                if (page.size() == limit) {
+                    response.setNextToken(resumeToken);
+                    break;
+                }
+                final String model = this.serializer.serialize(cursor.next());
+                final int length = Utf8.encodedLength(model);
+                // always return a model, a page that cannot fit one would never advance
+                if (!page.isEmpty() && bytes + length + 1 > budget) {
+                    response.setNextToken(resumeToken);
+                    break;
+                }
+                page.add(model);
+                bytes += length + 1;
+            }
+        } catch (final RuntimeException | JsonProcessingException e) {
+            log(ExceptionUtils.getStackTrace(e));
+            response.setStatus(OperationStatus.FAILED);
+            response.setErrorCode(HandlerErrorCode.InternalFailure);
+            response.setMessage(e.getMessage());
+            response.setNextToken(null);
+            page.clear();
+        }
+        writeLimited(outputStream, response, page);
+    }
+
+    /*
+     * Writes the response within the response byte limit of the settings, with
+     * the models of a LIST page given as JSON if resourceModels is not null
+     */
+    private void writeLimited(final OutputStream outputStream,
+                              final ProgressEvent<ResourceT, CallbackT> response,
+                              final List<String> resourceModels)
+        throws IOException {
+        final long byteLimit = provideSettings().getResponseByteLimit();
+        if (byteLimit == Long.MAX_VALUE) {
+            serialize(response, resourceModels, outputStream, byteLimit);
+            outputStream.flush();
+            return;
+        }
+
+        // nothing may reach the output unless all of it fits: the Lambda runtime
+        // collects the response in memory, which is emptied again if it does not,
+        // other outputs are written through a buffer
+        final ByteArrayOutputStream buffer = isEmptyInMemory(outputStream)
+            ? (ByteArrayOutputStream) outputStream
+            : new ByteArrayOutputStream();
+        try {
+            serialize(response, resourceModels, buffer, byteLimit);
+        } catch (final ResponseTooLargeException e) {
+            // the platform would reject the response as a whole, fail it instead
+            log(String.format("%s, %s response replaced by a failure", e.getMessage(), response.getStatus()));
+            response.setStatus(OperationStatus.FAILED);
+            response.setErrorCode(HandlerErrorCode.InternalFailure);
+            response.setMessage(e.getMessage());
+            response.setCallbackContext(null);
+            response.setCallbackDelaySeconds(0);
+            response.setResourceModel(null);
+            response.setResourceModels(null);
+            response.setNextToken(null);
+            buffer.reset();
+            this.serializer.serialize(response, buffer);
+        }
+        if (buffer != outputStream) {
+            buffer.writeTo(outputStream);
+        }
         outputStream.flush();
     }
 
+    static boolean isEmptyInMemory(final OutputStream outputStream) {
+        return outputStream instanceof ByteArrayOutputStream && ((ByteArrayOutputStream) outputStream).size() == 0;
+    }
+
+    private void serialize(final ProgressEvent<ResourceT, CallbackT> response,
+                           final List<String> resourceModels,
+                           final OutputStream outputStream,
+                           final long byteLimit)
+        throws IOException {
+        if (resourceModels == null) {
+            this.serializer.serialize(response, outputStream, byteLimit);
+        } else {
+            this.serializer.serialize(response, "resourceModels", resourceModels, outputStream, byteLimit);
+        }
+    }
+
     protected ResourceT sanitizeModel(final ResourceT model) throws IOException {
         // strip write only properties on final results, we will need the intact model
         // while provisioning
@@ -434,24 +826,20 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
     }
 
     private void validateModel(final JSONObject modelObject) throws ValidationException, IOException {
+        final CompiledValidator compiledValidator = provideModelValidator();
+        if (compiledValidator != null) {
+            compiledValidator.validate(modelObject);
+            return;
+        }
+
         JSONObject resourceSchemaJSONObject = provideResourceSchemaJSONObject();
         if (resourceSchemaJSONObject == null) {
             throw new TerminalException("Unable to validate incoming model as no schema was provided.");
         }
 
-        TypeReference<ResourceT> modelTypeReference = getModelTypeReference();
-
-        // deserialize incoming payload to modelled request
-        ResourceT deserializedModel;
-        try {
-            deserializedModel = this.serializer.deserializeStrict(modelObject.toString(), modelTypeReference);
-        } catch (UnrecognizedPropertyException e) {
-            throw new ValidationException(String.format("#: extraneous key [%s] is not permitted", e.getPropertyName()),
-                                          "additionalProperties", "#");
-        }
-
-        JSONObject serializedModel = new JSONObject(this.serializer.serialize(deserializedModel));
-        this.validator.validateObject(serializedModel, resourceSchemaJSONObject);
+        // deserialize incoming payload to modelled request and validate it serialized again
+        new RoundTripValidator<>(this.serializer, getModelTypeReference(), resourceSchemaJSONObject, this.validator)
+            .validate(modelObject);
     }
 
     /**
@@ -482,6 +870,83 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
      */
     protected abstract Map<String, String> provideResourceDefinedTags(ResourceT resourceModel);
 
+    /**
+     * Handler implementation can override this method to tune the runtime, see
+     * {@link WrapperSettings} for each setting and its default. The settings are
+     * read on every invocation, so the same instance should be returned each
+     * time, typically built once from {@code super.provideSettings().toBuilder()}
+     * and held in a static field.
+     *
+     * @return the settings of this wrapper
+     */
+    protected WrapperSettings provideSettings() {
+        return WrapperSettings.defaults();
+    }
+
+    /**
+     * Handler implementation can override this method to pre-build its own AWS
+     * clients and warm any other state during {@link #prime()}. It must not make
+     * remote calls.
+     */
+    protected void primeHandler() {
+    }
+
+    /**
+     * Handler implementation can override this method to register Jackson modules
+     * with the serializer, typically the (de)serializers generated for the
+     * resource model so that it is not introspected through reflection. It is
+     * called once while the wrapper is constructed and must not depend on
+     * instance state.
+     *
+     * @return the modules to register, or an empty list
+     */
+    protected List<Module> provideSerializerModules() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Handler implementation can override this method to validate incoming
+     * models with a validator compiled from the resource schema when the handler
+     * was built, typically the one generated for the resource model. It replaces
+     * the strict deserialize, serialize and schema validation round trip of
+     * {@link RoundTripValidator} and must report the same failures, generated
+     * projects test both against sample models.
+     *
+     * @return the compiled validator, or null to validate against the schema
+     */
+    protected CompiledValidator provideModelValidator() {
+        return null;
+    }
+
+    /**
+     * Handler implementation can override this method to size the pages of LIST
+     * handlers that return a {@link ResourceModelCursor}. A page ends before the
+     * model that would take the serialized models over this budget, keeping the
+     * response within the invocation payload limit.
+     *
+     * @return the maximum number of bytes of serialized models in a page
+     */
+    protected long provideListResponseByteBudget() {
+        return 4L * 1024 * 1024;
+    }
+
+    /**
+     * Handler implementation can override this method to bind the rarely used
+     * sections of a request, such as the previous resource properties, tags and
+     * policies, on first access rather than on every invocation. Handlers which
+     * do not read a section, as is typical of READ, DELETE and callbacks, then do
+     * not pay for deserializing it. The type configuration is passed to the
+     * handler, so it is bound just before the handler is called. A section which
+     * does not match its type fails on access, with an
+     * {@link java.io.UncheckedIOException} reported as an internal failure,
+     * rather than failing the request as invalid up front.
+     *
+     * @return true to bind request sections lazily
+     */
+    protected boolean provideLazyRequestBinding() {
+        return false;
+    }
+
     /**
      * Implemented by the handler package as the key entry point.
      *
@@ -540,13 +1005,26 @@ public abstract class AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
         }
     }
 
+    private void publishFileScrubMetric() {
+        if (this.fileScrubResult != null) {
+            this.metricsPublisherProxy.publishFileScrubMetric(Instant.now(), fileScrubResult.getMilliseconds(),
+                fileScrubResult.getBytesFreed());
+            this.fileScrubResult = null;
+        }
+    }
+
     protected abstract TypeReference<HandlerRequest<ResourceT, CallbackT, ConfigurationT>> getTypeReference();
 
     protected abstract TypeReference<ResourceT> getModelTypeReference();
 
+    /**
+     * Guarantees the temp directory holds no file from a previous invocation. The
+     * directory is emptied in the background once each response is written, so
+     * this usually only waits for that to complete.
+     */
     protected void scrubFiles() {
         try {
-            FileUtils.cleanDirectory(FileUtils.getTempDirectory());
+            this.fileScrubResult = tempDirectoryScrubber.scrub();
         } catch (IOException e) {
             log(e.getMessage());
             publishExceptionMetric(null, new FileScrubberException(e), HandlerErrorCode.InternalFailure);
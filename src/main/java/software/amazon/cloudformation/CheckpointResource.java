@@ -0,0 +1,62 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation;
+
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import software.amazon.cloudformation.injection.SharedHttpClient;
+import software.amazon.cloudformation.tracing.Span;
+
+/**
+ * Hooks a wrapper into checkpoint-restore runtimes such as CRaC or Lambda
+ * SnapStart. Registering is a no-op on JVMs without checkpoint support. The
+ * global context only references its resources weakly, so the wrapper must hold
+ * on to the resource for as long as it should be notified.
+ */
+final class CheckpointResource implements Resource {
+
+    private final Runnable beforeCheckpoint;
+    private final Runnable afterRestore;
+
+    private CheckpointResource(final Runnable beforeCheckpoint,
+                               final Runnable afterRestore) {
+        this.beforeCheckpoint = beforeCheckpoint;
+        this.afterRestore = afterRestore;
+    }
+
+    static CheckpointResource register(final Runnable beforeCheckpoint, final Runnable afterRestore) {
+        final CheckpointResource resource = new CheckpointResource(beforeCheckpoint, afterRestore);
+        Core.getGlobalContext().register(resource);
+        return resource;
+    }
+
+    @Override
+    public void beforeCheckpoint(final Context<? extends Resource> context) {
+        beforeCheckpoint.run();
+    }
+
+    /**
+     * Every environment restored from the same checkpoint would otherwise share
+     * its pooled connections, which the server has long since closed, and the
+     * seed of its span IDs.
+     */
+    @Override
+    public void afterRestore(final Context<? extends Resource> context) {
+        SharedHttpClient.reset();
+        Span.reseedIds();
+        afterRestore.run();
+    }
+}
@@ -14,9 +14,12 @@
 */
 package software.amazon.cloudformation;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.http.SdkHttpClient;
@@ -28,6 +31,7 @@ import software.amazon.cloudformation.loggers.LogPublisher;
 import software.amazon.cloudformation.metrics.MetricsPublisher;
 import software.amazon.cloudformation.resource.SchemaValidator;
 import software.amazon.cloudformation.resource.Serializer;
+import software.amazon.cloudformation.scheduler.InProcessScheduler;
 
 public abstract class ExecutableWrapper<ResourceT, CallbackT, ConfigurationT>
     extends AbstractWrapper<ResourceT, CallbackT, ConfigurationT> {
@@ -61,4 +65,21 @@ public abstract class ExecutableWrapper<ResourceT, CallbackT, ConfigurationT>
         processRequest(inputStream, outputStream);
         outputStream.flush();
     }
+
+    /**
+     * Adapts this wrapper for an {@link InProcessScheduler}, so that a
+     * self-hosted deployment re-invokes the warm wrapper rather than starting a
+     * new process for every callback. The scheduler invokes it from a single
+     * thread, the host must not invoke the wrapper concurrently.
+     *
+     * @return invokes {@link #handleRequest(InputStream, OutputStream)} with a
+     *         serialized request
+     */
+    public InProcessScheduler.Reinvoker reinvoker() {
+        return request -> {
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            handleRequest(new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)), response);
+            return new String(response.toByteArray(), StandardCharsets.UTF_8);
+        };
+    }
 }
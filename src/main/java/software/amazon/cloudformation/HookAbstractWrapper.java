@@ -17,6 +17,7 @@ package software.amazon.cloudformation;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.retry.RetryUtils;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.Module;
 import com.google.common.annotations.VisibleForTesting;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -25,10 +26,14 @@ import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -44,23 +49,28 @@ import software.amazon.awssdk.http.HttpStatusFamily;
 import software.amazon.awssdk.http.SdkHttpClient;
 import software.amazon.awssdk.http.SdkHttpMethod;
 import software.amazon.awssdk.http.SdkHttpRequest;
-import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.utils.IoUtils;
 import software.amazon.cloudformation.encryption.Cipher;
 import software.amazon.cloudformation.encryption.KMSCipher;
 import software.amazon.cloudformation.exceptions.BaseHandlerException;
 import software.amazon.cloudformation.exceptions.EncryptionException;
 import software.amazon.cloudformation.exceptions.FileScrubberException;
+import software.amazon.cloudformation.exceptions.ResponseTooLargeException;
 import software.amazon.cloudformation.exceptions.TerminalException;
 import software.amazon.cloudformation.injection.CloudWatchLogsProvider;
 import software.amazon.cloudformation.injection.CloudWatchProvider;
 import software.amazon.cloudformation.injection.CredentialsProvider;
+import software.amazon.cloudformation.injection.HttpClientSetting;
 import software.amazon.cloudformation.injection.SessionCredentialsProvider;
+import software.amazon.cloudformation.injection.SharedHttpClient;
 import software.amazon.cloudformation.loggers.CloudWatchLogHelper;
 import software.amazon.cloudformation.loggers.CloudWatchLogPublisher;
 import software.amazon.cloudformation.loggers.LogPublisher;
+import software.amazon.cloudformation.metrics.ColdStart;
+import software.amazon.cloudformation.metrics.HookEmfMetricsPublisher;
 import software.amazon.cloudformation.metrics.HookMetricsPublisherImpl;
 import software.amazon.cloudformation.metrics.MetricsPublisher;
+import software.amazon.cloudformation.metrics.ThreadUsage;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.Credentials;
 import software.amazon.cloudformation.proxy.DelayFactory;
@@ -69,21 +79,40 @@ import software.amazon.cloudformation.proxy.LoggerProxy;
 import software.amazon.cloudformation.proxy.MetricsPublisherProxy;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ServiceCallInterceptor;
+import software.amazon.cloudformation.proxy.TokenBucketRateLimiter;
 import software.amazon.cloudformation.proxy.WaitStrategy;
+import software.amazon.cloudformation.proxy.hook.ChangedResourceEvaluation;
+import software.amazon.cloudformation.proxy.hook.ChangedResourceEvaluator;
 import software.amazon.cloudformation.proxy.hook.HookHandlerRequest;
 import software.amazon.cloudformation.proxy.hook.HookInvocationRequest;
 import software.amazon.cloudformation.proxy.hook.HookProgressEvent;
 import software.amazon.cloudformation.proxy.hook.HookRequestContext;
 import software.amazon.cloudformation.proxy.hook.HookRequestData;
 import software.amazon.cloudformation.proxy.hook.HookStatus;
+import software.amazon.cloudformation.proxy.hook.targetmodel.HookTargetType;
+import software.amazon.cloudformation.replay.InvocationRecorder;
+import software.amazon.cloudformation.replay.InvocationReplay;
 import software.amazon.cloudformation.resource.SchemaValidator;
 import software.amazon.cloudformation.resource.Serializer;
 import software.amazon.cloudformation.resource.Validator;
+import software.amazon.cloudformation.tracing.Span;
+import software.amazon.cloudformation.tracing.SpanNames;
 
 public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
 
-    public static final SdkHttpClient HTTP_CLIENT = ApacheHttpClient.builder().build();
+    public static final SdkHttpClient HTTP_CLIENT = ColdStart.time(ColdStart.PHASE_HTTP_CLIENT, SharedHttpClient::get);
     private static final Logger LOG = LoggerFactory.getLogger(HookAbstractWrapper.class);
+    // the longest a Lambda function runs, when the remaining time is not known
+    private static final Duration MAX_INVOCATION_TIME = Duration.ofMinutes(15);
+
+    //
+    // Synthetic request used for priming, never handed to the handler
+    //
+    private static final String PRIMING_REQUEST = "{\"clientRequestToken\":\"priming\",\"awsAccountId\":\"123456789012\","
+        + "\"hookTypeName\":\"AWS::Priming::Hook\",\"actionInvocationPoint\":\"CREATE_PRE_PROVISION\","
+        + "\"requestData\":{\"targetName\":\"AWS::Priming::Resource\",\"targetType\":\"RESOURCE\","
+        + "\"targetLogicalId\":\"Priming\",\"targetModel\":{\"resourceProperties\":{}}}}";
 
     protected final Serializer serializer;
     protected LoggerProxy loggerProxy;
@@ -109,12 +138,22 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
     private CloudWatchLogHelper cloudWatchLogHelper;
     private CloudWatchLogPublisher providerEventsLogger;
 
+    private final TempDirectoryScrubber tempDirectoryScrubber = new TempDirectoryScrubber(
+        FileUtils.getTempDirectory().toPath());
+    private TempDirectoryScrubber.Result fileScrubResult;
+    // held strongly, the checkpoint context only keeps a weak reference
+    private final CheckpointResource checkpointResource = CheckpointResource.register(this::beforeCheckpoint,
+        this::restore);
+    private final WrapperSupport support;
+
     protected HookAbstractWrapper() {
         this.providerCredentialsProvider = new SessionCredentialsProvider();
         this.providerCloudWatchProvider = new CloudWatchProvider(this.providerCredentialsProvider, HTTP_CLIENT);
         this.cloudWatchLogsProvider = new CloudWatchLogsProvider(this.providerCredentialsProvider, HTTP_CLIENT);
-        this.serializer = new Serializer();
-        this.validator = new Validator();
+        this.serializer = ColdStart.time(ColdStart.PHASE_SERIALIZER,
+            () -> new Serializer(false, provideSerializerModules()));
+        this.validator = ColdStart.time(ColdStart.PHASE_VALIDATOR, Validator::new);
+        this.support = new WrapperSupport(true);
         this.typeReference = getTypeReference();
         this.platformLoggerProxy = new LoggerProxy();
     }
@@ -140,6 +179,7 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
         this.validator = validator;
         this.typeReference = getTypeReference();
         this.cipher = cipher;
+        this.support = new WrapperSupport(false);
         this.platformLoggerProxy = new LoggerProxy();
     }
 
@@ -154,8 +194,9 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
                                    final String hookEncryptionKeyArn,
                                    final String hookEncryptionKeyRole) {
 
+        final WrapperSettings settings = provideSettings();
         this.metricsPublisherProxy = new MetricsPublisherProxy();
-        this.loggerProxy = new LoggerProxy();
+        this.loggerProxy = new LoggerProxy(settings.getLogBufferCapacity());
         this.loggerProxy.addLogPublisher(this.platformLogPublisher);
 
         // Initialisation skipped if dependencies were set during injection (in unit
@@ -175,44 +216,172 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
             if (this.providerCredentialsProvider != null) {
                 this.providerCredentialsProvider.setCredentials(processedProviderCredentials);
             }
+            // clients report to the pool statistics only when they are published
+            this.providerCloudWatchProvider.setHttpClientMetrics(settings.isHttpClientMetrics());
+            this.cloudWatchLogsProvider.setHttpClientMetrics(settings.isHttpClientMetrics());
 
-            if (this.providerMetricsPublisher == null) {
+            if (this.providerMetricsPublisher == null && !settings.isEmbeddedMetrics()) {
                 this.providerMetricsPublisher = new HookMetricsPublisherImpl(this.providerCloudWatchProvider, this.loggerProxy,
-                                                                             awsAccountId, hookTypeName);
+                                                                             awsAccountId, hookTypeName,
+                                                                             settings.getAsyncMetricsDeadline());
+            }
+            if (this.providerMetricsPublisher != null) {
+                this.metricsPublisherProxy.addMetricsPublisher(this.providerMetricsPublisher);
+                this.providerMetricsPublisher.refreshClient();
             }
-            this.metricsPublisherProxy.addMetricsPublisher(this.providerMetricsPublisher);
-            this.providerMetricsPublisher.refreshClient();
 
             if (this.providerEventsLogger == null) {
                 this.cloudWatchLogHelper = new CloudWatchLogHelper(this.cloudWatchLogsProvider, providerLogGroupName,
-                                                                   this.platformLoggerProxy, this.metricsPublisherProxy);
+                                                                   awsAccountId, this.platformLoggerProxy,
+                                                                   this.metricsPublisherProxy);
                 this.cloudWatchLogHelper.refreshClient();
 
-                this.providerEventsLogger = new CloudWatchLogPublisher(this.cloudWatchLogsProvider, providerLogGroupName,
-                                                                       this.cloudWatchLogHelper.prepareLogStream(),
+                // the log stream is created along with the first log events
+                this.providerEventsLogger = new CloudWatchLogPublisher(this.cloudWatchLogsProvider, this.cloudWatchLogHelper,
                                                                        this.platformLoggerProxy, this.metricsPublisherProxy);
             }
             this.loggerProxy.addLogPublisher(this.providerEventsLogger);
             this.providerEventsLogger.refreshClient();
+
+            if (this.providerMetricsPublisher == null) {
+                this.providerMetricsPublisher = new HookEmfMetricsPublisher(this.providerEventsLogger, this.loggerProxy,
+                                                                            awsAccountId, hookTypeName);
+                this.metricsPublisherProxy.addMetricsPublisher(this.providerMetricsPublisher);
+            }
+        }
+    }
+
+    /**
+     * Warms up the wrapper ahead of the first invocation, e.g. from the
+     * constructor of the generated HookHandlerWrapper. Otherwise the first request
+     * pays lazily for Jackson serializer discovery, schema parsing, the STS client
+     * used to decrypt credentials and class loading of the AWS SDK. Priming runs a
+     * synthetic request through deserialization, transformation and response
+     * serialization and pre-builds the SDK clients used by the wrapper. It never
+     * invokes the handler, and only makes a remote call to open connections to
+     * the CloudWatch and CloudWatch Logs endpoints when
+     * {@link HttpClientSetting#PRECONNECT} is set. Failures are logged and
+     * otherwise ignored, the first real invocation then pays for whatever could
+     * not be primed.
+     */
+    public void prime() {
+        final long start = System.nanoTime();
+        try {
+            primeRequest();
+        } catch (final Throwable e) {
+            log(String.format("Priming request processing failed: %s", e));
+        }
+        try {
+            primeClients();
+        } catch (final Throwable e) {
+            log(String.format("Priming AWS clients failed: %s", e));
+        }
+        try {
+            primeHandler();
+        } catch (final Throwable e) {
+            log(String.format("Priming handler failed: %s", e));
+        }
+        ColdStart.record(ColdStart.PHASE_PRIME, start);
+    }
+
+    /**
+     * Called by checkpoint-restore runtimes such as CRaC or Lambda SnapStart
+     * before the JVM is checkpointed, so that the handler is restored fully warm.
+     */
+    public void beforeCheckpoint() {
+        prime();
+    }
+
+    /**
+     * Called by checkpoint-restore runtimes once the JVM has been restored, after
+     * the shared HTTP client has been reset and reconnected. The same checkpoint
+     * can be restored many times, handler implementations can override this to
+     * refresh anything that must be unique per execution environment.
+     */
+    public void afterRestore() {
+    }
+
+    private void restore() {
+        try {
+            preconnect();
+        } catch (final Throwable e) {
+            log(String.format("Reconnecting after restore failed: %s", e));
         }
+        afterRestore();
+    }
+
+    private void primeRequest() throws IOException {
+        final HookInvocationRequest<ConfigurationT, CallbackT> request = this.serializer.deserialize(PRIMING_REQUEST,
+            typeReference);
+        isHookInvocationPayloadRemote(request.getRequestData());
+        transform(request);
+        provideHookSchemaJSONObject();
+        this.serializer.serialize(createProgressResponse(ProgressEvent.<TargetT, CallbackT>builder()
+            .status(OperationStatus.SUCCESS).build(), request));
+    }
+
+    private void primeClients() {
+        WrapperSupport.primeClients(HTTP_CLIENT);
+        KMSCipher.prime();
+    }
+
+    private void preconnect() {
+        WrapperSupport.preconnect();
+        KMSCipher.prime();
     }
 
     public void processRequest(final InputStream inputStream, final OutputStream outputStream) throws IOException,
         TerminalException {
+        processRequest(inputStream, outputStream, null);
+    }
+
+    /**
+     * Processes a request with every AWS call made through
+     * {@code injectCredentialsAndInvokeV2} passed to an interceptor, e.g. to
+     * replay a captured invocation with {@link InvocationReplay}. Invocations
+     * are not captured while an interceptor is given.
+     *
+     * @param inputStream the request
+     * @param outputStream receives the response
+     * @param serviceCalls intercepts the AWS calls of the handler, or null
+     * @throws IOException if the request cannot be read or the response not
+     *             written
+     * @throws TerminalException if there is no request
+     */
+    public void processRequest(final InputStream inputStream,
+                               final OutputStream outputStream,
+                               final ServiceCallInterceptor serviceCalls)
+        throws IOException,
+        TerminalException {
 
         ProgressEvent<TargetT, CallbackT> handlerResponse = null;
         HookInvocationRequest<ConfigurationT, CallbackT> request = null;
+        InvocationRecorder recorder = null;
+        final WrapperSettings settings = provideSettings();
+        final boolean coldStart = this.support.beginInvocation(settings);
+        final Span trace = Span.root(SpanNames.INVOCATION, WrapperSupport.spanExporter(settings, this::log));
         scrubFiles();
         try {
             if (inputStream == null) {
                 throw new TerminalException("No request object received");
             }
 
-            String input = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
-            JSONObject rawInput = new JSONObject(new JSONTokener(input));
-            // deserialize incoming payload to modeled request
-            request = this.serializer.deserialize(input, typeReference);
-            handlerResponse = processInvocation(rawInput, request);
+            final long decodeStart = System.nanoTime();
+            JSONObject rawInput;
+            try (Span span = trace.child(SpanNames.DECODE)) {
+                String input = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+                span.attribute("length", input.length());
+                rawInput = new JSONObject(new JSONTokener(input));
+                // deserialize incoming payload to modeled request
+                request = this.serializer.deserialize(input, typeReference);
+            }
+            ColdStart.recordInvocation(ColdStart.PHASE_DECODE, decodeStart);
+            trace.attribute("invocationPoint", request.getActionInvocationPoint()).attribute("hookTypeName",
+                request.getHookTypeName());
+            if (serviceCalls == null) {
+                recorder = startCapture(rawInput);
+            }
+            handlerResponse = processInvocation(rawInput, request, serviceCalls != null ? serviceCalls : recorder, recorder);
         } catch (final Throwable e) {
             // Exceptions are wrapped as a consistent error response to the caller (i.e;
             // CloudFormation)
@@ -224,14 +393,63 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
         } finally {
             // A response will be output on all paths, though CloudFormation will
             // not block on invoking the handlers, but rather listen for callbacks
-            writeResponse(outputStream, createProgressResponse(handlerResponse, request));
-            publishExceptionCodeAndCountMetrics(request == null ? null : request.getActionInvocationPoint(),
-                handlerResponse.getErrorCode());
+            try {
+                this.support.flushLogs(this.metricsPublisherProxy, this.loggerProxy);
+                final long writeStart = System.nanoTime();
+                final Span writeSpan = trace.child(SpanNames.WRITE);
+                try {
+                    writeResponse(outputStream, handlerResponse, request);
+                } finally {
+                    writeSpan.close();
+                }
+                ColdStart.recordInvocation(ColdStart.PHASE_WRITE, writeStart);
+                publishExceptionCodeAndCountMetrics(request == null ? null : request.getActionInvocationPoint(),
+                    handlerResponse.getErrorCode());
+                trace.attribute("status", handlerResponse.getStatus()).attribute("errorCode", handlerResponse.getErrorCode());
+                if (recorder != null) {
+                    recorder.recordResult(handlerResponse.getStatus(), handlerResponse.getErrorCode());
+                }
+                final LoggerProxy logger = this.loggerProxy != null ? this.loggerProxy : this.platformLoggerProxy;
+                if (coldStart) {
+                    this.support.publishColdStart(this.metricsPublisherProxy, logger);
+                }
+                this.support.publishResourceUsage(this.metricsPublisherProxy, logger,
+                    request == null ? null : request.getActionInvocationPoint());
+                this.support.publishHttpClientStatistics(settings, this.metricsPublisherProxy);
+                this.support.flushLogs(this.metricsPublisherProxy, this.loggerProxy);
+            } finally {
+                if (recorder != null) {
+                    recorder.close();
+                }
+                trace.close();
+                // only once the capture is closed
+                tempDirectoryScrubber.scrubInBackground();
+            }
+        }
+    }
+
+    private InvocationRecorder startCapture(final JSONObject rawInput) {
+        final Path directory = provideSettings().getCaptureDirectory().get();
+        if (directory == null) {
+            return null;
+        }
+        if (tempDirectoryScrubber.scrubs(directory)) {
+            // the next invocation would see this one's request and service responses
+            logError(String.format("Invocation not captured: %s is emptied between invocations", directory));
+            return null;
+        }
+        try {
+            return InvocationRecorder.start(directory, InvocationRecorder.redactionFor(rawInput));
+        } catch (final IOException e) {
+            logError(String.format("Invocation not captured: %s", e.toString()));
+            return null;
         }
     }
 
     private ProgressEvent<TargetT, CallbackT> processInvocation(final JSONObject rawRequest,
-                                                                final HookInvocationRequest<ConfigurationT, CallbackT> request)
+                                                                final HookInvocationRequest<ConfigurationT, CallbackT> request,
+                                                                final ServiceCallInterceptor serviceCalls,
+                                                                final InvocationRecorder recorder)
         throws IOException,
         TerminalException {
 
@@ -241,38 +459,65 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
 
         try {
             // initialise dependencies with platform credentials
-            initialiseRuntime(request.getHookTypeName(), request.getRequestData().getProviderCredentials(),
-                request.getRequestData().getProviderLogGroupName(), request.getAwsAccountId(),
-                request.getRequestData().getHookEncryptionKeyArn(), request.getRequestData().getHookEncryptionKeyRole());
+            try (Span span = Span.current().child(SpanNames.CREDENTIALS)) {
+                span.attribute("credentials", "provider");
+                initialiseRuntime(request.getHookTypeName(), request.getRequestData().getProviderCredentials(),
+                    request.getRequestData().getProviderLogGroupName(), request.getAwsAccountId(),
+                    request.getRequestData().getHookEncryptionKeyArn(), request.getRequestData().getHookEncryptionKeyRole());
+            }
 
             if (isPayloadRemote) {
                 Map<String, Object> targetModelData = retrieveHookInvocationPayloadFromS3(request.getRequestData().getPayload());
 
                 request.getRequestData().setTargetModel(targetModelData);
             }
+            if (recorder != null) {
+                // captured with the target model in place of the payload, which is gone by the time of replay
+                final JSONObject capturedRequest = new JSONObject(rawRequest.toString());
+                if (isPayloadRemote) {
+                    capturedRequest.getJSONObject("requestData").put("targetModel",
+                        new JSONObject(request.getRequestData().getTargetModel())).remove("payload");
+                }
+                recorder.recordRequest(capturedRequest.toString());
+            }
 
             // transform the request object to pass to caller
-            HookHandlerRequest hookHandlerRequest = transform(request);
+            final long transformStart = System.nanoTime();
+            HookHandlerRequest hookHandlerRequest;
+            final Span transformSpan = Span.current().child(SpanNames.TRANSFORM);
+            try {
+                hookHandlerRequest = transform(request);
+            } finally {
+                transformSpan.close();
+            }
+            ColdStart.recordInvocation(ColdStart.PHASE_TRANSFORM, transformStart);
             ConfigurationT typeConfiguration = request.getHookModel();
 
             HookRequestContext<CallbackT> requestContext = request.getRequestContext();
 
             this.metricsPublisherProxy.publishInvocationMetric(Instant.now(), request.getActionInvocationPoint());
+            publishFileScrubMetric();
 
             // last mile proxy creation with passed-in credentials (unless we are operating
             // in a non-AWS model)
-            AmazonWebServicesClientProxy awsClientProxy = null;
-            Credentials processedCallerCredentials = processCredentials(request.getRequestData().getCallerCredentials());
-            if (processedCallerCredentials != null) {
-                awsClientProxy = new AmazonWebServicesClientProxy(this.loggerProxy, processedCallerCredentials,
-                                                                  DelayFactory.CONSTANT_DEFAULT_DELAY_FACTORY,
-                                                                  WaitStrategy.scheduleForCallbackStrategy());
-
+            Supplier<AmazonWebServicesClientProxy> awsClientProxies = () -> null;
+            try (Span span = Span.current().child(SpanNames.CREDENTIALS)) {
+                span.attribute("credentials", "caller");
+                Credentials processedCallerCredentials = processCredentials(request.getRequestData().getCallerCredentials());
+                if (processedCallerCredentials != null) {
+                    final WrapperSettings settings = provideSettings();
+                    final DelayFactory delayFactory = settings.getDelayFactory();
+                    final TokenBucketRateLimiter rateLimiter = settings.getRateLimiter();
+                    // a new proxy for each changed resource evaluated concurrently
+                    awsClientProxies = () -> newClientProxy(processedCallerCredentials, delayFactory, rateLimiter,
+                        serviceCalls);
+                }
             }
 
             CallbackT callbackContext = (requestContext != null) ? requestContext.getCallbackContext() : null;
 
-            return wrapInvocationAndHandleErrors(awsClientProxy, hookHandlerRequest, request, callbackContext, typeConfiguration);
+            return wrapInvocationAndHandleErrors(awsClientProxies, hookHandlerRequest, request, callbackContext,
+                typeConfiguration, serviceCalls != null);
 
         } catch (EncryptionException e) {
             publishExceptionMetric(request.getActionInvocationPoint(), e, HandlerErrorCode.AccessDenied);
@@ -289,6 +534,18 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
             request.getHookTypeName(), e.toString(), ExceptionUtils.getStackTrace(e)));
     }
 
+    private AmazonWebServicesClientProxy newClientProxy(final Credentials callerCredentials,
+                                                        final DelayFactory delayFactory,
+                                                        final TokenBucketRateLimiter rateLimiter,
+                                                        final ServiceCallInterceptor serviceCalls) {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(this.loggerProxy, callerCredentials,
+                                                                                    delayFactory,
+                                                                                    WaitStrategy.scheduleForCallbackStrategy(),
+                                                                                    rateLimiter);
+        proxy.setServiceCallInterceptor(serviceCalls);
+        return proxy;
+    }
+
     /**
      * Invokes the handler implementation for the request, and wraps with try-catch
      * to consistently handle certain classes of errors and correctly map those to
@@ -296,16 +553,33 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
      * timing metrics
      */
     private ProgressEvent<TargetT, CallbackT>
-        wrapInvocationAndHandleErrors(final AmazonWebServicesClientProxy awsClientProxy,
+        wrapInvocationAndHandleErrors(final Supplier<AmazonWebServicesClientProxy> awsClientProxies,
                                       final HookHandlerRequest hookHandlerRequest,
                                       final HookInvocationRequest<ConfigurationT, CallbackT> request,
                                       final CallbackT callbackContext,
-                                      final ConfigurationT typeConfiguration) {
+                                      final ConfigurationT typeConfiguration,
+                                      final boolean intercepted) {
 
         Date startTime = Date.from(Instant.now());
+        final ThreadUsage handlerUsageStart = this.support.handlerStarted();
         try {
-            ProgressEvent<TargetT, CallbackT> handlerResponse = invokeHandler(awsClientProxy, hookHandlerRequest,
-                request.getActionInvocationPoint(), callbackContext, typeConfiguration);
+            final long handlerStart = System.nanoTime();
+            final ChangedResourceEvaluator<TargetT, CallbackT, ConfigurationT> evaluator = provideChangedResourceEvaluator();
+            ProgressEvent<TargetT, CallbackT> handlerResponse;
+            try (Span span = Span.current().child(SpanNames.HANDLER)) {
+                if (evaluator != null && isStackTarget(hookHandlerRequest)) {
+                    // captured and replayed calls have to be made in a repeatable order
+                    final int parallelism = intercepted ? 1 : provideChangedResourceParallelism();
+                    handlerResponse = new ChangedResourceEvaluation<>(evaluator, parallelism).evaluate(awsClientProxies,
+                        hookHandlerRequest, () -> this.serializer.copy(callbackContext), typeConfiguration,
+                        changedResourceDeadline());
+                } else {
+                    handlerResponse = invokeHandler(awsClientProxies.get(), hookHandlerRequest,
+                        request.getActionInvocationPoint(), callbackContext, typeConfiguration);
+                }
+                span.attribute("status", handlerResponse == null ? null : handlerResponse.getStatus());
+            }
+            ColdStart.recordInvocation(ColdStart.PHASE_HANDLER, handlerStart);
             if (handlerResponse != null) {
                 this.log(String.format("Handler returned %s", handlerResponse.getStatus()));
             } else {
@@ -355,12 +629,31 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
 
             return ProgressEvent.defaultFailureHandler(e, HandlerErrorCode.InternalFailure);
         } finally {
+            this.support.handlerFinished(handlerUsageStart);
             Date endTime = Date.from(Instant.now());
             metricsPublisherProxy.publishDurationMetric(Instant.now(), request.getActionInvocationPoint(),
                 (endTime.getTime() - startTime.getTime()));
         }
     }
 
+    /*
+     * Leaves a tenth of the remaining time, at least a second, to merge the
+     * evaluations and respond
+     */
+    private Instant changedResourceDeadline() {
+        final Duration remaining = provideRemainingTime();
+        final Duration budget = remaining == null ? MAX_INVOCATION_TIME : remaining;
+        final Duration reserve = budget.dividedBy(10).compareTo(Duration.ofSeconds(1)) > 0
+            ? budget.dividedBy(10)
+            : Duration.ofSeconds(1);
+        return Instant.now().plus(budget.minus(reserve));
+    }
+
+    private static boolean isStackTarget(final HookHandlerRequest hookHandlerRequest) {
+        return hookHandlerRequest.getHookContext() != null
+            && HookTargetType.STACK.name().equals(hookHandlerRequest.getHookContext().getTargetType());
+    }
+
     private HookProgressEvent<CallbackT> createProgressResponse(final ProgressEvent<TargetT, CallbackT> progressEvent,
                                                                 final HookInvocationRequest<ConfigurationT, CallbackT> request) {
         final HookProgressEvent<CallbackT> response = new HookProgressEvent<>();
@@ -378,9 +671,39 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
         return response;
     }
 
-    private void writeResponse(final OutputStream outputStream, final HookProgressEvent<CallbackT> response) throws IOException {
-        String output = this.serializer.serialize(response);
-        outputStream.write(output.getBytes(StandardCharsets.UTF_8));
+    private void writeResponse(final OutputStream outputStream,
+                               final ProgressEvent<TargetT, CallbackT> handlerResponse,
+                               final HookInvocationRequest<ConfigurationT, CallbackT> request)
+        throws IOException {
+        final long byteLimit = provideSettings().getResponseByteLimit();
+        if (byteLimit == Long.MAX_VALUE) {
+            this.serializer.serialize(createProgressResponse(handlerResponse, request), outputStream);
+            outputStream.flush();
+            return;
+        }
+
+        // nothing may reach the output unless all of it fits, see AbstractWrapper
+        final ByteArrayOutputStream buffer = AbstractWrapper.isEmptyInMemory(outputStream)
+            ? (ByteArrayOutputStream) outputStream
+            : new ByteArrayOutputStream();
+        try {
+            this.serializer.serialize(createProgressResponse(handlerResponse, request), buffer, byteLimit);
+        } catch (final ResponseTooLargeException e) {
+            // the platform would reject the response as a whole, fail it instead
+            log(String.format("%s, %s response replaced by a failure", e.getMessage(), handlerResponse.getStatus()));
+            handlerResponse.setStatus(OperationStatus.FAILED);
+            handlerResponse.setErrorCode(HandlerErrorCode.InternalFailure);
+            handlerResponse.setMessage(e.getMessage());
+            handlerResponse.setResult(null);
+            handlerResponse.setCallbackContext(null);
+            handlerResponse.setCallbackDelaySeconds(0);
+            handlerResponse.setAnnotations(null);
+            buffer.reset();
+            this.serializer.serialize(createProgressResponse(handlerResponse, request), buffer);
+        }
+        if (buffer != outputStream) {
+            buffer.writeTo(outputStream);
+        }
         outputStream.flush();
     }
 
@@ -447,6 +770,80 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
      */
     protected abstract JSONObject provideHookSchemaJSONObject();
 
+    /**
+     * Handler implementation can override this method to tune the runtime, see
+     * {@link WrapperSettings} for each setting and its default. The settings are
+     * read on every invocation, so the same instance should be returned each
+     * time, typically built once from {@code super.provideSettings().toBuilder()}
+     * and held in a static field.
+     *
+     * @return the settings of this wrapper
+     */
+    protected WrapperSettings provideSettings() {
+        return WrapperSettings.defaults();
+    }
+
+    /**
+     * Handler implementation can override this method to pre-build its own AWS
+     * clients and warm any other state during {@link #prime()}. It must not make
+     * remote calls.
+     */
+    protected void primeHandler() {
+    }
+
+    /**
+     * Handler implementation can override this method to register Jackson modules
+     * with the serializer, typically the (de)serializers generated for the
+     * resource model so that it is not introspected through reflection. It is
+     * called once while the wrapper is constructed and must not depend on
+     * instance state.
+     *
+     * @return the modules to register, or an empty list
+     */
+    protected List<Module> provideSerializerModules() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Handler implementation can override this method to evaluate the changed
+     * resources of STACK target invocations one at a time instead of looping over
+     * them in {@link #invokeHandler}. The evaluations run concurrently and their
+     * statuses, messages and annotations are merged into one response, see
+     * {@link ChangedResourceEvaluation}. Invocations for other targets still go to
+     * invokeHandler.
+     *
+     * @return the evaluator for the changed resources of a stack, or null to pass
+     *         STACK targets to invokeHandler
+     */
+    protected ChangedResourceEvaluator<TargetT, CallbackT, ConfigurationT> provideChangedResourceEvaluator() {
+        return null;
+    }
+
+    /**
+     * Handler implementation can override this method to bound how many changed
+     * resources are evaluated at the same time, typically to stay within the
+     * rate limits of the services the evaluator calls. Captured and replayed
+     * invocations evaluate one resource at a time.
+     *
+     * @return the maximum number of concurrent evaluations, at least 1
+     */
+    protected int provideChangedResourceParallelism() {
+        return 8;
+    }
+
+    /**
+     * Handler implementation can override this method to bound the time
+     * changed resources are evaluated in, see
+     * {@link #provideChangedResourceEvaluator()}. The Lambda wrapper returns
+     * the remaining time of the function invocation.
+     *
+     * @return how long the invocation may still run, or null if unknown, in
+     *         which case it is assumed to be the longest a Lambda function runs
+     */
+    protected Duration provideRemainingTime() {
+        return null;
+    }
+
     /**
      * Implemented by the handler package as the key entry point.
      *
@@ -537,6 +934,14 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
         }
     }
 
+    private void publishFileScrubMetric() {
+        if (this.fileScrubResult != null) {
+            this.metricsPublisherProxy.publishFileScrubMetric(Instant.now(), fileScrubResult.getMilliseconds(),
+                fileScrubResult.getBytesFreed());
+            this.fileScrubResult = null;
+        }
+    }
+
     private void logError(final String message) {
         if (this.loggerProxy != null) {
             this.loggerProxy.log(String.format("%s%n", message));
@@ -551,9 +956,14 @@ public abstract class HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> {
 
     protected abstract TypeReference<ConfigurationT> getModelTypeReference();
 
+    /**
+     * Guarantees the temp directory holds no file from a previous invocation. The
+     * directory is emptied in the background once each response is written, so
+     * this usually only waits for that to complete.
+     */
     protected void scrubFiles() {
         try {
-            FileUtils.cleanDirectory(FileUtils.getTempDirectory());
+            this.fileScrubResult = tempDirectoryScrubber.scrub();
         } catch (IOException e) {
             log(e.getMessage());
             publishExceptionMetric(null, new FileScrubberException(e), HandlerErrorCode.InternalFailure);
@@ -19,6 +19,7 @@ import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.time.Duration;
 import software.amazon.awssdk.http.SdkHttpClient;
 import software.amazon.cloudformation.encryption.Cipher;
 import software.amazon.cloudformation.exceptions.TerminalException;
@@ -33,6 +34,11 @@ import software.amazon.cloudformation.resource.Serializer;
 public abstract class HookLambdaWrapper<TargetT, CallbackT, ConfigurationT>
     extends HookAbstractWrapper<TargetT, CallbackT, ConfigurationT> implements RequestStreamHandler {
 
+    private static final WrapperSettings SETTINGS = WrapperSettings.defaults().toBuilder()
+        .responseByteLimit(LambdaWrapper.RESPONSE_PAYLOAD_LIMIT_BYTES).build();
+
+    private Context context;
+
     public HookLambdaWrapper() {
         super();
     }
@@ -61,7 +67,18 @@ public abstract class HookLambdaWrapper<TargetT, CallbackT, ConfigurationT>
             platformLogPublisher = new LambdaLogPublisher(context.getLogger());
         }
         this.platformLoggerProxy.addLogPublisher(platformLogPublisher);
+        this.context = context;
         processRequest(inputStream, outputStream);
         outputStream.close();
     }
+
+    @Override
+    protected Duration provideRemainingTime() {
+        return context == null ? null : Duration.ofMillis(context.getRemainingTimeInMillis());
+    }
+
+    @Override
+    protected WrapperSettings provideSettings() {
+        return SETTINGS;
+    }
 }
@@ -32,6 +32,14 @@ import software.amazon.cloudformation.resource.Serializer;
 public abstract class LambdaWrapper<ResourceT, CallbackT, ConfigurationT>
     extends AbstractWrapper<ResourceT, CallbackT, ConfigurationT> implements RequestStreamHandler {
 
+    /**
+     * Largest response of a synchronous Lambda invocation
+     */
+    public static final long RESPONSE_PAYLOAD_LIMIT_BYTES = 6L * 1024 * 1024;
+
+    private static final WrapperSettings SETTINGS = WrapperSettings.defaults().toBuilder()
+        .responseByteLimit(RESPONSE_PAYLOAD_LIMIT_BYTES).build();
+
     public LambdaWrapper() {
         super();
     }
@@ -61,4 +69,9 @@ public abstract class LambdaWrapper<ResourceT, CallbackT, ConfigurationT>
         processRequest(inputStream, outputStream);
         outputStream.close();
     }
+
+    @Override
+    protected WrapperSettings provideSettings() {
+        return SETTINGS;
+    }
 }
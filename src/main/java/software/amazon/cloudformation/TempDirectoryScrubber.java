@@ -0,0 +1,180 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.concurrent.ThreadSafe;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Empties the temp directory between invocations without holding up each
+ * request with a recursive delete. Once a response has been written the
+ * directory is emptied on a background thread. The next invocation only waits
+ * for that to complete and then checks the directory is still empty, deleting
+ * anything left synchronously, so no file from a previous invocation is ever
+ * visible to the next one.
+ */
+@ThreadSafe
+class TempDirectoryScrubber {
+
+    private static final ExecutorService SCRUBBER = Executors
+        .newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("cfn-temp-scrubber").setDaemon(true).build());
+
+    private final Path directory;
+    private final ExecutorService executor;
+    private Future<Result> pending;
+    private boolean scrubbed;
+
+    TempDirectoryScrubber(final Path directory) {
+        this(directory, SCRUBBER);
+    }
+
+    TempDirectoryScrubber(final Path directory,
+                          final ExecutorService executor) {
+        this.directory = directory;
+        this.executor = executor;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result {
+        /**
+         * time the invocation was held up for
+         */
+        private final long milliseconds;
+        private final long bytesFreed;
+        private final long filesDeleted;
+    }
+
+    /**
+     * Guarantees the directory is empty, waiting for a scrub scheduled by the
+     * previous invocation if there is one.
+     *
+     * @return the time spent waiting and what was deleted since the previous
+     *         invocation
+     * @throws IOException if any file could not be deleted
+     */
+    synchronized Result scrub() throws IOException {
+        final long start = System.nanoTime();
+        long bytesFreed = 0L;
+        long filesDeleted = 0L;
+        if (pending != null) {
+            try {
+                Result background = Uninterruptibles.getUninterruptibly(pending);
+                bytesFreed += background.getBytesFreed();
+                filesDeleted += background.getFilesDeleted();
+            } catch (ExecutionException e) {
+                // fall through, whatever could not be deleted is retried below
+            } finally {
+                pending = null;
+            }
+        }
+        if (!isEmpty()) {
+            Result remaining = clean();
+            bytesFreed += remaining.getBytesFreed();
+            filesDeleted += remaining.getFilesDeleted();
+        }
+        scrubbed = true;
+        return new Result((System.nanoTime() - start) / 1_000_000L, bytesFreed, filesDeleted);
+    }
+
+    /**
+     * Empties the directory in the background once the response has been written.
+     * Does nothing unless {@link #scrub()} has run, so that a wrapper which does
+     * not scrub never has its temp directory emptied behind its back.
+     */
+    synchronized void scrubInBackground() {
+        if (!scrubbed || pending != null) {
+            return;
+        }
+        try {
+            pending = executor.submit(this::clean);
+        } catch (RejectedExecutionException e) {
+            // the next invocation scrubs synchronously
+        }
+    }
+
+    /**
+     * @param path a file or directory
+     * @return whether the path is emptied between invocations, i.e. this
+     *         scrubber is in use and the path is in its directory
+     */
+    synchronized boolean scrubs(final Path path) {
+        return scrubbed && path.toAbsolutePath().normalize().startsWith(directory.toAbsolutePath().normalize());
+    }
+
+    private boolean isEmpty() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return true;
+        }
+        final DirectoryStream<Path> entries = Files.newDirectoryStream(directory);
+        try {
+            return !entries.iterator().hasNext();
+        } finally {
+            entries.close();
+        }
+    }
+
+    private Result clean() throws IOException {
+        final long start = System.nanoTime();
+        final long[] freed = new long[2];
+        if (Files.isDirectory(directory)) {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) throws IOException {
+                    delete(file);
+                    freed[0] += attributes.size();
+                    freed[1]++;
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+                    if (e != null) {
+                        throw e;
+                    }
+                    if (!dir.equals(directory)) {
+                        delete(dir);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        return new Result((System.nanoTime() - start) / 1_000_000L, freed[0], freed[1]);
+    }
+
+    private static void delete(final Path path) throws IOException {
+        try {
+            Files.delete(path);
+        } catch (NoSuchFileException e) {
+            // already gone
+        }
+    }
+}
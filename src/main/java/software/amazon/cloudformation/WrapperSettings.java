@@ -0,0 +1,158 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.Supplier;
+import lombok.Builder;
+import lombok.Value;
+import software.amazon.cloudformation.injection.HttpClientSetting;
+import software.amazon.cloudformation.proxy.DelayFactory;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.RateLimiterSetting;
+import software.amazon.cloudformation.proxy.TokenBucketRateLimiter;
+import software.amazon.cloudformation.replay.CaptureSetting;
+import software.amazon.cloudformation.replay.InvocationRecorder;
+import software.amazon.cloudformation.replay.InvocationReplay;
+import software.amazon.cloudformation.tracing.InMemorySpanExporter;
+import software.amazon.cloudformation.tracing.SpanExporter;
+import software.amazon.cloudformation.tracing.TracingSetting;
+
+/**
+ * Runtime settings shared by the resource and hook wrappers, returned by their
+ * {@code provideSettings} hook. Handler implementations start from the
+ * settings of the wrapper they extend, which may differ from the defaults,
+ * e.g.
+ *
+ * {@code
+ *     private static final WrapperSettings SETTINGS = ...;
+ *
+ *     protected WrapperSettings provideSettings() {
+ *         return SETTINGS;
+ *     }
+ * }
+ *
+ * with the settings built once from
+ * {@code super.provideSettings().toBuilder()}. The settings are read on every
+ * invocation, so stateful ones such as the rate limiter must be the same
+ * instances each time for concurrent invocations in this JVM to share them.
+ */
+@Value
+@Builder(toBuilder = true)
+public class WrapperSettings {
+
+    private static final WrapperSettings DEFAULTS = WrapperSettings.builder().build();
+
+    /**
+     * Paces the AWS service calls of the handler on the client side. By default
+     * the limiter configured by {@link RateLimiterSetting}, if any, null
+     * disables client side rate limiting.
+     */
+    @Builder.Default
+    TokenBucketRateLimiter rateLimiter = RateLimiterSetting.configuredRateLimiter();
+
+    /**
+     * Controls the delays between stabilization attempts for all call graphs,
+     * e.g. with an {@link software.amazon.cloudformation.proxy.delay.Adaptive}
+     * factory that learns from observed stabilization times.
+     */
+    @Builder.Default
+    DelayFactory delayFactory = DelayFactory.CONSTANT_DEFAULT_DELAY_FACTORY;
+
+    /**
+     * The number of log events that can be pending publication on a background
+     * thread, 0 to publish them synchronously on the handler thread. Messages
+     * are built on the handler thread either way, and pending events are always
+     * flushed before the response is written.
+     */
+    @Builder.Default
+    int logBufferCapacity = 0;
+
+    /**
+     * Whether to publish the CPU time and heap allocated on the invocation
+     * thread by the handler and by the framework around it, as
+     * InvocationCpuTime and InvocationAllocatedBytes metrics and in the end of
+     * invocation log. This tells whether latency and memory tuning should target
+     * the handler or the runtime.
+     */
+    @Builder.Default
+    boolean resourceUsageMetrics = false;
+
+    /**
+     * Whether to publish the framework metrics as CloudWatch embedded metric
+     * format documents in the provider log stream, batched into one
+     * PutLogEvents call each time logs are flushed, rather than with a
+     * PutMetricData call per metric. They are only published when provider
+     * logging is configured, as the PutMetricData metrics are.
+     */
+    @Builder.Default
+    boolean embeddedMetrics = false;
+
+    /**
+     * The longest time to wait for metrics published with a non-blocking client
+     * before the response is written, after which the metrics they carry are
+     * lost. Null publishes them synchronously, as does a handler without
+     * software.amazon.awssdk:netty-nio-client. Ignored with
+     * {@link #isEmbeddedMetrics()}.
+     */
+    @Builder.Default
+    Duration asyncMetricsDeadline = null;
+
+    /**
+     * Whether to publish the connection pool statistics of the shared HTTP
+     * client after each invocation. The pool is sized and tuned with the
+     * settings in {@link HttpClientSetting}.
+     */
+    @Builder.Default
+    boolean httpClientMetrics = false;
+
+    /**
+     * The most bytes a serialized response may take, {@link Long#MAX_VALUE} for
+     * no limit. A response which grows past it is replaced by a FAILED event
+     * with {@link HandlerErrorCode#InternalFailure}, rather than being rejected
+     * by the platform as a whole. The Lambda wrappers default to the Lambda
+     * response payload limit.
+     */
+    @Builder.Default
+    long responseByteLimit = Long.MAX_VALUE;
+
+    /**
+     * Supplies the exporter of the spans of each invocation, e.g. an
+     * {@link InMemorySpanExporter} in tests, or null to disable tracing. By
+     * default spans are exported as configured by {@link TracingSetting#EXPORT}.
+     * A supplier which fails disables tracing for the invocation.
+     */
+    @Builder.Default
+    Supplier<SpanExporter> spanExporter = TracingSetting::configuredExporter;
+
+    /**
+     * Supplies the directory to capture invocations to for offline reproduction
+     * with {@link InvocationReplay}, or null to disable capture, see
+     * {@link InvocationRecorder} for what a capture holds. By default the
+     * directory configured by {@link CaptureSetting#DIRECTORY}. Invocations are
+     * not captured to the temp directory, which is emptied between invocations;
+     * on Lambda, use a mounted file system.
+     */
+    @Builder.Default
+    Supplier<Path> captureDirectory = CaptureSetting::configuredDirectory;
+
+    /**
+     * @return the settings of a wrapper that does not override them
+     */
+    public static WrapperSettings defaults() {
+        return DEFAULTS;
+    }
+}
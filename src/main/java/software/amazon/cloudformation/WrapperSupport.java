@@ -0,0 +1,197 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation;
+
+import com.google.common.collect.ImmutableMap;
+import java.net.URI;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.SdkSystemSetting;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.cloudformation.injection.HttpClientStatistics;
+import software.amazon.cloudformation.injection.SharedHttpClient;
+import software.amazon.cloudformation.loggers.LogLevel;
+import software.amazon.cloudformation.metrics.ClassDataSharing;
+import software.amazon.cloudformation.metrics.ColdStart;
+import software.amazon.cloudformation.metrics.ThreadUsage;
+import software.amazon.cloudformation.proxy.LoggerProxy;
+import software.amazon.cloudformation.proxy.MetricsPublisherProxy;
+import software.amazon.cloudformation.tracing.SpanExporter;
+
+/**
+ * Invocation bookkeeping shared by {@link AbstractWrapper} and
+ * {@link HookAbstractWrapper}: the cold start breakdown, the resource usage of
+ * the handler and the framework, the HTTP client pool statistics, flushing of
+ * logs and metrics, and priming of the clients the wrappers use themselves.
+ * Each wrapper holds one, invocations of a wrapper do not overlap.
+ */
+final class WrapperSupport {
+
+    private final boolean reportColdStart;
+    private ThreadUsage invocationUsageStart;
+    private ThreadUsage handlerUsage = ThreadUsage.NONE;
+
+    /**
+     * @param reportColdStart false for wrappers built for testing, which must
+     *            not claim the cold start of the JVM
+     */
+    WrapperSupport(final boolean reportColdStart) {
+        this.reportColdStart = reportColdStart;
+    }
+
+    /**
+     * Starts accounting for an invocation.
+     *
+     * @return true if the invocation is the cold start one, to report with
+     *         {@link #publishColdStart}
+     */
+    boolean beginInvocation(final WrapperSettings settings) {
+        this.invocationUsageStart = settings.isResourceUsageMetrics() ? ThreadUsage.now() : null;
+        this.handlerUsage = ThreadUsage.NONE;
+        return reportColdStart && ColdStart.beginInvocation();
+    }
+
+    /**
+     * @return the usage at the start of the handler, to pass to
+     *         {@link #handlerFinished}, or null if usage is not accounted for
+     */
+    ThreadUsage handlerStarted() {
+        return this.invocationUsageStart != null ? ThreadUsage.now() : null;
+    }
+
+    void handlerFinished(final ThreadUsage handlerUsageStart) {
+        if (handlerUsageStart != null) {
+            this.handlerUsage = ThreadUsage.now().minus(handlerUsageStart);
+        }
+    }
+
+    /*
+     * Emits the cold start breakdown, once per container
+     */
+    void publishColdStart(final MetricsPublisherProxy metricsPublisherProxy, final LoggerProxy logger) {
+        final Map<String, Long> phases = ColdStart.complete();
+        if (phases == null) {
+            return;
+        }
+        if (metricsPublisherProxy != null) {
+            metricsPublisherProxy.publishColdStartMetric(Instant.now(), phases);
+        }
+        logger.log(LogLevel.INFO,
+            () -> String.format("Cold start phase durations in milliseconds, class data sharing %s", ClassDataSharing.status()),
+            phases);
+    }
+
+    /*
+     * CPU time and allocation of the invocation, split between handler and framework
+     */
+    void publishResourceUsage(final MetricsPublisherProxy metricsPublisherProxy,
+                              final LoggerProxy logger,
+                              final Action action) {
+        publishResourceUsage(logger, (handler, framework) -> {
+            if (metricsPublisherProxy != null) {
+                metricsPublisherProxy.publishResourceUsageMetric(Instant.now(), action, handler, framework);
+            }
+        });
+    }
+
+    void publishResourceUsage(final MetricsPublisherProxy metricsPublisherProxy,
+                              final LoggerProxy logger,
+                              final HookInvocationPoint invocationPoint) {
+        publishResourceUsage(logger, (handler, framework) -> {
+            if (metricsPublisherProxy != null) {
+                metricsPublisherProxy.publishResourceUsageMetric(Instant.now(), invocationPoint, handler, framework);
+            }
+        });
+    }
+
+    private void publishResourceUsage(final LoggerProxy logger, final BiConsumer<ThreadUsage, ThreadUsage> metric) {
+        if (this.invocationUsageStart == null) {
+            return;
+        }
+        final ThreadUsage total = ThreadUsage.now().minus(this.invocationUsageStart);
+        final ThreadUsage handler = this.handlerUsage;
+        final ThreadUsage framework = total.minus(handler);
+        this.invocationUsageStart = null;
+        metric.accept(handler, framework);
+        logger.log(LogLevel.INFO, () -> "Invocation resource usage",
+            ImmutableMap.of("handlerCpuMicros", TimeUnit.NANOSECONDS.toMicros(handler.getCpuNanos()), "handlerAllocatedBytes",
+                handler.getAllocatedBytes(), "frameworkCpuMicros", TimeUnit.NANOSECONDS.toMicros(framework.getCpuNanos()),
+                "frameworkAllocatedBytes", framework.getAllocatedBytes()));
+    }
+
+    /*
+     * Pool statistics of the shared HTTP client, reset every invocation
+     */
+    void publishHttpClientStatistics(final WrapperSettings settings, final MetricsPublisherProxy metricsPublisherProxy) {
+        final HttpClientStatistics.Snapshot statistics = SharedHttpClient.statistics().snapshotAndReset();
+        if (settings.isHttpClientMetrics() && !statistics.isEmpty() && metricsPublisherProxy != null) {
+            metricsPublisherProxy.publishHttpClientMetric(Instant.now(), statistics);
+        }
+    }
+
+    void flushLogs(final MetricsPublisherProxy metricsPublisherProxy, final LoggerProxy loggerProxy) {
+        // metrics first, failures to deliver them are logged
+        if (metricsPublisherProxy != null) {
+            metricsPublisherProxy.flush();
+        }
+        if (loggerProxy != null) {
+            loggerProxy.flush();
+        }
+    }
+
+    /**
+     * @return the span exporter of the settings, or null if tracing is disabled
+     *         or the exporter could not be created
+     */
+    static SpanExporter spanExporter(final WrapperSettings settings, final Consumer<String> log) {
+        try {
+            return settings.getSpanExporter().get();
+        } catch (final RuntimeException | LinkageError e) {
+            // tracing is best effort, it must not fail the invocation
+            log.accept(String.format("Tracing disabled: %s", ExceptionUtils.getStackTrace(e)));
+            return null;
+        }
+    }
+
+    /*
+     * Builds the CloudWatch and CloudWatch Logs clients once so that their classes
+     * are loaded, without making a remote call unless preconnecting is configured
+     */
+    static void primeClients(final SdkHttpClient httpClient) {
+        final AwsCredentialsProvider credentials = StaticCredentialsProvider
+            .create(AwsBasicCredentials.create("priming", "priming"));
+        CloudWatchClient.builder().credentialsProvider(credentials).httpClient(httpClient).build().close();
+        CloudWatchLogsClient.builder().credentialsProvider(credentials).httpClient(httpClient).build().close();
+        preconnect();
+    }
+
+    static void preconnect() {
+        SdkSystemSetting.AWS_REGION.getStringValue().map(Region::of)
+            .ifPresent(region -> SharedHttpClient.preconnect(Arrays.asList(
+                URI.create("https://" + CloudWatchClient.serviceMetadata().endpointFor(region)),
+                URI.create("https://" + CloudWatchLogsClient.serviceMetadata().endpointFor(region)))));
+    }
+}
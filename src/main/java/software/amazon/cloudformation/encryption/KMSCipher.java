@@ -28,12 +28,15 @@ import com.amazonaws.encryptionsdk.kms.KmsMasterKeyProvider;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClientBuilder;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.base.Suppliers;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.UUID;
+import java.util.function.Supplier;
 import org.bouncycastle.util.encoders.Base64;
 import software.amazon.awssdk.core.SdkSystemSetting;
 import software.amazon.cloudformation.exceptions.EncryptionException;
+import software.amazon.cloudformation.metrics.ColdStart;
 import software.amazon.cloudformation.proxy.Credentials;
 import software.amazon.cloudformation.resource.Serializer;
 
@@ -45,6 +48,13 @@ public class KMSCipher implements Cipher {
     private static final int STS_SOCKET_TIMEOUT_MILLIS = 10000;
     private static final int STS_MAX_ERROR_RETRY = 3;
 
+    //
+    // The STS client only depends on the region of the execution environment, it is
+    // built once and shared so that priming can pay for it ahead of the first request
+    //
+    private static final Supplier<AWSSecurityTokenService> STS_CLIENT = Suppliers
+        .memoize(() -> ColdStart.time(ColdStart.PHASE_CIPHER, KMSCipher::buildStsClient));
+
     private final AwsCrypto cryptoHelper;
     private final MasterKeyProvider<KmsMasterKey> kmsKeyProvider;
     private final Serializer serializer;
@@ -52,23 +62,13 @@ public class KMSCipher implements Cipher {
 
     public KMSCipher(final String encryptionKeyArn,
                      final String encryptionKeyRole) {
-        final String region = SdkSystemSetting.AWS_REGION.getStringValue().map(Object::toString).orElse("us-east-1");
-
-        final ClientConfiguration clientConfiguration = PredefinedClientConfigurations.defaultConfig()
-            .withConnectionTimeout(STS_CONNECTION_TIMEOUT_MILLIS).withConnectionTTL(STS_CONNECTION_TTL_MILLIS)
-            .withClientExecutionTimeout(STS_CLIENT_EXECUTION_TIMEOUT_MILLIS).withRequestTimeout(STS_REQUEST_TIMEOUT_MILLIS)
-            .withSocketTimeout(STS_SOCKET_TIMEOUT_MILLIS).withMaxErrorRetry(STS_MAX_ERROR_RETRY);
-
-        final AWSSecurityTokenService stsClient = AWSSecurityTokenServiceClientBuilder.standard()
-            .withClientConfiguration(clientConfiguration).withRegion(region).build();
-
         final AWSSessionCredentialsProvider assumeRoleSessionCredentialsProvider = getAssumeRoleSessionCredentialProvider(
-            encryptionKeyRole, stsClient);
+            encryptionKeyRole, STS_CLIENT.get());
 
         this.kmsKeyProvider = KmsMasterKeyProvider.builder().withCredentials(assumeRoleSessionCredentialsProvider)
-            .withDefaultRegion(region).buildStrict(encryptionKeyArn);
+            .withDefaultRegion(region()).buildStrict(encryptionKeyArn);
 
-        this.cryptoHelper = AwsCrypto.builder().withCommitmentPolicy(CommitmentPolicy.ForbidEncryptAllowDecrypt).build();
+        this.cryptoHelper = buildCryptoHelper();
         this.serializer = new Serializer();
         this.credentialsTypeReference = getCredentialsTypeReference();
     }
@@ -99,6 +99,33 @@ public class KMSCipher implements Cipher {
         }
     }
 
+    /**
+     * Builds the shared STS client and loads the encryption SDK ahead of the first
+     * request that needs to decrypt credentials. No remote call is made.
+     */
+    public static void prime() {
+        STS_CLIENT.get();
+        buildCryptoHelper();
+    }
+
+    private static String region() {
+        return SdkSystemSetting.AWS_REGION.getStringValue().map(Object::toString).orElse("us-east-1");
+    }
+
+    private static AWSSecurityTokenService buildStsClient() {
+        final ClientConfiguration clientConfiguration = PredefinedClientConfigurations.defaultConfig()
+            .withConnectionTimeout(STS_CONNECTION_TIMEOUT_MILLIS).withConnectionTTL(STS_CONNECTION_TTL_MILLIS)
+            .withClientExecutionTimeout(STS_CLIENT_EXECUTION_TIMEOUT_MILLIS).withRequestTimeout(STS_REQUEST_TIMEOUT_MILLIS)
+            .withSocketTimeout(STS_SOCKET_TIMEOUT_MILLIS).withMaxErrorRetry(STS_MAX_ERROR_RETRY);
+
+        return AWSSecurityTokenServiceClientBuilder.standard().withClientConfiguration(clientConfiguration)
+            .withRegion(region()).build();
+    }
+
+    private static AwsCrypto buildCryptoHelper() {
+        return AwsCrypto.builder().withCommitmentPolicy(CommitmentPolicy.ForbidEncryptAllowDecrypt).build();
+    }
+
     private static TypeReference<Credentials> getCredentialsTypeReference() {
         return new TypeReference<Credentials>() {
         };
@@ -0,0 +1,31 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.exceptions;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a response grows past the byte limit it is serialized with,
+ * typically the invocation payload limit of the platform. The bytes written
+ * before the limit was reached are left in the output.
+ */
+public class ResponseTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 4719266015271524127L;
+
+    public ResponseTooLargeException(final long maxBytes) {
+        super(String.format("Response exceeds the limit of %d bytes", maxBytes));
+    }
+}
@@ -14,26 +14,62 @@
 */
 package software.amazon.cloudformation.injection;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsAsyncClientBuilder;
 import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
 import software.amazon.awssdk.awscore.client.builder.AwsSyncClientBuilder;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.core.retry.RetryPolicy;
 import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
 
 public abstract class AmazonWebServicesProvider {
 
     protected static final ClientOverrideConfiguration CONFIGURATION = ClientOverrideConfiguration.builder()
         .retryPolicy(RetryPolicy.defaultRetryPolicy()).build();
 
+    // the pool state reported with each request feeds the shared client statistics
+    private static final ClientOverrideConfiguration SYNC_CONFIGURATION = CONFIGURATION.toBuilder()
+        .addMetricPublisher(SharedHttpClient.statistics()).build();
+
+    // netty-nio-client is an optional dependency, present only if the handler adds it
+    private static final boolean NETTY_AVAILABLE = isPresent("software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient");
+
     protected final CredentialsProvider credentialsProvider;
     protected final SdkHttpClient httpClient;
+    protected final SdkAsyncHttpClient asyncHttpClient;
+    private volatile boolean httpClientMetrics;
 
     protected AmazonWebServicesProvider(final CredentialsProvider credentialsProvider,
                                         final SdkHttpClient httpClient) {
+        this(credentialsProvider, httpClient, null);
+    }
+
+    /**
+     * @param credentialsProvider credentials of the clients
+     * @param httpClient HTTP client of the synchronous clients
+     * @param asyncHttpClient HTTP client of the asynchronous clients, null to
+     *            share a non-blocking client whose event loop is created on first
+     *            use
+     */
+    protected AmazonWebServicesProvider(final CredentialsProvider credentialsProvider,
+                                        final SdkHttpClient httpClient,
+                                        final SdkAsyncHttpClient asyncHttpClient) {
         this.credentialsProvider = credentialsProvider;
         this.httpClient = httpClient;
+        this.asyncHttpClient = asyncHttpClient;
+    }
+
+    /**
+     * @param httpClientMetrics true for the synchronous clients built from now on
+     *            to report their requests to {@link SharedHttpClient#statistics()}
+     */
+    public void setHttpClientMetrics(final boolean httpClientMetrics) {
+        this.httpClientMetrics = httpClientMetrics;
     }
 
     protected AwsCredentialsProvider getCredentialsProvider() {
@@ -42,7 +78,52 @@ public abstract class AmazonWebServicesProvider {
 
     protected <BuilderT extends AwsClientBuilder<BuilderT, ClientT> & AwsSyncClientBuilder<BuilderT, ClientT>,
         ClientT> BuilderT defaultClient(final BuilderT builder) {
+        return builder.credentialsProvider(this.getCredentialsProvider())
+            .overrideConfiguration(httpClientMetrics ? SYNC_CONFIGURATION : CONFIGURATION).httpClient(httpClient);
+    }
+
+    protected <BuilderT extends AwsClientBuilder<BuilderT, ClientT> & AwsAsyncClientBuilder<BuilderT, ClientT>,
+        ClientT> BuilderT defaultAsyncClient(final BuilderT builder) {
         return builder.credentialsProvider(this.getCredentialsProvider()).overrideConfiguration(CONFIGURATION)
-            .httpClient(httpClient);
+            .httpClient(getAsyncHttpClient());
+    }
+
+    /**
+     * @return the HTTP client given at construction, or else the shared
+     *         non-blocking client
+     * @throws IllegalStateException if no client was given and
+     *             software.amazon.awssdk:netty-nio-client is not on the classpath
+     */
+    protected SdkAsyncHttpClient getAsyncHttpClient() {
+        if (asyncHttpClient != null) {
+            return asyncHttpClient;
+        }
+        if (!NETTY_AVAILABLE) {
+            throw new IllegalStateException(
+                "Asynchronous clients need software.amazon.awssdk:netty-nio-client, which the handler does not include");
+        }
+        return SharedAsyncHttpClient.INSTANCE;
+    }
+
+    private static boolean isPresent(final String className) {
+        try {
+            Class.forName(className, false, AmazonWebServicesProvider.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /*
+     * Holder, so that handlers which never use an asynchronous client do not pay
+     * for the event loop
+     */
+    private static final class SharedAsyncHttpClient {
+        // telemetry needs few connections, two daemon threads keep them all busy
+        private static final SdkAsyncHttpClient INSTANCE = NettyNioAsyncHttpClient.builder()
+            .eventLoopGroup(SdkEventLoopGroup.builder().numberOfThreads(2)
+                .threadFactory(new ThreadFactoryBuilder().setNameFormat("cfn-sdk-event-loop-%d").setDaemon(true).build())
+                .build())
+            .build();
     }
 }
@@ -16,6 +16,8 @@ package software.amazon.cloudformation.injection;
 
 import java.net.URI;
 import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.services.cloudformation.CloudFormationAsyncClient;
 import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
 
 public class CloudFormationProvider extends AmazonWebServicesProvider {
@@ -27,6 +29,12 @@ public class CloudFormationProvider extends AmazonWebServicesProvider {
         super(credentialsProvider, httpClient);
     }
 
+    public CloudFormationProvider(final CredentialsProvider credentialsProvider,
+                                  final SdkHttpClient httpClient,
+                                  final SdkAsyncHttpClient asyncHttpClient) {
+        super(credentialsProvider, httpClient, asyncHttpClient);
+    }
+
     public void setCallbackEndpoint(final URI callbackEndpoint) {
         this.callbackEndpoint = callbackEndpoint;
     }
@@ -35,4 +43,10 @@ public class CloudFormationProvider extends AmazonWebServicesProvider {
         return CloudFormationClient.builder().credentialsProvider(this.getCredentialsProvider()).httpClient(httpClient)
             .endpointOverride(this.callbackEndpoint).build();
     }
+
+    public CloudFormationAsyncClient getAsync() {
+        return CloudFormationAsyncClient.builder().credentialsProvider(this.getCredentialsProvider())
+            .httpClient(getAsyncHttpClient())
+            .endpointOverride(this.callbackEndpoint).build();
+    }
 }
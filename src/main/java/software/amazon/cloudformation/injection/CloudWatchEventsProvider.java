@@ -15,6 +15,8 @@
 package software.amazon.cloudformation.injection;
 
 import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.services.cloudwatchevents.CloudWatchEventsAsyncClient;
 import software.amazon.awssdk.services.cloudwatchevents.CloudWatchEventsClient;
 
 public class CloudWatchEventsProvider extends AmazonWebServicesProvider {
@@ -24,7 +26,17 @@ public class CloudWatchEventsProvider extends AmazonWebServicesProvider {
         super(credentialsProvider, httpClient);
     }
 
+    public CloudWatchEventsProvider(final CredentialsProvider credentialsProvider,
+                                    final SdkHttpClient httpClient,
+                                    final SdkAsyncHttpClient asyncHttpClient) {
+        super(credentialsProvider, httpClient, asyncHttpClient);
+    }
+
     public CloudWatchEventsClient get() {
         return defaultClient(CloudWatchEventsClient.builder()).build();
     }
+
+    public CloudWatchEventsAsyncClient getAsync() {
+        return defaultAsyncClient(CloudWatchEventsAsyncClient.builder()).build();
+    }
 }
@@ -15,6 +15,8 @@
 package software.amazon.cloudformation.injection;
 
 import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsAsyncClient;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
 
 public class CloudWatchLogsProvider extends AmazonWebServicesProvider {
@@ -24,7 +26,17 @@ public class CloudWatchLogsProvider extends AmazonWebServicesProvider {
         super(credentialsProvider, httpClient);
     }
 
+    public CloudWatchLogsProvider(final CredentialsProvider credentialsProvider,
+                                  final SdkHttpClient httpClient,
+                                  final SdkAsyncHttpClient asyncHttpClient) {
+        super(credentialsProvider, httpClient, asyncHttpClient);
+    }
+
     public CloudWatchLogsClient get() {
         return defaultClient(CloudWatchLogsClient.builder()).build();
     }
+
+    public CloudWatchLogsAsyncClient getAsync() {
+        return defaultAsyncClient(CloudWatchLogsAsyncClient.builder()).build();
+    }
 }
@@ -15,6 +15,8 @@
 package software.amazon.cloudformation.injection;
 
 import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 
 public class CloudWatchProvider extends AmazonWebServicesProvider {
@@ -24,7 +26,17 @@ public class CloudWatchProvider extends AmazonWebServicesProvider {
         super(credentialsProvider, httpClient);
     }
 
+    public CloudWatchProvider(final CredentialsProvider credentialsProvider,
+                              final SdkHttpClient httpClient,
+                              final SdkAsyncHttpClient asyncHttpClient) {
+        super(credentialsProvider, httpClient, asyncHttpClient);
+    }
+
     public CloudWatchClient get() {
         return defaultClient(CloudWatchClient.builder()).build();
     }
+
+    public CloudWatchAsyncClient getAsync() {
+        return defaultAsyncClient(CloudWatchAsyncClient.builder()).build();
+    }
 }
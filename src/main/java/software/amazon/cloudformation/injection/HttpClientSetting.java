@@ -0,0 +1,119 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.injection;
+
+import java.time.Duration;
+import software.amazon.awssdk.utils.SystemSetting;
+
+/**
+ * Settings of the HTTP client shared by the wrappers, see
+ * {@link SharedHttpClient}. Each is read from a system property or else an
+ * environment variable of the handler, for example
+ * {@code CFN_HTTP_MAX_CONNECTIONS=10}. The defaults are those of the SDK.
+ * Values which cannot be parsed fall back to the default.
+ */
+public enum HttpClientSetting implements SystemSetting {
+
+    /**
+     * Size of the connection pool
+     */
+    MAX_CONNECTIONS("cfn.http.maxConnections", "CFN_HTTP_MAX_CONNECTIONS", "50"),
+
+    /**
+     * Milliseconds to wait for a connection, including the TLS handshake
+     */
+    CONNECTION_TIMEOUT("cfn.http.connectionTimeoutMillis", "CFN_HTTP_CONNECTION_TIMEOUT_MILLIS", "2000"),
+
+    /**
+     * Milliseconds to wait for data on an open connection
+     */
+    SOCKET_TIMEOUT("cfn.http.socketTimeoutMillis", "CFN_HTTP_SOCKET_TIMEOUT_MILLIS", "30000"),
+
+    /**
+     * Milliseconds to wait for a connection from the pool
+     */
+    CONNECTION_ACQUISITION_TIMEOUT("cfn.http.connectionAcquisitionTimeoutMillis",
+        "CFN_HTTP_CONNECTION_ACQUISITION_TIMEOUT_MILLIS", "10000"),
+
+    /**
+     * Milliseconds after which a connection is closed however busy, 0 to keep
+     * connections as long as they are used
+     */
+    CONNECTION_TIME_TO_LIVE("cfn.http.connectionTimeToLiveMillis", "CFN_HTTP_CONNECTION_TIME_TO_LIVE_MILLIS", "0"),
+
+    /**
+     * Milliseconds after which an idle connection is closed
+     */
+    CONNECTION_MAX_IDLE_TIME("cfn.http.connectionMaxIdleMillis", "CFN_HTTP_CONNECTION_MAX_IDLE_MILLIS", "60000"),
+
+    /**
+     * Whether to send TCP keep-alive probes on idle connections
+     */
+    TCP_KEEP_ALIVE("cfn.http.tcpKeepAlive", "CFN_HTTP_TCP_KEEP_ALIVE", "false"),
+
+    /**
+     * Whether priming opens connections to the CloudWatch and CloudWatch Logs
+     * endpoints of the region, so that the first invocation does not pay for
+     * the TLS handshakes
+     */
+    PRECONNECT("cfn.http.preconnect", "CFN_HTTP_PRECONNECT", "false");
+
+    private final String property;
+    private final String environmentVariable;
+    private final String defaultValue;
+
+    HttpClientSetting(final String property,
+                      final String environmentVariable,
+                      final String defaultValue) {
+        this.property = property;
+        this.environmentVariable = environmentVariable;
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public String property() {
+        return property;
+    }
+
+    @Override
+    public String environmentVariable() {
+        return environmentVariable;
+    }
+
+    @Override
+    public String defaultValue() {
+        return defaultValue;
+    }
+
+    public int intValue() {
+        try {
+            return Integer.parseInt(getStringValueOrThrow().trim());
+        } catch (final NumberFormatException e) {
+            return Integer.parseInt(defaultValue);
+        }
+    }
+
+    public Duration millisValue() {
+        try {
+            return Duration.ofMillis(Long.parseLong(getStringValueOrThrow().trim()));
+        } catch (final NumberFormatException e) {
+            return Duration.ofMillis(Long.parseLong(defaultValue));
+        }
+    }
+
+    public boolean booleanValue() {
+        return Boolean.parseBoolean(getStringValueOrThrow().trim());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.injection;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+import lombok.Data;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+/**
+ * Connection pool statistics of the {@link SharedHttpClient}. The SDK reports
+ * the pool state with the metrics of each request made through a client built
+ * by the providers, new connections are timed as they are opened. The
+ * statistics are read and reset once per invocation with
+ * {@link #snapshotAndReset()}.
+ */
+@ThreadSafe
+public final class HttpClientStatistics implements MetricPublisher {
+
+    private int requests;
+    private int maxLeased;
+    private int maxPending;
+    private int minAvailable;
+    private int connects;
+    private long connectNanos;
+
+    @Override
+    public void publish(final MetricCollection metrics) {
+        record(metrics);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * @param nanos time taken to open a connection, TLS handshake included
+     */
+    public synchronized void recordConnect(final long nanos) {
+        connects++;
+        connectNanos += nanos;
+    }
+
+    /**
+     * @return the statistics since the previous call
+     */
+    public synchronized Snapshot snapshotAndReset() {
+        final Snapshot snapshot = new Snapshot(requests, maxLeased, maxPending, minAvailable, connects,
+                                               connects == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(connectNanos / connects));
+        requests = 0;
+        maxLeased = 0;
+        maxPending = 0;
+        minAvailable = 0;
+        connects = 0;
+        connectNanos = 0;
+        return snapshot;
+    }
+
+    /*
+     * The pool metrics are reported by the HTTP client on a child of the API call
+     * collection, each attempt has its own
+     */
+    private void record(final MetricCollection metrics) {
+        final List<Integer> leased = metrics.metricValues(HttpMetric.LEASED_CONCURRENCY);
+        if (!leased.isEmpty()) {
+            recordPool(leased.get(0), first(metrics.metricValues(HttpMetric.PENDING_CONCURRENCY_ACQUIRES)),
+                first(metrics.metricValues(HttpMetric.AVAILABLE_CONCURRENCY)));
+        }
+        for (final MetricCollection child : metrics.children()) {
+            record(child);
+        }
+    }
+
+    private synchronized void recordPool(final int leased, final int pending, final int available) {
+        minAvailable = requests == 0 ? available : Math.min(minAvailable, available);
+        requests++;
+        maxLeased = Math.max(maxLeased, leased);
+        maxPending = Math.max(maxPending, pending);
+    }
+
+    private static int first(final List<Integer> values) {
+        return values.isEmpty() ? 0 : values.get(0);
+    }
+
+    @Data
+    public static final class Snapshot {
+        /**
+         * Requests which reported the state of the pool
+         */
+        private final int requests;
+
+        /**
+         * Most connections in use at once
+         */
+        private final int leasedConnections;
+
+        /**
+         * Most requests waiting at once for a connection
+         */
+        private final int pendingAcquires;
+
+        /**
+         * Fewest idle connections left in the pool
+         */
+        private final int availableConnections;
+
+        /**
+         * Connections opened
+         */
+        private final int connects;
+
+        /**
+         * Average time to open a connection, TLS handshake included
+         */
+        private final long connectLatencyMilliseconds;
+
+        public boolean isEmpty() {
+            return requests == 0 && connects == 0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.injection;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Tracks the calls made with asynchronous clients, so that the wrapper can let
+ * them overlap with the handler and only wait for them once the response is
+ * about to be written, after which the runtime may be frozen.
+ */
+@ThreadSafe
+public class PendingRequests {
+
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param request the future of an asynchronous call, forgotten once complete
+     * @param <T> type of the response
+     * @return the request
+     */
+    public <T> CompletableFuture<T> track(final CompletableFuture<T> request) {
+        pending.add(request);
+        request.whenComplete((response, e) -> pending.remove(request));
+        return request;
+    }
+
+    /**
+     * Waits for the tracked calls to complete, however they complete, and cancels
+     * those still running once the deadline has passed.
+     *
+     * @param deadline the longest time to wait for all calls together
+     * @return the number of calls cancelled
+     */
+    public int join(final Duration deadline) {
+        final long end = System.nanoTime() + deadline.toNanos();
+        int cancelled = 0;
+        for (final CompletableFuture<?> request : pending) {
+            try {
+                request.get(Math.max(end - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+            } catch (final TimeoutException e) {
+                request.cancel(true);
+                cancelled++;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return cancelled;
+            } catch (final ExecutionException | CancellationException e) {
+                // failures are reported by whoever made the call
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * @return the number of calls not complete yet
+     */
+    public int size() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.injection;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import javax.net.ssl.SSLContext;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLInitializationException;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SystemPropertyTlsKeyManagersProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+
+/**
+ * The HTTP client shared by the wrappers and the clients built by the
+ * providers, configured with {@link HttpClientSetting}. The client is built on
+ * first use, its pool statistics are gathered in {@link #statistics()}.
+ */
+public final class SharedHttpClient {
+
+    private static final HttpClientStatistics STATISTICS = new HttpClientStatistics();
+
+    private SharedHttpClient() {
+    }
+
+    public static SdkHttpClient get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Replaces the connection pool of the shared client with an empty one,
+     * closing the connections of the old one. Meant for a JVM restored from a
+     * checkpoint, whose pooled connections are no longer open. Clients holding
+     * the shared client keep working with the new pool.
+     */
+    public static void reset() {
+        Holder.INSTANCE.reset();
+    }
+
+    public static HttpClientStatistics statistics() {
+        return STATISTICS;
+    }
+
+    static SdkHttpClient build(final HttpClientStatistics statistics) {
+        final ApacheHttpClient.Builder builder = ApacheHttpClient.builder()
+            .maxConnections(HttpClientSetting.MAX_CONNECTIONS.intValue())
+            .connectionTimeout(HttpClientSetting.CONNECTION_TIMEOUT.millisValue())
+            .socketTimeout(HttpClientSetting.SOCKET_TIMEOUT.millisValue())
+            .connectionAcquisitionTimeout(HttpClientSetting.CONNECTION_ACQUISITION_TIMEOUT.millisValue())
+            .connectionMaxIdleTime(HttpClientSetting.CONNECTION_MAX_IDLE_TIME.millisValue())
+            .tcpKeepAlive(HttpClientSetting.TCP_KEEP_ALIVE.booleanValue())
+            .socketFactory(new TimedSocketFactory(tlsSocketFactory(), statistics));
+        if (!HttpClientSetting.CONNECTION_TIME_TO_LIVE.millisValue().isZero()) {
+            builder.connectionTimeToLive(HttpClientSetting.CONNECTION_TIME_TO_LIVE.millisValue());
+        }
+        return builder.build();
+    }
+
+    /*
+     * TLS as the SDK sets it up when given no socket factory: the key managers
+     * of the javax.net.ssl system properties, the default trust managers and
+     * hostname verification. Built on the public Apache factory rather than the
+     * SDK's internal subclass of it
+     */
+    private static LayeredConnectionSocketFactory tlsSocketFactory() {
+        try {
+            final SSLContext context = SSLContext.getInstance("TLS");
+            context.init(SystemPropertyTlsKeyManagersProvider.create().keyManagers(), null, null);
+            return new SSLConnectionSocketFactory(context, new DefaultHostnameVerifier());
+        } catch (final NoSuchAlgorithmException | KeyManagementException e) {
+            throw new SSLInitializationException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Opens a connection to each endpoint and leaves it in the pool, when
+     * {@link HttpClientSetting#PRECONNECT} is set. Endpoints which cannot be
+     * reached are skipped, the first request to them opens the connection.
+     *
+     * @param endpoints HTTPS endpoints, without a path
+     * @return the number of endpoints connected to
+     */
+    public static int preconnect(final Collection<URI> endpoints) {
+        if (!HttpClientSetting.PRECONNECT.booleanValue()) {
+            return 0;
+        }
+        int connected = 0;
+        for (final URI endpoint : endpoints) {
+            // any response will do, it is read fully so the connection goes back to the pool
+            final SdkHttpFullRequest request = SdkHttpFullRequest.builder().uri(endpoint).method(SdkHttpMethod.HEAD).build();
+            try {
+                final HttpExecuteResponse response = get()
+                    .prepareRequest(HttpExecuteRequest.builder().request(request).build()).call();
+                if (response.responseBody().isPresent()) {
+                    response.responseBody().get().close();
+                }
+                connected++;
+            } catch (final IOException e) {
+                // not fatal, the connection is opened on first use instead
+            }
+        }
+        return connected;
+    }
+
+    /*
+     * Holder, so that reading the statistics does not build the client
+     */
+    private static final class Holder {
+        private static final ResettableHttpClient INSTANCE = new ResettableHttpClient();
+    }
+
+    /*
+     * Stays the same instance across resets, it is handed out to the providers
+     * and the SDK clients they build
+     */
+    private static final class ResettableHttpClient implements SdkHttpClient {
+
+        private volatile SdkHttpClient delegate = build(STATISTICS);
+
+        @Override
+        public ExecutableHttpRequest prepareRequest(final HttpExecuteRequest request) {
+            return delegate.prepareRequest(request);
+        }
+
+        @Override
+        public String clientName() {
+            return delegate.clientName();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        private synchronized void reset() {
+            final SdkHttpClient previous = delegate;
+            delegate = build(STATISTICS);
+            previous.close();
+        }
+    }
+
+    /*
+     * Times TCP connect and TLS handshake around the TLS factory, HTTPS being
+     * the only scheme the framework talks to
+     */
+    private static final class TimedSocketFactory implements LayeredConnectionSocketFactory {
+
+        private final LayeredConnectionSocketFactory delegate;
+        private final HttpClientStatistics statistics;
+
+        private TimedSocketFactory(final LayeredConnectionSocketFactory delegate,
+                                   final HttpClientStatistics statistics) {
+            this.delegate = delegate;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Socket createSocket(final HttpContext context) throws IOException {
+            return delegate.createSocket(context);
+        }
+
+        @Override
+        public Socket connectSocket(final int connectTimeout,
+                                    final Socket socket,
+                                    final HttpHost host,
+                                    final InetSocketAddress remoteAddress,
+                                    final InetSocketAddress localAddress,
+                                    final HttpContext context)
+            throws IOException {
+            final long start = System.nanoTime();
+            final Socket connected = delegate.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            statistics.recordConnect(System.nanoTime() - start);
+            return connected;
+        }
+
+        @Override
+        public Socket createLayeredSocket(final Socket socket, final String target, final int port, final HttpContext context)
+            throws IOException {
+            return delegate.createLayeredSocket(socket, target, port, context);
+        }
+    }
+}
@@ -14,23 +14,52 @@
 */
 package software.amazon.cloudformation.loggers;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
 import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogGroupRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogStreamRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceAlreadyExistsException;
 import software.amazon.cloudformation.injection.CloudWatchLogsProvider;
 import software.amazon.cloudformation.proxy.LoggerProxy;
 import software.amazon.cloudformation.proxy.MetricsPublisherProxy;
 
+/**
+ * Prepares the provider log stream that {@link CloudWatchLogPublisher} writes
+ * to. Log groups known to exist are remembered for the lifetime of the JVM, per
+ * account, so only the first stream of a log group pays for describing, and
+ * possibly creating, the log group. At most {@value #MAX_EXISTING_LOG_GROUPS}
+ * log groups are remembered, the least recently used are forgotten first.
+ */
 public class CloudWatchLogHelper {
 
+    static final int MAX_EXISTING_LOG_GROUPS = 1024;
+
+    //
+    // "<account>/<log group name>" of log groups known to exist, in access order
+    //
+    private static final Set<String> EXISTING_LOG_GROUPS = Collections
+        .newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_EXISTING_LOG_GROUPS;
+            }
+        }));
+
     private final CloudWatchLogsProvider cloudWatchLogsProvider;
 
     private CloudWatchLogsClient cloudWatchLogsClient;
     private String logGroupName;
+    private String awsAccountId;
     private LoggerProxy platformLogger;
     private MetricsPublisherProxy metricsPublisherProxy;
 
@@ -38,21 +67,64 @@ public class CloudWatchLogHelper {
                                final String logGroupName,
                                final LoggerProxy platformLogger,
                                final MetricsPublisherProxy metricsPublisherProxy) {
+        this(cloudWatchLogsProvider, logGroupName, null, platformLogger, metricsPublisherProxy);
+    }
+
+    /**
+     * @param cloudWatchLogsProvider provides the client of the account owning the
+     *            log group
+     * @param logGroupName the provider log group
+     * @param awsAccountId the account owning the log group, part of the key under
+     *            which the log group existence is cached
+     * @param platformLogger where failures to prepare the log stream are logged
+     * @param metricsPublisherProxy where failures to prepare the log stream are
+     *            counted
+     */
+    public CloudWatchLogHelper(final CloudWatchLogsProvider cloudWatchLogsProvider,
+                               final String logGroupName,
+                               final String awsAccountId,
+                               final LoggerProxy platformLogger,
+                               final MetricsPublisherProxy metricsPublisherProxy) {
         this.cloudWatchLogsProvider = cloudWatchLogsProvider;
         this.logGroupName = logGroupName;
+        this.awsAccountId = awsAccountId;
         this.platformLogger = platformLogger;
         this.metricsPublisherProxy = metricsPublisherProxy;
     }
 
+    @VisibleForTesting
+    static void forgetExistingLogGroups() {
+        EXISTING_LOG_GROUPS.clear();
+    }
+
+    @VisibleForTesting
+    static int existingLogGroups() {
+        return EXISTING_LOG_GROUPS.size();
+    }
+
+    public String getLogGroupName() {
+        return logGroupName;
+    }
+
     public void refreshClient() {
         this.cloudWatchLogsClient = cloudWatchLogsProvider.get();
     }
 
+    /**
+     * Creates a new log stream, and the log group if it does not exist yet.
+     * Failures are logged to the platform logger and counted, never thrown.
+     *
+     * @return the name of the log stream, or null if it could not be created
+     */
     public String prepareLogStream() {
         assert cloudWatchLogsClient != null : "cloudWatchLogsClient was not initialised. You must call refreshClient() first.";
         try {
-            if (!doesLogGroupExist()) {
-                createLogGroup();
+            final String logGroupKey = awsAccountId + "/" + logGroupName;
+            if (!EXISTING_LOG_GROUPS.contains(logGroupKey)) {
+                if (!doesLogGroupExist()) {
+                    createLogGroup();
+                }
+                EXISTING_LOG_GROUPS.add(logGroupKey);
             }
             return createLogStream();
         } catch (Exception ex) {
@@ -75,7 +147,11 @@ public class CloudWatchLogHelper {
 
     private void createLogGroup() {
         log(String.format("Creating log group with name %s in resource owner account.", logGroupName));
-        cloudWatchLogsClient.createLogGroup(CreateLogGroupRequest.builder().logGroupName(logGroupName).build());
+        try {
+            cloudWatchLogsClient.createLogGroup(CreateLogGroupRequest.builder().logGroupName(logGroupName).build());
+        } catch (final ResourceAlreadyExistsException e) {
+            // created concurrently by another invocation
+        }
     }
 
     private String createLogStream() {
@@ -14,8 +14,17 @@
 */
 package software.amazon.cloudformation.loggers;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
 import software.amazon.awssdk.services.cloudwatchlogs.model.InputLogEvent;
 import software.amazon.awssdk.services.cloudwatchlogs.model.PutLogEventsRequest;
@@ -26,11 +35,22 @@ import software.amazon.cloudformation.proxy.MetricsPublisherProxy;
 
 public class CloudWatchLogPublisher extends LogPublisher {
 
+    //
+    // Creates log streams off the publishing threads, shared by every publisher in the JVM
+    //
+    private static final ExecutorService LOG_STREAM_PREPARER = Executors
+        .newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("cfn-log-stream-%d").setDaemon(true).build());
+
     private final CloudWatchLogsProvider cloudWatchLogsProvider;
+    private final CloudWatchLogHelper logStreamHelper;
 
     private CloudWatchLogsClient cloudWatchLogsClient;
     private String logGroupName;
     private String logStreamName;
+    private boolean logStreamPrepared;
+    // Guarded by this, events published while the log stream is being created
+    private List<InputLogEvent> pendingEvents;
+    private Future<?> logStreamPreparation;
     private LoggerProxy platformLoggerProxy;
     private MetricsPublisherProxy metricsPublisherProxy;
 
@@ -38,6 +58,7 @@ public class CloudWatchLogPublisher extends LogPublisher {
     // That same sequence number must be used in the subsequent put for the same
     // (log group, log stream) pair.
     // Ref: https://forums.aws.amazon.com/message.jspa?messageID=676799
+    // Guarded by this, see putLogEvents
     private String nextSequenceToken = null;
 
     public CloudWatchLogPublisher(final CloudWatchLogsProvider cloudWatchLogsProvider,
@@ -48,8 +69,42 @@ public class CloudWatchLogPublisher extends LogPublisher {
                                   final LogFilter... logFilters) {
         super(logFilters);
         this.cloudWatchLogsProvider = cloudWatchLogsProvider;
+        this.logStreamHelper = null;
         this.logGroupName = logGroupName;
         this.logStreamName = logStreamName;
+        this.logStreamPrepared = true;
+        this.platformLoggerProxy = platformLoggerProxy;
+        this.metricsPublisherProxy = metricsPublisherProxy;
+    }
+
+    /**
+     * Defers creating the log stream until the first message is published, so
+     * that invocations which log nothing make no call for it. The stream is
+     * created on a background thread, so that the first message does not hold up
+     * the handler even with a synchronous {@link LoggerProxy}. Messages published
+     * meanwhile are put along with the first one once the stream exists, see
+     * {@link #flush()}. If the stream cannot be created nothing is published, the
+     * failure is on the platform logs.
+     *
+     * @param cloudWatchLogsProvider provides the client of the account owning the
+     *            log group
+     * @param logStreamHelper creates the log stream in its log group, its client
+     *            must be refreshed by the caller
+     * @param platformLoggerProxy where failures to publish are logged
+     * @param metricsPublisherProxy where failures to publish are counted
+     * @param logFilters applied to every message
+     */
+    public CloudWatchLogPublisher(final CloudWatchLogsProvider cloudWatchLogsProvider,
+                                  final CloudWatchLogHelper logStreamHelper,
+                                  final LoggerProxy platformLoggerProxy,
+                                  final MetricsPublisherProxy metricsPublisherProxy,
+                                  final LogFilter... logFilters) {
+        super(logFilters);
+        this.cloudWatchLogsProvider = cloudWatchLogsProvider;
+        this.logStreamHelper = logStreamHelper;
+        this.logGroupName = logStreamHelper.getLogGroupName();
+        this.logStreamName = null;
+        this.logStreamPrepared = false;
         this.platformLoggerProxy = platformLoggerProxy;
         this.metricsPublisherProxy = metricsPublisherProxy;
     }
@@ -61,17 +116,8 @@ public class CloudWatchLogPublisher extends LogPublisher {
     @Override
     protected void publishMessage(final String message) {
         try {
-            if (skipLogging()) {
-                return;
-            }
-            assert cloudWatchLogsClient != null : "cloudWatchLogsClient was not initialised. "
-                + "You must call refreshClient() first.";
-            PutLogEventsResponse putLogEventsResponse = cloudWatchLogsClient.putLogEvents(PutLogEventsRequest.builder()
-                .overrideConfiguration(builder -> builder.putHeader("x-amzn-logs-format", "json/emf"))
-                .sequenceToken(nextSequenceToken).logGroupName(logGroupName).logStreamName(logStreamName)
-                .logEvents(InputLogEvent.builder().message(message).timestamp(new Date().getTime()).build()).build());
-
-            nextSequenceToken = putLogEventsResponse.nextSequenceToken();
+            putLogEvents(Collections.singletonList(InputLogEvent.builder().message(message).timestamp(new Date().getTime())
+                .build()));
         } catch (final Exception ex) {
             platformLoggerProxy.log(
                 String.format("An error occurred while putting log events [%s] " + "to resource owner account, with error: %s",
@@ -80,8 +126,105 @@ public class CloudWatchLogPublisher extends LogPublisher {
         }
     }
 
-    private boolean skipLogging() {
-        return logStreamName == null;
+    /**
+     * Puts the messages as separate log events in a single PutLogEvents call. Safe
+     * to call while the messages of an asynchronous {@link LoggerProxy} are being
+     * published, the calls take turns.
+     *
+     * @param messages the messages to publish, in order
+     */
+    public void publishLogEvents(final List<String> messages) {
+        try {
+            if (messages.isEmpty()) {
+                return;
+            }
+            final long timestamp = new Date().getTime();
+            final List<InputLogEvent> events = new ArrayList<>(messages.size());
+            for (final String message : messages) {
+                events.add(InputLogEvent.builder().message(filterMessage(message)).timestamp(timestamp).build());
+            }
+            putLogEvents(events);
+        } catch (final Exception ex) {
+            platformLoggerProxy.log(String.format(
+                "An error occurred while putting %d log events to resource owner account, with error: %s", messages.size(),
+                ex.toString()));
+            emitMetricsForLoggingFailure(ex);
+        }
+    }
+
+    /**
+     * Waits for the log stream to be created and for the messages published
+     * meanwhile to be put. {@link LoggerProxy#flush()} calls this before the
+     * response is written, after which the runtime may be frozen.
+     */
+    @Override
+    public void flush() {
+        final Future<?> preparation;
+        synchronized (this) {
+            preparation = logStreamPreparation;
+        }
+        if (preparation != null) {
+            try {
+                Uninterruptibles.getUninterruptibly(preparation);
+            } catch (final ExecutionException e) {
+                // failures are logged and counted by the preparation
+            }
+        }
+    }
+
+    /*
+     * Both publish paths go through here: the metrics flush on the invocation
+     * thread and the messages on the dispatcher of an asynchronous LoggerProxy.
+     * Each put needs the sequence token of the previous one, so they take turns.
+     */
+    private synchronized void putLogEvents(final List<InputLogEvent> events) {
+        if (logStreamPrepared) {
+            if (logStreamName != null) {
+                put(events);
+            }
+        } else if (pendingEvents == null) {
+            pendingEvents = new ArrayList<>(events);
+            logStreamPreparation = LOG_STREAM_PREPARER.submit(this::prepareLogStream);
+        } else {
+            pendingEvents.addAll(events);
+        }
+    }
+
+    /*
+     * On the preparer thread, the lock is only taken once the stream exists so
+     * that publishing threads can keep queueing events meanwhile
+     */
+    private void prepareLogStream() {
+        final String stream = logStreamHelper.prepareLogStream();
+        synchronized (this) {
+            final List<InputLogEvent> events = pendingEvents;
+            pendingEvents = null;
+            logStreamName = stream;
+            logStreamPrepared = true;
+            if (stream == null) {
+                return;
+            }
+            try {
+                put(events);
+            } catch (final Exception ex) {
+                platformLoggerProxy.log(String.format(
+                    "An error occurred while putting %d log events to resource owner account, with error: %s", events.size(),
+                    ex.toString()));
+                emitMetricsForLoggingFailure(ex);
+            }
+        }
+    }
+
+    // Guarded by this
+    private void put(final List<InputLogEvent> events) {
+        assert cloudWatchLogsClient != null : "cloudWatchLogsClient was not initialised. "
+            + "You must call refreshClient() first.";
+        PutLogEventsResponse putLogEventsResponse = cloudWatchLogsClient.putLogEvents(PutLogEventsRequest.builder()
+            .overrideConfiguration(builder -> builder.putHeader("x-amzn-logs-format", "json/emf"))
+            .sequenceToken(nextSequenceToken).logGroupName(logGroupName).logStreamName(logStreamName).logEvents(events)
+            .build());
+
+        nextSequenceToken = putLogEventsResponse.nextSequenceToken();
     }
 
     private void emitMetricsForLoggingFailure(final Exception ex) {
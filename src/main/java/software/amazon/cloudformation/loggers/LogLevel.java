@@ -0,0 +1,34 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.loggers;
+
+/**
+ * Severity of a log event, in increasing order. Each {@link LogPublisher} is
+ * registered with a minimum level and only receives events at or above it.
+ */
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR;
+
+    /**
+     * @param threshold the minimum level accepted, null accepts every level
+     * @return true if an event at this level passes the threshold
+     */
+    public boolean isAtLeast(final LogLevel threshold) {
+        return threshold == null || compareTo(threshold) >= 0;
+    }
+}
@@ -20,8 +20,13 @@ import java.util.List;
 public abstract class LogPublisher {
     private List<LogFilter> logFilterList;
 
+    /**
+     * @param filters applied to every message in order, consecutive
+     *            {@link RedactingLogFilter}s are merged so that they scan each
+     *            message once
+     */
     public LogPublisher(final LogFilter... filters) {
-        logFilterList = Arrays.asList(filters);
+        logFilterList = RedactingLogFilter.merge(Arrays.asList(filters));
     }
 
     protected abstract void publishMessage(String message);
@@ -30,7 +35,7 @@ public abstract class LogPublisher {
      * Redact or scrub loggers in someway to help prevent leaking of certain
      * information.
      */
-    private String filterMessage(final String message) {
+    protected String filterMessage(final String message) {
         String toReturn = message;
         for (LogFilter filter : logFilterList) {
             toReturn = filter.applyFilter(toReturn);
@@ -42,4 +47,11 @@ public abstract class LogPublisher {
         publishMessage(filterMessage(message));
     }
 
+    /**
+     * Completes the publication of every message published so far, for
+     * publishers that complete it in the background. Does nothing by default.
+     */
+    public void flush() {
+    }
+
 }
@@ -0,0 +1,347 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.loggers;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * {@link LogFilter} that redacts any number of literal secrets and regular
+ * expressions in a single scan of each message, instead of chaining one filter
+ * per secret, each of which scans the whole message and builds a new String.
+ *
+ * Literals are compiled into an Aho-Corasick automaton that matches all of them
+ * in one linear pass, and patterns into one regex alternation, so a message is
+ * scanned at most twice however many secrets are registered. Overlapping or
+ * adjacent matches are redacted as one. Messages without any match are returned
+ * as is, others are assembled in a reusable per-thread buffer.
+ *
+ * {@link LogPublisher} merges the consecutive redacting filters it is given into
+ * one, see {@link #merge(List)}.
+ *
+ * {@code
+ *     LogFilter filter = RedactingLogFilter.builder()
+ *         .literal(credentials.getSecretAccessKey())
+ *         .pattern("(?<=\"password\":\")[^\"]*").build();
+ * }
+ */
+@ThreadSafe
+public final class RedactingLogFilter implements LogFilter {
+
+    public static final String DEFAULT_REPLACEMENT = "<REDACTED>";
+
+    //
+    // Buffers that grew past this are not kept around for the next message
+    //
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final Set<String> literals;
+    private final List<Pattern> patterns;
+    private final String replacement;
+    private final Automaton automaton;
+    private final Pattern pattern;
+
+    private RedactingLogFilter(final Set<String> literals,
+                               final List<Pattern> patterns,
+                               final String replacement) {
+        this.literals = literals;
+        this.patterns = patterns;
+        this.replacement = replacement;
+        this.automaton = literals.isEmpty() ? null : new Automaton(literals);
+        this.pattern = patterns.isEmpty() ? null : combine(patterns);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final Set<String> literals = new LinkedHashSet<>();
+        private final List<Pattern> patterns = new ArrayList<>();
+        private String replacement = DEFAULT_REPLACEMENT;
+
+        /**
+         * @param literal exact text to redact, null or empty values are ignored so
+         *            that optional secrets can be passed straight through
+         * @return this builder
+         */
+        public Builder literal(final String literal) {
+            if (literal != null && !literal.isEmpty()) {
+                literals.add(literal);
+            }
+            return this;
+        }
+
+        public Builder pattern(final String regex) {
+            return pattern(Pattern.compile(regex));
+        }
+
+        public Builder pattern(final Pattern pattern) {
+            patterns.add(Preconditions.checkNotNull(pattern, "pattern can not be null"));
+            return this;
+        }
+
+        public Builder replacement(final String replacement) {
+            this.replacement = Preconditions.checkNotNull(replacement, "replacement can not be null");
+            return this;
+        }
+
+        public RedactingLogFilter build() {
+            return new RedactingLogFilter(new LinkedHashSet<>(literals), new ArrayList<>(patterns), replacement);
+        }
+    }
+
+    /**
+     * Replaces every run of consecutive redacting filters with the same
+     * replacement by a single filter redacting all of their literals and
+     * patterns, so that the run costs one scan of each message instead of one
+     * per filter. A match spanning the replacement text of an earlier filter in
+     * the run is no longer found, the original text is redacted instead. Other
+     * filters are kept in place.
+     *
+     * @param filters the filters in the order they would be chained
+     * @return the filters to chain instead
+     */
+    public static List<LogFilter> merge(final List<LogFilter> filters) {
+        final List<LogFilter> merged = new ArrayList<>(filters.size());
+        for (final LogFilter filter : filters) {
+            final LogFilter previous = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (filter instanceof RedactingLogFilter && previous instanceof RedactingLogFilter
+                && ((RedactingLogFilter) filter).replacement.equals(((RedactingLogFilter) previous).replacement)) {
+                merged.set(merged.size() - 1, ((RedactingLogFilter) previous).and((RedactingLogFilter) filter));
+            } else {
+                merged.add(filter);
+            }
+        }
+        return merged;
+    }
+
+    private RedactingLogFilter and(final RedactingLogFilter other) {
+        final Builder builder = builder().replacement(replacement);
+        builder.literals.addAll(literals);
+        builder.literals.addAll(other.literals);
+        builder.patterns.addAll(patterns);
+        builder.patterns.addAll(other.patterns);
+        return builder.build();
+    }
+
+    @Override
+    public String applyFilter(final String rawInput) {
+        if (rawInput == null || rawInput.isEmpty()) {
+            return rawInput;
+        }
+        long[] matches = automaton != null ? automaton.find(rawInput) : null;
+        if (pattern != null) {
+            matches = find(pattern, rawInput, matches);
+        }
+        return matches == null ? rawInput : redact(rawInput, matches);
+    }
+
+    /*
+     * @return the matches found so far followed by the non empty matches of the
+     *         pattern, or null if there are none
+     */
+    private static long[] find(final Pattern pattern, final String rawInput, final long[] found) {
+        Matcher matcher = pattern.matcher(rawInput);
+        long[] matches = found;
+        int count = found == null ? 0 : found.length;
+        while (matcher.find()) {
+            if (matcher.end() > matcher.start()) {
+                matches = append(matches, count++, matcher.start(), matcher.end());
+            }
+        }
+        return matches == null ? null : Arrays.copyOf(matches, count);
+    }
+
+    /*
+     * A match is packed into a long, its start in the upper half and its end in
+     * the lower one, so that matches sort by start
+     */
+    private static long[] append(final long[] matches, final int count, final int start, final int end) {
+        long[] appended = matches;
+        if (appended == null) {
+            appended = new long[8];
+        } else if (count == appended.length) {
+            appended = Arrays.copyOf(appended, count * 2);
+        }
+        appended[count] = ((long) start << 32) | end;
+        return appended;
+    }
+
+    private String redact(final String rawInput, final long[] matches) {
+        //
+        // A longer literal found later may still start before an earlier match, and
+        // literal and pattern matches interleave, so sort first and then merge
+        //
+        Arrays.sort(matches);
+        StringBuilder buffer = buffer();
+        int copied = 0;
+        int start = (int) (matches[0] >>> 32);
+        int end = (int) matches[0];
+        for (int i = 1; i < matches.length; i++) {
+            int nextStart = (int) (matches[i] >>> 32);
+            if (nextStart > end) {
+                buffer.append(rawInput, copied, start).append(replacement);
+                copied = end;
+                start = nextStart;
+            }
+            end = Math.max(end, (int) matches[i]);
+        }
+        buffer.append(rawInput, copied, start).append(replacement).append(rawInput, end, rawInput.length());
+        return release(buffer);
+    }
+
+    private static Pattern combine(final List<Pattern> patterns) {
+        if (patterns.size() == 1) {
+            return patterns.get(0);
+        }
+        return Pattern.compile(patterns.stream().map(each -> "(?:" + each.pattern() + ")").collect(Collectors.joining("|")));
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private static String release(final StringBuilder buffer) {
+        String result = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    /*
+     * Aho-Corasick automaton over chars. Every state knows the length of the
+     * longest literal ending at it, including through its failure links, so a
+     * single left to right pass finds every literal occurrence. The trie is
+     * flattened into sorted arrays once built, and ASCII transitions out of the
+     * root state, where most of the scan is spent, are looked up directly.
+     */
+    private static final class Automaton {
+        private final char[][] keys;
+        private final int[][] targets;
+        private final int[] rootAscii = new int[128];
+        private final int[] failure;
+        private final int[] longest;
+
+        private Automaton(final Set<String> literals) {
+            List<Map<Character, Integer>> trie = new ArrayList<>();
+            trie.add(new HashMap<>());
+            List<Integer> lengths = new ArrayList<>();
+            lengths.add(0);
+            for (String literal : literals) {
+                int state = 0;
+                for (int i = 0; i < literal.length(); i++) {
+                    Integer next = trie.get(state).get(literal.charAt(i));
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new HashMap<>());
+                        lengths.add(0);
+                        trie.get(state).put(literal.charAt(i), next);
+                    }
+                    state = next;
+                }
+                lengths.set(state, Math.max(lengths.get(state), literal.length()));
+            }
+            int states = trie.size();
+            this.keys = new char[states][];
+            this.targets = new int[states][];
+            this.failure = new int[states];
+            this.longest = new int[states];
+            for (int state = 0; state < states; state++) {
+                List<Character> sorted = new ArrayList<>(trie.get(state).keySet());
+                sorted.sort(null);
+                keys[state] = new char[sorted.size()];
+                targets[state] = new int[sorted.size()];
+                for (int i = 0; i < sorted.size(); i++) {
+                    keys[state][i] = sorted.get(i);
+                    targets[state][i] = trie.get(state).get(sorted.get(i));
+                }
+                longest[state] = lengths.get(state);
+            }
+            for (int c = 0; c < rootAscii.length; c++) {
+                rootAscii[c] = transition(0, (char) c);
+            }
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int child : targets[0]) {
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int i = 0; i < keys[state].length; i++) {
+                    int child = targets[state][i];
+                    failure[child] = next(failure[state], keys[state][i]);
+                    longest[child] = Math.max(longest[child], longest[failure[child]]);
+                    queue.add(child);
+                }
+            }
+        }
+
+        /*
+         * @return the target state, 0 for the root or -1 if there is no transition
+         */
+        private int transition(final int state, final char c) {
+            int index = Arrays.binarySearch(keys[state], c);
+            return index >= 0 ? targets[state][index] : (state == 0 ? 0 : -1);
+        }
+
+        private int next(final int from, final char c) {
+            int state = from;
+            for (;;) {
+                if (state == 0) {
+                    return c < 128 ? rootAscii[c] : transition(0, c);
+                }
+                int next = transition(state, c);
+                if (next >= 0) {
+                    return next;
+                }
+                state = failure[state];
+            }
+        }
+
+        /*
+         * @return the longest literal ending at each position where one does, or null
+         *         if there is none
+         */
+        private long[] find(final String rawInput) {
+            long[] matches = null;
+            int count = 0;
+            int state = 0;
+            for (int i = 0; i < rawInput.length(); i++) {
+                state = next(state, rawInput.charAt(i));
+                if (longest[state] > 0) {
+                    matches = append(matches, count++, i + 1 - longest[state], i + 1);
+                }
+            }
+            return matches == null ? null : Arrays.copyOf(matches, count);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.metrics;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Tells whether class data sharing is active in this JVM, and whether classes
+ * are mapped from an archive built for the handler (see the appcds profile of
+ * the generated project) or only from the default JDK archive. A handler
+ * shipped with an archive that does not report {@link #APP_ARCHIVE} pays the
+ * full class loading cost on every cold start, typically because the archive
+ * was built with a different JDK or class path.
+ */
+public final class ClassDataSharing {
+
+    public static final String APP_ARCHIVE = "AppArchive";
+    public static final String DEFAULT_ARCHIVE = "DefaultArchive";
+    public static final String OFF = "Off";
+
+    private static final String STATUS = detect();
+
+    private ClassDataSharing() {
+    }
+
+    /**
+     * @return {@link #APP_ARCHIVE}, {@link #DEFAULT_ARCHIVE} or {@link #OFF}
+     */
+    public static String status() {
+        return STATUS;
+    }
+
+    static String detect(final boolean useSharedSpaces, final String sharedArchiveFile) {
+        if (!useSharedSpaces) {
+            return OFF;
+        }
+        return sharedArchiveFile == null || sharedArchiveFile.isEmpty() ? DEFAULT_ARCHIVE : APP_ARCHIVE;
+    }
+
+    private static String detect() {
+        try {
+            final HotSpotDiagnosticMXBean diagnostics = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            // the JVM turns UseSharedSpaces off when an archive could not be mapped
+            return detect(Boolean.parseBoolean(diagnostics.getVMOption("UseSharedSpaces").getValue()),
+                diagnostics.getVMOption("SharedArchiveFile").getValue());
+        } catch (final RuntimeException e) {
+            // not a HotSpot JVM
+            return OFF;
+        }
+    }
+}
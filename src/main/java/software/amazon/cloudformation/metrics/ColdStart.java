@@ -0,0 +1,162 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Records where the time goes during a cold start, once per JVM. Init phases
+ * (static clients, serializer, validator, schema load, priming) are recorded
+ * whenever they first run. Invocation phases (decode, validate, transform,
+ * handler, sanitize, write) are only recorded during the first invocation.
+ * Durations are measured with {@link System#nanoTime()}; after the breakdown
+ * has been {@link #complete() completed} recording is a single volatile read.
+ */
+@ThreadSafe
+public final class ColdStart {
+
+    public static final String PHASE_HTTP_CLIENT = "HttpClient";
+    public static final String PHASE_SERIALIZER = "Serializer";
+    public static final String PHASE_VALIDATOR = "Validator";
+    public static final String PHASE_SCHEMA = "SchemaLoad";
+    public static final String PHASE_CIPHER = "CipherClient";
+    public static final String PHASE_PRIME = "Prime";
+    public static final String PHASE_UNTIL_FIRST_INVOCATION = "UntilFirstInvocation";
+    public static final String PHASE_DECODE = "Decode";
+    public static final String PHASE_VALIDATE = "Validate";
+    public static final String PHASE_TRANSFORM = "Transform";
+    public static final String PHASE_HANDLER = "Handler";
+    public static final String PHASE_SANITIZE = "Sanitize";
+    public static final String PHASE_WRITE = "Write";
+    public static final String PHASE_FIRST_INVOCATION = "FirstInvocation";
+
+    private static final Map<String, Long> PHASES = new LinkedHashMap<>();
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+    private static volatile boolean completed;
+    private static volatile boolean firstInvocation;
+    private static long invocationStart;
+
+    private ColdStart() {
+    }
+
+    /**
+     * Times an init phase, only the first time it runs.
+     *
+     * @param phase name of the phase
+     * @param supplier runs the phase
+     * @param <T> the type of the result
+     * @return the result of the supplier
+     */
+    public static <T> T time(final String phase, final Supplier<T> supplier) {
+        if (completed) {
+            return supplier.get();
+        }
+        final long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(phase, start);
+        }
+    }
+
+    /**
+     * Records an init phase that started at {@code startNanos}, unless it has
+     * already been recorded.
+     *
+     * @param phase name of the phase
+     * @param startNanos {@link System#nanoTime()} when the phase started
+     */
+    public static void record(final String phase, final long startNanos) {
+        if (completed) {
+            return;
+        }
+        final long elapsed = System.nanoTime() - startNanos;
+        synchronized (PHASES) {
+            PHASES.putIfAbsent(phase, elapsed);
+        }
+    }
+
+    /**
+     * Marks the start of an invocation. Only the first invocation in the JVM
+     * records invocation phases.
+     *
+     * @return true if this is the first invocation
+     */
+    public static boolean beginInvocation() {
+        if (completed || !STARTED.compareAndSet(false, true)) {
+            return false;
+        }
+        synchronized (PHASES) {
+            PHASES.put(PHASE_UNTIL_FIRST_INVOCATION,
+                TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime()));
+            invocationStart = System.nanoTime();
+        }
+        firstInvocation = true;
+        return true;
+    }
+
+    /**
+     * Records a phase of the first invocation, does nothing for later ones.
+     *
+     * @param phase name of the phase
+     * @param startNanos {@link System#nanoTime()} when the phase started
+     */
+    public static void recordInvocation(final String phase, final long startNanos) {
+        if (firstInvocation) {
+            record(phase, startNanos);
+        }
+    }
+
+    /**
+     * Ends the first invocation and hands out the breakdown, exactly once.
+     *
+     * @return the duration of every recorded phase in milliseconds, in the order
+     *         they completed, or null if the breakdown was already handed out or
+     *         the first invocation is not running
+     */
+    public static Map<String, Long> complete() {
+        if (!firstInvocation) {
+            return null;
+        }
+        synchronized (PHASES) {
+            if (completed) {
+                return null;
+            }
+            PHASES.put(PHASE_FIRST_INVOCATION, System.nanoTime() - invocationStart);
+            final Map<String, Long> milliseconds = new LinkedHashMap<>();
+            PHASES.forEach((phase, nanos) -> milliseconds.put(phase, TimeUnit.NANOSECONDS.toMillis(nanos)));
+            PHASES.clear();
+            completed = true;
+            firstInvocation = false;
+            return Collections.unmodifiableMap(milliseconds);
+        }
+    }
+
+    static void reset() {
+        synchronized (PHASES) {
+            PHASES.clear();
+            STARTED.set(false);
+            completed = false;
+            firstInvocation = false;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.metrics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.concurrent.ThreadSafe;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.cloudformation.loggers.CloudWatchLogPublisher;
+import software.amazon.cloudformation.proxy.Logger;
+
+/**
+ * Holds the metric data of an invocation and publishes it as CloudWatch
+ * embedded metric format documents, all in one batch of log events, instead of
+ * a PutMetricData call per metric. Data with the same timestamp and dimensions
+ * share a document, several values of one metric in a document are published
+ * as a list of values.
+ *
+ * @see <a href=
+ *      "https://docs.aws.amazon.com/AmazonCloudWatch/latest/monitoring/CloudWatch_Embedded_Metric_Format_Specification.html">Embedded
+ *      metric format specification</a>
+ */
+@ThreadSafe
+class EmbeddedMetricFormat {
+
+    private final CloudWatchLogPublisher logPublisher;
+    private final Logger loggerProxy;
+    private final String namespace;
+    private final List<MetricDatum> pending = new ArrayList<>();
+
+    EmbeddedMetricFormat(final CloudWatchLogPublisher logPublisher,
+                         final Logger loggerProxy,
+                         final String namespace) {
+        this.logPublisher = logPublisher;
+        this.loggerProxy = loggerProxy;
+        this.namespace = namespace;
+    }
+
+    synchronized void add(final MetricDatum... metricData) {
+        pending.addAll(Arrays.asList(metricData));
+    }
+
+    void flush() {
+        final List<MetricDatum> data;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            data = new ArrayList<>(pending);
+            pending.clear();
+        }
+        try {
+            logPublisher.publishLogEvents(documents(namespace, data));
+        } catch (final Exception e) {
+            if (loggerProxy != null) {
+                loggerProxy.log(String.format("An error occurred while publishing metrics: %s%n", e.getMessage()));
+            }
+        }
+    }
+
+    static List<String> documents(final String namespace, final List<MetricDatum> data) {
+        final Map<String, Document> documents = new LinkedHashMap<>();
+        for (final MetricDatum datum : data) {
+            final Instant timestamp = datum.timestamp() == null ? Instant.now() : datum.timestamp();
+            final Map<String, String> dimensions = new TreeMap<>();
+            for (final Dimension dimension : datum.dimensions()) {
+                dimensions.put(dimension.name(), dimension.value());
+            }
+            documents.computeIfAbsent(timestamp.toEpochMilli() + " " + dimensions, key -> new Document(timestamp, dimensions))
+                .add(datum);
+        }
+
+        final List<String> rendered = new ArrayList<>(documents.size());
+        for (final Document document : documents.values()) {
+            rendered.add(document.render(namespace));
+        }
+        return rendered;
+    }
+
+    private static final class Document {
+        private final Instant timestamp;
+        private final Map<String, String> dimensions;
+        private final Map<String, List<Double>> values = new LinkedHashMap<>();
+        private final Map<String, String> units = new LinkedHashMap<>();
+
+        private Document(final Instant timestamp,
+                         final Map<String, String> dimensions) {
+            this.timestamp = timestamp;
+            this.dimensions = dimensions;
+        }
+
+        private void add(final MetricDatum datum) {
+            values.computeIfAbsent(datum.metricName(), name -> new ArrayList<>()).add(datum.value());
+            if (datum.unit() != null) {
+                units.put(datum.metricName(), datum.unitAsString());
+            }
+        }
+
+        private String render(final String namespace) {
+            final JSONArray metrics = new JSONArray();
+            for (final String name : values.keySet()) {
+                final JSONObject metric = new JSONObject().put("Name", name);
+                if (units.containsKey(name)) {
+                    metric.put("Unit", units.get(name));
+                }
+                metrics.put(metric);
+            }
+            final JSONObject directive = new JSONObject().put("Namespace", namespace)
+                .put("Dimensions", new JSONArray().put(new JSONArray(dimensions.keySet()))).put("Metrics", metrics);
+
+            final JSONObject document = new JSONObject().put("_aws", new JSONObject()
+                .put("Timestamp", timestamp.toEpochMilli()).put("CloudWatchMetrics", new JSONArray().put(directive)));
+            dimensions.forEach(document::put);
+            values.forEach((name, list) -> document.put(name, list.size() == 1 ? list.get(0) : new JSONArray(list)));
+            return document.toString();
+        }
+    }
+}
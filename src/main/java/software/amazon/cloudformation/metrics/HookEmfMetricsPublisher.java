@@ -0,0 +1,52 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.metrics;
+
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.cloudformation.loggers.CloudWatchLogPublisher;
+import software.amazon.cloudformation.proxy.Logger;
+
+/**
+ * Publishes the metrics of {@link HookMetricsPublisherImpl} as embedded metric
+ * format documents to the provider log stream, in one batch per
+ * {@link #flush()} instead of a PutMetricData call per metric.
+ */
+public class HookEmfMetricsPublisher extends HookMetricsPublisherImpl {
+    private final EmbeddedMetricFormat embeddedMetricFormat;
+
+    public HookEmfMetricsPublisher(final CloudWatchLogPublisher logPublisher,
+                                   final Logger loggerProxy,
+                                   final String awsAccountId,
+                                   final String hookTypeName) {
+        super(null, loggerProxy, awsAccountId, hookTypeName);
+        this.embeddedMetricFormat = new EmbeddedMetricFormat(logPublisher, loggerProxy, String.format("%s/%s/%s",
+            Metric.METRIC_NAMESPACE_ROOT, awsAccountId, namespace));
+    }
+
+    @Override
+    public void refreshClient() {
+        // published with the client of the log publisher
+    }
+
+    @Override
+    public void flush() {
+        embeddedMetricFormat.flush();
+    }
+
+    @Override
+    protected void publishBulkMetrics(final MetricDatum... metricData) {
+        embeddedMetricFormat.add(metricData);
+    }
+}
@@ -15,10 +15,14 @@
 package software.amazon.cloudformation.metrics;
 
 import com.google.common.collect.Sets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 import software.amazon.awssdk.services.cloudwatch.model.Dimension;
 import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
@@ -26,30 +30,77 @@ import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
 import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
 import software.amazon.cloudformation.HookInvocationPoint;
 import software.amazon.cloudformation.injection.CloudWatchProvider;
+import software.amazon.cloudformation.injection.HttpClientStatistics;
+import software.amazon.cloudformation.injection.PendingRequests;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.Logger;
 
 public class HookMetricsPublisherImpl extends MetricsPublisher {
     private final CloudWatchProvider cloudWatchProvider;
+    private final Duration asyncDeadline;
+    private final PendingRequests pendingRequests = new PendingRequests();
     private Logger loggerProxy;
     private String awsAccountId;
     private CloudWatchClient cloudWatchClient;
+    private CloudWatchAsyncClient cloudWatchAsyncClient;
 
     public HookMetricsPublisherImpl(final CloudWatchProvider cloudWatchProvider,
                                     final Logger loggerProxy,
                                     final String awsAccountId,
                                     final String hookTypeName) {
+        this(cloudWatchProvider, loggerProxy, awsAccountId, hookTypeName, null);
+    }
+
+    /**
+     * @param cloudWatchProvider provides the clients of the account owning the
+     *            metrics
+     * @param loggerProxy where failures to publish are logged
+     * @param awsAccountId the account the hook is invoked in
+     * @param hookTypeName the type of the hook
+     * @param asyncDeadline publish on the shared non-blocking HTTP client and wait
+     *            at most this long for pending publications on {@link #flush()},
+     *            null to publish synchronously, as it also does when the provider
+     *            cannot build a non-blocking client
+     */
+    public HookMetricsPublisherImpl(final CloudWatchProvider cloudWatchProvider,
+                                    final Logger loggerProxy,
+                                    final String awsAccountId,
+                                    final String hookTypeName,
+                                    final Duration asyncDeadline) {
         super(hookTypeName);
         this.cloudWatchProvider = cloudWatchProvider;
         this.loggerProxy = loggerProxy;
         this.awsAccountId = awsAccountId;
+        this.asyncDeadline = asyncDeadline;
     }
 
     @Override
     public void refreshClient() {
+        if (asyncDeadline != null) {
+            try {
+                this.cloudWatchAsyncClient = cloudWatchProvider.getAsync();
+                return;
+            } catch (final IllegalStateException e) {
+                log(String.format("Publishing metrics synchronously: %s", e.getMessage()));
+            }
+        }
         this.cloudWatchClient = cloudWatchProvider.get();
     }
 
+    /**
+     * Waits for asynchronous publications until the deadline given at
+     * construction, the metrics of those still running then are lost
+     */
+    @Override
+    public void flush() {
+        if (asyncDeadline != null) {
+            final int cancelled = pendingRequests.join(asyncDeadline);
+            if (cancelled > 0) {
+                log(String.format("%d metrics publications did not complete within %s", cancelled, asyncDeadline));
+            }
+        }
+    }
+
     private String getHookTypeName() {
         return this.typeName;
     }
@@ -131,12 +182,57 @@ public class HookMetricsPublisherImpl extends MetricsPublisher {
         publishBulkMetrics(bulkData.toArray(new MetricDatum[0]));
     }
 
-    private void publishBulkMetrics(final MetricDatum... metricData) {
-        assert cloudWatchClient != null : "CloudWatchEventsClient was not initialised. You must call refreshClient() first.";
+    @Override
+    public void publishFileScrubMetric(final Instant timestamp, final long milliseconds, final long bytesFreed) {
+        final Dimension typeDimension = Dimension.builder().name(Metric.DIMENSION_KEY_HOOK_TYPE)
+            .value(this.getHookTypeName()).build();
+        publishBulkMetrics(
+            MetricDatum.builder().metricName(Metric.METRIC_NAME_FILE_SCRUB_DURATION).unit(StandardUnit.MILLISECONDS)
+                .value((double) milliseconds).dimensions(typeDimension).timestamp(timestamp).build(),
+            MetricDatum.builder().metricName(Metric.METRIC_NAME_FILE_SCRUB_BYTES_FREED).unit(StandardUnit.BYTES)
+                .value((double) bytesFreed).dimensions(typeDimension).timestamp(timestamp).build());
+    }
+
+    @Override
+    public void publishHttpClientMetric(final Instant timestamp, final HttpClientStatistics.Snapshot statistics) {
+        publishBulkMetrics(MetricsPublisherImpl.httpClientData(timestamp,
+            Dimension.builder().name(Metric.DIMENSION_KEY_HOOK_TYPE).value(this.getHookTypeName()).build(), statistics)
+                .toArray(new MetricDatum[0]));
+    }
+
+    @Override
+    public void publishColdStartMetric(final Instant timestamp, final Map<String, Long> phaseMilliseconds) {
+        final Dimension typeDimension = Dimension.builder().name(Metric.DIMENSION_KEY_HOOK_TYPE)
+            .value(this.getHookTypeName()).build();
+        publishBulkMetrics(phaseMilliseconds.entrySet().stream()
+            .map(phase -> MetricDatum.builder().metricName(Metric.METRIC_NAME_COLD_START_PHASE_DURATION)
+                .unit(StandardUnit.MILLISECONDS).value((double) phase.getValue())
+                .dimensions(Dimension.builder().name(Metric.DIMENSION_KEY_PHASE).value(phase.getKey()).build(), typeDimension)
+                .timestamp(timestamp).build())
+            .toArray(MetricDatum[]::new));
+    }
 
+    @Override
+    public void publishResourceUsageMetric(final Instant timestamp,
+                                           final HookInvocationPoint invocationPoint,
+                                           final ThreadUsage handler,
+                                           final ThreadUsage framework) {
+        final Set<MetricDatum> data = MetricsPublisherImpl.resourceUsageData(timestamp, Sets.newHashSet(
+            Dimension.builder().name(Metric.DIMENSION_KEY_INVOCATION_POINT_TYPE)
+                .value(invocationPoint == null ? "NO_INVOCATION_POINT" : invocationPoint.name()).build(),
+            Dimension.builder().name(Metric.DIMENSION_KEY_HOOK_TYPE).value(this.getHookTypeName()).build()), handler, framework);
+        publishBulkMetrics(data.toArray(new MetricDatum[0]));
+    }
+
+    protected void publishBulkMetrics(final MetricDatum... metricData) {
         PutMetricDataRequest putMetricDataRequest = PutMetricDataRequest.builder()
             .namespace(String.format("%s/%s/%s", Metric.METRIC_NAMESPACE_ROOT, awsAccountId, namespace)).metricData(metricData)
             .build();
+        if (cloudWatchAsyncClient != null) {
+            publishAsync(putMetricDataRequest);
+            return;
+        }
+        assert cloudWatchClient != null : "CloudWatchEventsClient was not initialised. You must call refreshClient() first.";
 
         try {
             this.cloudWatchClient.putMetricData(putMetricDataRequest);
@@ -145,6 +241,20 @@ public class HookMetricsPublisherImpl extends MetricsPublisher {
         }
     }
 
+    private void publishAsync(final PutMetricDataRequest putMetricDataRequest) {
+        assert cloudWatchAsyncClient != null : "CloudWatchAsyncClient was not initialised. You must call refreshClient() first.";
+
+        try {
+            pendingRequests.track(this.cloudWatchAsyncClient.putMetricData(putMetricDataRequest)).whenComplete((response, e) -> {
+                if (e != null) {
+                    log(String.format("An error occurred while publishing metrics: %s", e.getMessage()));
+                }
+            });
+        } catch (final Exception e) {
+            log(String.format("An error occurred while publishing metrics: %s", e.getMessage()));
+        }
+    }
+
     private void log(final String message) {
         if (loggerProxy != null) {
             loggerProxy.log(String.format("%s%n", message));
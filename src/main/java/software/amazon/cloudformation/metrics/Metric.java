@@ -22,6 +22,17 @@ public class Metric {
     public static final String METRIC_NAME_HANDLER_EXCEPTION_BY_EXCEPTION_COUNT = "HandlerExceptionByExceptionCount";
     public static final String METRIC_NAME_HANDLER_DURATION = "HandlerInvocationDuration";
     public static final String METRIC_NAME_HANDLER_INVOCATION_COUNT = "HandlerInvocationCount";
+    public static final String METRIC_NAME_FILE_SCRUB_DURATION = "FileScrubDuration";
+    public static final String METRIC_NAME_FILE_SCRUB_BYTES_FREED = "FileScrubBytesFreed";
+    public static final String METRIC_NAME_COLD_START_PHASE_DURATION = "ColdStartPhaseDuration";
+    public static final String METRIC_NAME_INVOCATION_CPU_TIME = "InvocationCpuTime";
+    public static final String METRIC_NAME_INVOCATION_ALLOCATED_BYTES = "InvocationAllocatedBytes";
+    public static final String METRIC_NAME_REINVOCATION_LAG = "ReinvocationLag";
+    public static final String METRIC_NAME_REINVOCATION_QUEUE_DEPTH = "ReinvocationQueueDepth";
+    public static final String METRIC_NAME_HTTP_CLIENT_LEASED_CONNECTIONS = "HttpClientLeasedConnections";
+    public static final String METRIC_NAME_HTTP_CLIENT_PENDING_ACQUIRES = "HttpClientPendingAcquires";
+    public static final String METRIC_NAME_HTTP_CLIENT_AVAILABLE_CONNECTIONS = "HttpClientAvailableConnections";
+    public static final String METRIC_NAME_HTTP_CLIENT_CONNECT_LATENCY = "HttpClientConnectLatency";
 
     public static final String DIMENSION_KEY_ACTION_TYPE = "Action";
     public static final String DIMENSION_KEY_INVOCATION_POINT_TYPE = "InvocationPoint";
@@ -29,6 +40,11 @@ public class Metric {
     public static final String DIMENSION_KEY_RESOURCE_TYPE = "ResourceType";
     public static final String DIMENSION_KEY_HOOK_TYPE = "HookType";
     public static final String DIMENSION_KEY_HANDLER_ERROR_CODE = "HandlerErrorCode";
+    public static final String DIMENSION_KEY_PHASE = "Phase";
+    public static final String DIMENSION_KEY_SCOPE = "Scope";
+
+    public static final String SCOPE_HANDLER = "Handler";
+    public static final String SCOPE_FRAMEWORK = "Framework";
 
     private Metric() {
     }
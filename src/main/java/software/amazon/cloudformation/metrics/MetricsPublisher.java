@@ -15,8 +15,10 @@
 package software.amazon.cloudformation.metrics;
 
 import java.time.Instant;
+import java.util.Map;
 import software.amazon.cloudformation.Action;
 import software.amazon.cloudformation.HookInvocationPoint;
+import software.amazon.cloudformation.injection.HttpClientStatistics;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 
 public abstract class MetricsPublisher {
@@ -37,6 +39,13 @@ public abstract class MetricsPublisher {
     public void refreshClient() {
     }
 
+    /**
+     * Publishes metrics held back by the publisher. The wrappers call this before
+     * the response is written and once the invocation completes.
+     */
+    public void flush() {
+    }
+
     public void publishExceptionMetric(final Instant timestamp,
                                        final Action action,
                                        final Throwable e,
@@ -74,4 +83,54 @@ public abstract class MetricsPublisher {
 
     public void publishProviderLogDeliveryExceptionMetric(final Instant timestamp, final Throwable exception) {
     }
+
+    /**
+     * @param timestamp when the temp directory was scrubbed
+     * @param milliseconds time the invocation was held up by scrubbing
+     * @param bytesFreed size of the files left by the previous invocation
+     */
+    public void publishFileScrubMetric(final Instant timestamp, final long milliseconds, final long bytesFreed) {
+    }
+
+    /**
+     * @param timestamp when the re-invocation started
+     * @param lagMilliseconds how late the re-invocation started, compared to when
+     *            it was scheduled for
+     * @param queueDepth number of re-invocations still waiting
+     */
+    public void publishReinvocationMetric(final Instant timestamp, final long lagMilliseconds, final int queueDepth) {
+    }
+
+    /**
+     * @param timestamp when the invocation completed
+     * @param statistics connection pool statistics of the shared HTTP client
+     *            during the invocation, see {@link HttpClientStatistics}
+     */
+    public void publishHttpClientMetric(final Instant timestamp, final HttpClientStatistics.Snapshot statistics) {
+    }
+
+    /**
+     * @param timestamp when the first invocation completed
+     * @param phaseMilliseconds duration of each cold start phase, see {@link ColdStart}
+     */
+    public void publishColdStartMetric(final Instant timestamp, final Map<String, Long> phaseMilliseconds) {
+    }
+
+    /**
+     * @param timestamp when the invocation completed
+     * @param action the action invoked
+     * @param handler CPU time and allocation of the handler code
+     * @param framework CPU time and allocation of the wrapper around the handler
+     */
+    public void publishResourceUsageMetric(final Instant timestamp,
+                                           final Action action,
+                                           final ThreadUsage handler,
+                                           final ThreadUsage framework) {
+    }
+
+    public void publishResourceUsageMetric(final Instant timestamp,
+                                           final HookInvocationPoint invocationPoint,
+                                           final ThreadUsage handler,
+                                           final ThreadUsage framework) {
+    }
 }
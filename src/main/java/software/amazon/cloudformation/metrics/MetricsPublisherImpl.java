@@ -14,11 +14,18 @@
 */
 package software.amazon.cloudformation.metrics;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 import software.amazon.awssdk.services.cloudwatch.model.Dimension;
 import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
@@ -26,28 +33,73 @@ import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
 import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
 import software.amazon.cloudformation.Action;
 import software.amazon.cloudformation.injection.CloudWatchProvider;
+import software.amazon.cloudformation.injection.HttpClientStatistics;
+import software.amazon.cloudformation.injection.PendingRequests;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.Logger;
 
 public class MetricsPublisherImpl extends MetricsPublisher {
     private final CloudWatchProvider cloudWatchProvider;
+    private final Duration asyncDeadline;
+    private final PendingRequests pendingRequests = new PendingRequests();
 
     private Logger loggerProxy;
 
     private CloudWatchClient cloudWatchClient;
+    private CloudWatchAsyncClient cloudWatchAsyncClient;
 
     public MetricsPublisherImpl(final CloudWatchProvider cloudWatchProvider,
                                 final Logger loggerProxy,
                                 final String resourceTypeName) {
+        this(cloudWatchProvider, loggerProxy, resourceTypeName, null);
+    }
+
+    /**
+     * @param cloudWatchProvider provides the clients of the account owning the
+     *            metrics
+     * @param loggerProxy where failures to publish are logged
+     * @param resourceTypeName the type of the resource
+     * @param asyncDeadline publish on the shared non-blocking HTTP client and wait
+     *            at most this long for pending publications on {@link #flush()},
+     *            null to publish synchronously, as it also does when the provider
+     *            cannot build a non-blocking client
+     */
+    public MetricsPublisherImpl(final CloudWatchProvider cloudWatchProvider,
+                                final Logger loggerProxy,
+                                final String resourceTypeName,
+                                final Duration asyncDeadline) {
         super(resourceTypeName);
         this.cloudWatchProvider = cloudWatchProvider;
         this.loggerProxy = loggerProxy;
+        this.asyncDeadline = asyncDeadline;
     }
 
     public void refreshClient() {
+        if (asyncDeadline != null) {
+            try {
+                this.cloudWatchAsyncClient = cloudWatchProvider.getAsync();
+                return;
+            } catch (final IllegalStateException e) {
+                log(String.format("Publishing metrics synchronously: %s", e.getMessage()));
+            }
+        }
         this.cloudWatchClient = cloudWatchProvider.get();
     }
 
+    /**
+     * Waits for asynchronous publications until the deadline given at
+     * construction, the metrics of those still running then are lost
+     */
+    @Override
+    public void flush() {
+        if (asyncDeadline != null) {
+            final int cancelled = pendingRequests.join(asyncDeadline);
+            if (cancelled > 0) {
+                log(String.format("%d metrics publications did not complete within %s", cancelled, asyncDeadline));
+            }
+        }
+    }
+
     private String getResourceTypeName() {
         return this.typeName;
     }
@@ -127,12 +179,131 @@ public class MetricsPublisherImpl extends MetricsPublisher {
             .timestamp(timestamp).build());
     }
 
-    private void publishBulkMetrics(final MetricDatum... metricData) {
+    @Override
+    public void publishFileScrubMetric(final Instant timestamp, final long milliseconds, final long bytesFreed) {
+        final Dimension typeDimension = Dimension.builder().name(Metric.DIMENSION_KEY_RESOURCE_TYPE)
+            .value(this.getResourceTypeName()).build();
+        publishBulkMetrics(
+            MetricDatum.builder().metricName(Metric.METRIC_NAME_FILE_SCRUB_DURATION).unit(StandardUnit.MILLISECONDS)
+                .value((double) milliseconds).dimensions(typeDimension).timestamp(timestamp).build(),
+            MetricDatum.builder().metricName(Metric.METRIC_NAME_FILE_SCRUB_BYTES_FREED).unit(StandardUnit.BYTES)
+                .value((double) bytesFreed).dimensions(typeDimension).timestamp(timestamp).build());
+    }
+
+    @Override
+    public void publishReinvocationMetric(final Instant timestamp, final long lagMilliseconds, final int queueDepth) {
+        final Dimension typeDimension = Dimension.builder().name(Metric.DIMENSION_KEY_RESOURCE_TYPE)
+            .value(this.getResourceTypeName()).build();
+        publishBulkMetrics(
+            MetricDatum.builder().metricName(Metric.METRIC_NAME_REINVOCATION_LAG).unit(StandardUnit.MILLISECONDS)
+                .value((double) lagMilliseconds).dimensions(typeDimension).timestamp(timestamp).build(),
+            MetricDatum.builder().metricName(Metric.METRIC_NAME_REINVOCATION_QUEUE_DEPTH).unit(StandardUnit.COUNT)
+                .value((double) queueDepth).dimensions(typeDimension).timestamp(timestamp).build());
+    }
+
+    @Override
+    public void publishHttpClientMetric(final Instant timestamp, final HttpClientStatistics.Snapshot statistics) {
+        publishBulkMetrics(httpClientData(timestamp,
+            Dimension.builder().name(Metric.DIMENSION_KEY_RESOURCE_TYPE).value(this.getResourceTypeName()).build(), statistics)
+                .toArray(new MetricDatum[0]));
+    }
+
+    /*
+     * Pool occupancy, and connect latency when connections were opened
+     */
+    static List<MetricDatum> httpClientData(final Instant timestamp,
+                                            final Dimension typeDimension,
+                                            final HttpClientStatistics.Snapshot statistics) {
+        final List<MetricDatum> data = new ArrayList<>();
+        if (statistics.getRequests() > 0) {
+            data.add(MetricDatum.builder().metricName(Metric.METRIC_NAME_HTTP_CLIENT_LEASED_CONNECTIONS).unit(StandardUnit.COUNT)
+                .value((double) statistics.getLeasedConnections()).dimensions(typeDimension).timestamp(timestamp).build());
+            data.add(MetricDatum.builder().metricName(Metric.METRIC_NAME_HTTP_CLIENT_PENDING_ACQUIRES).unit(StandardUnit.COUNT)
+                .value((double) statistics.getPendingAcquires()).dimensions(typeDimension).timestamp(timestamp).build());
+            data.add(MetricDatum.builder().metricName(Metric.METRIC_NAME_HTTP_CLIENT_AVAILABLE_CONNECTIONS)
+                .unit(StandardUnit.COUNT).value((double) statistics.getAvailableConnections()).dimensions(typeDimension)
+                .timestamp(timestamp).build());
+        }
+        if (statistics.getConnects() > 0) {
+            data.add(MetricDatum.builder().metricName(Metric.METRIC_NAME_HTTP_CLIENT_CONNECT_LATENCY)
+                .unit(StandardUnit.MILLISECONDS).value((double) statistics.getConnectLatencyMilliseconds())
+                .dimensions(typeDimension).timestamp(timestamp).build());
+        }
+        return data;
+    }
+
+    @Override
+    public void publishColdStartMetric(final Instant timestamp, final Map<String, Long> phaseMilliseconds) {
+        final Dimension typeDimension = Dimension.builder().name(Metric.DIMENSION_KEY_RESOURCE_TYPE)
+            .value(this.getResourceTypeName()).build();
+        publishBulkMetrics(phaseMilliseconds.entrySet().stream()
+            .map(phase -> MetricDatum.builder().metricName(Metric.METRIC_NAME_COLD_START_PHASE_DURATION)
+                .unit(StandardUnit.MILLISECONDS).value((double) phase.getValue())
+                .dimensions(Dimension.builder().name(Metric.DIMENSION_KEY_PHASE).value(phase.getKey()).build(), typeDimension)
+                .timestamp(timestamp).build())
+            .toArray(MetricDatum[]::new));
+    }
+
+    @Override
+    public void publishResourceUsageMetric(final Instant timestamp,
+                                           final Action action,
+                                           final ThreadUsage handler,
+                                           final ThreadUsage framework) {
+        final Set<MetricDatum> data = resourceUsageData(timestamp,
+            Sets.newHashSet(
+                Dimension.builder().name(Metric.DIMENSION_KEY_ACTION_TYPE).value(action == null ? "NO_ACTION" : action.name())
+                    .build(),
+                Dimension.builder().name(Metric.DIMENSION_KEY_RESOURCE_TYPE).value(this.getResourceTypeName()).build()),
+            handler, framework);
+        publishBulkMetrics(data.toArray(new MetricDatum[0]));
+    }
+
+    /*
+     * CPU time and allocated bytes, for both the handler and framework scope
+     */
+    static Set<MetricDatum> resourceUsageData(final Instant timestamp,
+                                              final Set<Dimension> dimensions,
+                                              final ThreadUsage handler,
+                                              final ThreadUsage framework) {
+        final Set<MetricDatum> data = new HashSet<>();
+        final Map<String, ThreadUsage> scopes = ImmutableMap.of(Metric.SCOPE_HANDLER, handler, Metric.SCOPE_FRAMEWORK, framework);
+        for (Map.Entry<String, ThreadUsage> scope : scopes.entrySet()) {
+            final Set<Dimension> scoped = Sets.newHashSet(dimensions);
+            scoped.add(Dimension.builder().name(Metric.DIMENSION_KEY_SCOPE).value(scope.getKey()).build());
+            data.add(MetricDatum.builder().metricName(Metric.METRIC_NAME_INVOCATION_CPU_TIME).unit(StandardUnit.MICROSECONDS)
+                .value((double) TimeUnit.NANOSECONDS.toMicros(scope.getValue().getCpuNanos())).dimensions(scoped)
+                .timestamp(timestamp).build());
+            data.add(MetricDatum.builder().metricName(Metric.METRIC_NAME_INVOCATION_ALLOCATED_BYTES).unit(StandardUnit.BYTES)
+                .value((double) scope.getValue().getAllocatedBytes()).dimensions(scoped).timestamp(timestamp).build());
+        }
+        return data;
+    }
+
+    protected void publishBulkMetrics(final MetricDatum... metricData) {
+        final PutMetricDataRequest putMetricDataRequest = PutMetricDataRequest.builder()
+            .namespace(String.format("%s/%s", Metric.METRIC_NAMESPACE_ROOT, namespace)).metricData(metricData).build();
+        if (cloudWatchAsyncClient != null) {
+            publishAsync(putMetricDataRequest);
+            return;
+        }
         assert cloudWatchClient != null : "CloudWatchEventsClient was not initialised. You must call refreshClient() first.";
 
         try {
-            this.cloudWatchClient.putMetricData(PutMetricDataRequest.builder()
-                .namespace(String.format("%s/%s", Metric.METRIC_NAMESPACE_ROOT, namespace)).metricData(metricData).build());
+            this.cloudWatchClient.putMetricData(putMetricDataRequest);
+        } catch (final Exception e) {
+            log(String.format("An error occurred while publishing metrics: %s", e.getMessage()));
+        }
+    }
+
+    private void publishAsync(final PutMetricDataRequest putMetricDataRequest) {
+        assert cloudWatchAsyncClient != null : "CloudWatchAsyncClient was not initialised. You must call refreshClient() first.";
+
+        try {
+            pendingRequests.track(this.cloudWatchAsyncClient.putMetricData(putMetricDataRequest)).whenComplete((response, e) -> {
+                if (e != null) {
+                    log(String.format("An error occurred while publishing metrics: %s", e.getMessage()));
+                }
+            });
         } catch (final Exception e) {
             log(String.format("An error occurred while publishing metrics: %s", e.getMessage()));
         }
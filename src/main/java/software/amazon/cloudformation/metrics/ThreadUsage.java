@@ -0,0 +1,61 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import lombok.Data;
+
+/**
+ * CPU time and heap allocation of the current thread, read from the
+ * {@link ThreadMXBean}. Take a reading with {@link #now()} before and after a
+ * phase and subtract them to get what the phase consumed. Only the calling
+ * thread is accounted for, work a handler hands to other threads is not.
+ * Counters the JVM does not support read as 0.
+ */
+@Data
+public final class ThreadUsage {
+
+    public static final ThreadUsage NONE = new ThreadUsage(0L, 0L);
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+    private static final boolean ALLOCATION_SUPPORTED = THREADS instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported();
+
+    private final long cpuNanos;
+    private final long allocatedBytes;
+
+    /**
+     * @return the CPU time and bytes allocated by the current thread so far
+     */
+    public static ThreadUsage now() {
+        return new ThreadUsage(CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : 0L,
+                               ALLOCATION_SUPPORTED ? currentThreadAllocatedBytes() : 0L);
+    }
+
+    /**
+     * @param start an earlier reading
+     * @return what was consumed between the earlier reading and this one
+     */
+    public ThreadUsage minus(final ThreadUsage start) {
+        return new ThreadUsage(Math.max(0L, cpuNanos - start.cpuNanos), Math.max(0L, allocatedBytes - start.allocatedBytes));
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        final long bytes = ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return Math.max(0L, bytes);
+    }
+}
@@ -21,11 +21,13 @@ import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicSessionCredentials;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Suppliers;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -48,6 +50,8 @@ import software.amazon.awssdk.core.pagination.sync.SdkIterable;
 import software.amazon.awssdk.http.HttpStatusCode;
 import software.amazon.cloudformation.exceptions.BaseHandlerException;
 import software.amazon.cloudformation.exceptions.TerminalException;
+import software.amazon.cloudformation.tracing.Span;
+import software.amazon.cloudformation.tracing.SpanNames;
 
 /**
  * This implements the proxying mechanism to inject appropriate scoped
@@ -66,6 +70,8 @@ public class AmazonWebServicesClientProxy implements CallChain {
     private final LoggerProxy loggerProxy;
     private final DelayFactory override;
     private final WaitStrategy waitStrategy;
+    private final TokenBucketRateLimiter rateLimiter;
+    private ServiceCallInterceptor serviceCallInterceptor;
 
     public AmazonWebServicesClientProxy(final LoggerProxy loggerProxy,
                                         final Credentials credentials,
@@ -84,6 +90,23 @@ public class AmazonWebServicesClientProxy implements CallChain {
                                         final Credentials credentials,
                                         final DelayFactory override,
                                         final WaitStrategy waitStrategy) {
+        this(loggerProxy, credentials, override, waitStrategy, null);
+    }
+
+    /**
+     * @param loggerProxy logger for the invocation
+     * @param credentials caller credentials injected into every service call
+     * @param override delay override for call graphs
+     * @param waitStrategy strategy to use between stabilization attempts
+     * @param rateLimiter paces calls made through {@link #newProxy(Supplier)}
+     *            clients, null disables client side rate limiting. Share one
+     *            instance across invocations
+     */
+    public AmazonWebServicesClientProxy(final LoggerProxy loggerProxy,
+                                        final Credentials credentials,
+                                        final DelayFactory override,
+                                        final WaitStrategy waitStrategy,
+                                        final TokenBucketRateLimiter rateLimiter) {
         this.loggerProxy = loggerProxy;
         BasicSessionCredentials basicSessionCredentials = new BasicSessionCredentials(credentials.getAccessKeyId(),
                                                                                       credentials.getSecretAccessKey(),
@@ -95,53 +118,184 @@ public class AmazonWebServicesClientProxy implements CallChain {
         this.v2CredentialsProvider = StaticCredentialsProvider.create(awsSessionCredentials);
         this.override = Objects.requireNonNull(override);
         this.waitStrategy = Objects.requireNonNull(waitStrategy);
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Routes every call made with {@link #injectCredentialsAndInvokeV2} through
+     * the interceptor, which decides whether and how the service is called, and
+     * tells it about the calls made with the other V2 methods, see
+     * {@link ServiceCallInterceptor#passThrough}. The wrappers install one to
+     * capture or replay invocations.
+     *
+     * @param serviceCallInterceptor the interceptor, null to call the services
+     *            directly
+     */
+    public void setServiceCallInterceptor(final ServiceCallInterceptor serviceCallInterceptor) {
+        this.serviceCallInterceptor = serviceCallInterceptor;
     }
 
     public <ClientT> ProxyClient<ClientT> newProxy(@Nonnull Supplier<ClientT> client) {
-        return new ProxyClient<ClientT>() {
-            @Override
-            public <RequestT extends AwsRequest, ResponseT extends AwsResponse>
-                ResponseT
-                injectCredentialsAndInvokeV2(RequestT request, Function<RequestT, ResponseT> requestFunction) {
-                return AmazonWebServicesClientProxy.this.injectCredentialsAndInvokeV2(request, requestFunction);
-            }
+        return newProxy(client, null);
+    }
+
+    /**
+     * Creates a {@link ProxyClient} that serves allow-listed requests from the
+     * supplied {@link ResponseCache}. The cache is meant to live for one handler
+     * invocation, a new one should be created for each.
+     *
+     * @param client supplies the AWS service client
+     * @param cache read-through cache for responses, null disables caching
+     * @param <ClientT> the AWS service client type
+     * @return the proxied client
+     */
+    public <ClientT> ProxyClient<ClientT> newProxy(@Nonnull Supplier<ClientT> client, final ResponseCache cache) {
+        return new StdProxyClient<>(client, Suppliers.memoize(() -> client.get().getClass()),
+                                    Suppliers.memoize(() -> serviceName(client.get())), cache, false);
+    }
+
+    private class StdProxyClient<ClientT> implements ProxyClient<ClientT> {
+
+        private final Supplier<ClientT> client;
+        private final Supplier<Class<?>> clientType;
+        // the service of the call graphs made through this client, scopes the cache
+        private final Supplier<String> service;
+        private final ResponseCache cache;
+        private final boolean polling;
+
+        private StdProxyClient(final Supplier<ClientT> client,
+                               final Supplier<Class<?>> clientType,
+                               final Supplier<String> service,
+                               final ResponseCache cache,
+                               final boolean polling) {
+            this.client = client;
+            this.clientType = clientType;
+            this.service = service;
+            this.cache = cache;
+            this.polling = polling;
+        }
+
+        //
+        // Stabilization polls the same request until the response changes, so
+        // they must never be served from the cache. Their responses still refresh
+        // it for reads made after stabilization.
+        //
+        private ProxyClient<ClientT> forPolling() {
+            return cache == null || polling ? this : new StdProxyClient<>(client, clientType, service, cache, true);
+        }
 
-            @Override
-            public <RequestT extends AwsRequest, ResponseT extends AwsResponse>
-                CompletableFuture<ResponseT>
-                injectCredentialsAndInvokeV2Async(RequestT request,
-                                                  Function<RequestT, CompletableFuture<ResponseT>> requestFunction) {
-                return AmazonWebServicesClientProxy.this.injectCredentialsAndInvokeV2Async(request, requestFunction);
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse>
+            ResponseT
+            injectCredentialsAndInvokeV2(RequestT request, Function<RequestT, ResponseT> requestFunction) {
+            Function<RequestT, ResponseT> invoker = req -> rateLimited(clientType, req,
+                r -> AmazonWebServicesClientProxy.this.injectCredentialsAndInvokeV2(r, requestFunction));
+            if (cache == null) {
+                return invoker.apply(request);
             }
+            return polling ? cache.refresh(service.get(), request, invoker) : cache.readThrough(service.get(), request, invoker);
+        }
 
-            @Override
-            public <RequestT extends AwsRequest, ResponseT extends AwsResponse, IterableT extends SdkIterable<ResponseT>>
-                IterableT
-                injectCredentialsAndInvokeIterableV2(RequestT request, Function<RequestT, IterableT> requestFunction) {
-                return AmazonWebServicesClientProxy.this.injectCredentialsAndInvokeIterableV2(request, requestFunction);
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse>
+            CompletableFuture<ResponseT>
+            injectCredentialsAndInvokeV2Async(RequestT request,
+                                              Function<RequestT, CompletableFuture<ResponseT>> requestFunction) {
+            CompletableFuture<ResponseT> response = rateLimitedAsync(clientType, request,
+                r -> AmazonWebServicesClientProxy.this.injectCredentialsAndInvokeV2Async(r, requestFunction));
+            if (cache == null) {
+                return response;
             }
+            return response.thenApply(res -> {
+                invalidateOnMutation(request);
+                return res;
+            });
+        }
+
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse, IterableT extends SdkIterable<ResponseT>>
+            IterableT
+            injectCredentialsAndInvokeIterableV2(RequestT request, Function<RequestT, IterableT> requestFunction) {
+            IterableT response = rateLimited(clientType, request,
+                r -> AmazonWebServicesClientProxy.this.injectCredentialsAndInvokeIterableV2(r, requestFunction));
+            invalidateOnMutation(request);
+            return response;
+        }
+
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse>
+            ResponseInputStream<ResponseT>
+            injectCredentialsAndInvokeV2InputStream(RequestT request,
+                                                    Function<RequestT, ResponseInputStream<ResponseT>> requestFunction) {
+            ResponseInputStream<ResponseT> response = rateLimited(clientType, request,
+                r -> AmazonWebServicesClientProxy.this.injectCredentialsAndInvokeV2InputStream(r, requestFunction));
+            invalidateOnMutation(request);
+            return response;
+        }
+
+        @Override
+        public <RequestT extends AwsRequest, ResponseT extends AwsResponse>
+            ResponseBytes<ResponseT>
+            injectCredentialsAndInvokeV2Bytes(RequestT request,
+                                              Function<RequestT, ResponseBytes<ResponseT>> requestFunction) {
+            ResponseBytes<ResponseT> response = rateLimited(clientType, request,
+                r -> AmazonWebServicesClientProxy.this.injectCredentialsAndInvokeV2Bytes(r, requestFunction));
+            invalidateOnMutation(request);
+            return response;
+        }
 
-            @Override
-            public <RequestT extends AwsRequest, ResponseT extends AwsResponse>
-                ResponseInputStream<ResponseT>
-                injectCredentialsAndInvokeV2InputStream(RequestT request,
-                                                        Function<RequestT, ResponseInputStream<ResponseT>> requestFunction) {
-                return AmazonWebServicesClientProxy.this.injectCredentialsAndInvokeV2InputStream(request, requestFunction);
+        @Override
+        public ClientT client() {
+            return client.get();
+        }
+
+        //
+        // Streaming and paginated responses are never cached, but a successful
+        // mutating call through them must still drop any stale cached reads
+        //
+        private void invalidateOnMutation(final AwsRequest request) {
+            if (cache != null && !cache.isCacheable(request)) {
+                cache.invalidate(service.get());
             }
+        }
+    }
 
-            @Override
-            public <RequestT extends AwsRequest, ResponseT extends AwsResponse>
-                ResponseBytes<ResponseT>
-                injectCredentialsAndInvokeV2Bytes(RequestT request,
-                                                  Function<RequestT, ResponseBytes<ResponseT>> requestFunction) {
-                return AmazonWebServicesClientProxy.this.injectCredentialsAndInvokeV2Bytes(request, requestFunction);
+    private <RequestT extends AwsRequest, ResultT>
+        ResultT
+        rateLimited(final Supplier<Class<?>> clientType, final RequestT request, final Function<RequestT, ResultT> invoker) {
+        if (rateLimiter == null || request == null) {
+            return invoker.apply(request);
+        }
+        rateLimiter.acquire(clientType.get(), request.getClass());
+        try {
+            ResultT result = invoker.apply(request);
+            rateLimiter.onSuccess(clientType.get(), request.getClass());
+            return result;
+        } catch (final AwsServiceException e) {
+            if (rateLimiter.isThrottle(e)) {
+                rateLimiter.onThrottle(clientType.get(), request.getClass());
             }
+            throw e;
+        }
+    }
 
-            @Override
-            public ClientT client() {
-                return client.get();
+    private <RequestT extends AwsRequest, ResultT>
+        CompletableFuture<ResultT>
+        rateLimitedAsync(final Supplier<Class<?>> clientType,
+                         final RequestT request,
+                         final Function<RequestT, CompletableFuture<ResultT>> invoker) {
+        if (rateLimiter == null || request == null) {
+            return invoker.apply(request);
+        }
+        rateLimiter.acquire(clientType.get(), request.getClass());
+        return invoker.apply(request).whenComplete((result, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause == null) {
+                rateLimiter.onSuccess(clientType.get(), request.getClass());
+            } else if (cause instanceof AwsServiceException && rateLimiter.isThrottle((AwsServiceException) cause)) {
+                rateLimiter.onThrottle(clientType.get(), request.getClass());
             }
-        };
+        });
     }
 
     public <ClientT, ModelT, CallbackT extends StdCallbackContext>
@@ -259,22 +413,6 @@ public class AmazonWebServicesClientProxy implements CallChain {
             RequestT> Caller<RequestT, ClientT, ModelT, CallbackT> translateToServiceRequest(Function<ModelT, RequestT> maker) {
             return new Caller<RequestT, ClientT, ModelT, CallbackT>() {
 
-                private final CallGraphNameGenerator<ModelT, RequestT, ClientT,
-                    CallbackT> generator = (incoming, model_, reqMaker, client_, context_) -> {
-                        final RequestT request = reqMaker.apply(model_);
-                        String objectHash = String.valueOf(Objects.hashCode(request));
-                        String serviceName = (client_ == null
-                            ? ""
-                            : (client_ instanceof SdkClient)
-                                ? ((SdkClient) client_).serviceName()
-                                : client_.getClass().getSimpleName());
-                        String requestName = request != null ? request.getClass().getSimpleName().replace("Request", "") : "";
-                        String callGraph = serviceName + ":" + requestName + "-" + (incoming != null ? incoming : "") + "-"
-                            + objectHash;
-                        context_.request(callGraph, (ignored -> request)).apply(model_);
-                        return callGraph;
-                    };
-
                 @Override
                 public Caller<RequestT, ClientT, ModelT, CallbackT> backoffDelay(Delay delay) {
                     CallContext.this.delay = delay;
@@ -356,10 +494,15 @@ public class AmazonWebServicesClientProxy implements CallChain {
                             // stabilization
                             // lambdas. This ensures that we call demux as necessary.
                             //
-                            final String callGraph = generator.callGraph(CallContext.this.callGraph, model, maker,
-                                client.client(), context);
-                            Delay delay = override.getDelay(callGraph, CallContext.this.delay);
-                            Function<ModelT, RequestT> reqMaker = context.request(callGraph, maker);
+                            // The request is translated once, the context key embeds its hash and
+                            // differs for every resource, delay factories learn across requests so
+                            // they get the key without the hash
+                            //
+                            final RequestT translated = maker.apply(model);
+                            final String delayKey = callGraphType(CallContext.this.callGraph, translated, client.client());
+                            final String callGraph = delayKey + "-" + Objects.hashCode(translated);
+                            Function<ModelT, RequestT> reqMaker = context.request(callGraph, ignored -> translated);
+                            Delay delay = override.getDelay(delayKey, CallContext.this.delay);
                             BiFunction<RequestT, ProxyClient<ClientT>, ResponseT> resMaker = context.response(callGraph, caller);
                             if (waitFor != null) {
                                 waitFor = context.stabilize(callGraph, waitFor);
@@ -371,6 +514,11 @@ public class AmazonWebServicesClientProxy implements CallChain {
                             Callback<? super RequestT, Exception, ClientT, ModelT, CallbackT,
                                 ProgressEvent<ModelT, CallbackT>> exceptionHandler = getExceptionHandler(
                                     AmazonWebServicesClientProxy.this::defaultHandler);
+                            final ProxyClient<ClientT> pollingClient = client instanceof StdProxyClient
+                                ? ((StdProxyClient<ClientT>) client).forPolling()
+                                : client;
+                            final Span span = Span.current().child(SpanNames.CALL_GRAPH)
+                                .attribute("callGraph", CallContext.this.callGraph).attribute("contextKey", callGraph);
                             try {
                                 for (;;) {
                                     Instant now = Instant.now();
@@ -378,8 +526,15 @@ public class AmazonWebServicesClientProxy implements CallChain {
                                         req = req == null ? reqMaker.apply(model) : req;
                                         res = res == null ? resMaker.apply(req, client) : res;
                                         if (waitFor != null) {
-                                            if (waitFor.invoke(req, res, client, model, context)) {
+                                            if (waitFor.invoke(req, res, pollingClient, model, context)) {
+                                                Long started = context.stabilizationCompleted(callGraph);
+                                                if (started != null) {
+                                                    override.stabilized(delayKey,
+                                                        Duration.ofMillis(Instant.now().toEpochMilli() - started));
+                                                }
                                                 event = callback.invoke(req, res, client, model, context);
+                                            } else {
+                                                context.stabilizationStarted(callGraph, now.toEpochMilli());
                                             }
                                         } else {
                                             event = callback.invoke(req, res, client, model, context);
@@ -395,11 +550,10 @@ public class AmazonWebServicesClientProxy implements CallChain {
                                     }
 
                                     //
-                                    // The logic to wait is if next delay + 2 * time to run the operation sequence +
-                                    // 100ms
-                                    // is less than time remaining time to run inside Lambda then we locally wait
-                                    // else we bail out. Assuming 3 DAYS for a DB to restore, that would be total of
-                                    // 3 x 24 x 60 x 60 x 1000 ms, fits in 32 bit int.
+                                    // The wait strategy decides whether to wait locally for the next attempt or
+                                    // bail out for a callback, given the time this call graph took to run. Assuming
+                                    // 3 DAYS for a DB to restore, that would be total of 3 x 24 x 60 x 60 x 1000 ms,
+                                    // fits in 32 bit int.
                                     //
                                     Instant opTime = Instant.now();
                                     long elapsed = ChronoUnit.MILLIS.between(now, opTime);
@@ -409,7 +563,8 @@ public class AmazonWebServicesClientProxy implements CallChain {
                                         return ProgressEvent.failed(model, context, HandlerErrorCode.NotStabilized,
                                             "Exceeded attempts to wait");
                                     }
-                                    event = AmazonWebServicesClientProxy.this.waitStrategy.await(elapsed, next, context, model);
+                                    event = AmazonWebServicesClientProxy.this.waitStrategy.await(delayKey, elapsed, next,
+                                        context, model);
                                     if (event != null) {
                                         return event;
                                     }
@@ -423,6 +578,7 @@ public class AmazonWebServicesClientProxy implements CallChain {
                                 if (res == null) {
                                     context.evictRequestRecord(callGraph);
                                 }
+                                span.attribute("attempts", attempt).close();
                             }
                         }
 
@@ -437,6 +593,20 @@ public class AmazonWebServicesClientProxy implements CallChain {
 
     }
 
+    private static String callGraphType(final String incoming, final Object request, final Object client) {
+        String serviceName = serviceName(client);
+        String requestName = request != null ? request.getClass().getSimpleName().replace("Request", "") : "";
+        return serviceName + ":" + requestName + "-" + (incoming != null ? incoming : "");
+    }
+
+    private static String serviceName(final Object client) {
+        if (client == null) {
+            return "";
+        }
+        String serviceName = client instanceof SdkClient ? ((SdkClient) client).serviceName() : null;
+        return serviceName != null ? serviceName : client.getClass().getSimpleName();
+    }
+
     public <RequestT extends AmazonWebServiceRequest, ResultT extends AmazonWebServiceResult<ResponseMetadata>>
         ResultT
         injectCredentialsAndInvoke(final RequestT request, final Function<RequestT, ResultT> requestFunction) {
@@ -480,13 +650,18 @@ public class AmazonWebServicesClientProxy implements CallChain {
         @SuppressWarnings("unchecked")
         RequestT wrappedRequest = (RequestT) request.toBuilder().overrideConfiguration(overrideConfiguration).build();
 
+        final Span span = startRequestSpan(request);
         try {
-            ResultT response = requestFunction.apply(wrappedRequest);
-            logRequestMetadataV2(request, response);
+            ResultT response = serviceCallInterceptor == null ? requestFunction.apply(wrappedRequest)
+                : serviceCallInterceptor.intercept(wrappedRequest, requestFunction);
+            logRequestMetadataV2(request, response, span);
             return response;
         } catch (final Throwable e) {
             loggerProxy.log(String.format("Failed to execute remote function: {%s}", e.getMessage()));
+            span.attribute("error", e.getClass().getName());
             throw e;
+        } finally {
+            span.close();
         }
     }
 
@@ -500,15 +675,25 @@ public class AmazonWebServicesClientProxy implements CallChain {
 
         @SuppressWarnings("unchecked")
         RequestT wrappedRequest = (RequestT) request.toBuilder().overrideConfiguration(overrideConfiguration).build();
+        passThroughInterceptor(wrappedRequest, "injectCredentialsAndInvokeV2Async");
 
+        // completes on another thread, so the span is never current
+        final Span span = Span.current().asyncChild(SpanNames.AWS_REQUEST).attribute("requestName",
+            request.getClass().getSimpleName());
         try {
             CompletableFuture<ResultT> response = requestFunction.apply(wrappedRequest).thenApplyAsync(resultT -> {
-                logRequestMetadataV2(request, resultT);
+                logRequestMetadataV2(request, resultT, span);
                 return resultT;
             });
-            return response;
+            return response.whenComplete((resultT, e) -> {
+                if (e != null) {
+                    span.attribute("error", e.getClass().getName());
+                }
+                span.close();
+            });
         } catch (final Throwable e) {
             loggerProxy.log(String.format("Failed to execute remote function: {%s}", e.getMessage()));
+            span.attribute("error", e.getClass().getName()).close();
             throw e;
         }
     }
@@ -522,14 +707,19 @@ public class AmazonWebServicesClientProxy implements CallChain {
 
         @SuppressWarnings("unchecked")
         RequestT wrappedRequest = (RequestT) request.toBuilder().overrideConfiguration(overrideConfiguration).build();
+        passThroughInterceptor(wrappedRequest, "injectCredentialsAndInvokeIterableV2");
 
+        final Span span = startRequestSpan(request);
         try {
             IterableT response = requestFunction.apply(wrappedRequest);
-            response.forEach(r -> logRequestMetadataV2(request, r));
+            response.forEach(r -> logRequestMetadataV2(request, r, span));
             return response;
         } catch (final Throwable e) {
             loggerProxy.log(String.format("Failed to execute remote function: {%s}", e.getMessage()));
+            span.attribute("error", e.getClass().getName());
             throw e;
+        } finally {
+            span.close();
         }
     }
 
@@ -543,14 +733,19 @@ public class AmazonWebServicesClientProxy implements CallChain {
 
         @SuppressWarnings("unchecked")
         RequestT wrappedRequest = (RequestT) request.toBuilder().overrideConfiguration(overrideConfiguration).build();
+        passThroughInterceptor(wrappedRequest, "injectCredentialsAndInvokeV2InputStream");
 
+        final Span span = startRequestSpan(request);
         try {
             ResponseInputStream<ResultT> response = requestFunction.apply(wrappedRequest);
-            logRequestMetadataV2(request, response.response());
+            logRequestMetadataV2(request, response.response(), span);
             return response;
         } catch (final Throwable e) {
             loggerProxy.log(String.format("Failed to execute remote function: {%s}", e.getMessage()));
+            span.attribute("error", e.getClass().getName());
             throw e;
+        } finally {
+            span.close();
         }
     }
 
@@ -564,14 +759,25 @@ public class AmazonWebServicesClientProxy implements CallChain {
 
         @SuppressWarnings("unchecked")
         RequestT wrappedRequest = (RequestT) request.toBuilder().overrideConfiguration(overrideConfiguration).build();
+        passThroughInterceptor(wrappedRequest, "injectCredentialsAndInvokeV2Bytes");
 
+        final Span span = startRequestSpan(request);
         try {
             ResponseBytes<ResultT> response = requestFunction.apply(wrappedRequest);
-            logRequestMetadataV2(request, response.response());
+            logRequestMetadataV2(request, response.response(), span);
             return response;
         } catch (final Throwable e) {
             loggerProxy.log(String.format("Failed to execute remote function: {%s}", e.getMessage()));
+            span.attribute("error", e.getClass().getName());
             throw e;
+        } finally {
+            span.close();
+        }
+    }
+
+    private void passThroughInterceptor(final AwsRequest request, final String method) {
+        if (serviceCallInterceptor != null) {
+            serviceCallInterceptor.passThrough(request, method);
         }
     }
 
@@ -645,13 +851,20 @@ public class AmazonWebServicesClientProxy implements CallChain {
         }
     }
 
+    private static Span startRequestSpan(final AwsRequest request) {
+        return Span.current().child(SpanNames.AWS_REQUEST).attribute("requestName", request.getClass().getSimpleName());
+    }
+
     private <RequestT extends AwsRequest, ResultT extends AwsResponse> void logRequestMetadataV2(final RequestT request,
-                                                                                                 final ResultT response) {
+                                                                                                 final ResultT response,
+                                                                                                 final Span span) {
         try {
             String requestName = request.getClass().getSimpleName();
             String requestId = (response == null || response.responseMetadata() == null)
                 ? ""
                 : response.responseMetadata().requestId();
+            // pages of a paginated call each carry their own request ID
+            span.appendAttribute("requestId", requestId);
             loggerProxy
                 .log(String.format("{\"apiRequest\": {\"requestId\": \"%s\", \"requestName\": \"%s\"}}", requestId, requestName));
         } catch (final Exception e) {
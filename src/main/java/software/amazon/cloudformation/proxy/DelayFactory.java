@@ -23,6 +23,24 @@ public interface DelayFactory {
         ? incoming
         : Constant.of().delay(Duration.ofSeconds(5)).timeout(Duration.ofMinutes(20)).build();
 
+    /**
+     * @param apiCall identifies the call graph as {@code service:Request-callGraph},
+     *            the same for every request of that type made under that call
+     *            graph name
+     * @param provided the delay the handler supplied, may be null
+     * @return the delay to use between attempts
+     */
     Delay getDelay(String apiCall, Delay provided);
 
+    /**
+     * Called once a call graph that needed to wait has stabilized, with the time
+     * it took from the first failed stabilization check. Factories can use this to
+     * learn delays, see {@link software.amazon.cloudformation.proxy.delay.Adaptive}.
+     *
+     * @param apiCall the call graph that stabilized
+     * @param took the time it took to stabilize, across callbacks
+     */
+    default void stabilized(String apiCall, Duration took) {
+    }
+
 }
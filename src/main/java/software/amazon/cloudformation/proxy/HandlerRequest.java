@@ -14,13 +14,16 @@
 */
 package software.amazon.cloudformation.proxy;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Map;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import software.amazon.cloudformation.Action;
 
 /**
- * This interface describes the request object for the provisioning request
+ * This interface describes the request object for the provisioning request.
+ * As in {@link RequestData}, rarely used sections are {@link LazySection}s.
  */
 @Data
 @NoArgsConstructor
@@ -39,8 +42,53 @@ public class HandlerRequest<ResourceT, CallbackT, ConfigurationT> {
     private Boolean snapshotRequested;
     private Boolean rollback;
     private Boolean driftable;
-    private Map<String, Object> features;
-    private Map<String, Object> updatePolicy;
-    private Map<String, Object> creationPolicy;
+    @JsonProperty
+    private LazySection<Map<String, Object>> features;
+    @JsonProperty
+    private LazySection<Map<String, Object>> updatePolicy;
+    @JsonProperty
+    private LazySection<Map<String, Object>> creationPolicy;
     private RequestContext<CallbackT> requestContext;
+
+    public Map<String, Object> getFeatures() {
+        return LazySection.get(features);
+    }
+
+    @JsonIgnore
+    public void setFeatures(final Map<String, Object> features) {
+        this.features = LazySection.of(features);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, Object>> getFeaturesSection() {
+        return features;
+    }
+
+    public Map<String, Object> getUpdatePolicy() {
+        return LazySection.get(updatePolicy);
+    }
+
+    @JsonIgnore
+    public void setUpdatePolicy(final Map<String, Object> updatePolicy) {
+        this.updatePolicy = LazySection.of(updatePolicy);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, Object>> getUpdatePolicySection() {
+        return updatePolicy;
+    }
+
+    public Map<String, Object> getCreationPolicy() {
+        return LazySection.get(creationPolicy);
+    }
+
+    @JsonIgnore
+    public void setCreationPolicy(final Map<String, Object> creationPolicy) {
+        this.creationPolicy = LazySection.of(creationPolicy);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, Object>> getCreationPolicySection() {
+        return creationPolicy;
+    }
 }
@@ -0,0 +1,162 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A section of a request which is bound to its type on first access rather
+ * than when the request is deserialized. Sections are only held as buffered
+ * tokens when the request is read with the {@link #LAZY} attribute set, see
+ * {@code Serializer#deserializeLazily}, otherwise they are bound right away.
+ * Sections can also be computed from others on first access, see
+ * {@link #defer(Supplier)}.
+ *
+ * @param <T> type of the section
+ */
+@ThreadSafe
+@JsonDeserialize(using = LazySection.Deserializer.class)
+public final class LazySection<T> {
+
+    /**
+     * Deserialization attribute which defers binding of the sections
+     */
+    public static final String LAZY = LazySection.class.getName() + ".LAZY";
+
+    private Supplier<T> binder;
+    private T value;
+
+    private LazySection(final Supplier<T> binder,
+                        final T value) {
+        this.binder = binder;
+        this.value = value;
+    }
+
+    public static <T> LazySection<T> of(final T value) {
+        return value == null ? null : new LazySection<>(null, value);
+    }
+
+    /**
+     * @param supplier computes the value of the section, called at most once
+     * @return a section whose value is computed on first access
+     */
+    public static <T> LazySection<T> defer(final Supplier<T> supplier) {
+        return new LazySection<>(Objects.requireNonNull(supplier), null);
+    }
+
+    /**
+     * @param section a section, or null
+     * @return the value of the section, bound on first access, or null
+     * @throws UncheckedIOException when the section does not bind to its type
+     */
+    public static <T> T get(final LazySection<T> section) {
+        return section == null ? null : section.get();
+    }
+
+    /**
+     * @return whether the section has been bound to its type
+     */
+    public synchronized boolean isBound() {
+        return binder == null;
+    }
+
+    private synchronized T get() {
+        if (binder != null) {
+            value = binder.get();
+            binder = null;
+        }
+        return value;
+    }
+
+    /*
+     * Sections compare and print as their values so that the requests holding
+     * them keep the value semantics of their Lombok generated methods. Binds
+     * the sections compared or printed.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof LazySection)) {
+            return false;
+        }
+        return Objects.equals(get(), ((LazySection<?>) other).get());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(get());
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+
+    private static <T> T bind(final TokenBuffer tokens, final ObjectCodec codec, final JavaType type) {
+        try (JsonParser parser = tokens.asParser(codec)) {
+            return codec.readValue(parser, type);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(String.format("Unable to bind request section of type %s", type), e);
+        }
+    }
+
+    /*
+     * Resolves the type of the section from the declaring property, so that type
+     * parameters such as the resource model are bound correctly
+     */
+    public static final class Deserializer extends JsonDeserializer<LazySection<?>> implements ContextualDeserializer {
+
+        private final JavaType type;
+
+        public Deserializer() {
+            this(null);
+        }
+
+        private Deserializer(final JavaType type) {
+            this.type = type;
+        }
+
+        @Override
+        public JsonDeserializer<?> createContextual(final DeserializationContext context, final BeanProperty property) {
+            final JavaType sectionType = property == null ? context.getContextualType() : property.getType();
+            return new Deserializer(sectionType.containedTypeOrUnknown(0));
+        }
+
+        @Override
+        public LazySection<?> deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+            if (Boolean.TRUE.equals(context.getAttribute(LAZY))) {
+                final TokenBuffer tokens = context.bufferAsCopyOfValue(parser);
+                final ObjectCodec codec = parser.getCodec();
+                return new LazySection<>(() -> bind(tokens, codec, type), null);
+            }
+            return LazySection.of(context.readValue(parser, type));
+        }
+    }
+}
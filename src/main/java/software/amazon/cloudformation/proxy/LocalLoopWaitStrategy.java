@@ -0,0 +1,90 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Deadline aware {@link WaitStrategy} that waits in process whenever it can.
+ * Waiting locally is always cheaper in wall-clock time than a callback, which
+ * is only scheduled in whole seconds and pays for a fresh invocation. So the
+ * strategy waits locally as long as the delay, the expected time of the next
+ * attempt and a margin to hand back the response fit in the remaining time.
+ *
+ * The expected time of an attempt is learnt per call graph from the attempts
+ * observed so far, as an exponentially weighted moving average that never
+ * predicts less than the last observed attempt. The expectation is scaled by
+ * {@link #SAFETY_FACTOR}, as a single slow attempt must not run the handler
+ * past its deadline.
+ */
+@ThreadSafe
+class LocalLoopWaitStrategy implements WaitStrategy {
+
+    //
+    // Time reserved to serialize and write the response once we decide to bail
+    // out after the next attempt
+    //
+    static final long RESPONSE_MARGIN_MILLIS = 100L;
+
+    //
+    // Proportional margin on the expected time of the next attempt, attempt
+    // times vary with the service's latency and the size of the response
+    //
+    static final long SAFETY_FACTOR = 2L;
+
+    private final Supplier<Long> remainingTimeToExecute;
+    private final Map<String, Long> operationTimes = new ConcurrentHashMap<>();
+
+    LocalLoopWaitStrategy(final Supplier<Long> remainingTimeToExecute) {
+        this.remainingTimeToExecute = remainingTimeToExecute;
+    }
+
+    @Override
+    public <ModelT, CallbackT>
+        ProgressEvent<ModelT, CallbackT>
+        await(long operationElapsedTime, Duration next, CallbackT context, ModelT model) {
+        return await("", operationElapsedTime, next, context, model);
+    }
+
+    @Override
+    public <ModelT, CallbackT>
+        ProgressEvent<ModelT, CallbackT>
+        await(String callGraph, long operationElapsedTime, Duration next, CallbackT context, ModelT model) {
+        long observed = Math.max(0L, operationElapsedTime);
+        long expected = operationTimes.merge(callGraph, observed, (previous, latest) -> (previous + latest) / 2);
+        long localWait = next.toMillis() + SAFETY_FACTOR * Math.max(expected, observed) + RESPONSE_MARGIN_MILLIS;
+        if (remainingTimeToExecute.get() > localWait) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(next.toMillis());
+                return null;
+            } catch (InterruptedException e) {
+                //
+                // Shutting down, hand the progress back so that we are called back later
+                //
+                Thread.currentThread().interrupt();
+            }
+        }
+        return ProgressEvent.defaultInProgressHandler(context, next, model);
+    }
+
+    long expectedOperationTime(final String callGraph) {
+        return operationTimes.getOrDefault(callGraph, 0L);
+    }
+}
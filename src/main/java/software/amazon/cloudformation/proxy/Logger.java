@@ -14,6 +14,11 @@
 */
 package software.amazon.cloudformation.proxy;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+import software.amazon.cloudformation.loggers.LogLevel;
+
 public interface Logger {
 
     /**
@@ -23,4 +28,55 @@ public interface Logger {
      */
     void log(String message);
 
+    /**
+     * @param level the level of the event
+     * @return true if an event at this level would be published anywhere
+     */
+    default boolean isEnabled(LogLevel level) {
+        return true;
+    }
+
+    /**
+     * Log a message that is only built if an event at this level would be
+     * published, e.g. {@code logger.log(LogLevel.DEBUG, () -> String.format(...))}.
+     *
+     * @param level the level of the event
+     * @param message supplies the message to emit to log
+     */
+    default void log(LogLevel level, Supplier<String> message) {
+        log(level, message, Collections.emptyMap());
+    }
+
+    /**
+     * Log a message with structured key/value fields, which are appended to the
+     * message as {@code key=value} pairs. Neither is rendered unless an event at
+     * this level would be published.
+     *
+     * @param level the level of the event
+     * @param message supplies the message to emit to log
+     * @param fields structured fields describing the event
+     */
+    default void log(LogLevel level, Supplier<String> message, Map<String, ?> fields) {
+        if (isEnabled(level)) {
+            log(render(message.get(), fields));
+        }
+    }
+
+    /**
+     * @param message supplies the debug message, only called if debug is enabled
+     */
+    default void debug(Supplier<String> message) {
+        log(LogLevel.DEBUG, message);
+    }
+
+    static String render(String message, Map<String, ?> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return message;
+        }
+        StringBuilder rendered = new StringBuilder(message == null ? "" : message);
+        for (Map.Entry<String, ?> each : fields.entrySet()) {
+            rendered.append(rendered.length() > 0 ? " " : "").append(each.getKey()).append('=').append(each.getValue());
+        }
+        return rendered.toString();
+    }
 }
@@ -14,20 +14,215 @@
 */
 package software.amazon.cloudformation.proxy;
 
-import java.util.ArrayList;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.ThreadSafe;
+import software.amazon.cloudformation.loggers.LogLevel;
 import software.amazon.cloudformation.loggers.LogPublisher;
 
+/**
+ * Fans log events out to the registered {@link LogPublisher}s, each with its
+ * own minimum {@link LogLevel}, {@link LogLevel#INFO} unless specified. Events
+ * below the level of every publisher are dropped before their message is
+ * built. Messages that are published are always built on the calling thread,
+ * so they reflect the state of the handler at the time of logging.
+ *
+ * By default events are published synchronously on the calling thread. When
+ * created with a buffer capacity, the built events are put on a bounded
+ * lock-free ring buffer and published on a shared background thread instead,
+ * so that a slow publisher does not hold up the handler. Call {@link #flush()} to publish all
+ * pending events before the invocation ends. When the buffer is full the
+ * calling thread helps publishing rather than dropping events.
+ */
+@ThreadSafe
 public class LoggerProxy implements Logger {
 
-    private final List<LogPublisher> logPublishers = new ArrayList<>();
+    //
+    // Single daemon thread shared by every asynchronous proxy in the JVM
+    //
+    private static final ExecutorService DISPATCHER = Executors
+        .newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("cfn-log-dispatcher").setDaemon(true).build());
+
+    private final List<Registration> logPublishers = new CopyOnWriteArrayList<>();
+    private final RingBuffer<LogEvent> buffer;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public LoggerProxy() {
+        this(0);
+    }
+
+    /**
+     * @param bufferCapacity number of events that can be pending publication, 0
+     *            to publish synchronously
+     */
+    public LoggerProxy(final int bufferCapacity) {
+        Preconditions.checkArgument(bufferCapacity >= 0, "bufferCapacity must be >= 0");
+        this.buffer = bufferCapacity > 0 ? new RingBuffer<>(bufferCapacity) : null;
+    }
 
     public void addLogPublisher(final LogPublisher logPublisher) {
-        logPublishers.add(logPublisher);
+        addLogPublisher(logPublisher, LogLevel.INFO);
+    }
+
+    /**
+     * @param logPublisher the publisher to add
+     * @param level the minimum level of events published to it
+     */
+    public void addLogPublisher(final LogPublisher logPublisher, final LogLevel level) {
+        if (logPublisher != null) {
+            logPublishers.add(new Registration(logPublisher, Preconditions.checkNotNull(level)));
+        }
+    }
+
+    /**
+     * Changes the minimum level of events published to every registered publisher,
+     * e.g. to {@link LogLevel#DEBUG} to troubleshoot a handler.
+     *
+     * @param level the minimum level of events to publish
+     */
+    public void setLevel(final LogLevel level) {
+        Preconditions.checkNotNull(level);
+        for (Registration each : logPublishers) {
+            each.level = level;
+        }
     }
 
     @Override
     public void log(final String message) {
-        logPublishers.stream().forEach(logPublisher -> logPublisher.publishLogEvent(message));
+        log(LogLevel.INFO, () -> message, Collections.emptyMap());
+    }
+
+    @Override
+    public boolean isEnabled(final LogLevel level) {
+        for (Registration each : logPublishers) {
+            if (level.isAtLeast(each.level)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void log(final LogLevel level, final Supplier<String> message, final Map<String, ?> fields) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        LogEvent event = new LogEvent(level, Logger.render(message.get(), fields));
+        if (buffer == null) {
+            publish(event);
+            return;
+        }
+        while (!buffer.offer(event)) {
+            if (!drain()) {
+                Thread.yield();
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * Publishes every event logged so far before returning, then flushes the
+     * publishers. The wrappers call this before the response is written, after
+     * which the runtime may be frozen.
+     */
+    public void flush() {
+        if (buffer != null) {
+            while (!buffer.isEmpty() || draining.get()) {
+                if (!drain()) {
+                    Thread.yield();
+                }
+            }
+        }
+        for (Registration each : logPublishers) {
+            each.publisher.flush();
+        }
+    }
+
+    /**
+     * @return true if events are published on a background thread
+     */
+    public boolean isAsynchronous() {
+        return buffer != null;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                DISPATCHER.execute(this::dispatch);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                drain();
+            }
+        }
+    }
+
+    private void dispatch() {
+        scheduled.set(false);
+        drain();
+        if (!buffer.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /*
+     * Only one thread publishes at a time so that events keep their order
+     */
+    private boolean drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            LogEvent event;
+            while ((event = buffer.poll()) != null) {
+                try {
+                    publish(event);
+                } catch (RuntimeException e) {
+                    // nowhere to report a failing publisher from the background, keep going
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+        return true;
+    }
+
+    private void publish(final LogEvent event) {
+        for (Registration each : logPublishers) {
+            if (event.level.isAtLeast(each.level)) {
+                each.publisher.publishLogEvent(event.message);
+            }
+        }
+    }
+
+    private static final class Registration {
+        private final LogPublisher publisher;
+        private volatile LogLevel level;
+
+        private Registration(final LogPublisher publisher,
+                             final LogLevel level) {
+            this.publisher = publisher;
+            this.level = level;
+        }
+    }
+
+    private static final class LogEvent {
+        private final LogLevel level;
+        private final String message;
+
+        private LogEvent(final LogLevel level,
+                         final String message) {
+            this.level = level;
+            this.message = message;
+        }
     }
 }
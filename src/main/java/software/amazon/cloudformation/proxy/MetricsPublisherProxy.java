@@ -17,9 +17,12 @@ package software.amazon.cloudformation.proxy;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import software.amazon.cloudformation.Action;
 import software.amazon.cloudformation.HookInvocationPoint;
+import software.amazon.cloudformation.injection.HttpClientStatistics;
 import software.amazon.cloudformation.metrics.MetricsPublisher;
+import software.amazon.cloudformation.metrics.ThreadUsage;
 
 public class MetricsPublisherProxy {
     private final List<MetricsPublisher> metricsPublishers = new ArrayList<>();
@@ -28,6 +31,10 @@ public class MetricsPublisherProxy {
         metricsPublishers.add(metricsPublisher);
     }
 
+    public void flush() {
+        metricsPublishers.stream().forEach(MetricsPublisher::flush);
+    }
+
     public void publishExceptionMetric(final Instant timestamp,
                                        final Action action,
                                        final Throwable e,
@@ -82,4 +89,39 @@ public class MetricsPublisherProxy {
         metricsPublishers.stream()
             .forEach(metricsPublisher -> metricsPublisher.publishProviderLogDeliveryExceptionMetric(timestamp, exception));
     }
+
+    public void publishFileScrubMetric(final Instant timestamp, final long milliseconds, final long bytesFreed) {
+        metricsPublishers.stream()
+            .forEach(metricsPublisher -> metricsPublisher.publishFileScrubMetric(timestamp, milliseconds, bytesFreed));
+    }
+
+    public void publishReinvocationMetric(final Instant timestamp, final long lagMilliseconds, final int queueDepth) {
+        metricsPublishers.stream()
+            .forEach(metricsPublisher -> metricsPublisher.publishReinvocationMetric(timestamp, lagMilliseconds, queueDepth));
+    }
+
+    public void publishHttpClientMetric(final Instant timestamp, final HttpClientStatistics.Snapshot statistics) {
+        metricsPublishers.stream().forEach(metricsPublisher -> metricsPublisher.publishHttpClientMetric(timestamp, statistics));
+    }
+
+    public void publishColdStartMetric(final Instant timestamp, final Map<String, Long> phaseMilliseconds) {
+        metricsPublishers.stream()
+            .forEach(metricsPublisher -> metricsPublisher.publishColdStartMetric(timestamp, phaseMilliseconds));
+    }
+
+    public void publishResourceUsageMetric(final Instant timestamp,
+                                           final Action action,
+                                           final ThreadUsage handler,
+                                           final ThreadUsage framework) {
+        metricsPublishers.stream()
+            .forEach(metricsPublisher -> metricsPublisher.publishResourceUsageMetric(timestamp, action, handler, framework));
+    }
+
+    public void publishResourceUsageMetric(final Instant timestamp,
+                                           final HookInvocationPoint invocationPoint,
+                                           final ThreadUsage handler,
+                                           final ThreadUsage framework) {
+        metricsPublishers.stream().forEach(
+            metricsPublisher -> metricsPublisher.publishResourceUsageMetric(timestamp, invocationPoint, handler, framework));
+    }
 }
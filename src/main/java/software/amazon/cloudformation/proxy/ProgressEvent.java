@@ -15,6 +15,7 @@
 package software.amazon.cloudformation.proxy;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.Duration;
 import java.util.List;
 import java.util.function.Function;
 import lombok.AllArgsConstructor;
@@ -91,6 +92,18 @@ public class ProgressEvent<ResourceT, CallbackT> {
      */
     private List<HookAnnotation> annotations;
 
+    /**
+     * The output resource instances of a LIST, read one at a time while the
+     * response is written instead of held in resourceModels. The wrapper ends the
+     * page at the requested maxResults or once the serialized models reach its
+     * byte budget, and sets nextToken from the cursor if resources remain.
+     *
+     * Declared last so that the all-arguments constructor keeps the order of the
+     * fields it had before.
+     */
+    @JsonIgnore
+    private ResourceModelCursor<ResourceT> resourceModelCursor;
+
     /**
      * Convenience method for constructing a FAILED response
      *
@@ -138,6 +151,26 @@ public class ProgressEvent<ResourceT, CallbackT> {
             .callbackDelaySeconds(callbackDelaySeconds).resourceModel(resourceModel).status(OperationStatus.IN_PROGRESS).build();
     }
 
+    /**
+     * Convenience method for constructing a IN_PROGRESS response from a delay of
+     * arbitrary precision. Callbacks are scheduled in whole seconds, so the delay
+     * is rounded up to never call back earlier than asked for.
+     *
+     * @param callbackContext callback context
+     * @param callbackDelay how much time to wait before calling back the handler
+     * @param resourceModel the actual resource model state
+     * @param <ResourceT> The type for the resource model
+     * @param <CallbackT> the type for the callback context
+     * @return {@link ProgressEvent} with {@link OperationStatus#IN_PROGRESS} with
+     *         delay
+     */
+    public static <ResourceT, CallbackT>
+        ProgressEvent<ResourceT, CallbackT>
+        defaultInProgressHandler(final CallbackT callbackContext, final Duration callbackDelay, final ResourceT resourceModel) {
+        long seconds = callbackDelay.getSeconds() + (callbackDelay.getNano() > 0 ? 1 : 0);
+        return defaultInProgressHandler(callbackContext, (int) Math.min(Integer.MAX_VALUE, Math.max(0L, seconds)), resourceModel);
+    }
+
     public static <ResourceT, CallbackT> ProgressEvent<ResourceT, CallbackT> progress(ResourceT model, CallbackT cxt) {
 
         return ProgressEvent.<ResourceT, CallbackT>builder().callbackContext(cxt).resourceModel(model)
@@ -0,0 +1,141 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import software.amazon.awssdk.utils.SystemSetting;
+
+/**
+ * Settings of the client side rate limiting the wrappers apply when the handler
+ * does not provide its own {@link TokenBucketRateLimiter}. Each is read from a
+ * system property or else an environment variable of the handler, for example
+ * {@code CFN_RATE_LIMIT_PERMITS_PER_SECOND=5}. Values which cannot be parsed
+ * fall back to the default.
+ */
+public enum RateLimiterSetting implements SystemSetting {
+
+    /**
+     * Steady state calls per second for each API, rate limiting is disabled when
+     * unset
+     */
+    PERMITS_PER_SECOND("cfn.rateLimit.permitsPerSecond", "CFN_RATE_LIMIT_PERMITS_PER_SECOND", null),
+
+    /**
+     * Calls per second each API shrinks to at most under sustained throttling
+     */
+    MINIMUM_PERMITS_PER_SECOND("cfn.rateLimit.minimumPermitsPerSecond", "CFN_RATE_LIMIT_MINIMUM_PERMITS_PER_SECOND", "0.5"),
+
+    /**
+     * Calls per second the rate grows back by after each successful call
+     */
+    INCREMENT("cfn.rateLimit.increment", "CFN_RATE_LIMIT_INCREMENT", "0.5"),
+
+    /**
+     * Number of calls to an API that can be made back to back
+     */
+    BURST("cfn.rateLimit.burst", "CFN_RATE_LIMIT_BURST", "5"),
+
+    /**
+     * Comma separated HTTP status codes of service errors which shrink the rate
+     * like a throttling error does
+     */
+    THROTTLE_STATUS_CODES("cfn.rateLimit.throttleStatusCodes", "CFN_RATE_LIMIT_THROTTLE_STATUS_CODES", "503,504");
+
+    private final String property;
+    private final String environmentVariable;
+    private final String defaultValue;
+
+    RateLimiterSetting(final String property,
+                       final String environmentVariable,
+                       final String defaultValue) {
+        this.property = property;
+        this.environmentVariable = environmentVariable;
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public String property() {
+        return property;
+    }
+
+    @Override
+    public String environmentVariable() {
+        return environmentVariable;
+    }
+
+    @Override
+    public String defaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * @return the rate limiter configured by these settings, created once per
+     *         JVM so that every invocation shares its buckets, or null if
+     *         {@link #PERMITS_PER_SECOND} is not set
+     */
+    public static TokenBucketRateLimiter configuredRateLimiter() {
+        return ConfiguredRateLimiter.INSTANCE;
+    }
+
+    static TokenBucketRateLimiter create() {
+        final double permits = PERMITS_PER_SECOND.doubleValue(0);
+        if (permits <= 0) {
+            return null;
+        }
+        try {
+            return TokenBucketRateLimiter.builder().permitsPerSecond(permits)
+                .minimumPermitsPerSecond(MINIMUM_PERMITS_PER_SECOND.doubleValue(0.5)).increment(INCREMENT.doubleValue(0.5))
+                .burst(BURST.intValue(5)).throttleStatusCodes(THROTTLE_STATUS_CODES.statusCodes()).build();
+        } catch (final IllegalArgumentException e) {
+            // a setting out of range, it must not make the holder class unusable
+            return TokenBucketRateLimiter.builder().permitsPerSecond(permits).build();
+        }
+    }
+
+    private double doubleValue(final double fallback) {
+        try {
+            return getStringValue().map(value -> Double.parseDouble(value.trim())).orElse(fallback);
+        } catch (final NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private int intValue(final int fallback) {
+        try {
+            return getStringValue().map(value -> Integer.parseInt(value.trim())).orElse(fallback);
+        } catch (final NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private Set<Integer> statusCodes() {
+        final Set<Integer> codes = new LinkedHashSet<>();
+        try {
+            for (final String code : getStringValueOrThrow().split(",")) {
+                if (!code.trim().isEmpty()) {
+                    codes.add(Integer.parseInt(code.trim()));
+                }
+            }
+            return codes;
+        } catch (final NumberFormatException e) {
+            return TokenBucketRateLimiter.DEFAULT_THROTTLE_STATUS_CODES;
+        }
+    }
+
+    private static final class ConfiguredRateLimiter {
+        private static final TokenBucketRateLimiter INSTANCE = create();
+    }
+}
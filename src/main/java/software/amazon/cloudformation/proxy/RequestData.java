@@ -14,10 +14,17 @@
 */
 package software.amazon.cloudformation.proxy;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Map;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Sections which most invocations do not use are held as {@link LazySection}s,
+ * so that they can be bound on first access when the request is deserialized
+ * lazily. Their accessors are typed as before.
+ */
 @Data
 @NoArgsConstructor
 public class RequestData<ResourceT, ConfigurationT> {
@@ -26,10 +33,100 @@ public class RequestData<ResourceT, ConfigurationT> {
     private String providerLogGroupName;
     private String logicalResourceId;
     private ResourceT resourceProperties;
-    private ResourceT previousResourceProperties;
-    private ConfigurationT typeConfiguration;
-    private Map<String, String> systemTags;
-    private Map<String, String> previousSystemTags;
-    private Map<String, String> stackTags;
-    private Map<String, String> previousStackTags;
+    @JsonProperty
+    private LazySection<ResourceT> previousResourceProperties;
+    @JsonProperty
+    private LazySection<ConfigurationT> typeConfiguration;
+    @JsonProperty
+    private LazySection<Map<String, String>> systemTags;
+    @JsonProperty
+    private LazySection<Map<String, String>> previousSystemTags;
+    @JsonProperty
+    private LazySection<Map<String, String>> stackTags;
+    @JsonProperty
+    private LazySection<Map<String, String>> previousStackTags;
+
+    public ResourceT getPreviousResourceProperties() {
+        return LazySection.get(previousResourceProperties);
+    }
+
+    @JsonIgnore
+    public void setPreviousResourceProperties(final ResourceT previousResourceProperties) {
+        this.previousResourceProperties = LazySection.of(previousResourceProperties);
+    }
+
+    @JsonIgnore
+    public LazySection<ResourceT> getPreviousResourcePropertiesSection() {
+        return previousResourceProperties;
+    }
+
+    public ConfigurationT getTypeConfiguration() {
+        return LazySection.get(typeConfiguration);
+    }
+
+    @JsonIgnore
+    public void setTypeConfiguration(final ConfigurationT typeConfiguration) {
+        this.typeConfiguration = LazySection.of(typeConfiguration);
+    }
+
+    @JsonIgnore
+    public LazySection<ConfigurationT> getTypeConfigurationSection() {
+        return typeConfiguration;
+    }
+
+    public Map<String, String> getSystemTags() {
+        return LazySection.get(systemTags);
+    }
+
+    @JsonIgnore
+    public void setSystemTags(final Map<String, String> systemTags) {
+        this.systemTags = LazySection.of(systemTags);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, String>> getSystemTagsSection() {
+        return systemTags;
+    }
+
+    public Map<String, String> getPreviousSystemTags() {
+        return LazySection.get(previousSystemTags);
+    }
+
+    @JsonIgnore
+    public void setPreviousSystemTags(final Map<String, String> previousSystemTags) {
+        this.previousSystemTags = LazySection.of(previousSystemTags);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, String>> getPreviousSystemTagsSection() {
+        return previousSystemTags;
+    }
+
+    public Map<String, String> getStackTags() {
+        return LazySection.get(stackTags);
+    }
+
+    @JsonIgnore
+    public void setStackTags(final Map<String, String> stackTags) {
+        this.stackTags = LazySection.of(stackTags);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, String>> getStackTagsSection() {
+        return stackTags;
+    }
+
+    public Map<String, String> getPreviousStackTags() {
+        return LazySection.get(previousStackTags);
+    }
+
+    @JsonIgnore
+    public void setPreviousStackTags(final Map<String, String> previousStackTags) {
+        this.previousStackTags = LazySection.of(previousStackTags);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, String>> getPreviousStackTagsSection() {
+        return previousStackTags;
+    }
 }
@@ -14,9 +14,9 @@
 */
 package software.amazon.cloudformation.proxy;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Map;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -25,20 +25,28 @@ import lombok.NoArgsConstructor;
  * passed to the implementor. It is transformed from an instance of
  * HandlerRequest by the LambdaWrapper to only items of concern
  *
+ * As in {@link RequestData}, sections which most handlers do not use are
+ * {@link LazySection}s behind typed accessors. The wrapper hands the sections
+ * of the incoming request over unbound, so they are only bound when the
+ * handler reads them.
+ *
  * @param <T> Type of resource model being provisioned
  */
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
-@Builder(toBuilder = true)
 public class ResourceHandlerRequest<T> {
     private String clientRequestToken;
     private T desiredResourceState;
-    private T previousResourceState;
-    private Map<String, String> desiredResourceTags;
-    private Map<String, String> previousResourceTags;
-    private Map<String, String> systemTags;
-    private Map<String, String> previousSystemTags;
+    @JsonProperty
+    private LazySection<T> previousResourceState;
+    @JsonProperty
+    private LazySection<Map<String, String>> desiredResourceTags;
+    @JsonProperty
+    private LazySection<Map<String, String>> previousResourceTags;
+    @JsonProperty
+    private LazySection<Map<String, String>> systemTags;
+    @JsonProperty
+    private LazySection<Map<String, String>> previousSystemTags;
     private String awsAccountId;
     private String awsPartition;
     private String logicalResourceIdentifier;
@@ -46,10 +54,393 @@ public class ResourceHandlerRequest<T> {
     private Boolean snapshotRequested;
     private Boolean rollback;
     private Boolean driftable;
-    private Map<String, Object> features;
-    private Map<String, Object> updatePolicy;
-    private Map<String, Object> creationPolicy;
+    @JsonProperty
+    private LazySection<Map<String, Object>> features;
+    @JsonProperty
+    private LazySection<Map<String, Object>> updatePolicy;
+    @JsonProperty
+    private LazySection<Map<String, Object>> creationPolicy;
     private String region;
     private String stackId;
     private Integer maxResults;
+
+    public ResourceHandlerRequest(final String clientRequestToken,
+                                  final T desiredResourceState,
+                                  final T previousResourceState,
+                                  final Map<String, String> desiredResourceTags,
+                                  final Map<String, String> previousResourceTags,
+                                  final Map<String, String> systemTags,
+                                  final Map<String, String> previousSystemTags,
+                                  final String awsAccountId,
+                                  final String awsPartition,
+                                  final String logicalResourceIdentifier,
+                                  final String nextToken,
+                                  final Boolean snapshotRequested,
+                                  final Boolean rollback,
+                                  final Boolean driftable,
+                                  final Map<String, Object> features,
+                                  final Map<String, Object> updatePolicy,
+                                  final Map<String, Object> creationPolicy,
+                                  final String region,
+                                  final String stackId,
+                                  final Integer maxResults) {
+        this.clientRequestToken = clientRequestToken;
+        this.desiredResourceState = desiredResourceState;
+        this.previousResourceState = LazySection.of(previousResourceState);
+        this.desiredResourceTags = LazySection.of(desiredResourceTags);
+        this.previousResourceTags = LazySection.of(previousResourceTags);
+        this.systemTags = LazySection.of(systemTags);
+        this.previousSystemTags = LazySection.of(previousSystemTags);
+        this.awsAccountId = awsAccountId;
+        this.awsPartition = awsPartition;
+        this.logicalResourceIdentifier = logicalResourceIdentifier;
+        this.nextToken = nextToken;
+        this.snapshotRequested = snapshotRequested;
+        this.rollback = rollback;
+        this.driftable = driftable;
+        this.features = LazySection.of(features);
+        this.updatePolicy = LazySection.of(updatePolicy);
+        this.creationPolicy = LazySection.of(creationPolicy);
+        this.region = region;
+        this.stackId = stackId;
+        this.maxResults = maxResults;
+    }
+
+    private ResourceHandlerRequest(final ResourceHandlerRequestBuilder<T> builder) {
+        this.clientRequestToken = builder.clientRequestToken;
+        this.desiredResourceState = builder.desiredResourceState;
+        this.previousResourceState = builder.previousResourceState;
+        this.desiredResourceTags = builder.desiredResourceTags;
+        this.previousResourceTags = builder.previousResourceTags;
+        this.systemTags = builder.systemTags;
+        this.previousSystemTags = builder.previousSystemTags;
+        this.awsAccountId = builder.awsAccountId;
+        this.awsPartition = builder.awsPartition;
+        this.logicalResourceIdentifier = builder.logicalResourceIdentifier;
+        this.nextToken = builder.nextToken;
+        this.snapshotRequested = builder.snapshotRequested;
+        this.rollback = builder.rollback;
+        this.driftable = builder.driftable;
+        this.features = builder.features;
+        this.updatePolicy = builder.updatePolicy;
+        this.creationPolicy = builder.creationPolicy;
+        this.region = builder.region;
+        this.stackId = builder.stackId;
+        this.maxResults = builder.maxResults;
+    }
+
+    public static <T> ResourceHandlerRequestBuilder<T> builder() {
+        return new ResourceHandlerRequestBuilder<>();
+    }
+
+    /**
+     * @return a builder holding the values of this request, sections are copied
+     *         without being bound
+     */
+    public ResourceHandlerRequestBuilder<T> toBuilder() {
+        final ResourceHandlerRequestBuilder<T> builder = new ResourceHandlerRequestBuilder<>();
+        builder.clientRequestToken = this.clientRequestToken;
+        builder.desiredResourceState = this.desiredResourceState;
+        builder.previousResourceState = this.previousResourceState;
+        builder.desiredResourceTags = this.desiredResourceTags;
+        builder.previousResourceTags = this.previousResourceTags;
+        builder.systemTags = this.systemTags;
+        builder.previousSystemTags = this.previousSystemTags;
+        builder.awsAccountId = this.awsAccountId;
+        builder.awsPartition = this.awsPartition;
+        builder.logicalResourceIdentifier = this.logicalResourceIdentifier;
+        builder.nextToken = this.nextToken;
+        builder.snapshotRequested = this.snapshotRequested;
+        builder.rollback = this.rollback;
+        builder.driftable = this.driftable;
+        builder.features = this.features;
+        builder.updatePolicy = this.updatePolicy;
+        builder.creationPolicy = this.creationPolicy;
+        builder.region = this.region;
+        builder.stackId = this.stackId;
+        builder.maxResults = this.maxResults;
+        return builder;
+    }
+
+    public T getPreviousResourceState() {
+        return LazySection.get(previousResourceState);
+    }
+
+    @JsonIgnore
+    public void setPreviousResourceState(final T previousResourceState) {
+        this.previousResourceState = LazySection.of(previousResourceState);
+    }
+
+    @JsonIgnore
+    public LazySection<T> getPreviousResourceStateSection() {
+        return previousResourceState;
+    }
+
+    @JsonIgnore
+    public void setPreviousResourceStateSection(final LazySection<T> previousResourceState) {
+        this.previousResourceState = previousResourceState;
+    }
+
+    public Map<String, String> getDesiredResourceTags() {
+        return LazySection.get(desiredResourceTags);
+    }
+
+    @JsonIgnore
+    public void setDesiredResourceTags(final Map<String, String> desiredResourceTags) {
+        this.desiredResourceTags = LazySection.of(desiredResourceTags);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, String>> getDesiredResourceTagsSection() {
+        return desiredResourceTags;
+    }
+
+    @JsonIgnore
+    public void setDesiredResourceTagsSection(final LazySection<Map<String, String>> desiredResourceTags) {
+        this.desiredResourceTags = desiredResourceTags;
+    }
+
+    public Map<String, String> getPreviousResourceTags() {
+        return LazySection.get(previousResourceTags);
+    }
+
+    @JsonIgnore
+    public void setPreviousResourceTags(final Map<String, String> previousResourceTags) {
+        this.previousResourceTags = LazySection.of(previousResourceTags);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, String>> getPreviousResourceTagsSection() {
+        return previousResourceTags;
+    }
+
+    @JsonIgnore
+    public void setPreviousResourceTagsSection(final LazySection<Map<String, String>> previousResourceTags) {
+        this.previousResourceTags = previousResourceTags;
+    }
+
+    public Map<String, String> getSystemTags() {
+        return LazySection.get(systemTags);
+    }
+
+    @JsonIgnore
+    public void setSystemTags(final Map<String, String> systemTags) {
+        this.systemTags = LazySection.of(systemTags);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, String>> getSystemTagsSection() {
+        return systemTags;
+    }
+
+    @JsonIgnore
+    public void setSystemTagsSection(final LazySection<Map<String, String>> systemTags) {
+        this.systemTags = systemTags;
+    }
+
+    public Map<String, String> getPreviousSystemTags() {
+        return LazySection.get(previousSystemTags);
+    }
+
+    @JsonIgnore
+    public void setPreviousSystemTags(final Map<String, String> previousSystemTags) {
+        this.previousSystemTags = LazySection.of(previousSystemTags);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, String>> getPreviousSystemTagsSection() {
+        return previousSystemTags;
+    }
+
+    @JsonIgnore
+    public void setPreviousSystemTagsSection(final LazySection<Map<String, String>> previousSystemTags) {
+        this.previousSystemTags = previousSystemTags;
+    }
+
+    public Map<String, Object> getFeatures() {
+        return LazySection.get(features);
+    }
+
+    @JsonIgnore
+    public void setFeatures(final Map<String, Object> features) {
+        this.features = LazySection.of(features);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, Object>> getFeaturesSection() {
+        return features;
+    }
+
+    @JsonIgnore
+    public void setFeaturesSection(final LazySection<Map<String, Object>> features) {
+        this.features = features;
+    }
+
+    public Map<String, Object> getUpdatePolicy() {
+        return LazySection.get(updatePolicy);
+    }
+
+    @JsonIgnore
+    public void setUpdatePolicy(final Map<String, Object> updatePolicy) {
+        this.updatePolicy = LazySection.of(updatePolicy);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, Object>> getUpdatePolicySection() {
+        return updatePolicy;
+    }
+
+    @JsonIgnore
+    public void setUpdatePolicySection(final LazySection<Map<String, Object>> updatePolicy) {
+        this.updatePolicy = updatePolicy;
+    }
+
+    public Map<String, Object> getCreationPolicy() {
+        return LazySection.get(creationPolicy);
+    }
+
+    @JsonIgnore
+    public void setCreationPolicy(final Map<String, Object> creationPolicy) {
+        this.creationPolicy = LazySection.of(creationPolicy);
+    }
+
+    @JsonIgnore
+    public LazySection<Map<String, Object>> getCreationPolicySection() {
+        return creationPolicy;
+    }
+
+    @JsonIgnore
+    public void setCreationPolicySection(final LazySection<Map<String, Object>> creationPolicy) {
+        this.creationPolicy = creationPolicy;
+    }
+
+    public static class ResourceHandlerRequestBuilder<T> {
+        private String clientRequestToken;
+        private T desiredResourceState;
+        private LazySection<T> previousResourceState;
+        private LazySection<Map<String, String>> desiredResourceTags;
+        private LazySection<Map<String, String>> previousResourceTags;
+        private LazySection<Map<String, String>> systemTags;
+        private LazySection<Map<String, String>> previousSystemTags;
+        private String awsAccountId;
+        private String awsPartition;
+        private String logicalResourceIdentifier;
+        private String nextToken;
+        private Boolean snapshotRequested;
+        private Boolean rollback;
+        private Boolean driftable;
+        private LazySection<Map<String, Object>> features;
+        private LazySection<Map<String, Object>> updatePolicy;
+        private LazySection<Map<String, Object>> creationPolicy;
+        private String region;
+        private String stackId;
+        private Integer maxResults;
+
+        ResourceHandlerRequestBuilder() {
+        }
+
+        public ResourceHandlerRequestBuilder<T> clientRequestToken(final String clientRequestToken) {
+            this.clientRequestToken = clientRequestToken;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> desiredResourceState(final T desiredResourceState) {
+            this.desiredResourceState = desiredResourceState;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> previousResourceState(final T previousResourceState) {
+            this.previousResourceState = LazySection.of(previousResourceState);
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> desiredResourceTags(final Map<String, String> desiredResourceTags) {
+            this.desiredResourceTags = LazySection.of(desiredResourceTags);
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> previousResourceTags(final Map<String, String> previousResourceTags) {
+            this.previousResourceTags = LazySection.of(previousResourceTags);
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> systemTags(final Map<String, String> systemTags) {
+            this.systemTags = LazySection.of(systemTags);
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> previousSystemTags(final Map<String, String> previousSystemTags) {
+            this.previousSystemTags = LazySection.of(previousSystemTags);
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> awsAccountId(final String awsAccountId) {
+            this.awsAccountId = awsAccountId;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> awsPartition(final String awsPartition) {
+            this.awsPartition = awsPartition;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> logicalResourceIdentifier(final String logicalResourceIdentifier) {
+            this.logicalResourceIdentifier = logicalResourceIdentifier;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> nextToken(final String nextToken) {
+            this.nextToken = nextToken;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> snapshotRequested(final Boolean snapshotRequested) {
+            this.snapshotRequested = snapshotRequested;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> rollback(final Boolean rollback) {
+            this.rollback = rollback;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> driftable(final Boolean driftable) {
+            this.driftable = driftable;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> features(final Map<String, Object> features) {
+            this.features = LazySection.of(features);
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> updatePolicy(final Map<String, Object> updatePolicy) {
+            this.updatePolicy = LazySection.of(updatePolicy);
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> creationPolicy(final Map<String, Object> creationPolicy) {
+            this.creationPolicy = LazySection.of(creationPolicy);
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> region(final String region) {
+            this.region = region;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> stackId(final String stackId) {
+            this.stackId = stackId;
+            return this;
+        }
+
+        public ResourceHandlerRequestBuilder<T> maxResults(final Integer maxResults) {
+            this.maxResults = maxResults;
+            return this;
+        }
+
+        public ResourceHandlerRequest<T> build() {
+            return new ResourceHandlerRequest<>(this);
+        }
+    }
 }
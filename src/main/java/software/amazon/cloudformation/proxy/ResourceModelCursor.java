@@ -0,0 +1,36 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import java.util.Iterator;
+
+/**
+ * Resources of a LIST handler, fetched as they are serialized into the
+ * response rather than collected up front, see
+ * {@link ProgressEvent#getResourceModelCursor()}. The wrapper stops reading
+ * once the page is full and returns {@link #nextToken()} to CloudFormation,
+ * which passes it back to the handler to list the next page.
+ *
+ * @param <ResourceT> the type of the resource model
+ */
+public interface ResourceModelCursor<ResourceT> extends Iterator<ResourceT> {
+
+    /**
+     * @return the token to list from the model the next call to {@link #next()}
+     *         returns, typically the token of the service page that model is on
+     *         and its position in that page
+     */
+    String nextToken();
+}
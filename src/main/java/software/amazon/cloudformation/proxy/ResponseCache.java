@@ -0,0 +1,200 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import com.google.common.base.Preconditions;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.concurrent.ThreadSafe;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+
+/**
+ * Read-through response cache for a {@link ProxyClient} that is scoped to a
+ * single handler invocation. Handlers often make the same Describe/Get call
+ * several times in one invocation (pre-checks, stabilization, final read); with
+ * a cache attached only the first of these reaches the service.
+ *
+ * Only requests whose type has been explicitly allow-listed are cached, keyed
+ * by request equality. Any other request that completes successfully is
+ * treated as mutating and invalidates the cached responses of its service, the
+ * service a call graph is made against, so reads that follow a write always
+ * see fresh state. A cache shared by the proxies of several services keeps the
+ * reads of the others.
+ * Stabilization polls always reach the service, their latest response replaces
+ * the cached one.
+ *
+ * {@code
+ *     ResponseCache cache = ResponseCache.of(DescribeStreamRequest.class);
+ *     ProxyClient<KinesisClient> client = proxy.newProxy(ClientBuilder::getClient, cache);
+ * }
+ *
+ * @see AmazonWebServicesClientProxy#newProxy(java.util.function.Supplier,
+ *      ResponseCache)
+ */
+@ThreadSafe
+public class ResponseCache {
+
+    private final Set<Class<?>> cacheable;
+    // cached responses by service
+    private final Map<String, Map<AwsRequest, AwsResponse>> responses = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ResponseCache(final Collection<Class<? extends AwsRequest>> cacheable) {
+        Preconditions.checkNotNull(cacheable, "cacheable request types can not be null");
+        this.cacheable = Collections.unmodifiableSet(new HashSet<>(cacheable));
+    }
+
+    @SafeVarargs
+    public static ResponseCache of(final Class<? extends AwsRequest>... cacheable) {
+        final Set<Class<? extends AwsRequest>> types = new HashSet<>();
+        for (Class<? extends AwsRequest> each : cacheable) {
+            types.add(each);
+        }
+        return new ResponseCache(types);
+    }
+
+    /**
+     * @param request the service request about to be made
+     * @return true if responses for this request type may be served from the cache
+     */
+    public boolean isCacheable(final AwsRequest request) {
+        return request != null && cacheable.contains(request.getClass());
+    }
+
+    /**
+     * Returns the cached response for an equal request if present, otherwise makes
+     * the call and remembers its response. Requests that are not allow-listed are
+     * always forwarded and invalidate the cached responses of the service once
+     * they succeed.
+     *
+     * @param service the service the request is made against
+     * @param request the service request to make
+     * @param invoker makes the actual service call
+     * @param <RequestT> the request type
+     * @param <ResponseT> the response type
+     * @return the cached or freshly retrieved response
+     */
+    @SuppressWarnings("unchecked")
+    <RequestT extends AwsRequest, ResponseT extends AwsResponse>
+        ResponseT
+        readThrough(final String service, final RequestT request, final Function<RequestT, ResponseT> invoker) {
+        if (!isCacheable(request)) {
+            ResponseT response = invoker.apply(request);
+            invalidate(service);
+            return response;
+        }
+
+        Map<AwsRequest, AwsResponse> cache = responses.computeIfAbsent(service, ignored -> new ConcurrentHashMap<>());
+        ResponseT cached = (ResponseT) cache.get(request);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        //
+        // Deliberately not using computeIfAbsent, the invoker makes a remote call and
+        // may itself use this cache. A racing duplicate call is harmless.
+        //
+        misses.incrementAndGet();
+        ResponseT response = invoker.apply(request);
+        if (response != null) {
+            cache.put(request, response);
+        }
+        return response;
+    }
+
+    /**
+     * Always makes the call, then remembers its response in place of any cached
+     * one. Used while polling for stabilization where a cached response would
+     * never change.
+     *
+     * @param service the service the request is made against
+     * @param request the service request to make
+     * @param invoker makes the actual service call
+     * @param <RequestT> the request type
+     * @param <ResponseT> the response type
+     * @return the freshly retrieved response
+     */
+    <RequestT extends AwsRequest, ResponseT extends AwsResponse>
+        ResponseT
+        refresh(final String service, final RequestT request, final Function<RequestT, ResponseT> invoker) {
+        if (!isCacheable(request)) {
+            return readThrough(service, request, invoker);
+        }
+
+        misses.incrementAndGet();
+        ResponseT response = invoker.apply(request);
+        Map<AwsRequest, AwsResponse> cache = responses.computeIfAbsent(service, ignored -> new ConcurrentHashMap<>());
+        if (response != null) {
+            cache.put(request, response);
+        } else {
+            cache.remove(request);
+        }
+        return response;
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public void invalidate() {
+        if (size() > 0) {
+            responses.clear();
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drops the cached responses of a service.
+     *
+     * @param service the service a mutating request was made against
+     */
+    void invalidate(final String service) {
+        Map<AwsRequest, AwsResponse> cache = responses.remove(service);
+        if (cache != null && !cache.isEmpty()) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long invalidations() {
+        return invalidations.get();
+    }
+
+    public int size() {
+        return responses.values().stream().mapToInt(Map::size).sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ResponseCache{hits=%d, misses=%d, invalidations=%d, size=%d}", hits(), misses(), invalidations(),
+            size());
+    }
+}
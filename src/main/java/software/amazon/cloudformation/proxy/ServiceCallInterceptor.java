@@ -0,0 +1,50 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import java.util.function.Function;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+
+/**
+ * Stands between the client proxy and the AWS services for calls made with
+ * {@link AmazonWebServicesClientProxy#injectCredentialsAndInvokeV2}, and is
+ * told about the calls made with the other proxy methods, e.g. to
+ * record the calls of an invocation or to answer them from a recording, see
+ * {@link AmazonWebServicesClientProxy#setServiceCallInterceptor}.
+ */
+public interface ServiceCallInterceptor {
+
+    /**
+     * @param request the request, credentials already injected
+     * @param call makes the call to the service
+     * @param <RequestT> the type of the request
+     * @param <ResultT> the type of the response
+     * @return the response of the call
+     */
+    <RequestT extends AwsRequest, ResultT extends AwsResponse> ResultT intercept(RequestT request,
+                                                                                 Function<RequestT, ResultT> call);
+
+    /**
+     * Called before a call made with one of the asynchronous, iterable or
+     * streaming proxy methods, whose response cannot be intercepted. The call
+     * goes to the service unless this throws.
+     *
+     * @param request the request, credentials already injected
+     * @param method the proxy method the call is made with
+     */
+    default void passThrough(final AwsRequest request, final String method) {
+    }
+}
@@ -347,6 +347,28 @@ public class StdCallbackContext {
         callGraphs.put(callGraph + ".attempts", attempts);
     }
 
+    /**
+     * Remembers when the call graph was first found not to be stabilized, this is
+     * carried across callbacks.
+     *
+     * @param callGraph the call graph waiting to stabilize
+     * @param now current time in epoch millis
+     * @return the time in epoch millis when the call graph started waiting
+     */
+    public long stabilizationStarted(String callGraph, long now) {
+        return ((Number) callGraphs.computeIfAbsent(callGraph + ".stabilizing", (ign) -> now)).longValue();
+    }
+
+    /**
+     * @param callGraph the call graph that stabilized
+     * @return the time in epoch millis when the call graph started waiting, or
+     *         null if it never had to wait
+     */
+    public Long stabilizationCompleted(String callGraph) {
+        Object started = callGraphs.remove(callGraph + ".stabilizing");
+        return started == null ? null : ((Number) started).longValue();
+    }
+
     @VisibleForTesting
     void setCallGraphs(LinkedHashMap<String, Object> graphs) {
         this.callGraphs = Collections.synchronizedMap(new LinkedHashMap<>(graphs));
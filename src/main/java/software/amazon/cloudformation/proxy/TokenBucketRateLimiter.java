@@ -0,0 +1,269 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.annotation.concurrent.ThreadSafe;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+/**
+ * Client side rate limiter that paces service calls before they are made,
+ * instead of only reacting to throttles after the fact. There is one bucket per
+ * AWS client class and request type, e.g. KinesisClient and
+ * DescribeStreamRequest. The limiter is thread safe and lock free, a single
+ * instance should be held statically and shared by all handler invocations in
+ * the JVM so that bursts of concurrent stack operations are paced together.
+ *
+ * Each bucket refills at its configured rate and holds up to {@code burst}
+ * tokens. The rate adapts to what the service tolerates: it is halved whenever
+ * the service throttles a call, down to the configured minimum, and grows back
+ * additively on every successful call up to the configured rate. Besides
+ * throttling errors, service errors with a 503 or 504 status are taken as a
+ * sign of overload and count as throttles, see
+ * {@link Builder#throttleStatusCodes(Collection)}.
+ *
+ * {@code
+ *     static final TokenBucketRateLimiter LIMITER = TokenBucketRateLimiter.builder()
+ *         .permitsPerSecond(10).burst(5)
+ *         .permitsPerSecond(DescribeStreamRequest.class, 5).build();
+ * }
+ *
+ * @see AmazonWebServicesClientProxy#newProxy(java.util.function.Supplier)
+ * @see RateLimiterSetting
+ */
+@ThreadSafe
+public class TokenBucketRateLimiter {
+
+    static final Set<Integer> DEFAULT_THROTTLE_STATUS_CODES = Collections
+        .unmodifiableSet(new LinkedHashSet<>(Arrays.asList(503, 504)));
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double defaultPermitsPerSecond;
+    private final Map<Class<?>, Double> permitsPerSecond;
+    private final double minimumPermitsPerSecond;
+    private final double increment;
+    private final int burst;
+    private final Set<Integer> throttleStatusCodes;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Bucket>> buckets = new ConcurrentHashMap<>();
+
+    TokenBucketRateLimiter(final Builder builder,
+                           final LongSupplier nanoClock) {
+        Preconditions.checkArgument(builder.defaultPermitsPerSecond > 0, "permitsPerSecond must be > 0");
+        Preconditions.checkArgument(builder.minimumPermitsPerSecond > 0, "minimumPermitsPerSecond must be > 0");
+        Preconditions.checkArgument(builder.burst > 0, "burst must be > 0");
+        Preconditions.checkArgument(builder.increment >= 0, "increment must be >= 0");
+        this.defaultPermitsPerSecond = builder.defaultPermitsPerSecond;
+        this.permitsPerSecond = new HashMap<>(builder.permitsPerSecond);
+        this.minimumPermitsPerSecond = builder.minimumPermitsPerSecond;
+        this.increment = builder.increment;
+        this.burst = builder.burst;
+        this.throttleStatusCodes = Collections.unmodifiableSet(new LinkedHashSet<>(builder.throttleStatusCodes));
+        this.nanoClock = nanoClock;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private double defaultPermitsPerSecond = 10.0;
+        private double minimumPermitsPerSecond = 0.5;
+        private double increment = 0.5;
+        private int burst = 5;
+        private Collection<Integer> throttleStatusCodes = DEFAULT_THROTTLE_STATUS_CODES;
+        private final Map<Class<?>, Double> permitsPerSecond = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param permits the steady state rate for any API without an explicit rate
+         * @return this builder
+         */
+        public Builder permitsPerSecond(double permits) {
+            this.defaultPermitsPerSecond = permits;
+            return this;
+        }
+
+        /**
+         * @param requestType the request type of the API, e.g. DescribeStreamRequest
+         * @param permits the steady state rate for this API
+         * @return this builder
+         */
+        public Builder permitsPerSecond(Class<?> requestType, double permits) {
+            Preconditions.checkArgument(permits > 0, "permitsPerSecond must be > 0");
+            this.permitsPerSecond.put(Preconditions.checkNotNull(requestType), permits);
+            return this;
+        }
+
+        /**
+         * @param permits the floor the rate shrinks to under sustained throttling
+         * @return this builder
+         */
+        public Builder minimumPermitsPerSecond(double permits) {
+            this.minimumPermitsPerSecond = permits;
+            return this;
+        }
+
+        /**
+         * @param permits how much the rate grows back by after each successful call
+         * @return this builder
+         */
+        public Builder increment(double permits) {
+            this.increment = permits;
+            return this;
+        }
+
+        /**
+         * @param tokens the number of calls that can be made back to back
+         * @return this builder
+         */
+        public Builder burst(int tokens) {
+            this.burst = tokens;
+            return this;
+        }
+
+        /**
+         * @param statusCodes HTTP status codes of service errors which shrink the
+         *            rate like a throttling error does, 503 and 504 by default
+         * @return this builder
+         */
+        public Builder throttleStatusCodes(Collection<Integer> statusCodes) {
+            this.throttleStatusCodes = Preconditions.checkNotNull(statusCodes, "statusCodes can not be null");
+            return this;
+        }
+
+        public TokenBucketRateLimiter build() {
+            return new TokenBucketRateLimiter(this, System::nanoTime);
+        }
+    }
+
+    /**
+     * Takes a token for the API, waiting for the bucket to refill if it is empty.
+     *
+     * @param clientType the AWS client class making the call
+     * @param requestType the request type of the API being called
+     * @return the time spent waiting for a token
+     */
+    public Duration acquire(final Class<?> clientType, final Class<?> requestType) {
+        long waitNanos = bucket(clientType, requestType).reserve(nanoClock.getAsLong());
+        if (waitNanos > 0) {
+            Uninterruptibles.sleepUninterruptibly(waitNanos, TimeUnit.NANOSECONDS);
+        }
+        return Duration.ofNanos(waitNanos);
+    }
+
+    /**
+     * Additively grows the rate for the API back towards its configured rate.
+     *
+     * @param clientType the AWS client class that made the call
+     * @param requestType the request type of the API that succeeded
+     */
+    public void onSuccess(final Class<?> clientType, final Class<?> requestType) {
+        bucket(clientType, requestType).grow();
+    }
+
+    /**
+     * Halves the rate for the API, down to the configured minimum.
+     *
+     * @param clientType the AWS client class that made the call
+     * @param requestType the request type of the API that was throttled
+     */
+    public void onThrottle(final Class<?> clientType, final Class<?> requestType) {
+        bucket(clientType, requestType).shrink();
+    }
+
+    /**
+     * @param error a service error a call failed with
+     * @return true if the error is a throttling error or has one of the throttle
+     *         status codes, the rate of the API should then shrink
+     */
+    public boolean isThrottle(final AwsServiceException error) {
+        return error.isThrottlingException() || throttleStatusCodes.contains(error.statusCode());
+    }
+
+    /**
+     * @param clientType the AWS client class
+     * @param requestType the request type of the API
+     * @return the current adapted rate for the API
+     */
+    public double currentPermitsPerSecond(final Class<?> clientType, final Class<?> requestType) {
+        return NANOS_PER_SECOND / bucket(clientType, requestType).interval.get();
+    }
+
+    private Bucket bucket(final Class<?> clientType, final Class<?> requestType) {
+        return buckets.computeIfAbsent(clientType, ign -> new ConcurrentHashMap<>()).computeIfAbsent(requestType,
+            type -> new Bucket(permitsPerSecond.getOrDefault(type, defaultPermitsPerSecond)));
+    }
+
+    /*
+     * Token bucket expressed as a virtual scheduling (GCRA) clock so that a single
+     * compare-and-set reserves a token. theoreticalArrival is the time at which the
+     * bucket would be full again, a caller has to wait once that lies more than
+     * burst intervals in the future.
+     */
+    private final class Bucket {
+        private final long minimumInterval;
+        private final long maximumInterval;
+        private final AtomicLong interval;
+        private final AtomicLong theoreticalArrival;
+
+        private Bucket(final double permits) {
+            this.minimumInterval = toInterval(permits);
+            this.maximumInterval = Math.max(minimumInterval, toInterval(minimumPermitsPerSecond));
+            this.interval = new AtomicLong(minimumInterval);
+            this.theoreticalArrival = new AtomicLong(nanoClock.getAsLong());
+        }
+
+        private long reserve(final long now) {
+            for (;;) {
+                long current = interval.get();
+                long arrival = theoreticalArrival.get();
+                long next = Math.max(arrival, now) + current;
+                if (theoreticalArrival.compareAndSet(arrival, next)) {
+                    return Math.max(0L, next - now - burst * current);
+                }
+            }
+        }
+
+        private void grow() {
+            interval.updateAndGet(current -> Math.max(minimumInterval, toInterval(NANOS_PER_SECOND / current + increment)));
+        }
+
+        private void shrink() {
+            interval.updateAndGet(current -> Math.min(maximumInterval, current * 2));
+        }
+    }
+
+    private static long toInterval(final double permits) {
+        return Math.max(1L, (long) (NANOS_PER_SECOND / permits));
+    }
+}
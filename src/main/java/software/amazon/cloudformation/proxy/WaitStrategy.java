@@ -14,9 +14,7 @@
 */
 package software.amazon.cloudformation.proxy;
 
-import com.google.common.util.concurrent.Uninterruptibles;
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 public interface WaitStrategy {
@@ -24,21 +22,39 @@ public interface WaitStrategy {
         ProgressEvent<ModelT, CallbackT>
         await(long operationElapsedTime, Duration nextAttempt, CallbackT context, ModelT model);
 
+    /**
+     * Call graph aware variant of {@link #await(long, Duration, Object, Object)},
+     * allows strategies to learn how long each call graph takes to run.
+     *
+     * @param callGraph the call graph that is waiting to be attempted again,
+     *            without the hash of the request so that attempts with
+     *            different requests share what was learnt
+     * @param operationElapsedTime the time in millis the last attempt took
+     * @param nextAttempt the delay before the next attempt
+     * @param context the callback context
+     * @param model the resource model
+     * @param <ModelT> the resource model type
+     * @param <CallbackT> the callback context type
+     * @return null to attempt again locally, else the event to hand back to the
+     *         caller
+     */
+    default <ModelT, CallbackT>
+        ProgressEvent<ModelT, CallbackT>
+        await(String callGraph, long operationElapsedTime, Duration nextAttempt, CallbackT context, ModelT model) {
+        return await(operationElapsedTime, nextAttempt, context, model);
+    }
+
+    /**
+     * Waits locally with millisecond precision as long as the next attempt and the
+     * time the call graph is expected to take fit in the remaining time, otherwise
+     * hands back for a callback. The wait is interruptible, an interrupted wait
+     * hands back for a callback with the interrupt status preserved.
+     *
+     * @param remainingTimeToExecute supplies the remaining time in millis
+     * @return the wait strategy
+     */
     static WaitStrategy newLocalLoopAwaitStrategy(final Supplier<Long> remainingTimeToExecute) {
-        return new WaitStrategy() {
-            @Override
-            public <ModelT, CallbackT>
-                ProgressEvent<ModelT, CallbackT>
-                await(long operationElapsedTime, Duration next, CallbackT context, ModelT model) {
-                long remainingTime = remainingTimeToExecute.get();
-                long localWait = next.toMillis() + 2 * operationElapsedTime + 100;
-                if (remainingTime > localWait) {
-                    Uninterruptibles.sleepUninterruptibly(next.getSeconds(), TimeUnit.SECONDS);
-                    return null;
-                }
-                return ProgressEvent.defaultInProgressHandler(context, (int) next.getSeconds(), model);
-            }
-        };
+        return new LocalLoopWaitStrategy(remainingTimeToExecute);
     }
 
     static WaitStrategy scheduleForCallbackStrategy() {
@@ -47,7 +63,7 @@ public interface WaitStrategy {
             public <ModelT, CallbackT>
                 ProgressEvent<ModelT, CallbackT>
                 await(long operationElapsedTime, Duration next, CallbackT context, ModelT model) {
-                return ProgressEvent.defaultInProgressHandler(context, (int) next.getSeconds(), model);
+                return ProgressEvent.defaultInProgressHandler(context, next, model);
             }
         };
     }
@@ -0,0 +1,281 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy.delay;
+
+import com.google.common.base.Preconditions;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.annotation.concurrent.ThreadSafe;
+import software.amazon.cloudformation.proxy.Delay;
+import software.amazon.cloudformation.proxy.DelayFactory;
+
+/**
+ * {@link DelayFactory} that learns how long each call graph takes to stabilize
+ * and polls near the predicted completion time instead of uniformly. Observed
+ * stabilization times are kept in a small log scaled histogram per call graph.
+ * Once enough samples have been seen, polls are scheduled at the p50, p75, p90
+ * and p99 of the observed times and every {@code maxDelay} after that. Until
+ * then the delay provided by the handler, or the fallback, is used. When the
+ * handler provides a delay, a prediction keeps its timeout, and its max delay
+ * if it has one; the factory's own only apply when it does not. The proxy
+ * identifies a call graph by service, request type and call graph name, so
+ * every resource created through it contributes to the same histogram.
+ *
+ * The histograms live as long as the factory, which should be held statically
+ * so that it learns across handler invocations in the same JVM.
+ *
+ * {@code
+ *     static final Adaptive DELAYS = Adaptive.of().minDelay(Duration.ofSeconds(2))
+ *         .maxDelay(Duration.ofSeconds(30)).timeout(Duration.ofMinutes(20)).build();
+ * }
+ */
+@ThreadSafe
+public class Adaptive implements DelayFactory {
+
+    static final double[] QUANTILES = { 0.5, 0.75, 0.9, 0.99 };
+
+    //
+    // Bucket i holds times up to 1s x 1.25^i, 64 buckets reach past 15 days
+    //
+    static final int BUCKETS = 64;
+    private static final int DEADLINE_ATTEMPTS = 10_000;
+    private static final long[] UPPER_BOUNDS = new long[BUCKETS];
+
+    static {
+        for (int i = 0; i < BUCKETS; i++) {
+            UPPER_BOUNDS[i] = (long) Math.ceil(1000L * Math.pow(1.25, i));
+        }
+    }
+
+    final Duration timeout;
+    final Duration minDelay;
+    final Duration maxDelay;
+    final int minimumSamples;
+    final int maximumCallGraphs;
+    final Delay fallback;
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    Adaptive(Duration timeout,
+             Duration minDelay,
+             Duration maxDelay,
+             int minimumSamples,
+             int maximumCallGraphs,
+             Delay fallback) {
+        Preconditions.checkArgument(timeout != null && timeout.toMillis() > 0, "timeout must be > 0");
+        Preconditions.checkArgument(minDelay != null && minDelay.toMillis() > 0, "minDelay must be > 0");
+        Preconditions.checkArgument(maxDelay != null && maxDelay.compareTo(minDelay) >= 0, "maxDelay must be >= minDelay");
+        Preconditions.checkArgument(minimumSamples > 0, "minimumSamples must be > 0");
+        Preconditions.checkArgument(maximumCallGraphs > 0, "maximumCallGraphs must be > 0");
+        this.timeout = timeout;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.minimumSamples = minimumSamples;
+        this.maximumCallGraphs = maximumCallGraphs;
+        this.fallback = Preconditions.checkNotNull(fallback, "fallback can not be null");
+    }
+
+    public static Builder of() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private Duration timeout = Duration.ofMinutes(20);
+        private Duration minDelay = Duration.ofSeconds(1);
+        private Duration maxDelay = Duration.ofSeconds(30);
+        private int minimumSamples = 5;
+        private int maximumCallGraphs = 256;
+        private Delay fallback;
+
+        public Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Builder minDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder minimumSamples(int minimumSamples) {
+            this.minimumSamples = minimumSamples;
+            return this;
+        }
+
+        public Builder maximumCallGraphs(int maximumCallGraphs) {
+            this.maximumCallGraphs = maximumCallGraphs;
+            return this;
+        }
+
+        public Builder fallback(Delay fallback) {
+            this.fallback = fallback;
+            return this;
+        }
+
+        public Adaptive build() {
+            Delay delay = fallback != null ? fallback : Constant.of().delay(Duration.ofSeconds(5)).timeout(timeout).build();
+            return new Adaptive(timeout, minDelay, maxDelay, minimumSamples, maximumCallGraphs, delay);
+        }
+    }
+
+    @Override
+    public Delay getDelay(String apiCall, Delay provided) {
+        Histogram histogram = histograms.get(apiCall);
+        if (histogram == null || histogram.count() < minimumSamples) {
+            return provided != null ? provided : fallback;
+        }
+        long[] targets = new long[QUANTILES.length];
+        for (int i = 0; i < QUANTILES.length; i++) {
+            targets[i] = histogram.quantile(QUANTILES[i]);
+        }
+        if (provided == null) {
+            return new Predicted(timeout, minDelay, maxDelay, targets);
+        }
+        // only the polling schedule is learned, the handler's deadline and longest
+        // wait still hold
+        Duration cap = provided instanceof CappedExponential && ((CappedExponential) provided).maxDelay.compareTo(maxDelay) < 0
+            ? ((CappedExponential) provided).maxDelay
+            : maxDelay;
+        return new Predicted(deadlineOf(provided), minDelay, cap.compareTo(minDelay) < 0 ? minDelay : cap, targets);
+    }
+
+    /*
+     * Delays of this package know their timeout, others are run until they are
+     * done, within reason
+     */
+    private Duration deadlineOf(Delay delay) {
+        if (delay instanceof AbstractDelay) {
+            return ((AbstractDelay) delay).timeout;
+        }
+        long elapsed = 0L;
+        for (int attempt = 1; attempt <= DEADLINE_ATTEMPTS; attempt++) {
+            Duration wait = delay.nextDelay(attempt);
+            if (wait == null || wait.isZero() || wait.isNegative()) {
+                return Duration.ofMillis(Math.max(1L, elapsed));
+            }
+            elapsed += wait.toMillis();
+        }
+        return Duration.ofMillis(Math.max(elapsed, timeout.toMillis()));
+    }
+
+    @Override
+    public void stabilized(String apiCall, Duration took) {
+        if (apiCall == null || took == null || took.isNegative()) {
+            return;
+        }
+        Histogram histogram = histograms.get(apiCall);
+        if (histogram == null) {
+            if (histograms.size() >= maximumCallGraphs) {
+                return;
+            }
+            histogram = histograms.computeIfAbsent(apiCall, ign -> new Histogram());
+        }
+        histogram.record(took.toMillis());
+    }
+
+    /**
+     * @param apiCall the call graph
+     * @return the number of stabilization times observed for the call graph
+     */
+    public long samples(String apiCall) {
+        Histogram histogram = histograms.get(apiCall);
+        return histogram == null ? 0L : histogram.count();
+    }
+
+    static int bucket(long millis) {
+        int index = Arrays.binarySearch(UPPER_BOUNDS, millis);
+        return Math.min(BUCKETS - 1, index >= 0 ? index : -index - 1);
+    }
+
+    static long upperBound(int bucket) {
+        return UPPER_BOUNDS[bucket];
+    }
+
+    private static final class Histogram {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        private void record(long millis) {
+            counts.incrementAndGet(bucket(millis));
+        }
+
+        private long count() {
+            long total = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+
+        private long quantile(double quantile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+            long seen = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(BUCKETS - 1);
+        }
+    }
+
+    /*
+     * Polls at the predicted completion targets, each wait bounded by
+     * [minDelay, maxDelay], then every maxDelay until the timeout.
+     */
+    static final class Predicted extends AbstractDelay {
+        private final long[] schedule;
+        private final long maxDelay;
+
+        Predicted(Duration timeout,
+                  Duration minDelay,
+                  Duration maxDelay,
+                  long[] targets) {
+            super(timeout);
+            this.maxDelay = maxDelay.toMillis();
+            this.schedule = new long[targets.length];
+            long previous = 0L;
+            for (int i = 0; i < targets.length; i++) {
+                long wait = Math.min(this.maxDelay, Math.max(minDelay.toMillis(), targets[i] - previous));
+                schedule[i] = wait;
+                previous += wait;
+            }
+        }
+
+        @Override
+        public Duration nextDelay(int attempt) {
+            long elapsed = 0L;
+            long wait = maxDelay;
+            for (int i = 0; i < attempt; i++) {
+                wait = i < schedule.length ? schedule[i] : maxDelay;
+                elapsed += wait;
+            }
+            return enforceBounds(Duration.ofMillis(elapsed), Duration.ofMillis(wait));
+        }
+    }
+}
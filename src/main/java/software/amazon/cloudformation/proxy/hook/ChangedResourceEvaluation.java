@@ -0,0 +1,278 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy.hook;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import software.amazon.cloudformation.exceptions.TerminalException;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.hook.targetmodel.ChangedResource;
+import software.amazon.cloudformation.proxy.hook.targetmodel.StackHookTargetModel;
+import software.amazon.cloudformation.tracing.Span;
+import software.amazon.cloudformation.tracing.SpanNames;
+
+/**
+ * Runs a {@link ChangedResourceEvaluator} over the changed resources of a stack
+ * level hook invocation, at most {@code parallelism} at a time, and merges the
+ * results into the single event returned to CloudFormation:
+ * <ul>
+ * <li>annotations of all the resources, in the order the resources were
+ * given</li>
+ * <li>FAILED with the error code of the first failed resource if any resource
+ * failed, else IN_PROGRESS if any resource is still in progress, SUCCESS
+ * otherwise</li>
+ * <li>the messages of the resources with that status, each prefixed with the
+ * logical id of its resource</li>
+ * <li>when IN_PROGRESS, the longest callback delay and the callback contexts
+ * merged by {@link ChangedResourceEvaluator#mergeCallbackContexts}</li>
+ * </ul>
+ * Every evaluation gets its own client proxy and copy of the callback context
+ * from the given suppliers, and runs in a child of the span current when
+ * {@link #evaluate} is called. Evaluations still running at the deadline are
+ * interrupted, and those not started are skipped; their resources count as in
+ * progress with the incoming callback context, so that they are evaluated again
+ * on the callback. If an evaluator throws, the remaining evaluations still run
+ * to completion and the exception of the first resource that threw is
+ * rethrown, to be handled like one thrown by the handler.
+ */
+public class ChangedResourceEvaluation<TargetT, CallbackT, ConfigurationT> {
+
+    // bounds the threads left behind by evaluations which ignore interrupts
+    private static final int MAX_EVALUATORS = 64;
+    private static final ExecutorService EVALUATORS = evaluators();
+
+    private final ChangedResourceEvaluator<TargetT, CallbackT, ConfigurationT> evaluator;
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    public ChangedResourceEvaluation(final ChangedResourceEvaluator<TargetT, CallbackT, ConfigurationT> evaluator,
+                                     final int parallelism) {
+        this(evaluator, parallelism, EVALUATORS);
+    }
+
+    ChangedResourceEvaluation(final ChangedResourceEvaluator<TargetT, CallbackT, ConfigurationT> evaluator,
+                              final int parallelism,
+                              final ExecutorService executor) {
+        Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+        this.evaluator = evaluator;
+        this.parallelism = parallelism;
+        this.executor = executor;
+    }
+
+    private static ExecutorService evaluators() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_EVALUATORS, MAX_EVALUATORS, 60L, TimeUnit.SECONDS,
+                                                                   new LinkedBlockingQueue<>(),
+                                                                   new ThreadFactoryBuilder()
+                                                                       .setNameFormat("cfn-changed-resource-%d")
+                                                                       .setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @param proxies supplies a new client proxy for each evaluation
+     * @param request a request for a STACK target
+     * @param callbackContexts supplies a new copy of the incoming callback
+     *            context for each evaluation
+     * @param typeConfiguration the type configuration of the hook
+     * @param deadline when evaluations still running are given up on, to leave
+     *            time to respond within the invocation
+     * @return the merged event
+     * @throws Exception the first exception thrown by an evaluator
+     */
+    public ProgressEvent<TargetT, CallbackT> evaluate(final Supplier<AmazonWebServicesClientProxy> proxies,
+                                                      final HookHandlerRequest request,
+                                                      final Supplier<CallbackT> callbackContexts,
+                                                      final ConfigurationT typeConfiguration,
+                                                      final Instant deadline)
+        throws Exception {
+        final StackHookTargetModel targetModel = request.getHookContext().getTargetModel(StackHookTargetModel.class);
+        final List<ChangedResource> changedResources = targetModel == null || targetModel.getChangedResources() == null
+            ? Collections.emptyList()
+            : targetModel.getChangedResources();
+
+        // the evaluations may run on other threads, which have no current span
+        final Span parent = Span.current();
+        final List<ProgressEvent<TargetT, CallbackT>> results = new ArrayList<>(changedResources.size());
+        if (parallelism == 1 || changedResources.size() <= 1) {
+            // nothing to overlap, save the thread hand off
+            for (final ChangedResource changedResource : changedResources) {
+                results.add(Instant.now().isBefore(deadline)
+                    ? evaluate(parent, proxies, request, changedResource, callbackContexts, typeConfiguration)
+                    : unfinished(callbackContexts));
+            }
+        } else {
+            results.addAll(evaluateConcurrently(parent, proxies, request, changedResources, callbackContexts,
+                typeConfiguration, deadline));
+        }
+        return merge(changedResources, results);
+    }
+
+    private ProgressEvent<TargetT, CallbackT> evaluate(final Span parent,
+                                                       final Supplier<AmazonWebServicesClientProxy> proxies,
+                                                       final HookHandlerRequest request,
+                                                       final ChangedResource changedResource,
+                                                       final Supplier<CallbackT> callbackContexts,
+                                                       final ConfigurationT typeConfiguration)
+        throws Exception {
+        try (Span span = parent.child(SpanNames.CHANGED_RESOURCE)) {
+            span.attribute("logicalResourceId", changedResource.getLogicalResourceId());
+            final ProgressEvent<TargetT, CallbackT> result = evaluator.evaluate(proxies.get(), request, changedResource,
+                callbackContexts.get(), typeConfiguration);
+            span.attribute("status", result == null ? null : result.getStatus());
+            return result;
+        }
+    }
+
+    private List<ProgressEvent<TargetT, CallbackT>> evaluateConcurrently(final Span parent,
+                                                                         final Supplier<AmazonWebServicesClientProxy> proxies,
+                                                                         final HookHandlerRequest request,
+                                                                         final List<ChangedResource> changedResources,
+                                                                         final Supplier<CallbackT> callbackContexts,
+                                                                         final ConfigurationT typeConfiguration,
+                                                                         final Instant deadline)
+        throws Exception {
+        final Semaphore permits = new Semaphore(parallelism);
+        final List<Future<ProgressEvent<TargetT, CallbackT>>> futures = new ArrayList<>(changedResources.size());
+        try {
+            for (final ChangedResource changedResource : changedResources) {
+                if (!Instant.now().isBefore(deadline) || !permits.tryAcquire(millisUntil(deadline), TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                futures.add(executor.submit(() -> {
+                    try {
+                        return evaluate(parent, proxies, request, changedResource, callbackContexts, typeConfiguration);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            // wait for every evaluation before failing, none may outlive the invocation
+            Exception first = null;
+            final List<ProgressEvent<TargetT, CallbackT>> results = new ArrayList<>(changedResources.size());
+            for (final Future<ProgressEvent<TargetT, CallbackT>> future : futures) {
+                try {
+                    results.add(future.get(millisUntil(deadline), TimeUnit.MILLISECONDS));
+                } catch (final TimeoutException | CancellationException e) {
+                    future.cancel(true);
+                    results.add(unfinished(callbackContexts));
+                } catch (final ExecutionException e) {
+                    results.add(null);
+                    if (first == null) {
+                        first = unwrap(e);
+                    }
+                }
+            }
+            if (first != null) {
+                throw first;
+            }
+            while (results.size() < changedResources.size()) {
+                results.add(unfinished(callbackContexts));
+            }
+            return results;
+        } catch (final InterruptedException e) {
+            for (final Future<ProgressEvent<TargetT, CallbackT>> future : futures) {
+                future.cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    private static long millisUntil(final Instant deadline) {
+        return Math.max(0L, Duration.between(Instant.now(), deadline).toMillis());
+    }
+
+    private ProgressEvent<TargetT, CallbackT> unfinished(final Supplier<CallbackT> callbackContexts) {
+        return ProgressEvent.<TargetT, CallbackT>builder().status(OperationStatus.IN_PROGRESS)
+            .callbackContext(callbackContexts.get()).message("not evaluated within the invocation").build();
+    }
+
+    private static Exception unwrap(final ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return cause instanceof Exception ? (Exception) cause : e;
+    }
+
+    private ProgressEvent<TargetT, CallbackT> merge(final List<ChangedResource> changedResources,
+                                                    final List<ProgressEvent<TargetT, CallbackT>> results) {
+        final List<HookAnnotation> annotations = new ArrayList<>();
+        ProgressEvent<TargetT, CallbackT> firstFailure = null;
+        boolean inProgress = false;
+        for (int i = 0; i < results.size(); i++) {
+            final ProgressEvent<TargetT, CallbackT> result = results.get(i);
+            final String logicalResourceId = changedResources.get(i).getLogicalResourceId();
+            if (result == null) {
+                throw new TerminalException(String.format("Evaluation of %s failed to provide a response.", logicalResourceId));
+            }
+            if (result.getStatus() != OperationStatus.SUCCESS && result.getStatus() != OperationStatus.FAILED
+                && result.getStatus() != OperationStatus.IN_PROGRESS) {
+                throw new TerminalException(String.format("Evaluation of %s returned %s, which a changed resource cannot have.",
+                    logicalResourceId, result.getStatus()));
+            }
+            if (result.getAnnotations() != null) {
+                annotations.addAll(result.getAnnotations());
+            }
+            if (firstFailure == null && result.getStatus() == OperationStatus.FAILED) {
+                firstFailure = result;
+            }
+            inProgress |= result.getStatus() == OperationStatus.IN_PROGRESS;
+        }
+
+        final OperationStatus status = firstFailure != null ? OperationStatus.FAILED
+            : inProgress ? OperationStatus.IN_PROGRESS : OperationStatus.SUCCESS;
+        final List<String> messages = new ArrayList<>();
+        final List<CallbackT> callbackContexts = new ArrayList<>();
+        int callbackDelaySeconds = 0;
+        for (int i = 0; i < results.size(); i++) {
+            final ProgressEvent<TargetT, CallbackT> result = results.get(i);
+            if (result.getStatus() != status) {
+                continue;
+            }
+            if (result.getMessage() != null) {
+                messages.add(changedResources.get(i).getLogicalResourceId() + ": " + result.getMessage());
+            }
+            callbackContexts.add(result.getCallbackContext());
+            callbackDelaySeconds = Math.max(callbackDelaySeconds, result.getCallbackDelaySeconds());
+        }
+        final ProgressEvent<TargetT, CallbackT> merged = ProgressEvent.<TargetT, CallbackT>builder().status(status)
+            .errorCode(firstFailure == null ? null : firstFailure.getErrorCode())
+            .message(messages.isEmpty() ? null : String.join("; ", messages))
+            .annotations(annotations.isEmpty() ? null : annotations).build();
+        if (status == OperationStatus.IN_PROGRESS) {
+            merged.setCallbackContext(evaluator.mergeCallbackContexts(callbackContexts));
+            merged.setCallbackDelaySeconds(callbackDelaySeconds);
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy.hook;
+
+import java.util.List;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.hook.targetmodel.ChangedResource;
+
+/**
+ * Evaluates a single resource of a stack level hook invocation. Evaluators of
+ * the resources of one invocation run concurrently, see
+ * {@link ChangedResourceEvaluation}. Each evaluation is given its own client
+ * proxy and its own copy of the callback context, anything else the
+ * implementation shares between evaluations must be thread safe.
+ *
+ * @param <TargetT> the target model type of the hook
+ * @param <CallbackT> the callback context type of the hook
+ * @param <ConfigurationT> the type configuration of the hook
+ */
+@FunctionalInterface
+public interface ChangedResourceEvaluator<TargetT, CallbackT, ConfigurationT> {
+
+    /**
+     * @param proxy Amazon webservice proxy to inject credentials correctly,
+     *            used by this evaluation only
+     * @param request the stack level request the resource belongs to
+     * @param changedResource the resource to evaluate
+     * @param callbackContext a copy of the callback context the hook was
+     *            invoked with, null on the first invocation
+     * @param typeConfiguration the type configuration of the hook
+     * @return a SUCCESS or FAILED event with the annotations for the resource,
+     *         or IN_PROGRESS to be called back
+     * @throws Exception propagate any unexpected errors
+     */
+    ProgressEvent<TargetT, CallbackT> evaluate(AmazonWebServicesClientProxy proxy,
+                                               HookHandlerRequest request,
+                                               ChangedResource changedResource,
+                                               CallbackT callbackContext,
+                                               ConfigurationT typeConfiguration)
+        throws Exception;
+
+    /**
+     * Combines the callback contexts of the evaluations which are still in
+     * progress into the one the hook is called back with. Every resource is
+     * evaluated again on the callback, so implementations keeping progress for
+     * several resources override this to keep them apart, e.g. by logical id.
+     *
+     * @param callbackContexts the contexts of the evaluations in progress, in
+     *            the order of their resources, possibly null
+     * @return the callback context of the merged event, by default the first
+     *         one
+     */
+    default CallbackT mergeCallbackContexts(final List<CallbackT> callbackContexts) {
+        return callbackContexts.get(0);
+    }
+}
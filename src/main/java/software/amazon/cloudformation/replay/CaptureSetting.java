@@ -0,0 +1,83 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.replay;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.apache.commons.io.FileUtils;
+import software.amazon.awssdk.utils.SystemSetting;
+
+/**
+ * Settings of invocation capture, read from a system property or else an
+ * environment variable of the handler. Handler implementations can also
+ * provide a directory in code, see the {@code captureDirectory} of the settings
+ * returned by the {@code provideSettings} hook of the wrappers.
+ */
+public enum CaptureSetting implements SystemSetting {
+
+    /**
+     * Directory to write a capture of every invocation to, see
+     * {@link InvocationRecorder}. Capture is disabled when unset, or when the
+     * directory is in the temp directory.
+     */
+    DIRECTORY("cfn.capture.directory", "CFN_CAPTURE_DIRECTORY", null);
+
+    private final String property;
+    private final String environmentVariable;
+    private final String defaultValue;
+
+    CaptureSetting(final String property,
+                   final String environmentVariable,
+                   final String defaultValue) {
+        this.property = property;
+        this.environmentVariable = environmentVariable;
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public String property() {
+        return property;
+    }
+
+    @Override
+    public String environmentVariable() {
+        return environmentVariable;
+    }
+
+    @Override
+    public String defaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * @return the directory configured by {@link #DIRECTORY}, or null if
+     *         capture is disabled. Capture is also disabled if the directory is
+     *         in the temp directory or contains it, as the temp directory is
+     *         emptied after every invocation.
+     */
+    public static Path configuredDirectory() {
+        return directoryFor(DIRECTORY.getStringValue().orElse(null), FileUtils.getTempDirectory().toPath());
+    }
+
+    static Path directoryFor(final String value, final Path tempDirectory) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        final Path directory = Paths.get(value.trim());
+        final Path normalized = directory.toAbsolutePath().normalize();
+        final Path temp = tempDirectory.toAbsolutePath().normalize();
+        return normalized.startsWith(temp) || temp.startsWith(normalized) ? null : directory;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.annotation.concurrent.ThreadSafe;
+import org.json.JSONObject;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+import software.amazon.cloudformation.loggers.LogFilter;
+import software.amazon.cloudformation.loggers.RedactingLogFilter;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ServiceCallInterceptor;
+
+/**
+ * Captures one invocation to a file of JSON lines, for reproducing it offline
+ * with {@link InvocationReplay}: the decoded request, every AWS call made with
+ * {@code injectCredentialsAndInvokeV2} with its request, its response or
+ * error, when it started and how long it took, and finally the outcome of the
+ * invocation. Calls made through the asynchronous, iterable and streaming
+ * proxy methods go to the service uncaptured, only their requests are
+ * recorded, and a replay fails when it reaches them.
+ *
+ * Every line goes through a {@link LogFilter} before it is written, see
+ * {@link #redactionFor(JSONObject)}, so that the credentials of the request do not end up
+ * in the file. Resource properties and service responses are written as they
+ * are, captures are as sensitive as the resources they describe. They must
+ * not be written to the temp directory: it is shared with the next invocation
+ * of the handler, which would see them, and the wrappers empty it between
+ * invocations. Capture never fails the invocation, once a line cannot be
+ * written the remaining ones are dropped.
+ */
+@ThreadSafe
+public class InvocationRecorder implements ServiceCallInterceptor, SdkAutoCloseable {
+
+    static final String TYPE_REQUEST = "request";
+    static final String TYPE_CALL = "call";
+    static final String TYPE_PASS_THROUGH = "passThrough";
+    static final String TYPE_RESULT = "result";
+
+    //
+    // values of credential keys, also inside JSON embedded as a string and in
+    // responses of e.g. STS
+    //
+    private static final String CREDENTIAL_VALUES = "(?i)(?<=\"(?:accessKeyId|secretAccessKey|sessionToken)\\\\?\":\\\\?\")"
+        + "[^\"\\\\]*";
+
+    private static final String[] CREDENTIAL_KEYS = { "callerCredentials", "providerCredentials" };
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private final Writer writer;
+    private final LogFilter filter;
+    private final long startNanos;
+    private boolean failed;
+
+    private InvocationRecorder(final Path file,
+                               final Writer writer,
+                               final LogFilter filter) {
+        this.file = file;
+        this.writer = writer;
+        this.filter = filter;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @param request the raw request of the invocation
+     * @return a filter redacting the bearer token and the caller and provider
+     *         credentials of the request, plain or encrypted, and the values of
+     *         credential keys anywhere else
+     */
+    public static LogFilter redactionFor(final JSONObject request) {
+        final RedactingLogFilter.Builder redaction = RedactingLogFilter.builder().pattern(CREDENTIAL_VALUES)
+            .literal(request.optString("bearerToken", null));
+        final JSONObject requestData = request.optJSONObject("requestData");
+        if (requestData != null) {
+            for (final String key : CREDENTIAL_KEYS) {
+                final Object credentials = requestData.opt(key);
+                if (credentials instanceof JSONObject) {
+                    for (final String field : ((JSONObject) credentials).keySet()) {
+                        redaction.literal(((JSONObject) credentials).optString(field, null));
+                    }
+                } else if (credentials instanceof String) {
+                    redaction.literal((String) credentials);
+                }
+            }
+        }
+        return redaction.build();
+    }
+
+    /**
+     * Starts capturing an invocation to a new file in the directory.
+     *
+     * @param directory where to write the capture, created if it does not exist
+     * @param filter applied to every line before it is written
+     * @return the recorder
+     * @throws IOException if the file cannot be created
+     */
+    public static InvocationRecorder start(final Path directory, final LogFilter filter) throws IOException {
+        Files.createDirectories(directory);
+        final Path file = directory
+            .resolve(String.format("invocation-%d-%s.jsonl", System.currentTimeMillis(), UUID.randomUUID()));
+        return new InvocationRecorder(file, Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), filter);
+    }
+
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * @param request the decoded request, as JSON
+     */
+    public void recordRequest(final String request) {
+        final ObjectNode line = MAPPER.createObjectNode().put("type", TYPE_REQUEST);
+        try {
+            line.set("request", MAPPER.readTree(request));
+        } catch (final IOException e) {
+            line.put("request", request);
+        }
+        write(line);
+    }
+
+    @Override
+    public <RequestT extends AwsRequest, ResultT extends AwsResponse> ResultT intercept(final RequestT request,
+                                                                                        final Function<RequestT,
+                                                                                            ResultT> call) {
+        final long start = System.nanoTime();
+        final ObjectNode line = MAPPER.createObjectNode().put("type", TYPE_CALL).put("offsetMicros", micros(start - startNanos))
+            .put("requestClass", request.getClass().getName());
+        line.set("request", ServiceCallCodec.toJson(request));
+        try {
+            final ResultT response = call.apply(request);
+            line.put("durationMicros", micros(System.nanoTime() - start));
+            if (response != null) {
+                line.set("response", ServiceCallCodec.describe(response));
+            }
+            return response;
+        } catch (final RuntimeException e) {
+            line.put("durationMicros", micros(System.nanoTime() - start));
+            line.set("error", ServiceCallCodec.describe(e));
+            throw e;
+        } finally {
+            write(line);
+        }
+    }
+
+    @Override
+    public void passThrough(final AwsRequest request, final String method) {
+        final ObjectNode line = MAPPER.createObjectNode().put("type", TYPE_PASS_THROUGH)
+            .put("offsetMicros", micros(System.nanoTime() - startNanos)).put("requestClass", request.getClass().getName())
+            .put("method", method);
+        line.set("request", ServiceCallCodec.toJson(request));
+        write(line);
+    }
+
+    /**
+     * Records the outcome of the invocation.
+     *
+     * @param status status of the response
+     * @param errorCode error code of the response, null if it succeeded
+     */
+    public void recordResult(final OperationStatus status, final HandlerErrorCode errorCode) {
+        write(MAPPER.createObjectNode().put("type", TYPE_RESULT).put("durationMicros", micros(System.nanoTime() - startNanos))
+            .put("status", status == null ? null : status.name()).put("errorCode", errorCode == null ? null : errorCode.name()));
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            this.writer.close();
+        } catch (final IOException e) {
+            this.failed = true;
+        }
+    }
+
+    private synchronized void write(final ObjectNode line) {
+        if (this.failed) {
+            return;
+        }
+        try {
+            this.writer.write(this.filter.applyFilter(MAPPER.writeValueAsString(line)));
+            this.writer.write('\n');
+            // keep what was captured when the invocation times out
+            this.writer.flush();
+        } catch (final IOException | RuntimeException e) {
+            this.failed = true;
+        }
+    }
+
+    private static long micros(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,312 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.replay;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.annotation.concurrent.ThreadSafe;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.cloudformation.AbstractWrapper;
+import software.amazon.cloudformation.HookAbstractWrapper;
+import software.amazon.cloudformation.proxy.ServiceCallInterceptor;
+
+/**
+ * Replays an invocation captured by {@link InvocationRecorder} against the
+ * handler, without AWS: the captured request is processed again, and every
+ * call made with {@code injectCredentialsAndInvokeV2} is answered with the
+ * captured response or error after the captured latency, scaled by a factor.
+ * This reproduces the invocation as it ran, so that the handler can be
+ * profiled or compared before and after a change.
+ *
+ * The request is replayed with placeholder caller credentials and without
+ * provider credentials, so neither logs nor metrics are published to AWS.
+ * Calls are matched by request class, in the order they were captured; a call
+ * which was not captured fails the replay as diverged. So does a call made
+ * with an asynchronous, iterable or streaming proxy method, which cannot be
+ * captured, rather than reaching the service.
+ */
+public final class InvocationReplay {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InvocationReplay.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private static final String[] PROVIDER_KEYS = { "providerCredentials", "providerLogGroupName", "hookEncryptionKeyArn",
+        "hookEncryptionKeyRole" };
+
+    private final JsonNode request;
+    private final List<JsonNode> calls;
+    private final JsonNode result;
+
+    private InvocationReplay(final JsonNode request,
+                             final List<JsonNode> calls,
+                             final JsonNode result) {
+        this.request = request;
+        this.calls = calls;
+        this.result = result;
+    }
+
+    /**
+     * Processes a request the way a wrapper does, e.g.
+     * {@code wrapper::processRequest}.
+     */
+    @FunctionalInterface
+    public interface Processor {
+        void process(InputStream inputStream, OutputStream outputStream, ServiceCallInterceptor serviceCalls)
+            throws IOException;
+    }
+
+    @Data
+    public static class Result {
+        private final String response;
+        private final Duration duration;
+        private final int callsReplayed;
+        private final int callsCaptured;
+        private final String divergence;
+
+        public boolean isDiverged() {
+            return divergence != null;
+        }
+    }
+
+    /**
+     * @param file a capture written by {@link InvocationRecorder}
+     * @return the replay of the capture
+     * @throws IOException if the file cannot be read or holds no request
+     */
+    public static InvocationReplay load(final Path file) throws IOException {
+        JsonNode request = null;
+        JsonNode result = null;
+        final List<JsonNode> calls = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                final JsonNode node = MAPPER.readTree(line);
+                final String type = node.path("type").asText();
+                if (InvocationRecorder.TYPE_REQUEST.equals(type)) {
+                    request = node.get("request");
+                } else if (InvocationRecorder.TYPE_CALL.equals(type)) {
+                    calls.add(node);
+                } else if (InvocationRecorder.TYPE_RESULT.equals(type)) {
+                    result = node;
+                }
+            }
+        }
+        if (request == null || !request.isObject()) {
+            throw new IOException("No request captured in " + file);
+        }
+        return new InvocationReplay(prepare((ObjectNode) request), Collections.unmodifiableList(calls), result);
+    }
+
+    /**
+     * @return the captured AWS calls
+     */
+    public int getCallsCaptured() {
+        return calls.size();
+    }
+
+    /**
+     * @return the captured status of the response, null if the capture was
+     *         cut short
+     */
+    public String getCapturedStatus() {
+        return result == null ? null : result.path("status").asText(null);
+    }
+
+    /**
+     * @return the captured duration of the invocation, null if the capture was
+     *         cut short
+     */
+    public Duration getCapturedDuration() {
+        return result == null ? null : Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(result.path("durationMicros").asLong()));
+    }
+
+    /**
+     * Replays the invocation once.
+     *
+     * @param processor processes the captured request
+     * @param timeScale factor applied to the captured latency of every call, 0
+     *            to answer immediately
+     * @return the outcome of the replay
+     * @throws IOException if the request cannot be processed
+     */
+    public Result run(final Processor processor, final double timeScale) throws IOException {
+        final Replayer replayer = new Replayer(timeScale);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final long start = System.nanoTime();
+        processor.process(new ByteArrayInputStream(MAPPER.writeValueAsBytes(request)), output, replayer);
+        final Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        return new Result(new String(output.toByteArray(), StandardCharsets.UTF_8), duration, replayer.getReplayed(),
+                          calls.size(), replayer.getDivergence());
+    }
+
+    /**
+     * Replays a capture against a handler, e.g. under a profiler. Arguments:
+     * the wrapper class of the handler, the capture file, optionally the number
+     * of iterations (1) and the scale of the captured latency (1.0).
+     *
+     * @param args arguments
+     * @throws Exception if the replay cannot be run
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: InvocationReplay <wrapper class> <capture> [iterations] [time scale]");
+        }
+        final Object wrapper = Class.forName(args[0]).getDeclaredConstructor().newInstance();
+        final Processor processor;
+        if (wrapper instanceof AbstractWrapper) {
+            processor = ((AbstractWrapper<?, ?, ?>) wrapper)::processRequest;
+        } else if (wrapper instanceof HookAbstractWrapper) {
+            processor = ((HookAbstractWrapper<?, ?, ?>) wrapper)::processRequest;
+        } else {
+            throw new IllegalArgumentException(args[0] + " is not a handler wrapper");
+        }
+        final InvocationReplay replay = load(Paths.get(args[1]));
+        final int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        final double timeScale = args.length > 3 ? Double.parseDouble(args[3]) : 1.0;
+        LOG.info("Replaying {} calls, captured invocation took {} with status {}", replay.getCallsCaptured(),
+            replay.getCapturedDuration(), replay.getCapturedStatus());
+        for (int i = 1; i <= iterations; i++) {
+            final Result result = replay.run(processor, timeScale);
+            LOG.info("Iteration {} took {}, {} of {} calls replayed{}", i, result.getDuration(), result.getCallsReplayed(),
+                result.getCallsCaptured(), result.isDiverged() ? ", diverged: " + result.getDivergence() : "");
+        }
+    }
+
+    private static JsonNode prepare(final ObjectNode request) {
+        final ObjectNode prepared = request.deepCopy();
+        final JsonNode requestData = prepared.get("requestData");
+        if (requestData instanceof ObjectNode) {
+            final ObjectNode data = (ObjectNode) requestData;
+            data.remove(Arrays.asList(PROVIDER_KEYS));
+            final JsonNode callerCredentials = data.get("callerCredentials");
+            if (callerCredentials != null && !callerCredentials.isNull()) {
+                final ObjectNode placeholder = MAPPER.createObjectNode().put("accessKeyId", "replay")
+                    .put("secretAccessKey", "replay").put("sessionToken", "replay");
+                if (callerCredentials.isTextual()) {
+                    // hooks take credentials as a string, which is plain JSON without an encryption key
+                    data.put("callerCredentials", placeholder.toString());
+                } else {
+                    data.set("callerCredentials", placeholder);
+                }
+            }
+        }
+        return prepared;
+    }
+
+    /**
+     * Answers calls from the capture, concurrent calls of the handler take the
+     * captured ones in order.
+     */
+    @ThreadSafe
+    private final class Replayer implements ServiceCallInterceptor {
+
+        private final double timeScale;
+        private final boolean[] used = new boolean[calls.size()];
+        private int replayed;
+        private String divergence;
+
+        private Replayer(final double timeScale) {
+            this.timeScale = timeScale;
+        }
+
+        @Override
+        public <RequestT extends AwsRequest, ResultT extends AwsResponse> ResultT intercept(final RequestT request,
+                                                                                            final Function<RequestT,
+                                                                                                ResultT> call) {
+            final JsonNode captured = next(request.getClass().getName());
+            pause(captured.path("durationMicros").asLong());
+            if (captured.has("error")) {
+                throw ServiceCallCodec.error(captured.get("error"));
+            }
+            if (!captured.has("response")) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            final ResultT response = (ResultT) ServiceCallCodec.response(captured.get("response"));
+            return response;
+        }
+
+        @Override
+        public synchronized void passThrough(final AwsRequest request, final String method) {
+            if (divergence == null) {
+                divergence = String.format("call %d is a %s made with %s, which cannot be replayed", replayed + 1,
+                    request.getClass().getName(), method);
+            }
+            throw new IllegalStateException("Replay diverged, " + divergence);
+        }
+
+        private synchronized JsonNode next(final String requestClass) {
+            for (int i = 0; i < used.length; i++) {
+                if (!used[i] && requestClass.equals(calls.get(i).path("requestClass").asText())) {
+                    used[i] = true;
+                    replayed++;
+                    return calls.get(i);
+                }
+            }
+            if (divergence == null) {
+                divergence = String.format("call %d is a %s which was not captured", replayed + 1, requestClass);
+            }
+            throw new IllegalStateException("Replay diverged, " + divergence);
+        }
+
+        private void pause(final long micros) {
+            final long nanos = (long) (TimeUnit.MICROSECONDS.toNanos(micros) * timeScale);
+            if (nanos <= 0) {
+                return;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private synchronized int getReplayed() {
+            return replayed;
+        }
+
+        private synchronized String getDivergence() {
+            return divergence;
+        }
+    }
+}
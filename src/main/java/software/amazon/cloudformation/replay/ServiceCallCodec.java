@@ -0,0 +1,228 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.awscore.DefaultAwsResponseMetadata;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.SdkField;
+import software.amazon.awssdk.core.SdkPojo;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.protocol.MarshallingType;
+import software.amazon.awssdk.core.traits.ListTrait;
+import software.amazon.awssdk.core.traits.MapTrait;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.utils.builder.SdkBuilder;
+
+/**
+ * Converts AWS SDK v2 requests, responses and service exceptions to JSON and
+ * back, walking the {@link SdkField}s every generated model describes itself
+ * with. Responses are rebuilt with their request ID and HTTP status code, so
+ * that handlers see them as they came from the service.
+ */
+final class ServiceCallCodec {
+
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String AWS_REQUEST_ID = "AWS_REQUEST_ID";
+
+    private ServiceCallCodec() {
+    }
+
+    static ObjectNode toJson(final SdkPojo pojo) {
+        final ObjectNode node = JSON.objectNode();
+        for (final SdkField<?> field : pojo.sdkFields()) {
+            final Object value = field.getValueOrDefault(pojo);
+            if (value != null) {
+                node.set(field.memberName(), toJson(field, value));
+            }
+        }
+        return node;
+    }
+
+    static ObjectNode describe(final AwsResponse response) {
+        final ObjectNode node = JSON.objectNode();
+        node.put("class", response.getClass().getName());
+        if (response.responseMetadata() != null) {
+            node.put("requestId", response.responseMetadata().requestId());
+        }
+        if (response.sdkHttpResponse() != null) {
+            node.put("statusCode", response.sdkHttpResponse().statusCode());
+        }
+        node.set("fields", toJson(response));
+        return node;
+    }
+
+    static ObjectNode describe(final Throwable error) {
+        final ObjectNode node = JSON.objectNode();
+        node.put("class", error.getClass().getName());
+        node.put("message", error.getMessage());
+        if (error instanceof AwsServiceException) {
+            final AwsServiceException serviceError = (AwsServiceException) error;
+            node.put("statusCode", serviceError.statusCode());
+            node.put("requestId", serviceError.requestId());
+            if (serviceError.awsErrorDetails() != null) {
+                node.put("errorCode", serviceError.awsErrorDetails().errorCode());
+                node.put("errorMessage", serviceError.awsErrorDetails().errorMessage());
+                node.put("serviceName", serviceError.awsErrorDetails().serviceName());
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @param node a response written by {@link #describe(AwsResponse)}
+     * @return the response, rebuilt with the generated builder of its class
+     */
+    static AwsResponse response(final JsonNode node) {
+        final AwsResponse.Builder builder = (AwsResponse.Builder) newBuilder(node.get("class").asText());
+        fill((SdkPojo) builder, node.get("fields"));
+        final Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put(AWS_REQUEST_ID, node.path("requestId").asText(""));
+        builder.responseMetadata(DefaultAwsResponseMetadata.create(metadata));
+        builder.sdkHttpResponse(SdkHttpResponse.builder().statusCode(node.path("statusCode").asInt(200)).build());
+        return builder.build();
+    }
+
+    /**
+     * @param node an error written by {@link #describe(Throwable)}
+     * @return the service exception as the SDK would have thrown it, or an
+     *         {@link SdkClientException} carrying the message of any other
+     *         error
+     */
+    static RuntimeException error(final JsonNode node) {
+        final String className = node.get("class").asText();
+        final String message = node.path("message").asText(null);
+        if (!node.has("statusCode")) {
+            return SdkClientException.builder().message(String.format("%s: %s", className, message)).build();
+        }
+        final SdkHttpResponse httpResponse = SdkHttpResponse.builder().statusCode(node.get("statusCode").asInt()).build();
+        final AwsServiceException.Builder builder = (AwsServiceException.Builder) newBuilder(className);
+        // the message of a service exception is the error message with the details appended
+        return builder.message(node.path("errorMessage").asText(message)).statusCode(httpResponse.statusCode())
+            .requestId(node.path("requestId").asText(null))
+            .awsErrorDetails(AwsErrorDetails.builder().errorCode(node.path("errorCode").asText(null))
+                .errorMessage(node.path("errorMessage").asText(null)).serviceName(node.path("serviceName").asText(null))
+                .sdkHttpResponse(httpResponse).build())
+            .build();
+    }
+
+    private static SdkBuilder<?, ?> newBuilder(final String className) {
+        try {
+            return (SdkBuilder<?, ?>) Class.forName(className).getMethod("builder").invoke(null);
+        } catch (final ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException(String.format("Cannot rebuild recorded %s", className), e);
+        }
+    }
+
+    private static JsonNode toJson(final SdkField<?> field, final Object value) {
+        final MarshallingType<?> type = field.marshallingType();
+        if (type == MarshallingType.SDK_POJO) {
+            return toJson((SdkPojo) value);
+        } else if (type == MarshallingType.LIST) {
+            final SdkField<?> member = field.getRequiredTrait(ListTrait.class).memberFieldInfo();
+            final ArrayNode array = JSON.arrayNode();
+            for (final Object item : (List<?>) value) {
+                array.add(item == null ? JSON.nullNode() : toJson(member, item));
+            }
+            return array;
+        } else if (type == MarshallingType.MAP) {
+            final SdkField<?> member = field.getRequiredTrait(MapTrait.class).valueFieldInfo();
+            final ObjectNode map = JSON.objectNode();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                map.set(String.valueOf(entry.getKey()),
+                    entry.getValue() == null ? JSON.nullNode() : toJson(member, entry.getValue()));
+            }
+            return map;
+        } else if (type == MarshallingType.INSTANT) {
+            return JSON.textNode(value.toString());
+        } else if (type == MarshallingType.SDK_BYTES) {
+            return JSON.textNode(Base64.getEncoder().encodeToString(((SdkBytes) value).asByteArrayUnsafe()));
+        } else if (type == MarshallingType.DOCUMENT) {
+            // documents are not rebuilt, keep them readable
+            return JSON.textNode(value.toString());
+        }
+        return MAPPER.valueToTree(value);
+    }
+
+    private static void fill(final SdkPojo builder, final JsonNode node) {
+        for (final SdkField<?> field : builder.sdkFields()) {
+            final JsonNode value = node.get(field.memberName());
+            if (value != null && !value.isNull() && field.marshallingType() != MarshallingType.DOCUMENT) {
+                field.set(builder, fromJson(field, value));
+            }
+        }
+    }
+
+    private static Object fromJson(final SdkField<?> field, final JsonNode node) {
+        if (node.isNull()) {
+            return null;
+        }
+        final MarshallingType<?> type = field.marshallingType();
+        if (type == MarshallingType.SDK_POJO) {
+            final SdkPojo builder = field.constructor().get();
+            fill(builder, node);
+            return ((SdkBuilder<?, ?>) builder).build();
+        } else if (type == MarshallingType.LIST) {
+            final SdkField<?> member = field.getRequiredTrait(ListTrait.class).memberFieldInfo();
+            final List<Object> list = new ArrayList<>();
+            node.forEach(item -> list.add(fromJson(member, item)));
+            return list;
+        } else if (type == MarshallingType.MAP) {
+            final SdkField<?> member = field.getRequiredTrait(MapTrait.class).valueFieldInfo();
+            final Map<String, Object> map = new LinkedHashMap<>();
+            for (final Iterator<Map.Entry<String, JsonNode>> entries = node.fields(); entries.hasNext();) {
+                final Map.Entry<String, JsonNode> entry = entries.next();
+                map.put(entry.getKey(), fromJson(member, entry.getValue()));
+            }
+            return map;
+        } else if (type == MarshallingType.STRING) {
+            return node.asText();
+        } else if (type == MarshallingType.INTEGER) {
+            return node.asInt();
+        } else if (type == MarshallingType.LONG) {
+            return node.asLong();
+        } else if (type == MarshallingType.SHORT) {
+            return (short) node.asInt();
+        } else if (type == MarshallingType.FLOAT) {
+            return (float) node.asDouble();
+        } else if (type == MarshallingType.DOUBLE) {
+            return node.asDouble();
+        } else if (type == MarshallingType.BIG_DECIMAL) {
+            return node.decimalValue();
+        } else if (type == MarshallingType.BOOLEAN) {
+            return node.asBoolean();
+        } else if (type == MarshallingType.INSTANT) {
+            return Instant.parse(node.asText());
+        } else if (type == MarshallingType.SDK_BYTES) {
+            return SdkBytes.fromByteArray(Base64.getDecoder().decode(node.asText()));
+        }
+        throw new IllegalStateException(String.format("Cannot rebuild field %s", field.memberName()));
+    }
+}
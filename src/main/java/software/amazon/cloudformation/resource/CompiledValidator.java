@@ -0,0 +1,526 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.resource;
+
+import com.google.common.base.Preconditions;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.annotation.concurrent.ThreadSafe;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import software.amazon.cloudformation.resource.exceptions.ValidationException;
+
+/**
+ * Validates a resource model against a schema that was compiled into a tree of
+ * nodes when the handler was built, instead of loading the schema and walking
+ * it with a generic JSON schema validator on every request. Patterns are
+ * compiled once with the tree.
+ *
+ * The raw model is validated the way the strict deserialize and serialize
+ * round trip followed by the schema validation sees it: unknown keys are
+ * rejected first, keys match properties case insensitively, scalars are
+ * coerced to the property type, and null properties are treated as absent.
+ * Failures carry the same messages, keywords and pointers as the schema
+ * validator, including scrubbing values out of pattern, enum and range
+ * failures, and are aggregated the same way.
+ *
+ * {@code
+ *     CompiledValidator validator = new CompiledValidator(CompiledValidator.object()
+ *         .property("Name", CompiledValidator.string().pattern("^[a-z]+$"))
+ *         .required("Name"));
+ * }
+ */
+@ThreadSafe
+public final class CompiledValidator {
+
+    private static final String ROOT = "#";
+
+    private final ObjectNode root;
+
+    public CompiledValidator(final ObjectNode root) {
+        this.root = Preconditions.checkNotNull(root, "root can not be null");
+    }
+
+    public static ObjectNode object() {
+        return new ObjectNode();
+    }
+
+    /**
+     * @param values node every value must satisfy
+     * @return a node for an object with arbitrary keys
+     */
+    public static MapNode map(final Node values) {
+        return new MapNode(values);
+    }
+
+    public static ArrayNode array(final Node items) {
+        return new ArrayNode(items);
+    }
+
+    public static ScalarNode string() {
+        return new ScalarNode(Type.STRING);
+    }
+
+    public static ScalarNode integer() {
+        return new ScalarNode(Type.INTEGER);
+    }
+
+    public static ScalarNode number() {
+        return new ScalarNode(Type.NUMBER);
+    }
+
+    public static ScalarNode bool() {
+        return new ScalarNode(Type.BOOLEAN);
+    }
+
+    /**
+     * @return a node that accepts any value
+     */
+    public static Node any() {
+        return AnyNode.INSTANCE;
+    }
+
+    /**
+     * @param model the resource model as received
+     * @throws ValidationException if the model does not satisfy the schema
+     */
+    public void validate(final JSONObject model) throws ValidationException {
+        root.rejectUnknownKeys(model);
+        final ValidationException failure = root.validate(model, ROOT, true);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private enum Type {
+        STRING("String"),
+        INTEGER("Integer"),
+        NUMBER("Number"),
+        BOOLEAN("Boolean"),
+        OBJECT("JSONObject"),
+        ARRAY("JSONArray");
+
+        private final String jsonTypeName;
+
+        Type(final String jsonTypeName) {
+            this.jsonTypeName = jsonTypeName;
+        }
+    }
+
+    public abstract static class Node {
+
+        /*
+         * @param coerce whether the model holds the value as the node type, or
+         * untyped as it was received
+         * @return the failure for the value, or null if it is valid
+         */
+        abstract ValidationException validate(Object value, String pointer, boolean coerce);
+
+        void rejectUnknownKeys(final Object value) {
+        }
+    }
+
+    public static final class ObjectNode extends Node {
+        //
+        // Hash ordered like the schema validator's, so failures are reported in the same order
+        //
+        private final Map<String, Node> properties = new HashMap<>();
+        private final Map<String, String> caseInsensitive = new HashMap<>();
+        private final List<String> required = new ArrayList<>();
+
+        private ObjectNode() {
+        }
+
+        public ObjectNode property(final String name, final Node node) {
+            properties.put(name, Preconditions.checkNotNull(node, "node can not be null"));
+            caseInsensitive.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+            return this;
+        }
+
+        public ObjectNode required(final String... names) {
+            Collections.addAll(required, names);
+            return this;
+        }
+
+        @Override
+        ValidationException validate(final Object value, final String pointer, final boolean coerce) {
+            if (!(value instanceof JSONObject)) {
+                return typeFailure(Type.OBJECT, value, pointer);
+            }
+            final Map<String, Object> present = coerce ? canonical((JSONObject) value) : asGiven((JSONObject) value);
+            final List<ValidationException> failures = new ArrayList<>();
+            for (final String name : required) {
+                if (!present.containsKey(name)) {
+                    failures.add(failure(pointer, String.format("required key [%s] not found", name), "required"));
+                }
+            }
+            for (final Map.Entry<String, Node> property : properties.entrySet()) {
+                if (present.containsKey(property.getKey())) {
+                    add(failures,
+                        property.getValue().validate(present.get(property.getKey()), child(pointer, property.getKey()), coerce));
+                }
+            }
+            return aggregate(failures, pointer);
+        }
+
+        @Override
+        void rejectUnknownKeys(final Object value) {
+            if (!(value instanceof JSONObject)) {
+                return;
+            }
+            final JSONObject object = (JSONObject) value;
+            for (final String key : object.keySet()) {
+                final String name = resolve(key);
+                if (name == null) {
+                    throw new ValidationException(String.format("#: extraneous key [%s] is not permitted", key),
+                                                  "additionalProperties", ROOT);
+                }
+                properties.get(name).rejectUnknownKeys(object.get(key));
+            }
+        }
+
+        private String resolve(final String key) {
+            return properties.containsKey(key) ? key : caseInsensitive.get(key.toLowerCase(Locale.ROOT));
+        }
+
+        private static Map<String, Object> asGiven(final JSONObject object) {
+            final Map<String, Object> present = new HashMap<>();
+            for (final String key : object.keySet()) {
+                present.put(key, object.get(key));
+            }
+            return present;
+        }
+
+        private Map<String, Object> canonical(final JSONObject object) {
+            final Map<String, Object> present = new HashMap<>();
+            for (final String key : object.keySet()) {
+                final Object value = object.get(key);
+                final String name = resolve(key);
+                if (name != null && value != JSONObject.NULL) {
+                    present.put(name, value);
+                }
+            }
+            return present;
+        }
+    }
+
+    public static final class MapNode extends Node {
+        private final Node values;
+
+        private MapNode(final Node values) {
+            this.values = Preconditions.checkNotNull(values, "values can not be null");
+        }
+
+        @Override
+        ValidationException validate(final Object value, final String pointer, final boolean coerce) {
+            if (!(value instanceof JSONObject)) {
+                return typeFailure(Type.OBJECT, value, pointer);
+            }
+            final JSONObject object = (JSONObject) value;
+            final List<ValidationException> failures = new ArrayList<>();
+            for (final String key : object.keySet()) {
+                final Object entry = object.get(key);
+                if (entry != JSONObject.NULL) {
+                    // the model holds map values untyped, so they are not coerced
+                    add(failures, values.validate(entry, child(pointer, key), false));
+                }
+            }
+            return aggregate(failures, pointer);
+        }
+    }
+
+    public static final class ArrayNode extends Node {
+        private final Node items;
+        private Integer minItems;
+        private Integer maxItems;
+
+        private ArrayNode(final Node items) {
+            this.items = Preconditions.checkNotNull(items, "items can not be null");
+        }
+
+        public ArrayNode minItems(final int minItems) {
+            this.minItems = minItems;
+            return this;
+        }
+
+        public ArrayNode maxItems(final int maxItems) {
+            this.maxItems = maxItems;
+            return this;
+        }
+
+        @Override
+        ValidationException validate(final Object value, final String pointer, final boolean coerce) {
+            if (!(value instanceof JSONArray)) {
+                return typeFailure(Type.ARRAY, value, pointer);
+            }
+            final JSONArray array = (JSONArray) value;
+            final List<ValidationException> failures = new ArrayList<>();
+            final int count = array.length();
+            if (minItems != null && count < minItems) {
+                final String message = String.format("expected minimum item count: %d, found: %d", minItems, count);
+                failures.add(failure(pointer, message, "minItems"));
+            }
+            if (maxItems != null && count > maxItems) {
+                final String message = String.format("expected maximum item count: %d, found: %d", maxItems, count);
+                failures.add(failure(pointer, message, "maxItems"));
+            }
+            for (int i = 0; i < array.length(); i++) {
+                add(failures, items.validate(array.get(i), child(pointer, Integer.toString(i)), coerce));
+            }
+            return aggregate(failures, pointer);
+        }
+
+        @Override
+        void rejectUnknownKeys(final Object value) {
+            if (value instanceof JSONArray) {
+                for (final Object item : (JSONArray) value) {
+                    items.rejectUnknownKeys(item);
+                }
+            }
+        }
+    }
+
+    public static final class ScalarNode extends Node {
+        private final Type type;
+        private Integer minLength;
+        private Integer maxLength;
+        private Pattern pattern;
+        private BigDecimal minimum;
+        private BigDecimal maximum;
+        private List<Object> enumValues = Collections.emptyList();
+
+        private ScalarNode(final Type type) {
+            this.type = type;
+        }
+
+        public ScalarNode minLength(final int minLength) {
+            this.minLength = minLength;
+            return this;
+        }
+
+        public ScalarNode maxLength(final int maxLength) {
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        public ScalarNode pattern(final String regex) {
+            this.pattern = Pattern.compile(regex);
+            return this;
+        }
+
+        public ScalarNode minimum(final String minimum) {
+            this.minimum = new BigDecimal(minimum);
+            return this;
+        }
+
+        public ScalarNode maximum(final String maximum) {
+            this.maximum = new BigDecimal(maximum);
+            return this;
+        }
+
+        /**
+         * @param values the permitted values, strings for string properties,
+         *            numbers for numeric ones and booleans for boolean ones
+         * @return this node
+         */
+        public ScalarNode enumValues(final Object... values) {
+            final List<Object> coerced = new ArrayList<>(values.length);
+            for (final Object each : values) {
+                coerced.add(each instanceof Number ? new BigDecimal(each.toString()) : each);
+            }
+            this.enumValues = coerced;
+            return this;
+        }
+
+        @Override
+        ValidationException validate(final Object value, final String pointer, final boolean coerce) {
+            final Object coerced = coerce ? coerce(value) : typed(value);
+            if (coerced == null) {
+                return typeFailure(type, value, pointer);
+            }
+            final List<ValidationException> failures = new ArrayList<>();
+            if (coerced instanceof String) {
+                final String text = (String) coerced;
+                final int length = text.codePointCount(0, text.length());
+                if (minLength != null && length < minLength) {
+                    failures.add(failure(pointer, String.format("expected minLength: %d, actual: %d", minLength, length),
+                        "minLength"));
+                }
+                if (maxLength != null && length > maxLength) {
+                    failures.add(failure(pointer, String.format("expected maxLength: %d, actual: %d", maxLength, length),
+                        "maxLength"));
+                }
+                if (pattern != null && !pattern.matcher(text).find()) {
+                    failures.add(scrubbed(pointer, "pattern"));
+                }
+            } else if (coerced instanceof BigDecimal) {
+                if (minimum != null && ((BigDecimal) coerced).compareTo(minimum) < 0) {
+                    failures.add(scrubbed(pointer, "minimum"));
+                }
+                if (maximum != null && ((BigDecimal) coerced).compareTo(maximum) > 0) {
+                    failures.add(scrubbed(pointer, "maximum"));
+                }
+            }
+            final ValidationException failure = aggregate(failures, pointer);
+            if (enumValues.isEmpty() || isEnumValue(coerced)) {
+                return failure;
+            }
+            //
+            // type and enum are separate schemas combined with allOf by the schema validator
+            //
+            final List<ValidationException> causes = new ArrayList<>();
+            add(causes, failure);
+            causes.add(scrubbed(pointer, "enum"));
+            return new ValidationException(String.format("%s: #: only %d subschema matches out of 2", pointer, 2 - causes.size()),
+                                           causes, "allOf", pointer);
+        }
+
+        /*
+         * @return the value as the property type would hold it, or null if it can not
+         * be coerced
+         */
+        private Object coerce(final Object value) {
+            switch (type) {
+                case STRING:
+                    if (value instanceof String) {
+                        return value;
+                    }
+                    return value instanceof Number || value instanceof Boolean ? JSONObject.valueToString(value) : null;
+                case INTEGER:
+                    final BigDecimal integral = decimal(value);
+                    return integral == null ? null : integral.setScale(0, RoundingMode.DOWN);
+                case NUMBER:
+                    return decimal(value);
+                default:
+                    if (value instanceof Boolean) {
+                        return value;
+                    }
+                    if (value instanceof String
+                        && ("true".equalsIgnoreCase((String) value) || "false".equalsIgnoreCase((String) value))) {
+                        return Boolean.valueOf((String) value);
+                    }
+                    return null;
+            }
+        }
+
+        /*
+         * @return the value if it already is of the node type, or null
+         */
+        private Object typed(final Object value) {
+            switch (type) {
+                case STRING:
+                    return value instanceof String ? value : null;
+                case INTEGER:
+                    final boolean integral = value instanceof Integer || value instanceof Long || value instanceof BigInteger;
+                    return integral ? decimal(value) : null;
+                case NUMBER:
+                    return value instanceof Number ? decimal(value) : null;
+                default:
+                    return value instanceof Boolean ? value : null;
+            }
+        }
+
+        private boolean isEnumValue(final Object coerced) {
+            for (final Object each : enumValues) {
+                if (coerced instanceof BigDecimal && each instanceof BigDecimal
+                    ? ((BigDecimal) coerced).compareTo((BigDecimal) each) == 0
+                    : coerced.equals(each)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static BigDecimal decimal(final Object value) {
+            if (value instanceof Number) {
+                return new BigDecimal(value.toString());
+            }
+            if (value instanceof String) {
+                try {
+                    return new BigDecimal(((String) value).trim());
+                } catch (final NumberFormatException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class AnyNode extends Node {
+        private static final AnyNode INSTANCE = new AnyNode();
+
+        @Override
+        ValidationException validate(final Object value, final String pointer, final boolean coerce) {
+            return null;
+        }
+    }
+
+    private static String child(final String pointer, final String name) {
+        return pointer + "/" + name.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static void add(final List<ValidationException> failures, final ValidationException failure) {
+        if (failure != null) {
+            failures.add(failure);
+        }
+    }
+
+    private static ValidationException failure(final String pointer, final String message, final String keyword) {
+        return new ValidationException(pointer + ": " + message, keyword, pointer);
+    }
+
+    private static ValidationException scrubbed(final String pointer, final String keyword) {
+        return failure(pointer, String.format("failed validation constraint for keyword [%s]", keyword), keyword);
+    }
+
+    private static ValidationException typeFailure(final Type expected, final Object value, final String pointer) {
+        final String found = value == JSONObject.NULL ? "Null" : value.getClass().getSimpleName();
+        return failure(pointer, String.format("expected type: %s, found: %s", expected.jsonTypeName, found), "type");
+    }
+
+    private static ValidationException aggregate(final List<ValidationException> failures, final String pointer) {
+        if (failures.isEmpty()) {
+            return null;
+        }
+        if (failures.size() == 1) {
+            return failures.get(0);
+        }
+        int violations = 0;
+        for (final ValidationException each : failures) {
+            violations += violationCount(each);
+        }
+        return new ValidationException(String.format("%s: %d schema violations found", pointer, violations), failures, null,
+                                       pointer);
+    }
+
+    private static int violationCount(final ValidationException failure) {
+        if (failure.getCausingExceptions().isEmpty()) {
+            return 1;
+        }
+        int violations = 0;
+        for (final ValidationException each : failure.getCausingExceptions()) {
+            violations += violationCount(each);
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.resource;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import java.io.IOException;
+import org.json.JSONObject;
+import software.amazon.cloudformation.resource.exceptions.ValidationException;
+
+/**
+ * Validates a resource model the way handlers do without a
+ * {@link CompiledValidator}: the raw model is strictly deserialized to the
+ * model type, serialized again and validated against the resource schema.
+ * Generated projects check their {@link CompiledValidator} against it.
+ *
+ * @param <T> the resource model type
+ */
+public final class RoundTripValidator<T> {
+
+    private final Serializer serializer;
+    private final TypeReference<T> modelTypeReference;
+    private final JSONObject resourceSchema;
+    private final SchemaValidator validator;
+
+    public RoundTripValidator(final Serializer serializer,
+                              final TypeReference<T> modelTypeReference,
+                              final JSONObject resourceSchema) {
+        this(serializer, modelTypeReference, resourceSchema, new Validator());
+    }
+
+    public RoundTripValidator(final Serializer serializer,
+                              final TypeReference<T> modelTypeReference,
+                              final JSONObject resourceSchema,
+                              final SchemaValidator validator) {
+        this.serializer = serializer;
+        this.modelTypeReference = modelTypeReference;
+        this.resourceSchema = resourceSchema;
+        this.validator = validator;
+    }
+
+    /**
+     * @param model the raw model as given in the request
+     * @throws ValidationException if the model has unknown keys or does not
+     *             match the schema once round tripped
+     * @throws IOException if the model does not bind to the model type at all
+     */
+    public void validate(final JSONObject model) throws ValidationException, IOException {
+        final T deserializedModel;
+        try {
+            deserializedModel = serializer.deserializeStrict(model.toString(), modelTypeReference);
+        } catch (final UnrecognizedPropertyException e) {
+            throw new ValidationException(String.format("#: extraneous key [%s] is not permitted", e.getPropertyName()),
+                                          "additionalProperties", "#");
+        }
+
+        final JSONObject serializedModel = new JSONObject(serializer.serialize(deserializedModel));
+        validator.validateObject(serializedModel, resourceSchema);
+    }
+}
@@ -16,23 +16,36 @@ package software.amazon.cloudformation.resource;
 
 import com.amazonaws.util.IOUtils;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import org.apache.commons.codec.binary.Base64;
+import software.amazon.cloudformation.exceptions.ResponseTooLargeException;
+import software.amazon.cloudformation.proxy.LazySection;
 import software.amazon.cloudformation.proxy.aws.AWSServiceSerdeModule;
 
 public class Serializer {
@@ -86,17 +99,113 @@ public class Serializer {
     }
 
     private final Boolean strictDeserialize;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper strictObjectMapper;
+    // configured once, writing to a stream then only costs a generator over
+    // buffers Jackson recycles per thread
+    private final ObjectWriter streamWriter;
 
     public Serializer(Boolean strictDeserialize) {
-        this.strictDeserialize = strictDeserialize;
+        this(strictDeserialize, null);
     }
 
     public Serializer() {
-        this.strictDeserialize = false;
+        this(false, null);
+    }
+
+    /**
+     * Creates a serializer that additionally registers the given modules, such as
+     * the (de)serializers generated for the resource model, so that Jackson does
+     * not introspect those types at runtime. The shared mappers are only copied
+     * when there is something to register.
+     *
+     * @param strictDeserialize whether {@link #deserialize} is strict
+     * @param modules Jackson modules to register, may be null or empty
+     */
+    public Serializer(final Boolean strictDeserialize,
+                      final Collection<? extends Module> modules) {
+        this.strictDeserialize = strictDeserialize;
+        if (modules == null || modules.isEmpty()) {
+            this.objectMapper = OBJECT_MAPPER;
+            this.strictObjectMapper = STRICT_OBJECT_MAPPER;
+        } else {
+            this.objectMapper = OBJECT_MAPPER.copy().registerModules(modules);
+            this.strictObjectMapper = STRICT_OBJECT_MAPPER.copy().registerModules(modules);
+        }
+        this.streamWriter = this.objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     public <T> String serialize(final T modelObject) throws JsonProcessingException {
-        return OBJECT_MAPPER.writeValueAsString(modelObject);
+        return objectMapper.writeValueAsString(modelObject);
+    }
+
+    /**
+     * Writes the object as UTF-8 JSON straight into the stream, without building
+     * it as a String and then as a byte array first. The stream is flushed but
+     * not closed.
+     *
+     * @param modelObject object to serialize
+     * @param outputStream stream to write to
+     * @throws IOException when serialization or writing fails
+     */
+    public <T> void serialize(final T modelObject, final OutputStream outputStream) throws IOException {
+        serialize(modelObject, outputStream, Long.MAX_VALUE);
+    }
+
+    /**
+     * As {@link #serialize(Object, OutputStream)}, failing as soon as the JSON
+     * grows past a number of bytes rather than producing all of it. Output is
+     * buffered by the generator, so up to one buffer below the limit may already
+     * have been written when it fails.
+     *
+     * @param modelObject object to serialize
+     * @param outputStream stream to write to
+     * @param maxBytes most bytes to write
+     * @throws ResponseTooLargeException when the JSON exceeds maxBytes
+     * @throws IOException when serialization or writing fails
+     */
+    public <T> void serialize(final T modelObject, final OutputStream outputStream, final long maxBytes) throws IOException {
+        final OutputStream target = maxBytes == Long.MAX_VALUE ? outputStream : new LimitedOutputStream(outputStream, maxBytes);
+        streamWriter.writeValue(target, modelObject);
+    }
+
+    /**
+     * As {@link #serialize(Object, OutputStream, long)}, with an array field
+     * whose elements are already serialized written ahead of the other fields
+     * of the object, in place of any value the object has for it.
+     *
+     * @param modelObject object to serialize
+     * @param arrayField name of the array field
+     * @param elements JSON of the elements of the array
+     * @param outputStream stream to write to
+     * @param maxBytes most bytes to write
+     * @throws ResponseTooLargeException when the JSON exceeds maxBytes
+     * @throws IOException when serialization or writing fails
+     */
+    public <T> void serialize(final T modelObject,
+                              final String arrayField,
+                              final List<String> elements,
+                              final OutputStream outputStream,
+                              final long maxBytes)
+        throws IOException {
+        final ObjectNode fields = objectMapper.valueToTree(modelObject);
+        fields.remove(arrayField);
+        final OutputStream target = maxBytes == Long.MAX_VALUE ? outputStream : new LimitedOutputStream(outputStream, maxBytes);
+        try (JsonGenerator generator = streamWriter.createGenerator(target, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(arrayField);
+            for (final String element : elements) {
+                generator.writeRawValue(element);
+            }
+            generator.writeEndArray();
+            final Iterator<Map.Entry<String, JsonNode>> each = fields.fields();
+            while (each.hasNext()) {
+                final Map.Entry<String, JsonNode> field = each.next();
+                generator.writeFieldName(field.getKey());
+                streamWriter.writeValue(generator, field.getValue());
+            }
+            generator.writeEndObject();
+        }
     }
 
     public <T> String compress(final String modelInput) throws IOException {
@@ -108,17 +217,32 @@ public class Serializer {
             map.put(COMPRESSED, Base64.encodeBase64String(byteArrayOutputStream.toByteArray()));
             map.put(COMPRESSION_METHOD, COMPRESSION_GZIP_BASE64);
         }
-        return OBJECT_MAPPER.writeValueAsString(map);
+        return objectMapper.writeValueAsString(map);
     }
 
     public <T> T deserialize(final String s, final TypeReference<T> reference) throws IOException {
         if (!strictDeserialize) {
-            return OBJECT_MAPPER.readValue(s, reference);
+            return objectMapper.readValue(s, reference);
         } else {
             return deserializeStrict(s, reference);
         }
     }
 
+    /**
+     * As {@link #deserialize}, leaving the {@link LazySection}s of the value as
+     * buffered tokens which are bound on first access. Sections which fail to
+     * bind then throw when accessed rather than here.
+     *
+     * @param s JSON to deserialize
+     * @param reference type to deserialize to
+     * @return the deserialized value
+     * @throws IOException when the JSON does not bind to the type
+     */
+    public <T> T deserializeLazily(final String s, final TypeReference<T> reference) throws IOException {
+        final ObjectMapper mapper = strictDeserialize ? strictObjectMapper : objectMapper;
+        return mapper.readerFor(reference).withAttribute(LazySection.LAZY, Boolean.TRUE).readValue(s);
+    }
+
     public String decompress(final String s) throws IOException {
         final Map<String, Object> map = deserialize(s, MAP_TYPE_REFERENCE);
 
@@ -134,10 +258,57 @@ public class Serializer {
     }
 
     public <T> T deserializeStrict(final String s, final TypeReference<T> reference) throws IOException {
-        return STRICT_OBJECT_MAPPER.readValue(s, reference);
+        return strictObjectMapper.readValue(s, reference);
     }
 
     public <T> T convert(final Object obj, final TypeReference<T> reference) {
-        return OBJECT_MAPPER.convertValue(obj, reference);
+        return objectMapper.convertValue(obj, reference);
+    }
+
+    /**
+     * Copies a value by binding it through its JSON form, e.g. to give each of
+     * several threads its own callback context.
+     *
+     * @param obj value to copy, may be null
+     * @return an equal value sharing no mutable state with obj
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T copy(final T obj) {
+        return obj == null ? null : (T) objectMapper.convertValue(obj, obj.getClass());
+    }
+
+    /*
+     * Fails the write that would take the output past the limit, so that a
+     * response too large for the platform is not serialized in full
+     */
+    private static final class LimitedOutputStream extends FilterOutputStream {
+
+        private final long maxBytes;
+        private long written;
+
+        private LimitedOutputStream(final OutputStream outputStream,
+                                    final long maxBytes) {
+            super(outputStream);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            reserve(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            reserve(len);
+            out.write(b, off, len);
+        }
+
+        private void reserve(final int len) throws ResponseTooLargeException {
+            if (written + len > maxBytes) {
+                throw new ResponseTooLargeException(maxBytes);
+            }
+            written += len;
+        }
     }
 }
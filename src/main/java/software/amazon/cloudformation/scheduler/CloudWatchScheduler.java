@@ -34,7 +34,7 @@ import software.amazon.cloudformation.proxy.RequestContext;
 import software.amazon.cloudformation.resource.Serializer;
 
 @Data
-public class CloudWatchScheduler {
+public class CloudWatchScheduler implements ReinvocationScheduler {
 
     private final CloudWatchEventsProvider cloudWatchEventsProvider;
 
@@ -118,6 +118,25 @@ public class CloudWatchScheduler {
         this.client.putTargets(putTargetsRequest);
     }
 
+    /**
+     * Schedules the re-invocation at the next whole minute no less than
+     * secondsFromNow from now, CWE provides only minute-granularity
+     */
+    @Override
+    public <ResourceT, CallbackT, ConfigurationT> void
+        reschedule(final String functionArn,
+                   final int secondsFromNow,
+                   final HandlerRequest<ResourceT, CallbackT, ConfigurationT> handlerRequest) {
+        rescheduleAfterMinutes(functionArn, (int) Math.ceil(secondsFromNow / 60.0), handlerRequest);
+    }
+
+    @Override
+    public void cleanup(final RequestContext<?> requestContext) {
+        if (requestContext != null) {
+            cleanupCloudWatchEvents(requestContext.getCloudWatchEventsRuleName(), requestContext.getCloudWatchEventsTargetId());
+        }
+    }
+
     /**
      * After a re-invocation, the CWE rule which generated the reinvocation should
      * be scrubbed
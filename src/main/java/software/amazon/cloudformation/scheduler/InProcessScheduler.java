@@ -0,0 +1,176 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.scheduler;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.concurrent.ThreadSafe;
+import org.json.JSONObject;
+import software.amazon.cloudformation.exceptions.TerminalException;
+import software.amazon.cloudformation.proxy.HandlerRequest;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.MetricsPublisherProxy;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.resource.Serializer;
+
+/**
+ * Re-invokes a warm wrapper in the same JVM, for self-hosted deployments of an
+ * executable handler which are not re-invoked by CloudFormation. Requests wait
+ * on a delay queue with second granularity and are re-fed serialized to the
+ * {@link Reinvoker}, one at a time on a daemon thread owned by the scheduler.
+ * As long as the handler responds {@link OperationStatus#IN_PROGRESS} the
+ * request is scheduled again after callbackDelaySeconds, carrying the returned
+ * callback context, and the final response is passed to the completion
+ * listener.
+ *
+ * When each re-invocation starts, how late it started and the number of
+ * re-invocations still waiting are published with
+ * {@link MetricsPublisherProxy#publishReinvocationMetric}.
+ */
+@ThreadSafe
+public class InProcessScheduler implements ReinvocationScheduler {
+
+    private final Serializer serializer;
+    private final Reinvoker reinvoker;
+    private final Consumer<String> completionListener;
+    private final Logger loggerProxy;
+    private final MetricsPublisherProxy metricsPublisherProxy;
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * Invokes the wrapper with a serialized request, e.g. through
+     * {@link software.amazon.cloudformation.ExecutableWrapper#reinvoker()}
+     */
+    @FunctionalInterface
+    public interface Reinvoker {
+        /**
+         * @param request the serialized {@link HandlerRequest}
+         * @return the serialized response of the wrapper
+         * @throws IOException if the request could not be processed
+         */
+        String reinvoke(String request) throws IOException;
+    }
+
+    /**
+     * @param serializer serializes the requests passed to
+     *            {@link #reschedule(String, int, HandlerRequest)}
+     * @param reinvoker invokes the wrapper
+     * @param completionListener receives the response of every operation which
+     *            is no longer in progress, may be null
+     * @param loggerProxy where failures to re-invoke are logged, may be null
+     * @param metricsPublisherProxy where scheduler lag and queue depth are
+     *            published, may be null
+     */
+    public InProcessScheduler(final Serializer serializer,
+                              final Reinvoker reinvoker,
+                              final Consumer<String> completionListener,
+                              final Logger loggerProxy,
+                              final MetricsPublisherProxy metricsPublisherProxy) {
+        this.serializer = Preconditions.checkNotNull(serializer);
+        this.reinvoker = Preconditions.checkNotNull(reinvoker);
+        this.completionListener = completionListener;
+        this.loggerProxy = loggerProxy;
+        this.metricsPublisherProxy = metricsPublisherProxy;
+        this.executor = new ScheduledThreadPoolExecutor(1,
+                                                        new ThreadFactoryBuilder().setNameFormat("cfn-reinvocation-%d")
+                                                            .setDaemon(true).build());
+    }
+
+    @Override
+    public <ResourceT, CallbackT, ConfigurationT> void
+        reschedule(final String functionArn,
+                   final int secondsFromNow,
+                   final HandlerRequest<ResourceT, CallbackT, ConfigurationT> handlerRequest) {
+        final String request;
+        try {
+            request = serializer.serialize(handlerRequest);
+        } catch (final IOException e) {
+            throw new TerminalException("Unable to serialize the request for callback", e);
+        }
+        schedule(request, Duration.ofSeconds(Math.max(secondsFromNow, 0)));
+    }
+
+    /**
+     * Schedules a request which is already serialized, e.g. the first request of
+     * an operation with {@link Duration#ZERO}
+     *
+     * @param request the serialized {@link HandlerRequest}
+     * @param delay the minimum delay before the wrapper is invoked
+     */
+    public void schedule(final String request, final Duration delay) {
+        schedule(new JSONObject(request), delay);
+    }
+
+    /**
+     * @return number of re-invocations waiting for their delay to elapse
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Drops every pending re-invocation and stops the scheduler thread, an
+     * in-flight re-invocation is interrupted
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(final JSONObject request, final Duration delay) {
+        final long delayNanos = delay.toNanos();
+        final long dueNanos = System.nanoTime() + delayNanos;
+        executor.schedule(() -> reinvoke(request, dueNanos), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void reinvoke(final JSONObject request, final long dueNanos) {
+        if (metricsPublisherProxy != null) {
+            metricsPublisherProxy.publishReinvocationMetric(Instant.now(),
+                TimeUnit.NANOSECONDS.toMillis(Math.max(System.nanoTime() - dueNanos, 0L)), getQueueDepth());
+        }
+        final String response;
+        final JSONObject progress;
+        try {
+            response = reinvoker.reinvoke(request.toString());
+            progress = new JSONObject(response);
+        } catch (final Exception e) {
+            log(String.format("Re-invocation of %s request failed: %s", request.optString("action"), e));
+            return;
+        }
+        if (OperationStatus.IN_PROGRESS.name().equals(progress.optString("status"))) {
+            // the next request carries the callback context returned by this one
+            request.put("callbackContext", progress.has("callbackContext") ? progress.get("callbackContext") : JSONObject.NULL);
+            schedule(request, Duration.ofSeconds(Math.max(progress.optInt("callbackDelaySeconds", 0), 0)));
+        } else if (completionListener != null) {
+            completionListener.accept(response);
+        }
+    }
+
+    /**
+     * null-safe logger redirect
+     *
+     * @param message A string containing the event to log.
+     */
+    private void log(final String message) {
+        if (this.loggerProxy != null) {
+            loggerProxy.log(message);
+        }
+    }
+}
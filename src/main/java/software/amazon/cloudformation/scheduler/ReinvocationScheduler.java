@@ -0,0 +1,51 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.scheduler;
+
+import software.amazon.cloudformation.proxy.HandlerRequest;
+import software.amazon.cloudformation.proxy.RequestContext;
+
+/**
+ * Re-invokes a handler with a request after a delay, so that a long running
+ * operation does not hold an invocation while it waits for a resource to
+ * stabilize. {@link CloudWatchScheduler} schedules a one-time CloudWatch Events
+ * rule with minute granularity, {@link InProcessScheduler} re-feeds the request
+ * to a warm wrapper in the same JVM with second granularity.
+ */
+public interface ReinvocationScheduler {
+
+    /**
+     * @param functionArn the ARN of the Lambda function to be invoked, ignored by
+     *            schedulers which re-invoke in-process
+     * @param secondsFromNow the minimum seconds from now that the re-invocation
+     *            will occur, rounded up to the granularity of the scheduler
+     * @param handlerRequest the request to re-invoke the handler with, serialized
+     *            when scheduled
+     * @param <ResourceT> resource model state configuration to apply
+     * @param <CallbackT> callback context associated with reschedule context
+     * @param <ConfigurationT> type configuration of the request
+     */
+    <ResourceT, CallbackT, ConfigurationT> void
+        reschedule(String functionArn, int secondsFromNow, HandlerRequest<ResourceT, CallbackT, ConfigurationT> handlerRequest);
+
+    /**
+     * Releases whatever the scheduler created to trigger the re-invocation that
+     * carried the request context
+     *
+     * @param requestContext the context of the re-invoked request
+     */
+    default void cleanup(final RequestContext<?> requestContext) {
+    }
+}
@@ -0,0 +1,55 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Keeps exported spans in memory, for handler unit tests which assert on
+ * what an invocation did and in which order.
+ */
+@ThreadSafe
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final List<Span> spans = new ArrayList<>();
+
+    @Override
+    public synchronized void export(final Span span) {
+        this.spans.add(span);
+    }
+
+    /**
+     * @return the spans exported so far, in the order they ended
+     */
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(this.spans);
+    }
+
+    /**
+     * @param name name of the spans
+     * @return the spans exported so far with the given name, in the order they
+     *         ended
+     */
+    public synchronized List<Span> getSpans(final String name) {
+        return this.spans.stream().filter(span -> span.getName().equals(name)).collect(Collectors.toList());
+    }
+
+    public synchronized void reset() {
+        this.spans.clear();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.tracing;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Writes each span as one line of JSON, e.g.
+ *
+ * <pre>
+ * {"traceId":"...","spanId":"...","parentSpanId":"...","name":"Handler",
+ *  "start":"2020-01-01T00:00:00.123456Z","durationMicros":5321,"attributes":{}}
+ * </pre>
+ *
+ * to standard output, where the Lambda runtime forwards it to the function
+ * logs, or to a local file when running handlers under SAM or in tests.
+ */
+@ThreadSafe
+public class JsonLinesSpanExporter implements SpanExporter {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final PrintStream out;
+
+    public JsonLinesSpanExporter(final PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * @return an exporter writing to standard output
+     */
+    public static JsonLinesSpanExporter stdout() {
+        return new JsonLinesSpanExporter(System.out);
+    }
+
+    /**
+     * @param path file to append the spans to, created if it does not exist
+     * @return an exporter appending to the file
+     */
+    public static JsonLinesSpanExporter file(final Path path) {
+        try {
+            return new JsonLinesSpanExporter(new PrintStream(new FileOutputStream(path.toFile(), true), true,
+                                                             StandardCharsets.UTF_8.name()));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void export(final Span span) {
+        final String line = toJson(span);
+        synchronized (this.out) {
+            this.out.println(line);
+        }
+    }
+
+    static String toJson(final Span span) {
+        final StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JSON.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeStringField("traceId", span.getTraceId());
+            generator.writeStringField("spanId", span.getSpanId());
+            if (span.getParentSpanId() != null) {
+                generator.writeStringField("parentSpanId", span.getParentSpanId());
+            }
+            generator.writeStringField("name", span.getName());
+            generator.writeStringField("start", span.getStart().toString());
+            generator.writeNumberField("durationMicros", span.getDuration().toNanos() / 1000L);
+            generator.writeObjectFieldStart("attributes");
+            for (final Map.Entry<String, String> attribute : span.getAttributes().entrySet()) {
+                generator.writeStringField(attribute.getKey(), attribute.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        } catch (final IOException e) {
+            // a StringWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+}
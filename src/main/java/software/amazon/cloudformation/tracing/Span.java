@@ -0,0 +1,301 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.tracing;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.concurrent.ThreadSafe;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+/**
+ * A timed section of an invocation, such as decoding the request or a single
+ * AWS API call. Spans started with {@link #child(String)} become the
+ * {@link #current() current} span of the thread until they are closed, so
+ * that code further down the stack, e.g. the client proxy, attaches its spans
+ * without being handed the parent:
+ *
+ * <pre>
+ * try (Span span = Span.current().child("Decode")) {
+ *     span.attribute("bytes", input.length());
+ *     ...
+ * }
+ * </pre>
+ *
+ * When no trace is running {@link #current()} returns {@link #NOOP}, whose
+ * children are {@link #NOOP} as well and which records nothing. Instrumented
+ * code then costs a volatile read and allocates nothing.
+ */
+@ThreadSafe
+public final class Span implements SdkAutoCloseable {
+
+    /**
+     * The span which records nothing, returned when tracing is disabled
+     */
+    public static final Span NOOP = new Span();
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    // number of traces running in the JVM, spares the thread local lookup when 0
+    private static final AtomicInteger ACTIVE_TRACES = new AtomicInteger();
+    // replaced on restore from a checkpoint, every restored JVM would otherwise
+    // generate the same IDs
+    private static volatile Random ids = new Random();
+
+    private final SpanExporter exporter;
+    private final String name;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final Instant start;
+    private final long startNanos;
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private final boolean attached;
+    private final Span previous;
+    private volatile long durationNanos;
+
+    private Span() {
+        this.exporter = null;
+        this.name = "";
+        this.traceId = "";
+        this.spanId = "";
+        this.parentSpanId = null;
+        this.start = Instant.EPOCH;
+        this.startNanos = 0L;
+        this.attached = false;
+        this.previous = null;
+        this.ended.set(true);
+    }
+
+    private Span(final SpanExporter exporter,
+                 final String name,
+                 final String traceId,
+                 final String parentSpanId,
+                 final boolean attached) {
+        this.exporter = exporter;
+        this.name = name;
+        this.traceId = traceId;
+        this.spanId = randomId(1);
+        this.parentSpanId = parentSpanId;
+        this.start = Instant.now();
+        this.startNanos = System.nanoTime();
+        this.attached = attached;
+        this.previous = attached ? CURRENT.get() : null;
+        if (attached) {
+            CURRENT.set(this);
+        }
+    }
+
+    /**
+     * Starts a new trace, whose root span becomes the current span of the
+     * calling thread.
+     *
+     * @param name name of the root span
+     * @param exporter receives the spans of the trace, or null to disable
+     *            tracing
+     * @return the root span, or {@link #NOOP} if the exporter is null
+     */
+    public static Span root(final String name, final SpanExporter exporter) {
+        if (exporter == null) {
+            return NOOP;
+        }
+        ACTIVE_TRACES.incrementAndGet();
+        return new Span(exporter, name, randomId(2), null, true);
+    }
+
+    /**
+     * @return the innermost open span started on this thread with
+     *         {@link #root(String, SpanExporter)} or {@link #child(String)}, or
+     *         {@link #NOOP} if there is none
+     */
+    public static Span current() {
+        if (ACTIVE_TRACES.get() == 0) {
+            return NOOP;
+        }
+        final Span current = CURRENT.get();
+        return current == null ? NOOP : current;
+    }
+
+    /**
+     * Starts a child span which becomes the current span of the calling thread
+     * until it is closed.
+     *
+     * @param childName name of the child span
+     * @return the child span, or {@link #NOOP} if this span does not record
+     */
+    public Span child(final String childName) {
+        return isRecording() ? new Span(this.exporter, childName, this.traceId, this.spanId, true) : NOOP;
+    }
+
+    /**
+     * Starts a child span which does not become the current span, for work
+     * which completes on another thread. It can be closed from any thread.
+     *
+     * @param childName name of the child span
+     * @return the child span, or {@link #NOOP} if this span does not record
+     */
+    public Span asyncChild(final String childName) {
+        return isRecording() ? new Span(this.exporter, childName, this.traceId, this.spanId, false) : NOOP;
+    }
+
+    /**
+     * Sets an attribute, replacing any earlier value of the same key.
+     *
+     * @param key name of the attribute
+     * @param value value of the attribute, converted with
+     *            {@link String#valueOf(Object)}
+     * @return this span
+     */
+    public Span attribute(final String key, final Object value) {
+        if (isRecording()) {
+            synchronized (this.attributes) {
+                this.attributes.put(key, String.valueOf(value));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds a value to an attribute, separated by a comma from the values added
+     * before, e.g. the request IDs of the pages of a paginated call.
+     *
+     * @param key name of the attribute
+     * @param value value to add, converted with {@link String#valueOf(Object)}
+     * @return this span
+     */
+    public Span appendAttribute(final String key, final Object value) {
+        if (isRecording()) {
+            synchronized (this.attributes) {
+                this.attributes.merge(key, String.valueOf(value), (earlier, later) -> earlier + "," + later);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return true until the span is closed, always false for {@link #NOOP}
+     */
+    public boolean isRecording() {
+        return !this.ended.get();
+    }
+
+    /**
+     * Ends the span and hands it to the exporter. Children which were started
+     * on the calling thread and are still open, e.g. because an exception
+     * skipped their close, are closed first. The span which was current when
+     * this one started then becomes current again. Closing a span more than
+     * once has no effect.
+     */
+    @Override
+    public void close() {
+        if (!this.ended.compareAndSet(false, true)) {
+            return;
+        }
+        if (this.attached && isOpenOnThisThread()) {
+            for (Span open = CURRENT.get(); open != this; open = open.previous) {
+                open.close();
+            }
+            if (this.previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(this.previous);
+            }
+        }
+        this.durationNanos = System.nanoTime() - this.startNanos;
+        try {
+            this.exporter.export(this);
+        } catch (final RuntimeException e) {
+            // tracing must never fail the invocation
+        } finally {
+            if (this.parentSpanId == null) {
+                ACTIVE_TRACES.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Seeds the generation of trace and span IDs anew, to be called when a JVM
+     * is restored from a checkpoint.
+     */
+    public static void reseedIds() {
+        // a new SecureRandom draws from the operating system of the restored JVM
+        ids = new Random(new SecureRandom().nextLong());
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getTraceId() {
+        return this.traceId;
+    }
+
+    public String getSpanId() {
+        return this.spanId;
+    }
+
+    /**
+     * @return the ID of the parent span, or null for the root span of a trace
+     */
+    public String getParentSpanId() {
+        return this.parentSpanId;
+    }
+
+    public Instant getStart() {
+        return this.start;
+    }
+
+    /**
+     * @return how long the span was open, zero until it is closed
+     */
+    public Duration getDuration() {
+        return Duration.ofNanos(this.durationNanos);
+    }
+
+    public Map<String, String> getAttributes() {
+        synchronized (this.attributes) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(this.attributes));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Span(%s, trace %s, span %s, parent %s)", this.name, this.traceId, this.spanId,
+            this.parentSpanId);
+    }
+
+    private boolean isOpenOnThisThread() {
+        for (Span open = CURRENT.get(); open != null; open = open.previous) {
+            if (open == this) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String randomId(final int longs) {
+        final StringBuilder id = new StringBuilder(16 * longs);
+        for (int i = 0; i < longs; i++) {
+            id.append(String.format("%016x", ids.nextLong()));
+        }
+        return id.toString();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.tracing;
+
+/**
+ * Names of the spans recorded by the wrappers and the client proxy. The
+ * invocation phases carry the same names as the cold start breakdown.
+ */
+public final class SpanNames {
+
+    /**
+     * Root span of an invocation
+     */
+    public static final String INVOCATION = "Invocation";
+    public static final String DECODE = "Decode";
+    public static final String CREDENTIALS = "Credentials";
+    public static final String TRANSFORM = "Transform";
+    public static final String VALIDATE = "Validate";
+    public static final String HANDLER = "Handler";
+    public static final String SANITIZE = "Sanitize";
+    public static final String WRITE = "Write";
+
+    /**
+     * One call graph of a {@code CallChain}, including its retries and
+     * stabilization
+     */
+    public static final String CALL_GRAPH = "CallGraph";
+
+    /**
+     * Evaluation of one changed resource of a stack level hook
+     */
+    public static final String CHANGED_RESOURCE = "ChangedResource";
+
+    /**
+     * One AWS API call made through the client proxy
+     */
+    public static final String AWS_REQUEST = "AwsRequest";
+
+    private SpanNames() {
+    }
+}
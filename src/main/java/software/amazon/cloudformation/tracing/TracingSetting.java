@@ -0,0 +1,103 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.tracing;
+
+import java.nio.file.Paths;
+import java.util.Optional;
+import software.amazon.awssdk.utils.SystemSetting;
+
+/**
+ * Settings of invocation tracing, read from a system property or else an
+ * environment variable of the handler. Handler implementations can also
+ * provide an exporter in code, see the {@code spanExporter} of the settings
+ * returned by the {@code provideSettings} hook of the wrappers.
+ */
+public enum TracingSetting implements SystemSetting {
+
+    /**
+     * Where to export spans to: {@code stdout}, or the path of a file to append
+     * JSON lines to. Tracing is disabled when unset.
+     */
+    EXPORT("cfn.trace.export", "CFN_TRACE_EXPORT", null);
+
+    private final String property;
+    private final String environmentVariable;
+    private final String defaultValue;
+
+    TracingSetting(final String property,
+                   final String environmentVariable,
+                   final String defaultValue) {
+        this.property = property;
+        this.environmentVariable = environmentVariable;
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public String property() {
+        return property;
+    }
+
+    @Override
+    public String environmentVariable() {
+        return environmentVariable;
+    }
+
+    @Override
+    public String defaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * @return the exporter configured by {@link #EXPORT}, created once per JVM,
+     *         or null if tracing is disabled
+     * @throws IllegalStateException if the configured exporter could not be
+     *             created, e.g. the file is not writable
+     */
+    public static SpanExporter configuredExporter() {
+        if (ConfiguredExporter.FAILURE != null) {
+            throw new IllegalStateException("Cannot export spans to " + EXPORT.getStringValue().orElse(null),
+                ConfiguredExporter.FAILURE);
+        }
+        return ConfiguredExporter.INSTANCE.orElse(null);
+    }
+
+    static Optional<SpanExporter> exporterFor(final String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        final String target = value.trim();
+        return Optional.of("stdout".equalsIgnoreCase(target) ? JsonLinesSpanExporter.stdout()
+            : JsonLinesSpanExporter.file(Paths.get(target)));
+    }
+
+    private static final class ConfiguredExporter {
+        private static final Optional<SpanExporter> INSTANCE;
+        private static final RuntimeException FAILURE;
+
+        // a failure must not escape the initializer, the class would be unusable
+        // for the rest of the JVM
+        static {
+            Optional<SpanExporter> exporter = Optional.empty();
+            RuntimeException failure = null;
+            try {
+                exporter = exporterFor(EXPORT.getStringValue().orElse(null));
+            } catch (final RuntimeException e) {
+                failure = e;
+            }
+            INSTANCE = exporter;
+            FAILURE = failure;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.cloudformation.injection.SharedHttpClient;
+
+public class CheckpointResourceTest {
+
+    @Test
+    public void hooksRunTheWrapperCallbacks() {
+        final List<String> calls = new ArrayList<>();
+        final CheckpointResource resource = CheckpointResource.register(() -> calls.add("before"),
+            () -> calls.add("after"));
+
+        resource.beforeCheckpoint(null);
+        resource.afterRestore(null);
+
+        assertThat(calls).containsExactly("before", "after");
+    }
+
+    @Test
+    public void afterRestore_keepsTheSharedClientUsable() {
+        final SdkHttpClient client = SharedHttpClient.get();
+        final String clientName = client.clientName();
+
+        CheckpointResource.register(() -> {
+        }, () -> {
+        }).afterRestore(null);
+
+        assertThat(SharedHttpClient.get()).isSameAs(client);
+        assertThat(client.clientName()).isEqualTo(clientName);
+    }
+}
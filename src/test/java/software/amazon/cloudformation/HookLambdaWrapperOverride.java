@@ -33,6 +33,7 @@ import software.amazon.cloudformation.loggers.LogPublisher;
 import software.amazon.cloudformation.metrics.MetricsPublisher;
 import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
 import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.hook.ChangedResourceEvaluator;
 import software.amazon.cloudformation.proxy.hook.HookContext;
 import software.amazon.cloudformation.proxy.hook.HookHandlerRequest;
 import software.amazon.cloudformation.proxy.hook.HookInvocationRequest;
@@ -131,6 +132,14 @@ public class HookLambdaWrapperOverride extends HookLambdaWrapper<TestModel, Test
 
     public HookHandlerRequest transformResponse;
 
+    // evaluates the changed resources of stack targets when set
+    public ChangedResourceEvaluator<TestModel, TestContext, TestConfigurationModel> changedResourceEvaluator;
+
+    @Override
+    protected ChangedResourceEvaluator<TestModel, TestContext, TestConfigurationModel> provideChangedResourceEvaluator() {
+        return changedResourceEvaluator;
+    }
+
     @Override
     public Map<String, Object> retrieveHookInvocationPayloadFromS3(final String s3PresignedUrl) {
         return hookInvocationPayloadFromS3;
@@ -54,6 +54,8 @@ import software.amazon.cloudformation.proxy.Credentials;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.hook.HookAnnotation;
+import software.amazon.cloudformation.proxy.hook.HookAnnotationStatus;
 import software.amazon.cloudformation.proxy.hook.HookHandlerRequest;
 import software.amazon.cloudformation.proxy.hook.HookProgressEvent;
 import software.amazon.cloudformation.proxy.hook.HookRequestData;
@@ -124,6 +126,7 @@ public class HookLambdaWrapperTest {
         lenient().when(context.getInvokedFunctionArn())
             .thenReturn("arn:aws:lambda:aws-region:acct-id:function:testHookHandler:PROD");
         lenient().when(context.getLogger()).thenReturn(lambdaLogger);
+        lenient().when(context.getRemainingTimeInMillis()).thenReturn(30_000);
         return context;
     }
 
@@ -385,6 +388,39 @@ public class HookLambdaWrapperTest {
         }
     }
 
+    @Test
+    public void invokeHandler_WithStackLevelHookAndChangedResourceEvaluator_mergesEvaluations() throws IOException {
+        lenient().when(cipher.decryptCredentials(any())).thenReturn(new Credentials("123", "123", "123"));
+        wrapper.setHookInvocationPayloadFromS3(Map.of("ChangedResources",
+            List.of(Map.of("LogicalResourceId", "Bucket", "ResourceType", "AWS::S3::Bucket", "Action", "CREATE"),
+                Map.of("LogicalResourceId", "Queue", "ResourceType", "AWS::SQS::Queue", "Action", "CREATE"))));
+        wrapper.changedResourceEvaluator = (proxy, request, changedResource, callbackContext, typeConfiguration) -> {
+            final HookAnnotation annotation = HookAnnotation.builder().annotationName(changedResource.getLogicalResourceId())
+                .status(HookAnnotationStatus.PASSED).build();
+            return "Queue".equals(changedResource.getLogicalResourceId())
+                ? ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.FAILED)
+                    .errorCode(HandlerErrorCode.NonCompliant).message("not encrypted").annotations(List.of(annotation)).build()
+                : ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS).annotations(List.of(annotation))
+                    .build();
+        };
+
+        try (final InputStream in = loadRequestStream("preCreate.request.with-stack-level-hook.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.handleRequest(in, out, getLambdaContext());
+
+            verifyHandlerResponse(out,
+                HookProgressEvent.<TestContext>builder().clientRequestToken("123456").hookStatus(HookStatus.FAILED)
+                    .errorCode(HandlerErrorCode.NonCompliant).message("Queue: not encrypted")
+                    .annotations(List.of(
+                        HookAnnotation.builder().annotationName("Bucket").status(HookAnnotationStatus.PASSED).build(),
+                        HookAnnotation.builder().annotationName("Queue").status(HookAnnotationStatus.PASSED).build()))
+                    .build());
+
+            // the evaluator replaces the handler for stack targets
+            assertThat(wrapper.invocationPoint).isNull();
+        }
+    }
+
     @Test
     public void testIsHookInvocationPayloadRemote() {
         List<
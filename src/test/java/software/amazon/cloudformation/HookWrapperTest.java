@@ -20,6 +20,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.times;
@@ -163,6 +164,8 @@ public class HookWrapperTest {
 
             verify(providerEventsLogger).refreshClient();
             verify(providerEventsLogger, times(2)).publishLogEvent(any());
+            // before and after the response is written
+            verify(providerEventsLogger, times(2)).flush();
             verifyNoMoreInteractions(providerEventsLogger);
 
             // verify output response
@@ -373,6 +376,7 @@ public class HookWrapperTest {
                 HookProgressEvent.<TestContext>builder().clientRequestToken("123456").hookStatus(HookStatus.IN_PROGRESS).build());
 
             // validation failure metric should not be published
+            verify(providerMetricsPublisher, atLeastOnce()).flush();
             verifyNoMoreInteractions(providerMetricsPublisher);
 
             // assert handler receives correct injections
@@ -420,6 +424,7 @@ public class HookWrapperTest {
                 any(HookInvocationPoint.class), isNull());
 
             // validation failure metric should not be published
+            verify(providerMetricsPublisher, atLeastOnce()).flush();
             verifyNoMoreInteractions(providerMetricsPublisher);
 
             // verify output response
@@ -1032,4 +1037,27 @@ public class HookWrapperTest {
             assertThat(wrapper.callbackContext).isNull();
         }
     }
+
+    @Test
+    public void prime_warmsRequestProcessingWithoutInvokingHandler() {
+        final boolean[] primed = { false };
+        final HookWrapperOverride wrapper = new HookWrapperOverride(providerLoggingCredentialsProvider, platformEventsLogger,
+                                                                    providerEventsLogger, providerMetricsPublisher, validator,
+                                                                    httpClient, cipher) {
+            @Override
+            protected void primeHandler() {
+                primed[0] = true;
+            }
+        };
+
+        wrapper.beforeCheckpoint();
+        wrapper.afterRestore();
+
+        assertThat(primed[0]).isTrue();
+        assertThat(wrapper.invocationPoint).isNull();
+        assertThat(wrapper.loggerProxy).isNull();
+        assertThat(wrapper.metricsPublisherProxy).isNull();
+        verifyNoMoreInteractions(providerLoggingCredentialsProvider, providerMetricsPublisher, providerEventsLogger, httpClient,
+            cipher);
+    }
 }
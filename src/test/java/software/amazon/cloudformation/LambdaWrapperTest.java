@@ -32,6 +32,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -161,4 +162,13 @@ public class LambdaWrapperTest {
             assertThat(wrapper.callbackContext).isNull();
         }
     }
+
+    @Test
+    public void provideSettings_limitsResponseToLambdaPayload() {
+        final WrapperSettings settings = wrapper.provideSettings();
+
+        assertThat(settings.getResponseByteLimit()).isEqualTo(LambdaWrapper.RESPONSE_PAYLOAD_LIMIT_BYTES);
+        assertThat(settings.toBuilder().responseByteLimit(Long.MAX_VALUE).build())
+            .isEqualTo(WrapperSettings.defaults());
+    }
 }
@@ -0,0 +1,117 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TempDirectoryScrubberTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void scrubEmptiesDirectoryAndReportsWhatWasFreed() throws IOException {
+        write(directory.resolve("a.txt"), 10);
+        Files.createDirectories(directory.resolve("nested/deeper"));
+        write(directory.resolve("nested/deeper/b.txt"), 20);
+
+        final TempDirectoryScrubber.Result result = new TempDirectoryScrubber(directory).scrub();
+
+        assertThat(directory.toFile().list()).isEmpty();
+        assertThat(result.getBytesFreed()).isEqualTo(30L);
+        assertThat(result.getFilesDeleted()).isEqualTo(2L);
+    }
+
+    @Test
+    public void backgroundScrubOnlyAfterScrub() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final TempDirectoryScrubber scrubber = new TempDirectoryScrubber(directory, executor);
+        write(directory.resolve("a.txt"), 10);
+
+        scrubber.scrubInBackground();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(directory.resolve("a.txt")).exists();
+    }
+
+    @Test
+    public void filesLeftAfterBackgroundScrubAreDeletedBeforeNextInvocation() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final TempDirectoryScrubber scrubber = new TempDirectoryScrubber(directory, executor);
+        assertThat(scrubber.scrub().getBytesFreed()).isZero();
+
+        // written during the invocation, emptied once the response is written
+        write(directory.resolve("a.txt"), 10);
+        scrubber.scrubInBackground();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(directory.toFile().list()).isEmpty();
+
+        // written late by a thread the handler left behind
+        write(directory.resolve("late.txt"), 5);
+        final TempDirectoryScrubber.Result result = scrubber.scrub();
+
+        assertThat(directory.toFile().list()).isEmpty();
+        assertThat(result.getBytesFreed()).isEqualTo(15L);
+        assertThat(result.getFilesDeleted()).isEqualTo(2L);
+    }
+
+    @Test
+    public void rejectedBackgroundScrubFallsBackToSynchronous() throws IOException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final TempDirectoryScrubber scrubber = new TempDirectoryScrubber(directory, executor);
+        scrubber.scrub();
+
+        write(directory.resolve("a.txt"), 10);
+        scrubber.scrubInBackground();
+        assertThat(directory.resolve("a.txt")).exists();
+
+        assertThat(scrubber.scrub().getBytesFreed()).isEqualTo(10L);
+        assertThat(directory.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void missingDirectoryIsAlreadyScrubbed() throws IOException {
+        final TempDirectoryScrubber.Result result = new TempDirectoryScrubber(directory.resolve("missing")).scrub();
+
+        assertThat(result.getFilesDeleted()).isZero();
+    }
+
+    @Test
+    public void scrubsPathsInDirectoryOnceInUse() throws IOException {
+        final TempDirectoryScrubber scrubber = new TempDirectoryScrubber(directory);
+        assertThat(scrubber.scrubs(directory.resolve("captures"))).isFalse();
+
+        scrubber.scrub();
+        assertThat(scrubber.scrubs(directory)).isTrue();
+        assertThat(scrubber.scrubs(directory.resolve("captures/../captures"))).isTrue();
+        assertThat(scrubber.scrubs(directory.getParent())).isFalse();
+        assertThat(scrubber.scrubs(directory.resolveSibling("captures"))).isFalse();
+    }
+
+    private static void write(final Path file, final int size) throws IOException {
+        Files.write(file, new String(new char[size]).replace('\0', 'x').getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -15,6 +15,7 @@
 package software.amazon.cloudformation;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,7 @@ import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
 import software.amazon.cloudformation.resource.SchemaValidator;
 import software.amazon.cloudformation.resource.Serializer;
+import software.amazon.cloudformation.tracing.SpanExporter;
 
 /**
  * Test class used for testing of LambdaWrapper functionality
@@ -115,6 +117,7 @@ public class WrapperOverride extends AbstractWrapper<TestModel, TestContext, Tes
     @Override
     protected ResourceHandlerRequest<TestModel>
         transform(final HandlerRequest<TestModel, TestContext, TestConfigurationModel> request) {
+        this.handlerRequest = request;
         return transformResponse;
     }
 
@@ -125,6 +128,46 @@ public class WrapperOverride extends AbstractWrapper<TestModel, TestContext, Tes
 
     public ResourceHandlerRequest<TestModel> transformResponse;
 
+    // the request last transformed
+    public HandlerRequest<TestModel, TestContext, TestConfigurationModel> handlerRequest;
+
+    // bytes of models in a LIST page, the default budget when not set
+    public Long listResponseByteBudget;
+
+    @Override
+    protected long provideListResponseByteBudget() {
+        return listResponseByteBudget == null ? super.provideListResponseByteBudget() : listResponseByteBudget;
+    }
+
+    public boolean lazyRequestBinding;
+
+    @Override
+    protected boolean provideLazyRequestBinding() {
+        return lazyRequestBinding;
+    }
+
+    // bytes of a response, no limit when not set
+    public Long responseByteLimit;
+
+    public SpanExporter spanExporter;
+    public Error spanExporterError;
+
+    public Path captureDirectory;
+
+    @Override
+    protected WrapperSettings provideSettings() {
+        final WrapperSettings.WrapperSettingsBuilder settings = super.provideSettings().toBuilder().spanExporter(() -> {
+            if (spanExporterError != null) {
+                throw spanExporterError;
+            }
+            return spanExporter;
+        }).captureDirectory(() -> captureDirectory);
+        if (responseByteLimit != null) {
+            settings.responseByteLimit(responseByteLimit);
+        }
+        return settings.build();
+    }
+
     @Override
     protected TypeReference<HandlerRequest<TestModel, TestContext, TestConfigurationModel>> getTypeReference() {
         return new TypeReference<HandlerRequest<TestModel, TestContext, TestConfigurationModel>>() {
@@ -0,0 +1,49 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.proxy.DelayFactory;
+
+public class WrapperSettingsTest {
+
+    @Test
+    public void defaults_disableOptionalTelemetry() {
+        final WrapperSettings settings = WrapperSettings.defaults();
+
+        assertThat(settings).isSameAs(WrapperSettings.defaults());
+        assertThat(settings.getDelayFactory()).isSameAs(DelayFactory.CONSTANT_DEFAULT_DELAY_FACTORY);
+        assertThat(settings.getLogBufferCapacity()).isZero();
+        assertThat(settings.isResourceUsageMetrics()).isFalse();
+        assertThat(settings.isEmbeddedMetrics()).isFalse();
+        assertThat(settings.getAsyncMetricsDeadline()).isNull();
+        assertThat(settings.isHttpClientMetrics()).isFalse();
+        assertThat(settings.getResponseByteLimit()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void toBuilder_keepsSettingsNotOverridden() {
+        final WrapperSettings settings = WrapperSettings.defaults().toBuilder().logBufferCapacity(64)
+            .captureDirectory(() -> Paths.get("/mnt/capture")).build();
+
+        assertThat(settings.getLogBufferCapacity()).isEqualTo(64);
+        assertThat(settings.getCaptureDirectory().get()).isEqualTo(Paths.get("/mnt/capture"));
+        assertThat(settings.getRateLimiter()).isSameAs(WrapperSettings.defaults().getRateLimiter());
+        assertThat(settings.getSpanExporter()).isSameAs(WrapperSettings.defaults().getSpanExporter());
+        assertThat(settings.getResponseByteLimit()).isEqualTo(Long.MAX_VALUE);
+    }
+}
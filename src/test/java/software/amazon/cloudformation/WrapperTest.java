@@ -26,21 +26,36 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsResponse;
 import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsRequest;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsResponse;
 import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
 import software.amazon.cloudformation.exceptions.ResourceAlreadyExistsException;
 import software.amazon.cloudformation.exceptions.ResourceNotFoundException;
@@ -49,6 +64,7 @@ import software.amazon.cloudformation.injection.CredentialsProvider;
 import software.amazon.cloudformation.loggers.CloudWatchLogPublisher;
 import software.amazon.cloudformation.loggers.LogPublisher;
 import software.amazon.cloudformation.metrics.MetricsPublisher;
+import software.amazon.cloudformation.metrics.ThreadUsage;
 import software.amazon.cloudformation.proxy.Credentials;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.HandlerRequest;
@@ -56,10 +72,15 @@ import software.amazon.cloudformation.proxy.OperationStatus;
 import software.amazon.cloudformation.proxy.ProgressEvent;
 import software.amazon.cloudformation.proxy.RequestData;
 import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.cloudformation.proxy.ResourceModelCursor;
+import software.amazon.cloudformation.proxy.ServiceCallInterceptor;
 import software.amazon.cloudformation.resource.SchemaValidator;
 import software.amazon.cloudformation.resource.Serializer;
 import software.amazon.cloudformation.resource.Validator;
 import software.amazon.cloudformation.resource.exceptions.ValidationException;
+import software.amazon.cloudformation.tracing.InMemorySpanExporter;
+import software.amazon.cloudformation.tracing.Span;
+import software.amazon.cloudformation.tracing.SpanNames;
 
 @ExtendWith(MockitoExtension.class)
 public class WrapperTest {
@@ -162,6 +183,8 @@ public class WrapperTest {
 
             verify(providerEventsLogger).refreshClient();
             verify(providerEventsLogger, times(2)).publishLogEvent(any());
+            // before and after the response is written
+            verify(providerEventsLogger, times(2)).flush();
             verifyNoMoreInteractions(providerEventsLogger);
 
             // verify output response
@@ -423,6 +446,7 @@ public class WrapperTest {
                 any());
 
             // validation failure metric should not be published
+            verify(providerMetricsPublisher, atLeastOnce()).flush();
             verifyNoMoreInteractions(providerMetricsPublisher);
 
             // assert handler receives correct injections
@@ -467,6 +491,7 @@ public class WrapperTest {
                 any());
 
             // validation failure metric should not be published
+            verify(providerMetricsPublisher, atLeastOnce()).flush();
             verifyNoMoreInteractions(providerMetricsPublisher);
 
             // verify that NO model validation occurred for CREATE/UPDATE
@@ -512,6 +537,7 @@ public class WrapperTest {
                 any());
 
             // validation failure metric should not be published
+            verify(providerMetricsPublisher, atLeastOnce()).flush();
             verifyNoMoreInteractions(providerMetricsPublisher);
 
             // verify that model validation occurred for CREATE/UPDATE
@@ -629,6 +655,158 @@ public class WrapperTest {
         }
     }
 
+    @Test
+    public void invokeHandler_listWithCursor_endsPageAtMaxResults() throws IOException {
+        final ProgressEvent<TestModel, TestContext> pe = ProgressEvent.<TestModel, TestContext>builder()
+            .status(OperationStatus.SUCCESS).resourceModelCursor(new ListCursor(-1, "a", "b", "c")).build();
+        wrapper.setInvokeHandlerResponse(pe);
+        wrapper.setTransformResponse(resourceHandlerRequest);
+
+        try (final InputStream in = loadRequestStream("list.request.with-max-results.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+
+            verifyHandlerResponse(out, ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS)
+                .nextToken("2").build());
+            assertThat(listedModels(out)).containsExactly("a", "b");
+        }
+    }
+
+    @Test
+    public void invokeHandler_listWithCursor_endsPageAtByteBudget() throws IOException {
+        final ProgressEvent<TestModel, TestContext> pe = ProgressEvent.<TestModel, TestContext>builder()
+            .status(OperationStatus.SUCCESS).resourceModelCursor(new ListCursor(-1, "a", "b", "c")).build();
+        wrapper.setInvokeHandlerResponse(pe);
+        wrapper.setTransformResponse(resourceHandlerRequest);
+        // {"property1":"a"} is 17 bytes, room for two models
+        wrapper.listResponseByteBudget = 40L;
+
+        try (final InputStream in = loadRequestStream("list.request.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+
+            verifyHandlerResponse(out, ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS)
+                .nextToken("2").build());
+            assertThat(listedModels(out)).containsExactly("a", "b");
+        }
+
+        // a model over the budget is still returned on its own
+        pe.setResourceModelCursor(new ListCursor(-1, "a", "b"));
+        wrapper.listResponseByteBudget = 1L;
+        try (final InputStream in = loadRequestStream("list.request.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+
+            verifyHandlerResponse(out, ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS)
+                .nextToken("1").build());
+            assertThat(listedModels(out)).containsExactly("a");
+        }
+    }
+
+    @Test
+    public void invokeHandler_listWithCursor_lastPageHasNoNextToken() throws IOException {
+        final ProgressEvent<TestModel, TestContext> pe = ProgressEvent.<TestModel, TestContext>builder()
+            .status(OperationStatus.SUCCESS).resourceModelCursor(new ListCursor(-1, "a", "b")).build();
+        wrapper.setInvokeHandlerResponse(pe);
+        wrapper.setTransformResponse(resourceHandlerRequest);
+
+        try (final InputStream in = loadRequestStream("list.request.with-max-results.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+
+            verifyHandlerResponse(out, ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS).build());
+            assertThat(listedModels(out)).containsExactly("a", "b");
+        }
+    }
+
+    @Test
+    public void invokeHandler_listWithFailingCursor_returnsFailure() throws IOException {
+        final ProgressEvent<TestModel, TestContext> pe = ProgressEvent.<TestModel, TestContext>builder()
+            .status(OperationStatus.SUCCESS).resourceModelCursor(new ListCursor(1, "a", "b", "c")).build();
+        wrapper.setInvokeHandlerResponse(pe);
+        wrapper.setTransformResponse(resourceHandlerRequest);
+
+        try (final InputStream in = loadRequestStream("list.request.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+
+            verifyHandlerResponse(out, ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.FAILED)
+                .errorCode(HandlerErrorCode.InternalFailure).build());
+            assertThat(new JSONObject(out.toString()).getString("message")).isEqualTo("listing failed at 1");
+            // the models read before the failure are not returned
+            assertThat(listedModels(out)).isEmpty();
+        }
+        verify(providerMetricsPublisher).publishExceptionByErrorCodeAndCountBulkMetrics(any(Instant.class), eq(Action.LIST),
+            eq(HandlerErrorCode.InternalFailure));
+    }
+
+    @Test
+    public void invokeHandler_listWithCursorOverByteLimit_returnsFailure() throws IOException {
+        final ProgressEvent<TestModel, TestContext> pe = ProgressEvent.<TestModel, TestContext>builder()
+            .status(OperationStatus.SUCCESS).resourceModelCursor(new ListCursor(-1, "a", "b", "c")).build();
+        wrapper.setInvokeHandlerResponse(pe);
+        wrapper.setTransformResponse(resourceHandlerRequest);
+        // the page fits the budget, not the response
+        wrapper.responseByteLimit = 40L;
+
+        try (final InputStream in = loadRequestStream("list.request.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+
+            final JSONObject response = new JSONObject(out.toString());
+            assertThat(response.getString("status")).isEqualTo(OperationStatus.FAILED.name());
+            assertThat(response.getString("errorCode")).isEqualTo(HandlerErrorCode.InternalFailure.name());
+            assertThat(listedModels(out)).isEmpty();
+        }
+    }
+
+    private static List<String> listedModels(final OutputStream out) {
+        final List<String> models = new ArrayList<>();
+        final JSONObject response = new JSONObject(out.toString());
+        if (!response.has("resourceModels")) {
+            return models;
+        }
+        final JSONArray array = response.getJSONArray("resourceModels");
+        for (int i = 0; i < array.length(); i++) {
+            models.add(array.getJSONObject(i).getString("property1"));
+        }
+        return models;
+    }
+
+    /*
+     * Lists models with property1 set to each value, the token is the index of the
+     * next model
+     */
+    private static final class ListCursor implements ResourceModelCursor<TestModel> {
+        private final String[] values;
+        private final int failAt;
+        private int index;
+
+        private ListCursor(final int failAt,
+                           final String... values) {
+            this.failAt = failAt;
+            this.values = values;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < values.length;
+        }
+
+        @Override
+        public TestModel next() {
+            if (index == failAt) {
+                throw new IllegalStateException("listing failed at " + index);
+            }
+            return TestModel.builder().property1(values[index++]).build();
+        }
+
+        @Override
+        public String nextToken() {
+            return String.valueOf(index);
+        }
+    }
+
     @Test
     public void invokeHandler_invalidModelTypes_causesSchemaValidationFailure() throws IOException {
         // use actual validator to verify behaviour
@@ -756,6 +934,234 @@ public class WrapperTest {
         }
     }
 
+    @Test
+    public void invokeHandler_lazyRequestBinding_returnsSuccess() throws IOException {
+        wrapper.setTransformResponse(resourceHandlerRequest);
+        final ProgressEvent<TestModel, TestContext> pe = ProgressEvent.<TestModel, TestContext>builder()
+            .status(OperationStatus.SUCCESS).resourceModel(TestModel.builder().property1("abc").property2(123).build()).build();
+        wrapper.setInvokeHandlerResponse(pe);
+        wrapper.lazyRequestBinding = true;
+
+        try (final InputStream in = loadRequestStream("update.request.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+
+            verifyHandlerResponse(out, ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS)
+                .resourceModel(TestModel.builder().property1("abc").property2(123).build()).build());
+            assertThat(wrapper.handlerRequest.getRequestData().getStackTags()).containsEntry("tag1", "abc");
+            assertThat(wrapper.handlerRequest.getRequestData().getPreviousStackTags()).containsEntry("tag1", "def");
+        }
+    }
+
+    @Test
+    public void invokeHandler_lazyRequestBinding_leavesUnreadSectionsUnbound() throws IOException {
+        final TestModel model = TestModel.builder().property1("abc").property2(123).build();
+        wrapper.setTransformResponse(ResourceHandlerRequest.<TestModel>builder().desiredResourceState(model).build());
+        wrapper.setInvokeHandlerResponse(
+            ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS).resourceModel(model).build());
+        wrapper.lazyRequestBinding = true;
+
+        final JSONObject request = new JSONObject(new String(Files.readAllBytes(
+            new File(String.format(TEST_DATA_BASE_PATH, "update.request.json")).toPath()), StandardCharsets.UTF_8));
+        request.put("action", "READ");
+        request.put("features", new JSONObject().put("preventIdempotentResourceAdoption", true));
+        request.put("updatePolicy", new JSONObject().put("policy", "replace"));
+        request.put("creationPolicy", new JSONObject().put("count", 2));
+        request.getJSONObject("requestData").put("previousSystemTags",
+            new JSONObject().put("aws:cloudformation:stack-id", "SampleStack"));
+
+        try (final InputStream in = new ByteArrayInputStream(request.toString().getBytes(StandardCharsets.UTF_8));
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+
+            verifyHandlerResponse(out,
+                ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS).resourceModel(model).build());
+        }
+
+        final HandlerRequest<TestModel, TestContext, TestConfigurationModel> handlerRequest = wrapper.handlerRequest;
+        final RequestData<TestModel, TestConfigurationModel> requestData = handlerRequest.getRequestData();
+        assertThat(requestData.getPreviousResourcePropertiesSection().isBound()).isFalse();
+        assertThat(requestData.getSystemTagsSection().isBound()).isFalse();
+        assertThat(requestData.getPreviousSystemTagsSection().isBound()).isFalse();
+        assertThat(requestData.getStackTagsSection().isBound()).isFalse();
+        assertThat(requestData.getPreviousStackTagsSection().isBound()).isFalse();
+        assertThat(handlerRequest.getFeaturesSection().isBound()).isFalse();
+        assertThat(handlerRequest.getUpdatePolicySection().isBound()).isFalse();
+        assertThat(handlerRequest.getCreationPolicySection().isBound()).isFalse();
+
+        // sections are bound once the handler reads them
+        final ResourceHandlerRequest<TestModel> resourceHandlerRequest = wrapper.getRequest();
+        assertThat(resourceHandlerRequest.getDesiredResourceTagsSection().isBound()).isFalse();
+        assertThat(resourceHandlerRequest.getDesiredResourceTags()).containsEntry("tag1", "abc");
+        assertThat(requestData.getStackTagsSection().isBound()).isTrue();
+        assertThat(resourceHandlerRequest.getFeatures()).containsEntry("preventIdempotentResourceAdoption", true);
+        assertThat(handlerRequest.getFeaturesSection().isBound()).isTrue();
+        assertThat(requestData.getPreviousStackTagsSection().isBound()).isFalse();
+    }
+
+    @Test
+    public void invokeHandler_withSpanExporter_tracesEachPhase() throws IOException {
+        wrapper.setTransformResponse(resourceHandlerRequest);
+        final ProgressEvent<TestModel, TestContext> pe = ProgressEvent.<TestModel, TestContext>builder()
+            .status(OperationStatus.SUCCESS).resourceModel(TestModel.builder().property1("abc").property2(123).build()).build();
+        wrapper.setInvokeHandlerResponse(pe);
+        final InMemorySpanExporter exporter = new InMemorySpanExporter();
+        wrapper.spanExporter = exporter;
+
+        try (final InputStream in = loadRequestStream("create.request.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+        }
+
+        final List<Span> spans = exporter.getSpans();
+        assertThat(spans).extracting(Span::getName).containsExactly(SpanNames.DECODE, SpanNames.CREDENTIALS,
+            SpanNames.TRANSFORM, SpanNames.VALIDATE, SpanNames.CREDENTIALS, SpanNames.HANDLER, SpanNames.SANITIZE,
+            SpanNames.WRITE, SpanNames.INVOCATION);
+        final Span root = spans.get(spans.size() - 1);
+        assertThat(root.getParentSpanId()).isNull();
+        assertThat(root.getAttributes()).containsEntry("action", "CREATE").containsEntry("status", "SUCCESS");
+        assertThat(spans).allSatisfy(span -> assertThat(span.getTraceId()).isEqualTo(root.getTraceId()));
+        assertThat(exporter.getSpans(SpanNames.HANDLER).get(0).getParentSpanId()).isEqualTo(root.getSpanId());
+        assertThat(exporter.getSpans(SpanNames.SANITIZE).get(0).getParentSpanId())
+            .isEqualTo(exporter.getSpans(SpanNames.WRITE).get(0).getSpanId());
+        assertThat(Span.current()).isSameAs(Span.NOOP);
+    }
+
+    @Test
+    public void invokeHandler_spanExporterFails_invokesWithoutTracing() throws IOException {
+        wrapper.setTransformResponse(resourceHandlerRequest);
+        final ProgressEvent<TestModel, TestContext> pe = ProgressEvent.<TestModel, TestContext>builder()
+            .status(OperationStatus.SUCCESS).resourceModel(TestModel.builder().property1("abc").property2(123).build()).build();
+        wrapper.setInvokeHandlerResponse(pe);
+        // what every invocation after a failed exporter initialization sees
+        wrapper.spanExporterError = new NoClassDefFoundError("Could not initialize class ConfiguredExporter");
+
+        for (int invocation = 0; invocation < 2; invocation++) {
+            try (final InputStream in = loadRequestStream("create.request.json");
+                final ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                wrapper.processRequest(in, out);
+
+                final ProgressEvent<TestModel, TestContext> response = new Serializer().deserialize(out.toString(),
+                    new TypeReference<ProgressEvent<TestModel, TestContext>>() {
+                    });
+                assertThat(response.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+            }
+        }
+        assertThat(Span.current()).isSameAs(Span.NOOP);
+    }
+
+    @Test
+    public void invokeHandler_withCaptureDirectory_capturesRedactedInvocation(@TempDir final Path captureDirectory)
+        throws IOException {
+        wrapper.setTransformResponse(resourceHandlerRequest);
+        wrapper.setInvokeHandlerResponse(ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS).build());
+        wrapper.captureDirectory = captureDirectory;
+
+        try (final InputStream in = loadRequestStream("create.request.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+        }
+
+        final List<Path> captures = new ArrayList<>();
+        Files.newDirectoryStream(captureDirectory).forEach(captures::add);
+        assertThat(captures).hasSize(1);
+        final String capture = new String(Files.readAllBytes(captures.get(0)), StandardCharsets.UTF_8);
+        assertThat(capture).doesNotContain("IASAYK835GAIFHAHEI23", "66iOGPN5LnpZorcLr8Kh25u8AbjHVllv5/poh2O0",
+            "HDI0745692Y45IUTYR78", "\"123456\"");
+        final String[] lines = capture.split("\n");
+        assertThat(lines).hasSize(2);
+        final JSONObject request = new JSONObject(lines[0]);
+        assertThat(request.getString("type")).isEqualTo("request");
+        assertThat(request.getJSONObject("request").getString("action")).isEqualTo("CREATE");
+        assertThat(new JSONObject(lines[1]).getString("status")).isEqualTo("SUCCESS");
+    }
+
+    @Test
+    public void invokeHandler_withServiceCallInterceptor_interceptsProxyCalls(@TempDir final Path captureDirectory)
+        throws IOException {
+        wrapper.setTransformResponse(resourceHandlerRequest);
+        wrapper.setInvokeHandlerResponse(ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS).build());
+        wrapper.captureDirectory = captureDirectory;
+        final DescribeStackEventsResponse intercepted = DescribeStackEventsResponse.builder().nextToken("intercepted").build();
+        final ServiceCallInterceptor interceptor = new ServiceCallInterceptor() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <RequestT extends AwsRequest, ResultT extends AwsResponse> ResultT intercept(final RequestT request,
+                                                                                                final Function<RequestT,
+                                                                                                    ResultT> call) {
+                return (ResultT) intercepted;
+            }
+        };
+
+        try (final InputStream in = loadRequestStream("create.request.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out, interceptor);
+        }
+
+        final DescribeStackEventsResponse response = wrapper.awsClientProxy.injectCredentialsAndInvokeV2(
+            DescribeStackEventsRequest.builder().build(), request -> DescribeStackEventsResponse.builder().build());
+        assertThat(response).isSameAs(intercepted);
+        // invocations replayed through an interceptor are not captured again
+        assertThat(captureDirectory.toFile().list()).isEmpty();
+    }
+
+    @Test
+    public void invokeHandler_responseOverByteLimit_returnsFailed() throws IOException {
+        wrapper.setTransformResponse(resourceHandlerRequest);
+        final ProgressEvent<TestModel, TestContext> pe = ProgressEvent.<TestModel, TestContext>builder()
+            .status(OperationStatus.IN_PROGRESS).resourceModel(TestModel.builder().property1("abc").property2(123).build())
+            .build();
+        wrapper.setInvokeHandlerResponse(pe);
+        wrapper.responseByteLimit = 16L;
+
+        try (final InputStream in = loadRequestStream("create.request.json");
+            final ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+
+            // the whole response is a failure, no part of the oversized one is written
+            final ProgressEvent<TestModel, TestContext> response = new Serializer().deserialize(out.toString(),
+                new TypeReference<ProgressEvent<TestModel, TestContext>>() {
+                });
+            assertThat(response.getStatus()).isEqualTo(OperationStatus.FAILED);
+            assertThat(response.getErrorCode()).isEqualTo(HandlerErrorCode.InternalFailure);
+            assertThat(response.getMessage()).isEqualTo("Response exceeds the limit of 16 bytes");
+            assertThat(response.getResourceModel()).isNull();
+
+            // bookkeeping after the write still runs
+            verify(providerMetricsPublisher).publishExceptionByErrorCodeAndCountBulkMetrics(any(Instant.class),
+                eq(Action.CREATE), eq(HandlerErrorCode.InternalFailure));
+        }
+    }
+
+    @Test
+    public void invokeHandler_responseOverByteLimitPastGeneratorBuffer_returnsFailed() throws IOException {
+        wrapper.setTransformResponse(resourceHandlerRequest);
+        // large enough for part of the response to be written before the limit is hit
+        final String large = StringUtils.repeat('x', 20_000);
+        wrapper.setInvokeHandlerResponse(ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.IN_PROGRESS)
+            .resourceModel(TestModel.builder().property1(large).build()).build());
+        wrapper.responseByteLimit = 10_000L;
+
+        // streamed into the in-memory output, which is emptied again
+        try (final InputStream in = loadRequestStream("create.request.json");
+            final ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+
+            assertThat(new JSONObject(out.toString()).getString("status")).isEqualTo(OperationStatus.FAILED.name());
+        }
+
+        wrapper.setInvokeHandlerResponse(ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.IN_PROGRESS)
+            .resourceModel(TestModel.builder().property1(large).build()).build());
+        // buffered for any other output
+        try (final InputStream in = loadRequestStream("create.request.json");
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final OutputStream out = new FilterOutputStream(bytes)) {
+            wrapper.processRequest(in, out);
+
+            assertThat(new JSONObject(bytes.toString()).getString("status")).isEqualTo(OperationStatus.FAILED.name());
+        }
+    }
+
     @Test
     public void invokeHandler_withDefaultInjection_returnsInProgress() throws IOException {
         final TestModel model = new TestModel();
@@ -984,6 +1390,7 @@ public class WrapperTest {
                 any(HandlerErrorCode.class));
 
             // no further calls to metrics publisher should occur
+            verify(providerMetricsPublisher, atLeastOnce()).flush();
             verifyNoMoreInteractions(providerMetricsPublisher);
 
             // verify output response
@@ -1184,4 +1591,74 @@ public class WrapperTest {
         assertThat(stackId).isNotNull();
         assertThat(stackId).isEqualTo("AWSStackId");
     }
+
+    @Test
+    public void prime_warmsRequestProcessingWithoutInvokingHandler() throws Exception {
+        final boolean[] primed = { false };
+        final WrapperOverride wrapper = new WrapperOverride(providerLoggingCredentialsProvider, platformEventsLogger,
+                                                            providerEventsLogger, providerMetricsPublisher, validator,
+                                                            httpClient) {
+            @Override
+            protected void primeHandler() {
+                primed[0] = true;
+            }
+        };
+
+        wrapper.prime();
+
+        assertThat(primed[0]).isTrue();
+        assertThat(wrapper.action).isNull();
+        assertThat(wrapper.loggerProxy).isNull();
+        assertThat(wrapper.metricsPublisherProxy).isNull();
+        verify(validator).validateObject(any(JSONObject.class), any(JSONObject.class));
+        verifyNoInteractions(providerLoggingCredentialsProvider, providerMetricsPublisher, providerEventsLogger, httpClient);
+    }
+
+    @Test
+    public void beforeCheckpoint_primingFailuresAreNotFatal() throws Exception {
+        final WrapperOverride wrapper = new WrapperOverride(providerLoggingCredentialsProvider, platformEventsLogger,
+                                                            providerEventsLogger, providerMetricsPublisher, validator,
+                                                            httpClient) {
+            @Override
+            protected void primeHandler() {
+                throw new IllegalStateException("no clients");
+            }
+        };
+        doThrow(new ValidationException("missing", "required", "#")).when(validator).validateObject(any(JSONObject.class),
+            any(JSONObject.class));
+
+        wrapper.beforeCheckpoint();
+        wrapper.afterRestore();
+
+        verify(validator).validateObject(any(JSONObject.class), any(JSONObject.class));
+        assertThat(wrapper.action).isNull();
+    }
+
+    @Test
+    public void invokeHandler_resourceUsageMetrics_publishedWhenEnabled() throws IOException {
+        final WrapperOverride wrapper = new WrapperOverride(providerLoggingCredentialsProvider, platformEventsLogger,
+                                                            providerEventsLogger, providerMetricsPublisher, validator,
+                                                            httpClient) {
+            @Override
+            protected WrapperSettings provideSettings() {
+                return super.provideSettings().toBuilder().resourceUsageMetrics(true).build();
+            }
+        };
+        wrapper.setInvokeHandlerResponse(ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS).build());
+        lenient().when(resourceHandlerRequest.getDesiredResourceState()).thenReturn(new TestModel());
+        wrapper.setTransformResponse(resourceHandlerRequest);
+
+        try (final InputStream in = loadRequestStream("read.request.json");
+            final OutputStream out = new ByteArrayOutputStream()) {
+            wrapper.processRequest(in, out);
+        }
+
+        final ArgumentCaptor<ThreadUsage> handler = ArgumentCaptor.forClass(ThreadUsage.class);
+        final ArgumentCaptor<ThreadUsage> framework = ArgumentCaptor.forClass(ThreadUsage.class);
+        verify(providerMetricsPublisher).publishResourceUsageMetric(any(Instant.class), eq(Action.READ), handler.capture(),
+            framework.capture());
+        assertThat(handler.getValue().getAllocatedBytes()).isNotNegative();
+        assertThat(framework.getValue().getAllocatedBytes()).isPositive();
+        verify(providerEventsLogger).publishLogEvent(contains("Invocation resource usage handlerCpuMicros="));
+    }
 }
@@ -0,0 +1,51 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.injection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClientBuilder;
+
+public class AmazonWebServicesProviderTest {
+
+    @Test
+    public void defaultClient_reportsToStatisticsOnlyWhenEnabled() {
+        final CredentialsProvider credentialsProvider = mock(CredentialsProvider.class);
+        when(credentialsProvider.get()).thenReturn(AwsSessionCredentials.create("id", "secret", "token"));
+        final CloudWatchProvider provider = new CloudWatchProvider(credentialsProvider, mock(SdkHttpClient.class));
+
+        assertThat(overrideConfiguration(provider).metricPublishers()).isEmpty();
+
+        provider.setHttpClientMetrics(true);
+        assertThat(overrideConfiguration(provider).metricPublishers()).containsExactly(SharedHttpClient.statistics());
+    }
+
+    private static ClientOverrideConfiguration overrideConfiguration(final CloudWatchProvider provider) {
+        final CloudWatchClientBuilder builder = mock(CloudWatchClientBuilder.class, RETURNS_SELF);
+        provider.defaultClient(builder);
+        final ArgumentCaptor<ClientOverrideConfiguration> configuration = ArgumentCaptor
+            .forClass(ClientOverrideConfiguration.class);
+        verify(builder).overrideConfiguration(configuration.capture());
+        return configuration.getValue();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.injection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class HttpClientSettingTest {
+
+    @AfterEach
+    public void clearProperties() {
+        for (final HttpClientSetting setting : HttpClientSetting.values()) {
+            System.clearProperty(setting.property());
+        }
+    }
+
+    @Test
+    public void defaults_matchTheSdk() {
+        assertThat(HttpClientSetting.MAX_CONNECTIONS.intValue()).isEqualTo(50);
+        assertThat(HttpClientSetting.CONNECTION_TIMEOUT.millisValue()).isEqualTo(Duration.ofSeconds(2));
+        assertThat(HttpClientSetting.SOCKET_TIMEOUT.millisValue()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(HttpClientSetting.CONNECTION_ACQUISITION_TIMEOUT.millisValue()).isEqualTo(Duration.ofSeconds(10));
+        assertThat(HttpClientSetting.CONNECTION_TIME_TO_LIVE.millisValue()).isEqualTo(Duration.ZERO);
+        assertThat(HttpClientSetting.CONNECTION_MAX_IDLE_TIME.millisValue()).isEqualTo(Duration.ofMinutes(1));
+        assertThat(HttpClientSetting.TCP_KEEP_ALIVE.booleanValue()).isFalse();
+        assertThat(HttpClientSetting.PRECONNECT.booleanValue()).isFalse();
+    }
+
+    @Test
+    public void values_overriddenBySystemProperties() {
+        System.setProperty("cfn.http.maxConnections", " 8 ");
+        System.setProperty("cfn.http.connectionTimeToLiveMillis", "300000");
+        System.setProperty("cfn.http.tcpKeepAlive", "true");
+
+        assertThat(HttpClientSetting.MAX_CONNECTIONS.intValue()).isEqualTo(8);
+        assertThat(HttpClientSetting.CONNECTION_TIME_TO_LIVE.millisValue()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(HttpClientSetting.TCP_KEEP_ALIVE.booleanValue()).isTrue();
+        SharedHttpClient.build(new HttpClientStatistics()).close();
+    }
+
+    @Test
+    public void values_unparseableFallBackToDefault() {
+        System.setProperty("cfn.http.maxConnections", "many");
+        System.setProperty("cfn.http.socketTimeoutMillis", "30s");
+
+        assertThat(HttpClientSetting.MAX_CONNECTIONS.intValue()).isEqualTo(50);
+        assertThat(HttpClientSetting.SOCKET_TIMEOUT.millisValue()).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    public void preconnect_onlyWhenEnabled() throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            final List<URI> endpoints = Arrays.asList(URI.create("http://localhost:" + server.getAddress().getPort()),
+                URI.create("http://localhost:1"));
+            assertThat(SharedHttpClient.preconnect(endpoints)).isZero();
+
+            // endpoints which cannot be reached are skipped
+            System.setProperty("cfn.http.preconnect", "true");
+            assertThat(SharedHttpClient.preconnect(endpoints)).isEqualTo(1);
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.injection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricCollector;
+
+public class HttpClientStatisticsTest {
+
+    @Test
+    public void publish_tracksPoolExtremesAcrossRequests() {
+        final HttpClientStatistics statistics = new HttpClientStatistics();
+        statistics.publish(apiCall(3, 1, 7));
+        statistics.publish(apiCall(5, 0, 2));
+        statistics.publish(apiCall(1, 4, 9));
+
+        final HttpClientStatistics.Snapshot snapshot = statistics.snapshotAndReset();
+        assertThat(snapshot.getRequests()).isEqualTo(3);
+        assertThat(snapshot.getLeasedConnections()).isEqualTo(5);
+        assertThat(snapshot.getPendingAcquires()).isEqualTo(4);
+        assertThat(snapshot.getAvailableConnections()).isEqualTo(2);
+        assertThat(snapshot.getConnects()).isZero();
+        assertThat(snapshot.isEmpty()).isFalse();
+    }
+
+    @Test
+    public void publish_ignoresCallsWithoutPoolMetrics() {
+        final HttpClientStatistics statistics = new HttpClientStatistics();
+        final MetricCollector collector = MetricCollector.create("ApiCall");
+        collector.reportMetric(CoreMetric.SERVICE_ID, "CloudWatch");
+        statistics.publish(collector.collect());
+
+        assertThat(statistics.snapshotAndReset().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void snapshotAndReset_averagesConnectLatencyAndResets() {
+        final HttpClientStatistics statistics = new HttpClientStatistics();
+        statistics.recordConnect(TimeUnit.MILLISECONDS.toNanos(30));
+        statistics.recordConnect(TimeUnit.MILLISECONDS.toNanos(50));
+
+        final HttpClientStatistics.Snapshot snapshot = statistics.snapshotAndReset();
+        assertThat(snapshot.getConnects()).isEqualTo(2);
+        assertThat(snapshot.getConnectLatencyMilliseconds()).isEqualTo(40);
+        assertThat(snapshot.getRequests()).isZero();
+        assertThat(statistics.snapshotAndReset().isEmpty()).isTrue();
+    }
+
+    private static MetricCollection apiCall(final int leased, final int pending, final int available) {
+        // the HTTP client reports the pool state on the attempt, not the call
+        final MetricCollector call = MetricCollector.create("ApiCall");
+        final MetricCollector attempt = call.createChild("ApiCallAttempt").createChild("HttpClient");
+        attempt.reportMetric(HttpMetric.LEASED_CONCURRENCY, leased);
+        attempt.reportMetric(HttpMetric.PENDING_CONCURRENCY_ACQUIRES, pending);
+        attempt.reportMetric(HttpMetric.AVAILABLE_CONCURRENCY, available);
+        return call.collect();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.injection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class PendingRequestsTest {
+
+    @Test
+    public void join_waitsForPendingRequests() {
+        final PendingRequests pendingRequests = new PendingRequests();
+        final CompletableFuture<String> slow = pendingRequests.track(new CompletableFuture<>());
+        final CompletableFuture<String> failed = pendingRequests.track(new CompletableFuture<>());
+        CompletableFuture.runAsync(() -> slow.complete("done"), CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        failed.completeExceptionally(new IllegalStateException("throttled"));
+
+        assertThat(pendingRequests.join(Duration.ofSeconds(10))).isZero();
+        assertThat(slow).isCompletedWithValue("done");
+        assertThat(pendingRequests.size()).isZero();
+    }
+
+    @Test
+    public void join_cancelsRequestsPastTheDeadline() {
+        final PendingRequests pendingRequests = new PendingRequests();
+        final CompletableFuture<String> hung = pendingRequests.track(new CompletableFuture<>());
+        final CompletableFuture<String> alsoHung = pendingRequests.track(new CompletableFuture<>());
+        pendingRequests.track(CompletableFuture.completedFuture("done"));
+
+        final long start = System.nanoTime();
+        assertThat(pendingRequests.join(Duration.ofMillis(200))).isEqualTo(2);
+
+        // the deadline is shared, not per request
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(2));
+        assertThat(hung).isCancelled();
+        assertThat(alsoHung).isCancelled();
+        assertThat(pendingRequests.size()).isZero();
+    }
+}
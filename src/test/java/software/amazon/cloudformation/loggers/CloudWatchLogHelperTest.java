@@ -23,6 +23,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -34,6 +35,7 @@ import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogStreamReque
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceAlreadyExistsException;
 import software.amazon.cloudformation.injection.CloudWatchLogsProvider;
 import software.amazon.cloudformation.proxy.LoggerProxy;
 import software.amazon.cloudformation.proxy.MetricsPublisherProxy;
@@ -55,6 +57,11 @@ public class CloudWatchLogHelperTest {
 
     private static final String LOG_GROUP_NAME = "log-group-name";
 
+    @BeforeEach
+    public void setup() {
+        CloudWatchLogHelper.forgetExistingLogGroups();
+    }
+
     @Test
     public void testWithExistingLogGroup() {
         final CloudWatchLogHelper cloudWatchLogHelper = new CloudWatchLogHelper(cloudWatchLogsProvider, LOG_GROUP_NAME,
@@ -206,4 +213,60 @@ public class CloudWatchLogHelperTest {
         verify(cloudWatchLogsClient).createLogStream(createLogStreamRequestArgumentCaptor.getValue());
         verifyNoMoreInteractions(cloudWatchLogsProvider, platformLogger, metricsPublisherProxy);
     }
+
+    @Test
+    public void testLogGroupExistenceCachedPerAccount() {
+        final DescribeLogGroupsResponse describeLogGroupsResponse = DescribeLogGroupsResponse.builder()
+            .logGroups(LogGroup.builder().logGroupName(LOG_GROUP_NAME).build()).build();
+        when(cloudWatchLogsProvider.get()).thenReturn(cloudWatchLogsClient);
+        when(cloudWatchLogsClient.describeLogGroups(any(DescribeLogGroupsRequest.class))).thenReturn(describeLogGroupsResponse);
+
+        for (final String account : new String[] { "123456789012", "123456789012", "210987654321" }) {
+            final CloudWatchLogHelper cloudWatchLogHelper = new CloudWatchLogHelper(cloudWatchLogsProvider, LOG_GROUP_NAME,
+                                                                                    account, platformLogger,
+                                                                                    metricsPublisherProxy);
+            cloudWatchLogHelper.refreshClient();
+            assertThat(cloudWatchLogHelper.prepareLogStream()).isNotNull();
+        }
+
+        // described once per account, a new stream each time
+        verify(cloudWatchLogsClient, times(2)).describeLogGroups(any(DescribeLogGroupsRequest.class));
+        verify(cloudWatchLogsClient, times(3)).createLogStream(any(CreateLogStreamRequest.class));
+        verifyNoMoreInteractions(cloudWatchLogsClient);
+    }
+
+    @Test
+    public void testLogGroupCreatedConcurrently() {
+        final CloudWatchLogHelper cloudWatchLogHelper = new CloudWatchLogHelper(cloudWatchLogsProvider, LOG_GROUP_NAME,
+                                                                                platformLogger, metricsPublisherProxy);
+        when(cloudWatchLogsProvider.get()).thenReturn(cloudWatchLogsClient);
+        when(cloudWatchLogsClient.describeLogGroups(any(DescribeLogGroupsRequest.class)))
+            .thenReturn(DescribeLogGroupsResponse.builder().logGroups(ImmutableList.of()).build());
+        when(cloudWatchLogsClient.createLogGroup(any(CreateLogGroupRequest.class)))
+            .thenThrow(ResourceAlreadyExistsException.builder().message("exists").build());
+
+        cloudWatchLogHelper.refreshClient();
+        assertThat(cloudWatchLogHelper.prepareLogStream()).isNotNull();
+
+        verify(cloudWatchLogsClient).createLogStream(any(CreateLogStreamRequest.class));
+        verifyNoMoreInteractions(metricsPublisherProxy);
+    }
+
+    @Test
+    public void testExistingLogGroupsAreCapped() {
+        when(cloudWatchLogsProvider.get()).thenReturn(cloudWatchLogsClient);
+        when(cloudWatchLogsClient.describeLogGroups(any(DescribeLogGroupsRequest.class)))
+            .thenReturn(DescribeLogGroupsResponse.builder().logGroups(LogGroup.builder().logGroupName(LOG_GROUP_NAME).build())
+                .build());
+
+        for (int account = 0; account <= CloudWatchLogHelper.MAX_EXISTING_LOG_GROUPS; account++) {
+            final CloudWatchLogHelper cloudWatchLogHelper = new CloudWatchLogHelper(cloudWatchLogsProvider, LOG_GROUP_NAME,
+                                                                                    String.valueOf(account), platformLogger,
+                                                                                    metricsPublisherProxy);
+            cloudWatchLogHelper.refreshClient();
+            cloudWatchLogHelper.prepareLogStream();
+        }
+
+        assertThat(CloudWatchLogHelper.existingLogGroups()).isEqualTo(CloudWatchLogHelper.MAX_EXISTING_LOG_GROUPS);
+    }
 }
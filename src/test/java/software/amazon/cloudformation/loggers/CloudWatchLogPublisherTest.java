@@ -18,17 +18,30 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogStreamRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.DescribeLogGroupsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InputLogEvent;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.awssdk.services.cloudwatchlogs.model.PutLogEventsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.PutLogEventsResponse;
 import software.amazon.cloudformation.injection.CloudWatchLogsProvider;
 import software.amazon.cloudformation.proxy.LoggerProxy;
 import software.amazon.cloudformation.proxy.MetricsPublisherProxy;
@@ -100,6 +113,29 @@ public class CloudWatchLogPublisherTest {
         verifyNoMoreInteractions(cloudWatchLogsProvider);
     }
 
+    @Test
+    public void testPublishLogEventsBatch() {
+        final CloudWatchLogPublisher logPublisher = new CloudWatchLogPublisher(cloudWatchLogsProvider, LOG_GROUP_NAME,
+                                                                               LOG_STREAM_NAME, platformLoggerProxy,
+                                                                               metricsPublisherProxy);
+        final ArgumentCaptor<
+            PutLogEventsRequest> putLogEventsRequestArgumentCaptor = ArgumentCaptor.forClass(PutLogEventsRequest.class);
+
+        when(cloudWatchLogsProvider.get()).thenReturn(cloudWatchLogsClient);
+        when(cloudWatchLogsClient.putLogEvents(putLogEventsRequestArgumentCaptor.capture())).thenReturn(null);
+        logPublisher.refreshClient();
+        logPublisher.publishLogEvents(Arrays.asList("first", "second"));
+        logPublisher.publishLogEvents(Collections.emptyList());
+
+        final PutLogEventsRequest request = putLogEventsRequestArgumentCaptor.getValue();
+        assertThat(request.logStreamName()).isEqualTo(LOG_STREAM_NAME);
+        assertThat(request.logEvents()).extracting(InputLogEvent::message).containsExactly("first", "second");
+        assertThat(request.overrideConfiguration().get().headers()).containsEntry("x-amzn-logs-format",
+            Collections.singletonList("json/emf"));
+        verify(cloudWatchLogsClient).putLogEvents(request);
+        verifyNoMoreInteractions(cloudWatchLogsClient);
+    }
+
     @Test
     public void testPublishLogEventsWithoutRefreshingClient() {
         final CloudWatchLogPublisher logPublisher = new CloudWatchLogPublisher(cloudWatchLogsProvider, LOG_GROUP_NAME,
@@ -156,4 +192,114 @@ public class CloudWatchLogPublisherTest {
 
         verifyNoMoreInteractions(cloudWatchLogsProvider);
     }
+
+    @Test
+    public void testLogStreamCreatedWithFirstLogEvent() {
+        CloudWatchLogHelper.forgetExistingLogGroups();
+        final CloudWatchLogHelper logStreamHelper = new CloudWatchLogHelper(cloudWatchLogsProvider, LOG_GROUP_NAME,
+                                                                            "123456789012", platformLoggerProxy,
+                                                                            metricsPublisherProxy);
+        final CloudWatchLogPublisher logPublisher = new CloudWatchLogPublisher(cloudWatchLogsProvider, logStreamHelper,
+                                                                               platformLoggerProxy, metricsPublisherProxy);
+        final ArgumentCaptor<
+            CreateLogStreamRequest> createLogStreamRequestArgumentCaptor = ArgumentCaptor.forClass(CreateLogStreamRequest.class);
+        final ArgumentCaptor<
+            PutLogEventsRequest> putLogEventsRequestArgumentCaptor = ArgumentCaptor.forClass(PutLogEventsRequest.class);
+
+        when(cloudWatchLogsProvider.get()).thenReturn(cloudWatchLogsClient);
+        when(cloudWatchLogsClient.describeLogGroups(any(DescribeLogGroupsRequest.class)))
+            .thenReturn(DescribeLogGroupsResponse.builder().logGroups(LogGroup.builder().logGroupName(LOG_GROUP_NAME).build())
+                .build());
+        final CountDownLatch release = new CountDownLatch(1);
+        when(cloudWatchLogsClient.createLogStream(createLogStreamRequestArgumentCaptor.capture())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        when(cloudWatchLogsClient.putLogEvents(putLogEventsRequestArgumentCaptor.capture()))
+            .thenReturn(PutLogEventsResponse.builder().nextSequenceToken("token").build());
+        logStreamHelper.refreshClient();
+        logPublisher.refreshClient();
+
+        verify(cloudWatchLogsClient, never()).createLogStream(any(CreateLogStreamRequest.class));
+
+        // not held up by the log stream being created
+        logPublisher.publishLogEvent("first");
+        logPublisher.publishLogEvents(Arrays.asList("second", "third"));
+        release.countDown();
+        logPublisher.flush();
+        logPublisher.publishLogEvent("fourth");
+
+        verify(cloudWatchLogsClient).describeLogGroups(any(DescribeLogGroupsRequest.class));
+        verify(cloudWatchLogsClient).createLogStream(any(CreateLogStreamRequest.class));
+        verify(cloudWatchLogsClient, times(2)).putLogEvents(any(PutLogEventsRequest.class));
+        final String logStreamName = createLogStreamRequestArgumentCaptor.getValue().logStreamName();
+        final List<PutLogEventsRequest> puts = putLogEventsRequestArgumentCaptor.getAllValues();
+        assertThat(puts).allSatisfy(request -> assertThat(request.logStreamName()).isEqualTo(logStreamName));
+        assertThat(puts.get(0).logEvents()).extracting(InputLogEvent::message).containsExactly("first", "second", "third");
+        assertThat(puts.get(1).sequenceToken()).isEqualTo("token");
+    }
+
+    @Test
+    public void testLogStreamCreationFailureSkipsLogging() {
+        CloudWatchLogHelper.forgetExistingLogGroups();
+        final CloudWatchLogHelper logStreamHelper = new CloudWatchLogHelper(cloudWatchLogsProvider, LOG_GROUP_NAME,
+                                                                            "123456789012", platformLoggerProxy,
+                                                                            metricsPublisherProxy);
+        final CloudWatchLogPublisher logPublisher = new CloudWatchLogPublisher(cloudWatchLogsProvider, logStreamHelper,
+                                                                               platformLoggerProxy, metricsPublisherProxy);
+
+        when(cloudWatchLogsProvider.get()).thenReturn(cloudWatchLogsClient);
+        when(cloudWatchLogsClient.describeLogGroups(any(DescribeLogGroupsRequest.class)))
+            .thenThrow(new RuntimeException("AccessDenied"));
+        logStreamHelper.refreshClient();
+        logPublisher.refreshClient();
+
+        logPublisher.publishLogEvent("first");
+        logPublisher.flush();
+        logPublisher.publishLogEvent("second");
+
+        // not retried for every message
+        verify(cloudWatchLogsClient).describeLogGroups(any(DescribeLogGroupsRequest.class));
+        verify(metricsPublisherProxy).publishProviderLogDeliveryExceptionMetric(any(), any());
+        verify(platformLoggerProxy).log(any());
+        verifyNoMoreInteractions(cloudWatchLogsClient);
+    }
+
+    @Test
+    public void testMetricsWaitForMessageBeingPublished() throws InterruptedException {
+        final CloudWatchLogPublisher logPublisher = new CloudWatchLogPublisher(cloudWatchLogsProvider, LOG_GROUP_NAME,
+                                                                               LOG_STREAM_NAME, platformLoggerProxy,
+                                                                               metricsPublisherProxy);
+        final CountDownLatch putStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> sequenceTokens = Collections.synchronizedList(new ArrayList<>());
+
+        when(cloudWatchLogsProvider.get()).thenReturn(cloudWatchLogsClient);
+        when(cloudWatchLogsClient.putLogEvents(any(PutLogEventsRequest.class))).thenAnswer(invocation -> {
+            final PutLogEventsRequest request = invocation.getArgument(0);
+            sequenceTokens.add(String.valueOf(request.sequenceToken()));
+            if (sequenceTokens.size() == 1) {
+                putStarted.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return PutLogEventsResponse.builder().nextSequenceToken("token-" + sequenceTokens.size()).build();
+        });
+        logPublisher.refreshClient();
+
+        // a message on the dispatcher of an asynchronous LoggerProxy, metrics flushed
+        // on the invocation thread meanwhile
+        final Thread dispatcher = new Thread(() -> logPublisher.publishLogEvent("message"));
+        dispatcher.start();
+        assertThat(putStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        final Thread invocation = new Thread(() -> logPublisher.publishLogEvents(Collections.singletonList("{}")));
+        invocation.start();
+        while (invocation.isAlive() && invocation.getState() != Thread.State.BLOCKED) {
+            Thread.yield();
+        }
+        release.countDown();
+        dispatcher.join(5000);
+        invocation.join(5000);
+
+        assertThat(sequenceTokens).containsExactly("null", "token-1");
+    }
 }
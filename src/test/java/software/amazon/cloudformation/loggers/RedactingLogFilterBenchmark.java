@@ -0,0 +1,97 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.loggers;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the throughput of {@link RedactingLogFilter} with the equivalent
+ * chain of one regex filter per secret, as applied by {@link LogPublisher}, and
+ * with a chain of one {@link RedactingLogFilter} per secret, which the
+ * publisher merges.
+ * Not run as part of the build, run main() from the IDE or with
+ * {@code mvn exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=software.amazon.cloudformation.loggers.RedactingLogFilterBenchmark}
+ */
+public final class RedactingLogFilterBenchmark {
+
+    private static final int SECRETS = 16;
+    private static final int MESSAGES = 1_000;
+    private static final int MESSAGE_LENGTH = 4 * 1024;
+    private static final int ROUNDS = 20;
+
+    private RedactingLogFilterBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final Random random = new Random(42L);
+        final String[] secrets = new String[SECRETS];
+        final RedactingLogFilter.Builder builder = RedactingLogFilter.builder();
+        final LogFilter[] chain = new LogFilter[SECRETS];
+        final LogFilter[] redactions = new LogFilter[SECRETS];
+        for (int i = 0; i < SECRETS; i++) {
+            secrets[i] = "secret-" + Long.toHexString(random.nextLong());
+            builder.literal(secrets[i]);
+            final Pattern pattern = Pattern.compile(Pattern.quote(secrets[i]));
+            final String replacement = Matcher.quoteReplacement(RedactingLogFilter.DEFAULT_REPLACEMENT);
+            chain[i] = message -> pattern.matcher(message).replaceAll(replacement);
+            redactions[i] = RedactingLogFilter.builder().literal(secrets[i]).build();
+        }
+        final LogPublisher chained = new Discarding(chain);
+        final LogPublisher composite = new Discarding(builder.build());
+        final LogPublisher merged = new Discarding(redactions);
+
+        final String[] messages = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            final StringBuilder message = new StringBuilder(MESSAGE_LENGTH);
+            while (message.length() < MESSAGE_LENGTH) {
+                message.append(random.nextInt(20) == 0 ? secrets[random.nextInt(SECRETS)] : "request-" + random.nextInt())
+                    .append(' ');
+            }
+            messages[i] = message.toString();
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            final double chainedRate = run(chained, messages);
+            final double compositeRate = run(composite, messages);
+            final double mergedRate = run(merged, messages);
+            System.out.printf("round %2d: chain %,10.0f msg/s, composite %,10.0f msg/s (x%.1f), merged %,10.0f msg/s%n", round,
+                chainedRate, compositeRate, compositeRate / chainedRate, mergedRate);
+        }
+    }
+
+    private static double run(final LogPublisher publisher, final String[] messages) {
+        final long start = System.nanoTime();
+        for (String each : messages) {
+            publisher.publishLogEvent(each);
+        }
+        return messages.length / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static final class Discarding extends LogPublisher {
+        private int published;
+
+        private Discarding(final LogFilter... filters) {
+            super(filters);
+        }
+
+        @Override
+        protected void publishMessage(final String message) {
+            published += message.length();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.loggers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+public class RedactingLogFilterTest {
+
+    @Test
+    public void literalsAreRedactedInOnePass() {
+        final LogFilter filter = RedactingLogFilter.builder().literal("AKIDEXAMPLE").literal("s3cr3t").literal(null).literal("")
+            .build();
+
+        assertThat(filter.applyFilter("key=AKIDEXAMPLE secret=s3cr3t, again s3cr3t"))
+            .isEqualTo("key=<REDACTED> secret=<REDACTED>, again <REDACTED>");
+        assertThat(filter.applyFilter(null)).isNull();
+        assertThat(filter.applyFilter("")).isEmpty();
+    }
+
+    @Test
+    public void unmatchedMessageIsReturnedAsIs() {
+        final LogFilter filter = RedactingLogFilter.builder().literal("secret").build();
+        final String message = "nothing to see here, secre";
+
+        assertThat(filter.applyFilter(message)).isSameAs(message);
+        assertThat(RedactingLogFilter.builder().build().applyFilter(message)).isSameAs(message);
+    }
+
+    @Test
+    public void overlappingLiteralsAreRedactedAsOne() {
+        final LogFilter filter = RedactingLogFilter.builder().literal("b").literal("d").literal("abcde").literal("xy")
+            .literal("yz").replacement("*").build();
+
+        assertThat(filter.applyFilter("abcde")).isEqualTo("*");
+        assertThat(filter.applyFilter("-abcd-")).isEqualTo("-a*c*-");
+        assertThat(filter.applyFilter("xyz xy yz bd")).isEqualTo("* * * *");
+        assertThat(filter.applyFilter("été b")).isEqualTo("été *");
+    }
+
+    @Test
+    public void patternsAndLiteralsAreRedactedTogether() {
+        final LogFilter filter = RedactingLogFilter.builder().literal("token").literal("token-long")
+            .pattern("(?<=\"password\":\")[^\"]*").pattern(Pattern.compile("\\d{12}")).build();
+
+        assertThat(filter.applyFilter("{\"password\":\"hunter2\",\"account\":\"123456789012\"} token-long token"))
+            .isEqualTo("{\"password\":\"<REDACTED>\",\"account\":\"<REDACTED>\"} <REDACTED> <REDACTED>");
+        assertThat(filter.applyFilter("{\"password\":\"\"}")).isEqualTo("{\"password\":\"\"}");
+    }
+
+    @Test
+    public void literalAndPatternMatchesAreMerged() {
+        final LogFilter filter = RedactingLogFilter.builder().literal("abc").pattern("c\\d+").pattern("b\\d").pattern("x")
+            .replacement("*").build();
+
+        assertThat(filter.applyFilter("-abc12-ab9-xx-")).isEqualTo("-*-a*-*-");
+    }
+
+    @Test
+    public void consecutiveRedactingFiltersAreMerged() {
+        final LogFilter upper = String::toUpperCase;
+        final List<LogFilter> merged = RedactingLogFilter.merge(Arrays.asList(RedactingLogFilter.builder().literal("a")
+            .build(), RedactingLogFilter.builder().pattern("b+").build(), upper, RedactingLogFilter.builder().literal("C")
+                .build(), RedactingLogFilter.builder().literal("D").replacement("#").build()));
+
+        assertThat(merged).hasSize(4);
+        assertThat(merged.get(0).applyFilter("abbc")).isEqualTo("<REDACTED>c");
+        assertThat(merged.get(1)).isSameAs(upper);
+
+        final LogPublisher publisher = new LogPublisher(merged.toArray(new LogFilter[0])) {
+            @Override
+            protected void publishMessage(final String message) {
+                assertThat(message).isEqualTo("<REDACTED> <REDACTED> <REDACTED> #");
+            }
+        };
+        publisher.publishLogEvent("a bb c d");
+    }
+
+    @Test
+    public void matchesChainOfSingleFilters() {
+        final String[] secrets = { "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel" };
+        final RedactingLogFilter.Builder builder = RedactingLogFilter.builder();
+        final LogFilter[] chain = new LogFilter[secrets.length];
+        for (int i = 0; i < secrets.length; i++) {
+            final String secret = secrets[i];
+            builder.literal(secret);
+            chain[i] = message -> message.replace(secret, RedactingLogFilter.DEFAULT_REPLACEMENT);
+        }
+        final LogFilter composite = builder.build();
+
+        final Random random = new Random(7L);
+        for (int i = 0; i < 200; i++) {
+            final StringBuilder message = new StringBuilder();
+            for (int j = 0; j < 50; j++) {
+                message.append(random.nextBoolean() ? secrets[random.nextInt(secrets.length)] : "word").append(' ');
+            }
+            String chained = message.toString();
+            for (LogFilter each : chain) {
+                chained = each.applyFilter(chained);
+            }
+            assertThat(composite.applyFilter(message.toString())).isEqualTo(chained);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataResponse;
+import software.amazon.cloudformation.Action;
+import software.amazon.cloudformation.HookInvocationPoint;
+import software.amazon.cloudformation.injection.CloudWatchProvider;
+import software.amazon.cloudformation.proxy.Logger;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncMetricsPublisherTest {
+
+    @Mock
+    private Logger loggerProxy;
+
+    @Mock
+    private CloudWatchProvider providerCloudWatchProvider;
+
+    @Mock
+    private CloudWatchAsyncClient providerCloudWatchClient;
+
+    @Test
+    public void testPublishDoesNotWaitForTheCall() {
+        final CompletableFuture<PutMetricDataResponse> response = new CompletableFuture<>();
+        final ArgumentCaptor<PutMetricDataRequest> request = ArgumentCaptor.forClass(PutMetricDataRequest.class);
+        when(providerCloudWatchProvider.getAsync()).thenReturn(providerCloudWatchClient);
+        when(providerCloudWatchClient.putMetricData(request.capture())).thenReturn(response);
+        final MetricsPublisherImpl providerMetricsPublisher = new MetricsPublisherImpl(providerCloudWatchProvider, loggerProxy,
+                                                                                       "AWS::Test::TestModel",
+                                                                                       Duration.ofSeconds(10));
+        providerMetricsPublisher.refreshClient();
+
+        providerMetricsPublisher.publishInvocationMetric(Instant.now(), Action.CREATE);
+
+        assertThat(response).isNotDone();
+        assertThat(request.getValue().namespace()).isEqualTo("AWS/CloudFormation/AWS/Test/TestModel");
+        CompletableFuture.runAsync(() -> response.complete(mock(PutMetricDataResponse.class)),
+            CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        providerMetricsPublisher.flush();
+        assertThat(response).isDone();
+    }
+
+    @Test
+    public void testFlushGivesUpAtTheDeadline() {
+        final CompletableFuture<PutMetricDataResponse> response = new CompletableFuture<>();
+        when(providerCloudWatchProvider.getAsync()).thenReturn(providerCloudWatchClient);
+        when(providerCloudWatchClient.putMetricData(any(PutMetricDataRequest.class))).thenReturn(response);
+        final HookMetricsPublisherImpl providerMetricsPublisher = new HookMetricsPublisherImpl(providerCloudWatchProvider,
+                                                                                               loggerProxy, "123456789012",
+                                                                                               "AWS::Test::TestModel",
+                                                                                               Duration.ofMillis(100));
+        providerMetricsPublisher.refreshClient();
+
+        providerMetricsPublisher.publishInvocationMetric(Instant.now(), HookInvocationPoint.CREATE_PRE_PROVISION);
+        providerMetricsPublisher.flush();
+
+        assertThat(response).isCancelled();
+        verify(loggerProxy).log(contains("1 metrics publications did not complete within PT0.1S"));
+    }
+
+    @Test
+    public void testPublishesSynchronouslyWithoutAsyncClient() {
+        final CloudWatchClient syncClient = mock(CloudWatchClient.class);
+        when(providerCloudWatchProvider.getAsync()).thenThrow(new IllegalStateException("no netty"));
+        when(providerCloudWatchProvider.get()).thenReturn(syncClient);
+        final MetricsPublisherImpl providerMetricsPublisher = new MetricsPublisherImpl(providerCloudWatchProvider, loggerProxy,
+                                                                                       "AWS::Test::TestModel",
+                                                                                       Duration.ofSeconds(10));
+        providerMetricsPublisher.refreshClient();
+
+        providerMetricsPublisher.publishInvocationMetric(Instant.now(), Action.CREATE);
+        providerMetricsPublisher.flush();
+
+        verify(syncClient).putMetricData(any(PutMetricDataRequest.class));
+        verify(loggerProxy).log(contains("Publishing metrics synchronously: no netty"));
+    }
+
+    @Test
+    public void testFailedCallIsLogged() {
+        final CompletableFuture<PutMetricDataResponse> response = new CompletableFuture<>();
+        when(providerCloudWatchProvider.getAsync()).thenReturn(providerCloudWatchClient);
+        when(providerCloudWatchClient.putMetricData(any(PutMetricDataRequest.class))).thenReturn(response);
+        final MetricsPublisherImpl providerMetricsPublisher = new MetricsPublisherImpl(providerCloudWatchProvider, loggerProxy,
+                                                                                       "AWS::Test::TestModel",
+                                                                                       Duration.ofSeconds(10));
+        providerMetricsPublisher.refreshClient();
+
+        providerMetricsPublisher.publishInvocationMetric(Instant.now(), Action.CREATE);
+        response.completeExceptionally(new IllegalStateException("Throttling"));
+        providerMetricsPublisher.flush();
+
+        verify(loggerProxy).log(contains("An error occurred while publishing metrics: Throttling"));
+    }
+}
@@ -0,0 +1,36 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+public class ClassDataSharingTest {
+
+    @Test
+    public void detect_distinguishesAppArchiveFromDefaultArchive() {
+        assertThat(ClassDataSharing.detect(true, "/opt/handler.jsa")).isEqualTo(ClassDataSharing.APP_ARCHIVE);
+        assertThat(ClassDataSharing.detect(true, "")).isEqualTo(ClassDataSharing.DEFAULT_ARCHIVE);
+        assertThat(ClassDataSharing.detect(true, null)).isEqualTo(ClassDataSharing.DEFAULT_ARCHIVE);
+        assertThat(ClassDataSharing.detect(false, "/opt/handler.jsa")).isEqualTo(ClassDataSharing.OFF);
+    }
+
+    @Test
+    public void status_isDetectedOnce() {
+        assertThat(ClassDataSharing.status()).isIn(ClassDataSharing.APP_ARCHIVE, ClassDataSharing.DEFAULT_ARCHIVE,
+            ClassDataSharing.OFF);
+        assertThat(ClassDataSharing.status()).isSameAs(ClassDataSharing.status());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ColdStartTest {
+
+    @BeforeEach
+    @AfterEach
+    public void reset() {
+        ColdStart.reset();
+    }
+
+    @Test
+    public void breakdownIsHandedOutOnceForFirstInvocation() {
+        assertThat(ColdStart.time(ColdStart.PHASE_SERIALIZER, () -> "serializer")).isEqualTo("serializer");
+        ColdStart.record(ColdStart.PHASE_PRIME, System.nanoTime() - 5_000_000L);
+        // invocation phases before the first invocation, e.g. while priming, are ignored
+        ColdStart.recordInvocation(ColdStart.PHASE_TRANSFORM, System.nanoTime());
+
+        assertThat(ColdStart.beginInvocation()).isTrue();
+        assertThat(ColdStart.beginInvocation()).isFalse();
+        ColdStart.recordInvocation(ColdStart.PHASE_DECODE, System.nanoTime());
+        ColdStart.recordInvocation(ColdStart.PHASE_HANDLER, System.nanoTime() - 20_000_000L);
+        // only the first occurrence of a phase counts
+        ColdStart.recordInvocation(ColdStart.PHASE_HANDLER, System.nanoTime() - 90_000_000L);
+
+        final Map<String, Long> phases = ColdStart.complete();
+        assertThat(phases).containsOnlyKeys(ColdStart.PHASE_SERIALIZER, ColdStart.PHASE_PRIME,
+            ColdStart.PHASE_UNTIL_FIRST_INVOCATION, ColdStart.PHASE_DECODE, ColdStart.PHASE_HANDLER,
+            ColdStart.PHASE_FIRST_INVOCATION);
+        assertThat(phases.get(ColdStart.PHASE_PRIME)).isGreaterThanOrEqualTo(5L);
+        assertThat(phases.get(ColdStart.PHASE_HANDLER)).isBetween(20L, 89L);
+        assertThat(phases.get(ColdStart.PHASE_UNTIL_FIRST_INVOCATION)).isPositive();
+
+        // once per container
+        assertThat(ColdStart.complete()).isNull();
+        assertThat(ColdStart.beginInvocation()).isFalse();
+        ColdStart.recordInvocation(ColdStart.PHASE_WRITE, System.nanoTime());
+        assertThat(ColdStart.time(ColdStart.PHASE_SCHEMA, () -> 1)).isEqualTo(1);
+        assertThat(ColdStart.complete()).isNull();
+    }
+
+    @Test
+    public void nothingHandedOutWithoutInvocation() {
+        ColdStart.record(ColdStart.PHASE_HTTP_CLIENT, System.nanoTime());
+
+        assertThat(ColdStart.complete()).isNull();
+    }
+}
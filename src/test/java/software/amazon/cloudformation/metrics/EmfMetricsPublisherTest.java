@@ -0,0 +1,138 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.cloudformation.Action;
+import software.amazon.cloudformation.HookInvocationPoint;
+import software.amazon.cloudformation.loggers.CloudWatchLogPublisher;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.Logger;
+
+@ExtendWith(MockitoExtension.class)
+public class EmfMetricsPublisherTest {
+
+    private static final Instant TIMESTAMP = Instant.ofEpochMilli(1600000000000L);
+
+    @Mock
+    private CloudWatchLogPublisher logPublisher;
+
+    @Mock
+    private Logger loggerProxy;
+
+    @Captor
+    private ArgumentCaptor<List<String>> documents;
+
+    @Test
+    public void flush_publishesMetricsSharingDimensionsInOneDocument() {
+        final EmfMetricsPublisher publisher = new EmfMetricsPublisher(logPublisher, loggerProxy, "AWS::Test::TestModel");
+        publisher.refreshClient();
+
+        publisher.publishInvocationMetric(TIMESTAMP, Action.CREATE);
+        publisher.publishDurationMetric(TIMESTAMP, Action.CREATE, 250);
+        verifyNoInteractions(logPublisher);
+        publisher.flush();
+
+        verify(logPublisher).publishLogEvents(documents.capture());
+        assertThat(documents.getValue()).hasSize(1);
+        final JSONObject document = new JSONObject(documents.getValue().get(0));
+        assertThat(document.getString("Action")).isEqualTo("CREATE");
+        assertThat(document.getString("ResourceType")).isEqualTo("AWS::Test::TestModel");
+        assertThat(document.getDouble(Metric.METRIC_NAME_HANDLER_INVOCATION_COUNT)).isEqualTo(1.0);
+        assertThat(document.getDouble(Metric.METRIC_NAME_HANDLER_DURATION)).isEqualTo(250.0);
+
+        final JSONObject aws = document.getJSONObject("_aws");
+        assertThat(aws.getLong("Timestamp")).isEqualTo(TIMESTAMP.toEpochMilli());
+        final JSONObject directive = aws.getJSONArray("CloudWatchMetrics").getJSONObject(0);
+        assertThat(directive.getString("Namespace")).isEqualTo("AWS/CloudFormation/AWS/Test/TestModel");
+        assertThat(directive.getJSONArray("Dimensions").getJSONArray(0).toList()).containsExactly("Action", "ResourceType");
+        final JSONArray metrics = directive.getJSONArray("Metrics");
+        assertThat(metrics.length()).isEqualTo(2);
+        assertThat(metrics.getJSONObject(0).getString("Name")).isEqualTo(Metric.METRIC_NAME_HANDLER_INVOCATION_COUNT);
+        assertThat(metrics.getJSONObject(0).getString("Unit")).isEqualTo("Count");
+        assertThat(metrics.getJSONObject(1).getString("Name")).isEqualTo(Metric.METRIC_NAME_HANDLER_DURATION);
+        assertThat(metrics.getJSONObject(1).getString("Unit")).isEqualTo("Milliseconds");
+
+        // nothing left to publish
+        publisher.flush();
+        verifyNoMoreInteractions(logPublisher);
+    }
+
+    @Test
+    public void flush_publishesEachDimensionValueInItsOwnDocument() {
+        final EmfMetricsPublisher publisher = new EmfMetricsPublisher(logPublisher, loggerProxy, "AWS::Test::TestModel");
+
+        publisher.publishExceptionByErrorCodeAndCountBulkMetrics(TIMESTAMP, Action.UPDATE, HandlerErrorCode.NotFound);
+        publisher.flush();
+
+        verify(logPublisher).publishLogEvents(documents.capture());
+        // one per error code, and the exception count
+        assertThat(documents.getValue()).hasSize(HandlerErrorCode.values().length + 1);
+        final List<String> notFound = new ArrayList<>();
+        for (final String each : documents.getValue()) {
+            final JSONObject document = new JSONObject(each);
+            if (document.has(Metric.METRIC_NAME_HANDLER_EXCEPTION_BY_ERROR_CODE)
+                && document.getDouble(Metric.METRIC_NAME_HANDLER_EXCEPTION_BY_ERROR_CODE) == 1.0) {
+                notFound.add(document.getString(Metric.DIMENSION_KEY_HANDLER_ERROR_CODE));
+            }
+        }
+        assertThat(notFound).containsExactly("NotFound");
+    }
+
+    @Test
+    public void flush_publishesRepeatedMetricAsValueList() {
+        final EmfMetricsPublisher publisher = new EmfMetricsPublisher(logPublisher, loggerProxy, "AWS::Test::TestModel");
+
+        publisher.publishDurationMetric(TIMESTAMP, Action.READ, 10);
+        publisher.publishDurationMetric(TIMESTAMP, Action.READ, 20);
+        publisher.flush();
+
+        verify(logPublisher).publishLogEvents(documents.capture());
+        final JSONArray values = new JSONObject(documents.getValue().get(0)).getJSONArray(Metric.METRIC_NAME_HANDLER_DURATION);
+        assertThat(values.length()).isEqualTo(2);
+        assertThat(values.getDouble(0)).isEqualTo(10.0);
+        assertThat(values.getDouble(1)).isEqualTo(20.0);
+    }
+
+    @Test
+    public void flush_hookMetricsUseAccountNamespace() {
+        final HookEmfMetricsPublisher publisher = new HookEmfMetricsPublisher(logPublisher, loggerProxy, "123456789012",
+                                                                              "AWS::Test::TestHook");
+        publisher.refreshClient();
+
+        publisher.publishInvocationMetric(TIMESTAMP, HookInvocationPoint.CREATE_PRE_PROVISION);
+        publisher.flush();
+
+        verify(logPublisher).publishLogEvents(documents.capture());
+        final JSONObject document = new JSONObject(documents.getValue().get(0));
+        assertThat(document.getString(Metric.DIMENSION_KEY_INVOCATION_POINT_TYPE)).isEqualTo("CREATE_PRE_PROVISION");
+        assertThat(document.getJSONObject("_aws").getJSONArray("CloudWatchMetrics").getJSONObject(0).getString("Namespace"))
+            .isEqualTo("AWS/CloudFormation/123456789012/AWS/Test/TestHook");
+    }
+}
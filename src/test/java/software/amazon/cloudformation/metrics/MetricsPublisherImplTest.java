@@ -15,12 +15,15 @@
 package software.amazon.cloudformation.metrics;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,6 +39,7 @@ import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataResponse;
 import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
 import software.amazon.cloudformation.Action;
 import software.amazon.cloudformation.injection.CloudWatchProvider;
+import software.amazon.cloudformation.injection.HttpClientStatistics;
 import software.amazon.cloudformation.proxy.HandlerErrorCode;
 import software.amazon.cloudformation.proxy.Logger;
 
@@ -91,6 +95,138 @@ public class MetricsPublisherImplTest {
             Dimension.builder().name("ResourceType").value(resourceTypeName).build());
     }
 
+    @Test
+    public void testPublishFileScrubMetric() {
+        final MetricsPublisherImpl providerMetricsPublisher = new MetricsPublisherImpl(providerCloudWatchProvider, loggerProxy,
+                                                                                       resourceTypeName);
+        providerMetricsPublisher.refreshClient();
+
+        final Instant instant = Instant.parse("2019-06-04T17:50:00Z");
+        providerMetricsPublisher.publishFileScrubMetric(instant, 12, 4096);
+
+        final ArgumentCaptor<PutMetricDataRequest> argument1 = ArgumentCaptor.forClass(PutMetricDataRequest.class);
+        verify(providerCloudWatchClient).putMetricData(argument1.capture());
+
+        final PutMetricDataRequest request = argument1.getValue();
+        assertThat(request.metricData()).hasSize(2);
+        final MetricDatum duration = request.metricData().get(0);
+        assertThat(duration.metricName()).isEqualTo("FileScrubDuration");
+        assertThat(duration.unit()).isEqualTo(StandardUnit.MILLISECONDS);
+        assertThat(duration.value()).isEqualTo(12);
+        final MetricDatum bytesFreed = request.metricData().get(1);
+        assertThat(bytesFreed.metricName()).isEqualTo("FileScrubBytesFreed");
+        assertThat(bytesFreed.unit()).isEqualTo(StandardUnit.BYTES);
+        assertThat(bytesFreed.value()).isEqualTo(4096);
+        assertThat(bytesFreed.timestamp()).isEqualTo(instant);
+        assertThat(bytesFreed.dimensions())
+            .containsExactly(Dimension.builder().name("ResourceType").value(resourceTypeName).build());
+    }
+
+    @Test
+    public void testPublishReinvocationMetric() {
+        final MetricsPublisherImpl providerMetricsPublisher = new MetricsPublisherImpl(providerCloudWatchProvider, loggerProxy,
+                                                                                       resourceTypeName);
+        providerMetricsPublisher.refreshClient();
+
+        final Instant instant = Instant.parse("2019-06-04T17:50:00Z");
+        providerMetricsPublisher.publishReinvocationMetric(instant, 250, 3);
+
+        final ArgumentCaptor<PutMetricDataRequest> argument1 = ArgumentCaptor.forClass(PutMetricDataRequest.class);
+        verify(providerCloudWatchClient).putMetricData(argument1.capture());
+
+        final PutMetricDataRequest request = argument1.getValue();
+        assertThat(request.metricData()).hasSize(2);
+        final MetricDatum lag = request.metricData().get(0);
+        assertThat(lag.metricName()).isEqualTo("ReinvocationLag");
+        assertThat(lag.unit()).isEqualTo(StandardUnit.MILLISECONDS);
+        assertThat(lag.value()).isEqualTo(250);
+        final MetricDatum queueDepth = request.metricData().get(1);
+        assertThat(queueDepth.metricName()).isEqualTo("ReinvocationQueueDepth");
+        assertThat(queueDepth.unit()).isEqualTo(StandardUnit.COUNT);
+        assertThat(queueDepth.value()).isEqualTo(3);
+        assertThat(queueDepth.timestamp()).isEqualTo(instant);
+        assertThat(queueDepth.dimensions())
+            .containsExactly(Dimension.builder().name("ResourceType").value(resourceTypeName).build());
+    }
+
+    @Test
+    public void testPublishHttpClientMetric() {
+        final MetricsPublisherImpl providerMetricsPublisher = new MetricsPublisherImpl(providerCloudWatchProvider, loggerProxy,
+                                                                                       resourceTypeName);
+        providerMetricsPublisher.refreshClient();
+
+        final Instant instant = Instant.parse("2019-06-04T17:50:00Z");
+        providerMetricsPublisher.publishHttpClientMetric(instant, new HttpClientStatistics.Snapshot(4, 3, 1, 47, 2, 85));
+
+        final ArgumentCaptor<PutMetricDataRequest> argument1 = ArgumentCaptor.forClass(PutMetricDataRequest.class);
+        verify(providerCloudWatchClient).putMetricData(argument1.capture());
+
+        final PutMetricDataRequest request = argument1.getValue();
+        assertThat(request.metricData()).extracting(MetricDatum::metricName, MetricDatum::unit, MetricDatum::value)
+            .containsExactly(tuple("HttpClientLeasedConnections", StandardUnit.COUNT, 3.0),
+            tuple("HttpClientPendingAcquires", StandardUnit.COUNT, 1.0),
+            tuple("HttpClientAvailableConnections", StandardUnit.COUNT, 47.0),
+            tuple("HttpClientConnectLatency", StandardUnit.MILLISECONDS, 85.0));
+        assertThat(request.metricData().get(0).timestamp()).isEqualTo(instant);
+        assertThat(request.metricData().get(0).dimensions())
+            .containsExactly(Dimension.builder().name("ResourceType").value(resourceTypeName).build());
+    }
+
+    @Test
+    public void testPublishColdStartMetric() {
+        final MetricsPublisherImpl providerMetricsPublisher = new MetricsPublisherImpl(providerCloudWatchProvider, loggerProxy,
+                                                                                       resourceTypeName);
+        providerMetricsPublisher.refreshClient();
+
+        final Instant instant = Instant.parse("2019-06-04T17:50:00Z");
+        final Map<String, Long> phases = new LinkedHashMap<>();
+        phases.put(ColdStart.PHASE_SERIALIZER, 120L);
+        phases.put(ColdStart.PHASE_HANDLER, 45L);
+        providerMetricsPublisher.publishColdStartMetric(instant, phases);
+
+        final ArgumentCaptor<PutMetricDataRequest> argument1 = ArgumentCaptor.forClass(PutMetricDataRequest.class);
+        verify(providerCloudWatchClient).putMetricData(argument1.capture());
+
+        final PutMetricDataRequest request = argument1.getValue();
+        assertThat(request.metricData()).hasSize(2);
+        final MetricDatum serializer = request.metricData().get(0);
+        assertThat(serializer.metricName()).isEqualTo("ColdStartPhaseDuration");
+        assertThat(serializer.unit()).isEqualTo(StandardUnit.MILLISECONDS);
+        assertThat(serializer.value()).isEqualTo(120);
+        assertThat(serializer.timestamp()).isEqualTo(instant);
+        assertThat(serializer.dimensions()).containsExactlyInAnyOrder(
+            Dimension.builder().name("Phase").value("Serializer").build(),
+            Dimension.builder().name("ResourceType").value(resourceTypeName).build());
+        assertThat(request.metricData().get(1).value()).isEqualTo(45);
+    }
+
+    @Test
+    public void testPublishResourceUsageMetric() {
+        final MetricsPublisherImpl providerMetricsPublisher = new MetricsPublisherImpl(providerCloudWatchProvider, loggerProxy,
+                                                                                       resourceTypeName);
+        providerMetricsPublisher.refreshClient();
+
+        final Instant instant = Instant.parse("2019-06-04T17:50:00Z");
+        providerMetricsPublisher.publishResourceUsageMetric(instant, Action.CREATE, new ThreadUsage(3_000_000L, 4096L),
+            new ThreadUsage(250_000L, 1024L));
+
+        final ArgumentCaptor<PutMetricDataRequest> argument1 = ArgumentCaptor.forClass(PutMetricDataRequest.class);
+        verify(providerCloudWatchClient).putMetricData(argument1.capture());
+
+        final PutMetricDataRequest request = argument1.getValue();
+        assertThat(request.metricData()).hasSize(4);
+        for (final MetricDatum datum : request.metricData()) {
+            assertThat(datum.timestamp()).isEqualTo(instant);
+            assertThat(datum.dimensions()).contains(Dimension.builder().name("Action").value("CREATE").build(),
+                Dimension.builder().name("ResourceType").value(resourceTypeName).build());
+        }
+        assertThat(request.metricData()).extracting(datum -> datum.metricName() + "/" + datum.unit() + "/"
+            + datum.dimensions().stream().filter(d -> d.name().equals("Scope")).findFirst().get().value() + "=" + datum.value())
+            .containsExactlyInAnyOrder("InvocationCpuTime/Microseconds/Handler=3000.0",
+                "InvocationAllocatedBytes/Bytes/Handler=4096.0", "InvocationCpuTime/Microseconds/Framework=250.0",
+                "InvocationAllocatedBytes/Bytes/Framework=1024.0");
+    }
+
     @Test
     public void testPublishExceptionMetric() {
         final MetricsPublisherImpl providerMetricsPublisher = new MetricsPublisherImpl(providerCloudWatchProvider, loggerProxy,
@@ -0,0 +1,46 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+public class ThreadUsageTest {
+
+    @Test
+    public void measuresAllocationAndCpuOfCurrentThread() {
+        final ThreadUsage start = ThreadUsage.now();
+        long sum = 0L;
+        for (int i = 0; i < 64; i++) {
+            final byte[] chunk = new byte[64 * 1024];
+            chunk[i] = (byte) i;
+            sum += chunk.length + chunk[i];
+        }
+        final ThreadUsage used = ThreadUsage.now().minus(start);
+
+        assertThat(sum).isPositive();
+        assertThat(used.getAllocatedBytes()).isGreaterThanOrEqualTo(64L * 64 * 1024);
+        assertThat(used.getCpuNanos()).isNotNegative();
+    }
+
+    @Test
+    public void differenceIsNeverNegative() {
+        final ThreadUsage later = new ThreadUsage(10L, 100L);
+        final ThreadUsage earlier = new ThreadUsage(20L, 50L);
+
+        assertThat(later.minus(earlier)).isEqualTo(new ThreadUsage(0L, 50L));
+        assertThat(later.minus(ThreadUsage.NONE)).isEqualTo(later);
+    }
+}
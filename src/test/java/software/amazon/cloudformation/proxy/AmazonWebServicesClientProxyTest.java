@@ -33,16 +33,19 @@ import com.amazonaws.services.cloudformation.model.DescribeStackEventsResult;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 import org.joda.time.Instant;
 import org.junit.jupiter.api.Test;
 import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
 import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.awscore.DefaultAwsResponseMetadata;
 import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.ResponseBytes;
@@ -58,6 +61,7 @@ import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
 import software.amazon.cloudformation.exceptions.ResourceAlreadyExistsException;
 import software.amazon.cloudformation.exceptions.TerminalException;
+import software.amazon.cloudformation.proxy.delay.Adaptive;
 import software.amazon.cloudformation.proxy.delay.Constant;
 import software.amazon.cloudformation.proxy.handler.Model;
 import software.amazon.cloudformation.proxy.service.AccessDenied;
@@ -69,6 +73,9 @@ import software.amazon.cloudformation.proxy.service.DescribeResponse;
 import software.amazon.cloudformation.proxy.service.NotFoundException;
 import software.amazon.cloudformation.proxy.service.ServiceClient;
 import software.amazon.cloudformation.proxy.service.ThrottleException;
+import software.amazon.cloudformation.tracing.InMemorySpanExporter;
+import software.amazon.cloudformation.tracing.Span;
+import software.amazon.cloudformation.tracing.SpanNames;
 
 public class AmazonWebServicesClientProxyTest {
     //
@@ -186,6 +193,31 @@ public class AmazonWebServicesClientProxyTest {
         assertThat(result).isEqualTo(expectedResult);
     }
 
+    @Test
+    public void testInjectCredentialsAndInvokeV2_tracesRequestId() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class), MOCK,
+                                                                                    () -> 1000L);
+        final software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsRequest request = software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsRequest
+            .builder().stackName("stack").build();
+        final DescribeStackEventsResponse response = (DescribeStackEventsResponse) DescribeStackEventsResponse.builder()
+            .responseMetadata(DefaultAwsResponseMetadata.create(Collections.singletonMap("AWS_REQUEST_ID", "request-1")))
+            .build();
+        final CloudFormationClient client = mock(CloudFormationClient.class);
+        when(client
+            .describeStackEvents(any(software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsRequest.class)))
+                .thenReturn(response);
+        final InMemorySpanExporter exporter = new InMemorySpanExporter();
+
+        final Span root = Span.root(SpanNames.INVOCATION, exporter);
+        proxy.injectCredentialsAndInvokeV2(request, client::describeStackEvents);
+        root.close();
+
+        final Span span = exporter.getSpans(SpanNames.AWS_REQUEST).get(0);
+        assertThat(span.getParentSpanId()).isEqualTo(exporter.getSpans(SpanNames.INVOCATION).get(0).getSpanId());
+        assertThat(span.getAttributes()).containsEntry("requestName", "DescribeStackEventsRequest")
+            .containsEntry("requestId", "request-1");
+    }
+
     @Test
     public <ResultT extends AwsResponse, IterableT extends SdkIterable<ResultT>> void testInjectCredentialsAndInvokeV2Iterable() {
 
@@ -667,6 +699,80 @@ public class AmazonWebServicesClientProxyTest {
         assertThat(result.getCallbackDelaySeconds()).isGreaterThan(0);
     }
 
+    @Test
+    public void stabilizationTimeReportedToDelayFactory() {
+        final Map<String, Duration> observed = new HashMap<>();
+        final DelayFactory factory = new DelayFactory() {
+            @Override
+            public Delay getDelay(String apiCall, Delay provided) {
+                return Constant.of().delay(Duration.ofSeconds(5)).timeout(Duration.ofMinutes(1)).build();
+            }
+
+            @Override
+            public void stabilized(String apiCall, Duration took) {
+                observed.put(apiCall, took);
+            }
+        };
+        AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class), MOCK,
+                                                                              () -> Duration.ofSeconds(1).toMillis(), factory);
+        boolean[] stable = { false };
+        Model model = new Model();
+        model.setRepoName("NewRepo");
+        StdCallbackContext context = new StdCallbackContext();
+        ServiceClient client = mock(ServiceClient.class);
+        ProxyClient<ServiceClient> svcClient = proxy.newProxy(() -> client);
+        Supplier<ProgressEvent<Model, StdCallbackContext>> invoke = () -> proxy
+            .initiate("client:createRepository", svcClient, model, context)
+            .translateToServiceRequest(m -> new CreateRequest.Builder().repoName(m.getRepoName()).build())
+            .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::createRepository))
+            .stabilize((request, response, client1, model1, context1) -> stable[0])
+            .done(ign -> ProgressEvent.success(model, context));
+
+        assertThat(invoke.get().getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(observed).isEmpty();
+
+        stable[0] = true;
+        assertThat(invoke.get().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(observed).hasSize(1);
+        assertThat(observed.keySet().iterator().next()).contains("client:createRepository");
+        assertThat(observed.values().iterator().next()).isGreaterThanOrEqualTo(Duration.ZERO);
+
+        // replays of the stabilized call graph are not reported again
+        observed.clear();
+        assertThat(invoke.get().getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(observed).isEmpty();
+    }
+
+    @Test
+    public void stabilizationTimesOfDifferentRequestsShareOneHistogram() {
+        final Delay fallback = Constant.of().delay(Duration.ofMillis(1)).timeout(Duration.ofSeconds(5)).build();
+        final Adaptive adaptive = Adaptive.of().minimumSamples(3).fallback(fallback).build();
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class), MOCK,
+                                                                                    () -> Duration.ofSeconds(1).toMillis(),
+                                                                                    adaptive);
+        final ServiceClient client = mock(ServiceClient.class);
+        when(client.serviceName()).thenReturn("serviceClient");
+        final ProxyClient<ServiceClient> svcClient = proxy.newProxy(() -> client);
+        final String key = "serviceClient:Create-client:createRepository";
+
+        for (String repoName : Arrays.asList("RepoA", "RepoB", "RepoC")) {
+            final Model model = new Model();
+            model.setRepoName(repoName);
+            final StdCallbackContext context = new StdCallbackContext();
+            final int[] attempt = { 1 };
+            final ProgressEvent<Model, StdCallbackContext> result = proxy
+                .initiate("client:createRepository", svcClient, model, context)
+                .translateToServiceRequest(m -> new CreateRequest.Builder().repoName(m.getRepoName()).build())
+                .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::createRepository))
+                .stabilize((request, response, client1, model1, context1) -> attempt[0]-- <= 0)
+                .done(ign -> ProgressEvent.success(model, context));
+            assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        }
+
+        assertThat(adaptive.samples(key)).isEqualTo(3);
+        assertThat(adaptive.getDelay(key, fallback)).isNotSameAs(fallback);
+    }
+
     @Test
     public void serviceCallWithStabilization() {
         AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class), MOCK,
@@ -693,6 +799,38 @@ public class AmazonWebServicesClientProxyTest {
         assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
     }
 
+    @Test
+    public void serviceCallTracesCallGraph() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class), MOCK,
+                                                                                    () -> Duration.ofSeconds(1).toMillis());
+        final int[] attempt = { 1 };
+        final Model model = new Model();
+        model.setRepoName("NewRepo");
+        final StdCallbackContext context = new StdCallbackContext();
+        final ServiceClient client = mock(ServiceClient.class);
+        when(client.createRepository(any(CreateRequest.class)))
+            .thenReturn(new CreateResponse.Builder().repoName(model.getRepoName()).build());
+        final ProxyClient<ServiceClient> svcClient = proxy.newProxy(() -> client);
+        final InMemorySpanExporter exporter = new InMemorySpanExporter();
+
+        final Span root = Span.root(SpanNames.INVOCATION, exporter);
+        proxy.initiate("client:createRepository", svcClient, model, context)
+            .translateToServiceRequest(m -> new CreateRequest.Builder().repoName(m.getRepoName()).build())
+            .backoffDelay(Constant.of().delay(Duration.ofMillis(1)).timeout(Duration.ofSeconds(5)).build())
+            .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::createRepository))
+            .stabilize((request, response, client1, model1, context1) -> attempt[0]-- <= 0)
+            .done(ign -> ProgressEvent.success(model, context));
+        root.close();
+
+        final Span callGraph = exporter.getSpans(SpanNames.CALL_GRAPH).get(0);
+        assertThat(callGraph.getAttributes()).containsEntry("callGraph", "client:createRepository")
+            .containsEntry("attempts", "2");
+        assertThat(exporter.getSpans(SpanNames.AWS_REQUEST)).hasSize(1).allSatisfy(span -> {
+            assertThat(span.getParentSpanId()).isEqualTo(callGraph.getSpanId());
+            assertThat(span.getAttributes()).containsEntry("requestName", "CreateRequest");
+        });
+    }
+
     @Test
     public void serviceCallWithFilterException() {
         final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class), MOCK,
@@ -920,4 +1058,141 @@ public class AmazonWebServicesClientProxyTest {
         assertThat(result).isNotNull();
 
     }
+
+    @Test
+    public void responseCacheServesRepeatedReads() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class), MOCK,
+                                                                                    () -> Duration.ofSeconds(1).toMillis());
+        final ServiceClient client = mock(ServiceClient.class);
+        final DescribeResponse describeResponse = new DescribeResponse.Builder().repoName("NewRepo").repoArn("some-arn").build();
+        when(client.describeRepository(any(DescribeRequest.class))).thenReturn(describeResponse);
+
+        final ResponseCache cache = ResponseCache.of(DescribeRequest.class);
+        final ProxyClient<ServiceClient> svcClient = proxy.newProxy(() -> client, cache);
+
+        final DescribeRequest request = new DescribeRequest.Builder().repoName("NewRepo").build();
+        for (int i = 0; i < 3; i++) {
+            final DescribeResponse response = svcClient
+                .injectCredentialsAndInvokeV2(new DescribeRequest.Builder().repoName("NewRepo").build(),
+                    svcClient.client()::describeRepository);
+            assertThat(response).isSameAs(describeResponse);
+        }
+        svcClient.injectCredentialsAndInvokeV2(new DescribeRequest.Builder().repoName("OtherRepo").build(),
+            svcClient.client()::describeRepository);
+
+        verify(client, times(2)).describeRepository(any(DescribeRequest.class));
+        assertThat(cache.isCacheable(request)).isTrue();
+        assertThat(cache.hits()).isEqualTo(2);
+        assertThat(cache.misses()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void responseCacheInvalidatedByMutatingCall() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class), MOCK,
+                                                                                    () -> Duration.ofSeconds(1).toMillis());
+        final Model model = new Model();
+        model.setRepoName("NewRepo");
+        final StdCallbackContext context = new StdCallbackContext();
+        final ServiceClient client = mock(ServiceClient.class);
+        when(client.describeRepository(any(DescribeRequest.class)))
+            .thenReturn(new DescribeResponse.Builder().repoName("NewRepo").build());
+        when(client.createRepository(any(CreateRequest.class)))
+            .thenReturn(new CreateResponse.Builder().repoName("NewRepo").build());
+
+        final ResponseCache cache = ResponseCache.of(DescribeRequest.class);
+        final ProxyClient<ServiceClient> svcClient = proxy.newProxy(() -> client, cache);
+
+        svcClient.injectCredentialsAndInvokeV2(new DescribeRequest.Builder().repoName("NewRepo").build(),
+            svcClient.client()::describeRepository);
+        assertThat(cache.size()).isEqualTo(1);
+
+        final ProgressEvent<Model,
+            StdCallbackContext> result = proxy.initiate("client:createRepository", svcClient, model, context)
+                .translateToServiceRequest(m -> new CreateRequest.Builder().repoName(m.getRepoName()).build())
+                .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::createRepository))
+                .stabilize((request, response, client1, model1, context1) -> client1.injectCredentialsAndInvokeV2(
+                    new DescribeRequest.Builder().repoName(model1.getRepoName()).build(),
+                    client1.client()::describeRepository) != null)
+                .success();
+
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        verify(client, times(2)).describeRepository(any(DescribeRequest.class));
+        assertThat(cache.invalidations()).isEqualTo(1);
+        assertThat(cache.hits()).isEqualTo(0);
+        assertThat(cache.misses()).isEqualTo(2);
+    }
+
+    @Test
+    public void responseCacheInvalidatedOnlyForServiceOfMutatingCall() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class), MOCK,
+                                                                                    () -> Duration.ofSeconds(1).toMillis());
+        final ServiceClient repositories = mock(ServiceClient.class);
+        final ServiceClient mirrors = mock(ServiceClient.class);
+        when(repositories.serviceName()).thenReturn("repositoryService");
+        when(mirrors.serviceName()).thenReturn("mirrorService");
+        when(repositories.describeRepository(any(DescribeRequest.class)))
+            .thenReturn(new DescribeResponse.Builder().repoName("NewRepo").build());
+        when(mirrors.describeRepository(any(DescribeRequest.class)))
+            .thenReturn(new DescribeResponse.Builder().repoName("NewRepo").build());
+        when(repositories.createRepository(any(CreateRequest.class)))
+            .thenReturn(new CreateResponse.Builder().repoName("NewRepo").build());
+
+        final ResponseCache cache = ResponseCache.of(DescribeRequest.class);
+        final ProxyClient<ServiceClient> repositoryClient = proxy.newProxy(() -> repositories, cache);
+        final ProxyClient<ServiceClient> mirrorClient = proxy.newProxy(() -> mirrors, cache);
+        final DescribeRequest describe = new DescribeRequest.Builder().repoName("NewRepo").build();
+        repositoryClient.injectCredentialsAndInvokeV2(describe, repositoryClient.client()::describeRepository);
+        mirrorClient.injectCredentialsAndInvokeV2(describe, mirrorClient.client()::describeRepository);
+        assertThat(cache.size()).isEqualTo(2);
+
+        repositoryClient.injectCredentialsAndInvokeV2(new CreateRequest.Builder().repoName("NewRepo").build(),
+            repositoryClient.client()::createRepository);
+        repositoryClient.injectCredentialsAndInvokeV2(describe, repositoryClient.client()::describeRepository);
+        mirrorClient.injectCredentialsAndInvokeV2(describe, mirrorClient.client()::describeRepository);
+
+        verify(repositories, times(2)).describeRepository(any(DescribeRequest.class));
+        verify(mirrors).describeRepository(any(DescribeRequest.class));
+        assertThat(cache.invalidations()).isEqualTo(1);
+        assertThat(cache.hits()).isEqualTo(1);
+    }
+
+    @Test
+    public void responseCacheBypassedWhileStabilizing() {
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class), MOCK,
+                                                                                    () -> Duration.ofSeconds(1).toMillis());
+        final Model model = new Model();
+        model.setRepoName("NewRepo");
+        final StdCallbackContext context = new StdCallbackContext();
+        final ServiceClient client = mock(ServiceClient.class);
+        final DescribeResponse stable = new DescribeResponse.Builder().repoName("NewRepo").repoArn("some-arn").build();
+        when(client.describeRepository(any(DescribeRequest.class)))
+            .thenReturn(new DescribeResponse.Builder().repoName("NewRepo").build())
+            .thenReturn(new DescribeResponse.Builder().repoName("NewRepo").build()).thenReturn(stable);
+        when(client.createRepository(any(CreateRequest.class)))
+            .thenReturn(new CreateResponse.Builder().repoName("NewRepo").build());
+
+        final ResponseCache cache = ResponseCache.of(DescribeRequest.class);
+        final ProxyClient<ServiceClient> svcClient = proxy.newProxy(() -> client, cache);
+
+        final ProgressEvent<Model,
+            StdCallbackContext> result = proxy.initiate("client:createRepository", svcClient, model, context)
+                .translateToServiceRequest(m -> new CreateRequest.Builder().repoName(m.getRepoName()).build())
+                .backoffDelay(Constant.of().delay(Duration.ofMillis(1)).timeout(Duration.ofSeconds(5)).build())
+                .makeServiceCall((r, c) -> c.injectCredentialsAndInvokeV2(r, c.client()::createRepository))
+                .stabilize((request, response, client1, model1, context1) -> client1.injectCredentialsAndInvokeV2(
+                    new DescribeRequest.Builder().repoName(model1.getRepoName()).build(), client1.client()::describeRepository)
+                    .getRepoArn() != null)
+                .success();
+
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        verify(client, times(3)).describeRepository(any(DescribeRequest.class));
+
+        // the last poll refreshed the cache for reads after stabilization
+        final DescribeResponse read = svcClient.injectCredentialsAndInvokeV2(
+            new DescribeRequest.Builder().repoName("NewRepo").build(), svcClient.client()::describeRepository);
+        assertThat(read).isSameAs(stable);
+        verify(client, times(3)).describeRepository(any(DescribeRequest.class));
+        assertThat(cache.hits()).isEqualTo(1);
+    }
 }
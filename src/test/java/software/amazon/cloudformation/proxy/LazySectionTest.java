@@ -0,0 +1,116 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import com.fasterxml.jackson.core.type.TypeReference;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import software.amazon.cloudformation.TestConfigurationModel;
+import software.amazon.cloudformation.TestContext;
+import software.amazon.cloudformation.TestModel;
+import software.amazon.cloudformation.resource.Serializer;
+import software.amazon.cloudformation.resource.SerializerTest;
+
+public class LazySectionTest {
+
+    private static final TypeReference<HandlerRequest<TestModel, TestContext, TestConfigurationModel>> TYPE_REFERENCE = new TypeReference<
+        HandlerRequest<TestModel, TestContext, TestConfigurationModel>>() {
+    };
+
+    private final Serializer serializer = new Serializer();
+
+    @ParameterizedTest
+    @ValueSource(strings = { "create.request.json", "update.request.json", "delete.request.json",
+        "update.with-callback-context.request.json" })
+    public void deserializeLazily_bindsAsEagerDeserialization(final String file) throws IOException {
+        final String json = withRareSections(SerializerTest.loadRequestJson(file));
+
+        final HandlerRequest<TestModel, TestContext, TestConfigurationModel> eager = serializer.deserialize(json, TYPE_REFERENCE);
+        final HandlerRequest<TestModel, TestContext, TestConfigurationModel> lazy = serializer.deserializeLazily(json,
+            TYPE_REFERENCE);
+
+        assertThat(lazy).isEqualTo(eager);
+        assertThat(serializer.serialize(lazy)).isEqualTo(serializer.serialize(eager));
+        // type parameters are resolved from the request type
+        assertThat(lazy.getRequestData().getPreviousResourceProperties()).isInstanceOf(TestModel.class);
+        assertThat(lazy.getRequestData().getTypeConfiguration()).isInstanceOf(TestConfigurationModel.class);
+    }
+
+    @Test
+    public void deserializeLazily_failsOnAccessToMismatchedSection() throws IOException {
+        final JSONObject request = new JSONObject(SerializerTest.loadRequestJson("update.request.json"));
+        request.getJSONObject("requestData").put("previousResourceProperties", new JSONObject().put("property2", "abc"));
+        final String json = request.toString();
+
+        assertThatThrownBy(() -> serializer.deserialize(json, TYPE_REFERENCE)).isInstanceOf(IOException.class);
+
+        final HandlerRequest<TestModel, TestContext, TestConfigurationModel> lazy = serializer.deserializeLazily(json,
+            TYPE_REFERENCE);
+        assertThat(lazy.getRequestData().getResourceProperties().getProperty1()).isEqualTo("abc");
+        assertThatThrownBy(() -> lazy.getRequestData().getPreviousResourceProperties())
+            .isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    public void setters_replaceSections() throws IOException {
+        final HandlerRequest<TestModel, TestContext, TestConfigurationModel> request = serializer
+            .deserializeLazily(withRareSections(SerializerTest.loadRequestJson("update.request.json")), TYPE_REFERENCE);
+
+        request.getRequestData().setTypeConfiguration(null);
+        request.setFeatures(null);
+
+        assertThat(request.getRequestData().getTypeConfiguration()).isNull();
+        assertThat(request.getFeatures()).isNull();
+        assertThat(request.getUpdatePolicy()).containsEntry("policy", "replace");
+        assertThat(LazySection.<String>of(null)).isNull();
+    }
+
+    @Test
+    public void requestsBuiltAlike_areEqual() {
+        final ResourceHandlerRequest<TestModel> first = request();
+        final ResourceHandlerRequest<TestModel> second = request();
+
+        assertThat(first).isEqualTo(second).hasSameHashCodeAs(second);
+        assertThat(first.toString()).doesNotContain("LazySection").contains("previous", "replace");
+        assertThat(LazySection.defer(() -> "value")).isEqualTo(LazySection.of("value")).hasToString("value");
+    }
+
+    private static ResourceHandlerRequest<TestModel> request() {
+        return ResourceHandlerRequest.<TestModel>builder().clientRequestToken("token")
+            .previousResourceState(TestModel.builder().property1("previous").build())
+            .desiredResourceTags(Collections.singletonMap("key", "value"))
+            .updatePolicy(Collections.singletonMap("policy", "replace")).build();
+    }
+
+    private static String withRareSections(final String json) {
+        final JSONObject request = new JSONObject(json);
+        request.put("features", new JSONObject().put("preventIdempotentResourceAdoption", true));
+        request.put("updatePolicy", new JSONObject().put("policy", "replace"));
+        request.put("creationPolicy", new JSONObject().put("count", 2));
+        final JSONObject requestData = request.getJSONObject("requestData");
+        requestData.put("typeConfiguration", new JSONObject().put("property1", "configured").put("property2", 7));
+        if (!requestData.has("previousResourceProperties")) {
+            requestData.put("previousResourceProperties", new JSONObject().put("property1", "previous"));
+        }
+        return request.toString();
+    }
+}
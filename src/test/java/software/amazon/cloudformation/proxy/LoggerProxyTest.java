@@ -0,0 +1,202 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.loggers.LogLevel;
+import software.amazon.cloudformation.loggers.LogPublisher;
+
+public class LoggerProxyTest {
+
+    @Test
+    public void synchronousProxyPublishesOnCallingThread() {
+        final LogPublisher publisher = mock(LogPublisher.class);
+        final LoggerProxy proxy = new LoggerProxy();
+        proxy.addLogPublisher(publisher);
+        proxy.addLogPublisher(null);
+
+        proxy.log("hello");
+
+        assertThat(proxy.isAsynchronous()).isFalse();
+        verify(publisher).publishLogEvent("hello");
+        verifyNoMoreInteractions(publisher);
+    }
+
+    @Test
+    public void flushFlushesPublishers() {
+        final LogPublisher publisher = mock(LogPublisher.class);
+        final LoggerProxy proxy = new LoggerProxy();
+        proxy.addLogPublisher(publisher);
+
+        proxy.log("hello");
+        proxy.flush();
+
+        verify(publisher).publishLogEvent("hello");
+        verify(publisher).flush();
+        verifyNoMoreInteractions(publisher);
+    }
+
+    @Test
+    public void messageNotBuiltBelowEveryPublisherLevel() {
+        final LogPublisher publisher = mock(LogPublisher.class);
+        final LoggerProxy proxy = new LoggerProxy();
+        proxy.addLogPublisher(publisher);
+        final AtomicInteger built = new AtomicInteger();
+
+        proxy.debug(() -> "debug " + built.incrementAndGet());
+
+        assertThat(proxy.isEnabled(LogLevel.DEBUG)).isFalse();
+        assertThat(proxy.isEnabled(LogLevel.WARN)).isTrue();
+        assertThat(built.get()).isZero();
+        verifyNoMoreInteractions(publisher);
+    }
+
+    @Test
+    public void levelsApplyPerPublisher() {
+        final LogPublisher info = mock(LogPublisher.class);
+        final LogPublisher debug = mock(LogPublisher.class);
+        final LoggerProxy proxy = new LoggerProxy();
+        proxy.addLogPublisher(info);
+        proxy.addLogPublisher(debug, LogLevel.DEBUG);
+        final AtomicInteger built = new AtomicInteger();
+
+        proxy.debug(() -> "debug " + built.incrementAndGet());
+        proxy.log(LogLevel.ERROR, () -> "error " + built.incrementAndGet());
+
+        assertThat(built.get()).isEqualTo(2);
+        verify(debug).publishLogEvent("debug 1");
+        verify(debug).publishLogEvent("error 2");
+        verify(info).publishLogEvent("error 2");
+        verifyNoMoreInteractions(info, debug);
+
+        proxy.setLevel(LogLevel.ERROR);
+        proxy.log("dropped");
+        verifyNoMoreInteractions(info, debug);
+    }
+
+    @Test
+    public void fieldsAreAppendedAsKeyValuePairs() {
+        final LogPublisher publisher = mock(LogPublisher.class);
+        final LoggerProxy proxy = new LoggerProxy();
+        proxy.addLogPublisher(publisher);
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("attempt", 2);
+        fields.put("callGraph", "create");
+
+        proxy.log(LogLevel.INFO, () -> "retrying", fields);
+        proxy.log(LogLevel.INFO, () -> "", Collections.singletonMap("only", true));
+
+        verify(publisher).publishLogEvent("retrying attempt=2 callGraph=create");
+        verify(publisher).publishLogEvent("only=true");
+    }
+
+    @Test
+    public void asynchronousProxyPublishesInOrderOnFlush() {
+        final List<String> published = Collections.synchronizedList(new ArrayList<>());
+        final LoggerProxy proxy = new LoggerProxy(16);
+        proxy.addLogPublisher(new Collecting(published));
+
+        for (int i = 0; i < 100; i++) {
+            final int index = i;
+            proxy.log(LogLevel.INFO, () -> "event " + index);
+        }
+        proxy.flush();
+
+        assertThat(proxy.isAsynchronous()).isTrue();
+        assertThat(published).hasSize(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(published.get(i)).isEqualTo("event " + i);
+        }
+    }
+
+    @Test
+    public void asynchronousProxyBuildsMessagesOnCallingThread() {
+        final List<String> published = Collections.synchronizedList(new ArrayList<>());
+        final LoggerProxy proxy = new LoggerProxy(16);
+        proxy.addLogPublisher(new Collecting(published));
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger state = new AtomicInteger(1);
+
+        proxy.log(LogLevel.INFO, () -> "state " + state.get() + " on caller " + (Thread.currentThread() == caller));
+        state.set(2);
+        proxy.flush();
+
+        assertThat(published).containsExactly("state 1 on caller true");
+    }
+
+    @Test
+    public void fullBufferIsDrainedByCaller() throws InterruptedException {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> published = Collections.synchronizedList(new ArrayList<>());
+        final LoggerProxy proxy = new LoggerProxy(2);
+        proxy.addLogPublisher(new Collecting(published) {
+            @Override
+            protected void publishMessage(final String message) {
+                if ("first".equals(message)) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.publishMessage(message);
+            }
+        });
+
+        // the background thread is stuck publishing the first event, so once the
+        // buffer fills up the caller has to wait for it rather than drop events
+        proxy.log("first");
+        blocked.await();
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                proxy.log("next " + i);
+            }
+        });
+        producer.start();
+        release.countDown();
+        producer.join();
+        proxy.flush();
+
+        assertThat(published).hasSize(11);
+        assertThat(published.get(0)).isEqualTo("first");
+        assertThat(published.get(10)).isEqualTo("next 9");
+    }
+
+    private static class Collecting extends LogPublisher {
+        private final List<String> published;
+
+        Collecting(final List<String> published) {
+            this.published = published;
+        }
+
+        @Override
+        protected void publishMessage(final String message) {
+            published.add(message);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.cloudformation.proxy.service.DescribeRequest;
+import software.amazon.cloudformation.proxy.service.ServiceClient;
+
+public class RateLimiterSettingTest {
+
+    @AfterEach
+    public void clearProperties() {
+        for (final RateLimiterSetting setting : RateLimiterSetting.values()) {
+            System.clearProperty(setting.property());
+        }
+    }
+
+    @Test
+    public void disabledUnlessRateIsSet() {
+        assertThat(RateLimiterSetting.create()).isNull();
+
+        System.setProperty("cfn.rateLimit.permitsPerSecond", "fast");
+        assertThat(RateLimiterSetting.create()).isNull();
+    }
+
+    @Test
+    public void limiterConfiguredBySystemProperties() {
+        System.setProperty("cfn.rateLimit.permitsPerSecond", " 4 ");
+        System.setProperty("cfn.rateLimit.throttleStatusCodes", "500, 502");
+
+        final TokenBucketRateLimiter limiter = RateLimiterSetting.create();
+
+        assertThat(limiter.currentPermitsPerSecond(ServiceClient.class, DescribeRequest.class)).isCloseTo(4.0, within(0.001));
+        assertThat(limiter.isThrottle(AwsServiceException.builder().statusCode(502).build())).isTrue();
+        assertThat(limiter.isThrottle(AwsServiceException.builder().statusCode(503).build())).isFalse();
+    }
+
+    @Test
+    public void invalidValuesFallBackToDefaults() {
+        System.setProperty("cfn.rateLimit.permitsPerSecond", "4");
+        System.setProperty("cfn.rateLimit.burst", "-1");
+        System.setProperty("cfn.rateLimit.throttleStatusCodes", "unavailable");
+
+        final TokenBucketRateLimiter limiter = RateLimiterSetting.create();
+
+        assertThat(limiter.currentPermitsPerSecond(ServiceClient.class, DescribeRequest.class)).isCloseTo(4.0, within(0.001));
+        assertThat(limiter.isThrottle(AwsServiceException.builder().statusCode(503).build())).isTrue();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.cloudformation.proxy.service.CreateRequest;
+import software.amazon.cloudformation.proxy.service.DescribeRequest;
+import software.amazon.cloudformation.proxy.service.DescribeResponse;
+import software.amazon.cloudformation.proxy.service.ServiceClient;
+import software.amazon.cloudformation.proxy.service.ThrottleException;
+
+public class TokenBucketRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(0L);
+
+    private TokenBucketRateLimiter limiter(final TokenBucketRateLimiter.Builder builder) {
+        return new TokenBucketRateLimiter(builder, clock::get);
+    }
+
+    @Test
+    public void unavailableServiceCountsAsThrottle() {
+        final TokenBucketRateLimiter limiter = limiter(TokenBucketRateLimiter.builder());
+
+        assertThat(limiter.isThrottle(new ThrottleException(AwsServiceException.builder().statusCode(429)))).isTrue();
+        assertThat(limiter.isThrottle(AwsServiceException.builder().statusCode(503).build())).isTrue();
+        assertThat(limiter.isThrottle(AwsServiceException.builder().statusCode(504).build())).isTrue();
+        assertThat(limiter.isThrottle(AwsServiceException.builder().statusCode(500).build())).isFalse();
+
+        final TokenBucketRateLimiter custom = limiter(TokenBucketRateLimiter.builder()
+            .throttleStatusCodes(Collections.singleton(500)));
+        assertThat(custom.isThrottle(AwsServiceException.builder().statusCode(500).build())).isTrue();
+        assertThat(custom.isThrottle(AwsServiceException.builder().statusCode(503).build())).isFalse();
+    }
+
+    @Test
+    public void burstThenPaced() {
+        final TokenBucketRateLimiter limiter = limiter(TokenBucketRateLimiter.builder().permitsPerSecond(1000).burst(3));
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.acquire(ServiceClient.class, DescribeRequest.class)).isEqualTo(Duration.ZERO);
+        }
+        assertThat(limiter.acquire(ServiceClient.class, DescribeRequest.class)).isEqualTo(Duration.ofMillis(1));
+        assertThat(limiter.acquire(ServiceClient.class, DescribeRequest.class)).isEqualTo(Duration.ofMillis(2));
+
+        // bucket refills with time
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.acquire(ServiceClient.class, DescribeRequest.class)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void bucketsArePerApi() {
+        final TokenBucketRateLimiter limiter = limiter(
+            TokenBucketRateLimiter.builder().permitsPerSecond(1000).burst(1).permitsPerSecond(CreateRequest.class, 500));
+        assertThat(limiter.acquire(ServiceClient.class, DescribeRequest.class)).isEqualTo(Duration.ZERO);
+        assertThat(limiter.acquire(ServiceClient.class, CreateRequest.class)).isEqualTo(Duration.ZERO);
+        assertThat(limiter.acquire(ServiceClient.class, CreateRequest.class)).isEqualTo(Duration.ofMillis(2));
+        assertThat(limiter.acquire(ServiceClient.class, DescribeRequest.class)).isEqualTo(Duration.ofMillis(1));
+        assertThat(limiter.currentPermitsPerSecond(ServiceClient.class, CreateRequest.class)).isEqualTo(500.0);
+    }
+
+    @Test
+    public void adaptsToThrottles() {
+        final TokenBucketRateLimiter limiter = limiter(
+            TokenBucketRateLimiter.builder().permitsPerSecond(8).minimumPermitsPerSecond(2).increment(1));
+        limiter.onThrottle(ServiceClient.class, DescribeRequest.class);
+        assertThat(limiter.currentPermitsPerSecond(ServiceClient.class, DescribeRequest.class)).isEqualTo(4.0);
+        limiter.onThrottle(ServiceClient.class, DescribeRequest.class);
+        limiter.onThrottle(ServiceClient.class, DescribeRequest.class);
+        assertThat(limiter.currentPermitsPerSecond(ServiceClient.class, DescribeRequest.class)).isEqualTo(2.0);
+
+        limiter.onSuccess(ServiceClient.class, DescribeRequest.class);
+        assertThat(limiter.currentPermitsPerSecond(ServiceClient.class, DescribeRequest.class)).isCloseTo(3.0, within(0.001));
+        for (int i = 0; i < 10; i++) {
+            limiter.onSuccess(ServiceClient.class, DescribeRequest.class);
+        }
+        assertThat(limiter.currentPermitsPerSecond(ServiceClient.class, DescribeRequest.class)).isEqualTo(8.0);
+    }
+
+    @Test
+    public void sharedAcrossThreads() throws Exception {
+        final TokenBucketRateLimiter limiter = limiter(TokenBucketRateLimiter.builder().permitsPerSecond(10000).burst(1));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Duration>> waits = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                waits.add(executor.submit(() -> limiter.acquire(ServiceClient.class, DescribeRequest.class)));
+            }
+            long total = 0L;
+            for (Future<Duration> each : waits) {
+                total += each.get().toNanos();
+            }
+            // every reservation is handed out exactly once, 0 + 0.1ms + ... + 1.9ms
+            assertThat(total).isEqualTo(TimeUnit.MICROSECONDS.toNanos(100) * (19 * 20 / 2));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void invalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> TokenBucketRateLimiter.builder().permitsPerSecond(0).build());
+        assertThrows(IllegalArgumentException.class, () -> TokenBucketRateLimiter.builder().burst(0).build());
+        assertThrows(IllegalArgumentException.class,
+            () -> TokenBucketRateLimiter.builder().permitsPerSecond(DescribeRequest.class, -1));
+    }
+
+    @Test
+    public void proxyShrinksRateOnThrottle() {
+        final TokenBucketRateLimiter limiter = TokenBucketRateLimiter.builder().permitsPerSecond(100).burst(10).build();
+        final AmazonWebServicesClientProxy proxy = new AmazonWebServicesClientProxy(mock(LoggerProxy.class),
+                                                                                    new Credentials("accessKeyId", "secretKey",
+                                                                                                    "token"),
+                                                                                    DelayFactory.CONSTANT_DEFAULT_DELAY_FACTORY,
+                                                                                    WaitStrategy.scheduleForCallbackStrategy(),
+                                                                                    limiter);
+        final ServiceClient client = mock(ServiceClient.class);
+        when(client.describeRepository(any(DescribeRequest.class)))
+            .thenThrow(new ThrottleException(AwsServiceException.builder().statusCode(429)))
+            .thenReturn(new DescribeResponse.Builder().repoName("NewRepo").build());
+
+        final ProxyClient<ServiceClient> svcClient = proxy.newProxy(() -> client);
+        final DescribeRequest request = new DescribeRequest.Builder().repoName("NewRepo").build();
+        assertThrows(ThrottleException.class,
+            () -> svcClient.injectCredentialsAndInvokeV2(request, svcClient.client()::describeRepository));
+        assertThat(limiter.currentPermitsPerSecond(client.getClass(), DescribeRequest.class)).isEqualTo(50.0);
+
+        svcClient.injectCredentialsAndInvokeV2(request, svcClient.client()::describeRepository);
+        assertThat(limiter.currentPermitsPerSecond(client.getClass(), DescribeRequest.class)).isCloseTo(50.5, within(0.001));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.proxy.handler.Model;
+
+public class WaitStrategyTest {
+
+    private final Model model = new Model();
+    private final StdCallbackContext context = new StdCallbackContext();
+
+    @Test
+    public void localWaitHonoursSubSecondDelays() {
+        final WaitStrategy strategy = WaitStrategy.newLocalLoopAwaitStrategy(() -> Duration.ofMinutes(1).toMillis());
+        final long start = System.nanoTime();
+        final ProgressEvent<Model, StdCallbackContext> event = strategy.await("cg", 10L, Duration.ofMillis(200), context, model);
+        final long waited = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(event).isNull();
+        assertThat(waited).isGreaterThanOrEqualTo(200L);
+    }
+
+    @Test
+    public void localWaitBailsOutWhenExpectedOperationDoesNotFit() {
+        final long[] remaining = { 2000L };
+        final LocalLoopWaitStrategy strategy = new LocalLoopWaitStrategy(() -> remaining[0]);
+
+        // 1500ms observed for the call graph, twice that does not fit after waiting
+        final ProgressEvent<Model,
+            StdCallbackContext> event = strategy.await("cg", 1500L, Duration.ofMillis(1000), context, model);
+        assertThat(event).isNotNull();
+        assertThat(event.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(event.getCallbackDelaySeconds()).isEqualTo(1);
+        assertThat(strategy.expectedOperationTime("cg")).isEqualTo(1500L);
+
+        // a faster attempt lowers the expectation, still not below what was observed
+        remaining[0] = 1200L;
+        assertThat(strategy.await("cg", 500L, Duration.ofMillis(100), context, model)).isNotNull();
+        assertThat(strategy.expectedOperationTime("cg")).isEqualTo(1000L);
+
+        // other call graphs learn independently
+        remaining[0] = 2000L;
+        assertThat(strategy.<Model, StdCallbackContext>await("other", 500L, Duration.ofMillis(100), context, model)).isNull();
+        assertThat(strategy.expectedOperationTime("other")).isEqualTo(500L);
+    }
+
+    @Test
+    public void localWaitKeepsProportionalMargin() {
+        final LocalLoopWaitStrategy strategy = new LocalLoopWaitStrategy(() -> 1500L);
+
+        // 100ms delay + 2 x 600ms + 100ms margin = 1400ms fits
+        assertThat(strategy.<Model, StdCallbackContext>await("cg", 600L, Duration.ofMillis(100), context, model)).isNull();
+        // 100ms delay + 2 x 700ms + 100ms margin = 1600ms does not, though a single attempt would
+        assertThat(strategy.<Model, StdCallbackContext>await("slow", 700L, Duration.ofMillis(100), context, model))
+            .isNotNull();
+    }
+
+    @Test
+    public void interruptedWaitHandsBackForCallback() {
+        final WaitStrategy strategy = WaitStrategy.newLocalLoopAwaitStrategy(() -> Duration.ofMinutes(1).toMillis());
+        Thread.currentThread().interrupt();
+        try {
+            final ProgressEvent<Model,
+                StdCallbackContext> event = strategy.await(10L, Duration.ofSeconds(30), context, model);
+            assertThat(event).isNotNull();
+            assertThat(event.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+            assertThat(event.getCallbackDelaySeconds()).isEqualTo(30);
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void callbackDelayIsRoundedUp() {
+        final WaitStrategy strategy = WaitStrategy.scheduleForCallbackStrategy();
+        assertThat(strategy.await(10L, Duration.ofMillis(1500), context, model).getCallbackDelaySeconds()).isEqualTo(2);
+        assertThat(strategy.await(10L, Duration.ofMillis(300), context, model).getCallbackDelaySeconds()).isEqualTo(1);
+        assertThat(strategy.await(10L, Duration.ofSeconds(5), context, model).getCallbackDelaySeconds()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy.delay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.proxy.Delay;
+
+public class AdaptiveTest {
+
+    @Test
+    public void fallsBackUntilEnoughSamples() {
+        final Delay provided = Constant.of().delay(Duration.ofSeconds(2)).timeout(Duration.ofMinutes(1)).build();
+        final Adaptive adaptive = Adaptive.of().minimumSamples(3).build();
+        assertThat(adaptive.getDelay("kinesis:create", provided)).isSameAs(provided);
+        assertThat(adaptive.getDelay("kinesis:create", null).nextDelay(1)).isEqualTo(Duration.ofSeconds(5));
+
+        adaptive.stabilized("kinesis:create", Duration.ofSeconds(30));
+        adaptive.stabilized("kinesis:create", Duration.ofSeconds(30));
+        assertThat(adaptive.samples("kinesis:create")).isEqualTo(2);
+        assertThat(adaptive.getDelay("kinesis:create", provided)).isSameAs(provided);
+
+        adaptive.stabilized("kinesis:create", Duration.ofSeconds(30));
+        assertThat(adaptive.getDelay("kinesis:create", provided)).isNotSameAs(provided);
+        assertThat(adaptive.getDelay("kinesis:delete", provided)).isSameAs(provided);
+    }
+
+    @Test
+    public void pollsNearPredictedCompletion() {
+        final Adaptive adaptive = Adaptive.of().minDelay(Duration.ofSeconds(1)).maxDelay(Duration.ofSeconds(60))
+            .timeout(Duration.ofMinutes(5)).minimumSamples(1).build();
+        for (int i = 0; i < 90; i++) {
+            adaptive.stabilized("rds:create", Duration.ofSeconds(100));
+        }
+        for (int i = 0; i < 10; i++) {
+            adaptive.stabilized("rds:create", Duration.ofSeconds(150));
+        }
+        final long p50 = Adaptive.upperBound(Adaptive.bucket(100_000L));
+        final long p99 = Adaptive.upperBound(Adaptive.bucket(150_000L));
+        final Delay delay = adaptive.getDelay("rds:create", null);
+
+        // first poll is capped by maxDelay, the remainder of the wait for p50 follows
+        assertThat(delay.nextDelay(1)).isEqualTo(Duration.ofSeconds(60));
+        assertThat(delay.nextDelay(2)).isEqualTo(Duration.ofMillis(p50 - 60_000L));
+        // p75 lies in the same bucket, poll again soon after
+        assertThat(delay.nextDelay(3)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(delay.nextDelay(4)).isEqualTo(Duration.ofMillis(p99 - p50 - 1000L));
+        // then every maxDelay until the timeout
+        assertThat(delay.nextDelay(5)).isEqualTo(Duration.ofSeconds(60));
+        assertThat(delay.nextDelay(7)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void predictionKeepsProvidedDeadline() {
+        final Adaptive adaptive = Adaptive.of().maxDelay(Duration.ofSeconds(60)).timeout(Duration.ofMinutes(20))
+            .minimumSamples(1).build();
+        adaptive.stabilized("rds:create", Duration.ofSeconds(30));
+
+        // polling every minute after the prediction, 100 polls are past 20 minutes
+        final Delay twoHours = adaptive.getDelay("rds:create",
+            Constant.of().delay(Duration.ofSeconds(5)).timeout(Duration.ofHours(2)).build());
+        assertThat(twoHours.nextDelay(100)).isEqualTo(Duration.ofSeconds(60));
+        assertThat(twoHours.nextDelay(200)).isEqualTo(Duration.ZERO);
+
+        final Delay capped = adaptive.getDelay("rds:create", CappedExponential.of().minDelay(Duration.ofSeconds(1))
+            .maxDelay(Duration.ofSeconds(10)).timeout(Duration.ofMinutes(5)).build());
+        assertThat(capped.nextDelay(10)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(capped.nextDelay(40)).isEqualTo(Duration.ZERO);
+
+        // delays of other kinds run to their end
+        final Delay blended = adaptive.getDelay("rds:create", attempt -> attempt <= 3 ? Duration.ofMinutes(1) : Duration.ZERO);
+        assertThat(blended.nextDelay(2)).isNotEqualTo(Duration.ZERO);
+        assertThat(blended.nextDelay(10)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void bucketsAndBounds() {
+        assertThat(Adaptive.bucket(0L)).isEqualTo(0);
+        assertThat(Adaptive.bucket(1000L)).isEqualTo(0);
+        assertThat(Adaptive.bucket(1001L)).isEqualTo(1);
+        assertThat(Adaptive.bucket(Long.MAX_VALUE)).isEqualTo(Adaptive.BUCKETS - 1);
+        for (int i = 1; i < Adaptive.BUCKETS; i++) {
+            assertThat(Adaptive.bucket(Adaptive.upperBound(i))).isEqualTo(i);
+        }
+
+        final Adaptive adaptive = Adaptive.of().maximumCallGraphs(1).build();
+        adaptive.stabilized("a", Duration.ofSeconds(1));
+        adaptive.stabilized("b", Duration.ofSeconds(1));
+        adaptive.stabilized("a", Duration.ofSeconds(-1));
+        assertThat(adaptive.samples("a")).isEqualTo(1);
+        assertThat(adaptive.samples("b")).isEqualTo(0);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> Adaptive.of().minDelay(Duration.ofSeconds(10)).maxDelay(Duration.ofSeconds(5)).build());
+        assertThrows(IllegalArgumentException.class, () -> Adaptive.of().minimumSamples(0).build());
+    }
+}
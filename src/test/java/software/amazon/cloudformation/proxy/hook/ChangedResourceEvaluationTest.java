@@ -0,0 +1,292 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.proxy.hook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.exceptions.TerminalException;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerErrorCode;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.hook.targetmodel.ChangedResource;
+import software.amazon.cloudformation.proxy.hook.targetmodel.HookTargetModel;
+import software.amazon.cloudformation.tracing.InMemorySpanExporter;
+import software.amazon.cloudformation.tracing.Span;
+import software.amazon.cloudformation.tracing.SpanNames;
+
+public class ChangedResourceEvaluationTest {
+
+    private static final Instant LATER = Instant.now().plusSeconds(3600);
+
+    private static HookHandlerRequest stackRequest(final String... logicalResourceIds) {
+        final List<Map<String, Object>> changedResources = new ArrayList<>();
+        for (final String logicalResourceId : logicalResourceIds) {
+            changedResources.add(Map.of("LogicalResourceId", logicalResourceId, "ResourceType", "AWS::S3::Bucket"));
+        }
+        return HookHandlerRequest.builder().hookContext(HookContext.builder().targetType("STACK")
+            .targetModel(HookTargetModel.of(Map.of("ChangedResources", changedResources))).build()).build();
+    }
+
+    private static ProgressEvent<Object, Object> evaluate(final ChangedResourceEvaluation<Object, Object, Object> evaluation,
+                                                          final String... logicalResourceIds)
+        throws Exception {
+        return evaluation.evaluate(() -> null, stackRequest(logicalResourceIds), () -> null, null, LATER);
+    }
+
+    private static ProgressEvent<Object, Object> event(final OperationStatus status,
+                                                       final String message,
+                                                       final String annotation) {
+        return ProgressEvent.builder().status(status).message(message)
+            .annotations(Collections
+                .singletonList(HookAnnotation.builder().annotationName(annotation).status(HookAnnotationStatus.PASSED).build()))
+            .build();
+    }
+
+    @Test
+    public void evaluate_runsUpToParallelismConcurrently() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(3);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final ChangedResourceEvaluation<Object, Object, Object> evaluation = new ChangedResourceEvaluation<>(
+            (proxy, request, changedResource, callbackContext, typeConfiguration) -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                // only passes once three evaluations are running at the same time
+                barrier.await(5, TimeUnit.SECONDS);
+                running.decrementAndGet();
+                return event(OperationStatus.SUCCESS, null, changedResource.getLogicalResourceId());
+            }, 3);
+
+        final ProgressEvent<Object, Object> result = evaluate(evaluation, "A", "B", "C", "D", "E", "F");
+
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(maxRunning.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void evaluate_mergesInResourceOrder() throws Exception {
+        // later resources complete first
+        final ChangedResourceEvaluation<Object, Object, Object> evaluation = new ChangedResourceEvaluation<>(
+            (proxy, request, changedResource, callbackContext, typeConfiguration) -> {
+                final String id = changedResource.getLogicalResourceId();
+                Thread.sleep("A".equals(id) ? 100 : "B".equals(id) ? 50 : 0);
+                return event(OperationStatus.SUCCESS, "B".equals(id) ? null : "checked", id);
+            }, 4);
+
+        final ProgressEvent<Object, Object> result = evaluate(evaluation, "A", "B", "C");
+
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(result.getErrorCode()).isNull();
+        assertThat(result.getMessage()).isEqualTo("A: checked; C: checked");
+        assertThat(result.getAnnotations()).extracting(HookAnnotation::getAnnotationName).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    public void evaluate_failsWithFirstFailedResource() throws Exception {
+        final ChangedResourceEvaluation<Object, Object, Object> evaluation = new ChangedResourceEvaluation<>(
+            (proxy, request, changedResource, callbackContext, typeConfiguration) -> {
+                final String id = changedResource.getLogicalResourceId();
+                if ("A".equals(id)) {
+                    return event(OperationStatus.SUCCESS, "fine", id);
+                }
+                final ProgressEvent<Object, Object> failed = event(OperationStatus.FAILED, "bad " + id, id);
+                failed.setErrorCode("B".equals(id) ? HandlerErrorCode.NonCompliant : HandlerErrorCode.InternalFailure);
+                return failed;
+            }, 2);
+
+        final ProgressEvent<Object, Object> result = evaluate(evaluation, "A", "B", "C");
+
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.FAILED);
+        assertThat(result.getErrorCode()).isEqualTo(HandlerErrorCode.NonCompliant);
+        assertThat(result.getMessage()).isEqualTo("B: bad B; C: bad C");
+        assertThat(result.getAnnotations()).extracting(HookAnnotation::getAnnotationName).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    public void evaluate_rethrowsFirstExceptionAfterAllEvaluations() {
+        final AtomicInteger evaluated = new AtomicInteger();
+        final ChangedResourceEvaluation<Object, Object, Object> evaluation = new ChangedResourceEvaluation<>(
+            (proxy, request, changedResource, callbackContext, typeConfiguration) -> {
+                final String id = changedResource.getLogicalResourceId();
+                if ("B".equals(id)) {
+                    Thread.sleep(50);
+                }
+                evaluated.incrementAndGet();
+                if (!"A".equals(id)) {
+                    throw new IllegalStateException("cannot evaluate " + id);
+                }
+                return event(OperationStatus.SUCCESS, null, id);
+            }, 3);
+
+        assertThatThrownBy(() -> evaluate(evaluation, "A", "B", "C"))
+            .isInstanceOf(IllegalStateException.class).hasMessage("cannot evaluate B");
+        assertThat(evaluated.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void evaluate_inProgress_callsBackWithMergedContexts() throws Exception {
+        final ChangedResourceEvaluation<Object, Object, Object> evaluation = new ChangedResourceEvaluation<>(
+            new ChangedResourceEvaluator<Object, Object, Object>() {
+                @Override
+                public ProgressEvent<Object, Object> evaluate(final AmazonWebServicesClientProxy proxy,
+                                                              final HookHandlerRequest request,
+                                                              final ChangedResource changedResource,
+                                                              final Object callbackContext,
+                                                              final Object typeConfiguration) {
+                    final String id = changedResource.getLogicalResourceId();
+                    if ("A".equals(id)) {
+                        return event(OperationStatus.SUCCESS, "done", id);
+                    }
+                    final ProgressEvent<Object, Object> inProgress = event(OperationStatus.IN_PROGRESS, "waiting", id);
+                    inProgress.setCallbackContext(id.toLowerCase());
+                    inProgress.setCallbackDelaySeconds("B".equals(id) ? 5 : 10);
+                    return inProgress;
+                }
+
+                @Override
+                public Object mergeCallbackContexts(final List<Object> callbackContexts) {
+                    return callbackContexts.toString();
+                }
+            }, 2);
+
+        final ProgressEvent<Object, Object> result = evaluate(evaluation, "A", "B", "C");
+
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(result.getMessage()).isEqualTo("B: waiting; C: waiting");
+        assertThat(result.getCallbackContext()).isEqualTo("[b, c]");
+        assertThat(result.getCallbackDelaySeconds()).isEqualTo(10);
+        assertThat(result.getAnnotations()).extracting(HookAnnotation::getAnnotationName).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    public void evaluate_pastDeadline_interruptsAndCallsBack() throws Exception {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final ChangedResourceEvaluation<Object, Object, Object> evaluation = new ChangedResourceEvaluation<>(
+            (proxy, request, changedResource, callbackContext, typeConfiguration) -> {
+                final String id = changedResource.getLogicalResourceId();
+                if ("B".equals(id)) {
+                    try {
+                        Thread.sleep(5_000);
+                    } catch (final InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                }
+                return event(OperationStatus.SUCCESS, null, id);
+            }, 2);
+
+        final ProgressEvent<Object, Object> result = evaluation.evaluate(() -> null, stackRequest("A", "B"), () -> "incoming",
+            null, Instant.now().plusMillis(200));
+
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(result.getMessage()).isEqualTo("B: not evaluated within the invocation");
+        assertThat(result.getCallbackContext()).isEqualTo("incoming");
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void evaluate_pastDeadline_startsNoEvaluation() throws Exception {
+        final AtomicInteger evaluated = new AtomicInteger();
+        final ChangedResourceEvaluation<Object, Object, Object> evaluation = new ChangedResourceEvaluation<>(
+            (proxy, request, changedResource, callbackContext, typeConfiguration) -> {
+                evaluated.incrementAndGet();
+                return event(OperationStatus.SUCCESS, null, changedResource.getLogicalResourceId());
+            }, 1);
+
+        final ProgressEvent<Object, Object> result = evaluation.evaluate(() -> null, stackRequest("A", "B"), () -> null, null,
+            Instant.now());
+
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.IN_PROGRESS);
+        assertThat(result.getCallbackDelaySeconds()).isZero();
+        assertThat(evaluated.get()).isZero();
+    }
+
+    @Test
+    public void evaluate_givesEachEvaluationItsOwnContextAndParentSpan() throws Exception {
+        final Set<Object> callbackContexts = Collections.newSetFromMap(new IdentityHashMap<>());
+        final AtomicInteger proxies = new AtomicInteger();
+        final ChangedResourceEvaluation<Object, Object, Object> evaluation = new ChangedResourceEvaluation<>(
+            (proxy, request, changedResource, callbackContext, typeConfiguration) -> {
+                synchronized (callbackContexts) {
+                    callbackContexts.add(callbackContext);
+                }
+                // calls made by the evaluator attach to the span of its resource
+                Span.current().child(SpanNames.AWS_REQUEST).close();
+                return event(OperationStatus.SUCCESS, null, changedResource.getLogicalResourceId());
+            }, 3);
+        final InMemorySpanExporter exporter = new InMemorySpanExporter();
+
+        try (Span root = Span.root(SpanNames.INVOCATION, exporter)) {
+            evaluation.evaluate(() -> {
+                proxies.incrementAndGet();
+                return null;
+            }, stackRequest("A", "B", "C"), ArrayList::new, null, LATER);
+        }
+
+        assertThat(proxies.get()).isEqualTo(3);
+        assertThat(callbackContexts).hasSize(3);
+        final String rootSpanId = exporter.getSpans(SpanNames.INVOCATION).get(0).getSpanId();
+        final List<Span> resourceSpans = exporter.getSpans(SpanNames.CHANGED_RESOURCE);
+        assertThat(resourceSpans).hasSize(3).allSatisfy(span -> assertThat(span.getParentSpanId()).isEqualTo(rootSpanId));
+        assertThat(resourceSpans).extracting(span -> span.getAttributes().get("logicalResourceId"))
+            .containsExactlyInAnyOrder("A", "B", "C");
+        assertThat(exporter.getSpans(SpanNames.AWS_REQUEST)).extracting(Span::getParentSpanId)
+            .containsExactlyInAnyOrderElementsOf(resourceSpans.stream().map(Span::getSpanId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void evaluate_unknownStatus_isRejected() {
+        final ChangedResourceEvaluation<Object, Object, Object> evaluation = new ChangedResourceEvaluation<>(
+            (proxy, request, changedResource, callbackContext, typeConfiguration) -> event(OperationStatus.PENDING, null, "A"),
+            1);
+
+        assertThatThrownBy(() -> evaluate(evaluation, "A")).isInstanceOf(TerminalException.class)
+            .hasMessage("Evaluation of A returned PENDING, which a changed resource cannot have.");
+    }
+
+    @Test
+    public void evaluate_noChangedResources_succeeds() throws Exception {
+        final ChangedResourceEvaluation<Object, Object, Object> evaluation = new ChangedResourceEvaluation<>(
+            (proxy, request, changedResource, callbackContext, typeConfiguration) -> {
+                throw new IllegalStateException("not expected");
+            }, 2);
+
+        final ProgressEvent<Object, Object> result = evaluate(evaluation);
+
+        assertThat(result.getStatus()).isEqualTo(OperationStatus.SUCCESS);
+        assertThat(result.getMessage()).isNull();
+        assertThat(result.getAnnotations()).isNull();
+    }
+
+    @Test
+    public void constructor_nonPositiveParallelism_throws() {
+        assertThatThrownBy(() -> new ChangedResourceEvaluation<>(
+            (proxy, request, changedResource, callbackContext, typeConfiguration) -> null, 0))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("parallelism must be positive");
+    }
+}
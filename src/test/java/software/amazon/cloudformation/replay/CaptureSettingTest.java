@@ -0,0 +1,43 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+
+public class CaptureSettingTest {
+
+    private static final Path TEMP = Paths.get("/tmp");
+
+    @Test
+    public void directoryFor_setting() {
+        assertThat(CaptureSetting.directoryFor(null, TEMP)).isNull();
+        assertThat(CaptureSetting.directoryFor(" ", TEMP)).isNull();
+        assertThat(CaptureSetting.directoryFor(" /var/captures ", TEMP)).isEqualTo(Paths.get("/var/captures"));
+        assertThat(CaptureSetting.configuredDirectory()).isNull();
+    }
+
+    @Test
+    public void directoryFor_tempDirectoryOrRelatedDisablesCapture() {
+        assertThat(CaptureSetting.directoryFor("/tmp", TEMP)).isNull();
+        assertThat(CaptureSetting.directoryFor("/tmp/", TEMP)).isNull();
+        assertThat(CaptureSetting.directoryFor("/tmp/./", TEMP)).isNull();
+        assertThat(CaptureSetting.directoryFor("/", TEMP)).isNull();
+        assertThat(CaptureSetting.directoryFor("/tmp/captures", TEMP)).isNull();
+        assertThat(CaptureSetting.directoryFor("/tmpcaptures", TEMP)).isEqualTo(Paths.get("/tmpcaptures"));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.cloudformation.model.AlreadyExistsException;
+import software.amazon.awssdk.services.cloudformation.model.CreateStackRequest;
+import software.amazon.awssdk.services.cloudformation.model.CreateStackResponse;
+import software.amazon.awssdk.services.cloudformation.model.DeleteStackRequest;
+import software.amazon.awssdk.services.cloudformation.model.DeleteStackResponse;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsRequest;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsResponse;
+import software.amazon.awssdk.services.cloudformation.model.StackEvent;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ServiceCallInterceptor;
+
+public class InvocationReplayTest {
+
+    private static final String REQUEST = "{\"action\":\"CREATE\",\"bearerToken\":\"bearer-secret\","
+        + "\"requestData\":{\"callerCredentials\":{\"accessKeyId\":\"CALLERKEY\",\"secretAccessKey\":\"CALLERSECRET\","
+        + "\"sessionToken\":\"CALLERTOKEN\"},\"providerCredentials\":{\"accessKeyId\":\"PROVIDERKEY\","
+        + "\"secretAccessKey\":\"PROVIDERSECRET\",\"sessionToken\":\"PROVIDERTOKEN\"},"
+        + "\"providerLogGroupName\":\"logs\",\"resourceProperties\":{\"Name\":\"stack\"}}}";
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void replay_answersCallsFromCapture() throws IOException {
+        final Path capture = capture(InvocationReplayTest::handle);
+        final String captured = new String(Files.readAllBytes(capture), StandardCharsets.UTF_8);
+        assertThat(captured).contains("\"Name\":\"stack\"", "e-1", "AlreadyExistsException")
+            .doesNotContain("CALLERKEY", "CALLERSECRET", "CALLERTOKEN", "PROVIDERSECRET", "bearer-secret");
+
+        final InvocationReplay replay = InvocationReplay.load(capture);
+        assertThat(replay.getCallsCaptured()).isEqualTo(2);
+        assertThat(replay.getCapturedStatus()).isEqualTo("SUCCESS");
+        assertThat(replay.getCapturedDuration()).isNotNull();
+
+        final AtomicReference<JSONObject> replayedRequest = new AtomicReference<>();
+        final InvocationReplay.Result result = replay.run((in, out, serviceCalls) -> {
+            final String input = IOUtils.toString(in, StandardCharsets.UTF_8);
+            replayedRequest.set(new JSONObject(input));
+            handle(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out, serviceCalls);
+        }, 0);
+
+        assertThat(result.isDiverged()).isFalse();
+        assertThat(result.getCallsReplayed()).isEqualTo(2);
+        assertThat(result.getCallsCaptured()).isEqualTo(2);
+        assertThat(result.getResponse()).isEqualTo("e-1 AlreadyExistsException");
+        final JSONObject requestData = replayedRequest.get().getJSONObject("requestData");
+        assertThat(requestData.getJSONObject("callerCredentials").getString("accessKeyId")).isEqualTo("replay");
+        assertThat(requestData.has("providerCredentials")).isFalse();
+        assertThat(requestData.has("providerLogGroupName")).isFalse();
+    }
+
+    @Test
+    public void replay_callNotCaptured_diverges() throws IOException {
+        final InvocationReplay replay = InvocationReplay.load(capture(InvocationReplayTest::handle));
+
+        final InvocationReplay.Result result = replay.run((in, out, serviceCalls) -> {
+            try {
+                serviceCalls.intercept(DeleteStackRequest.builder().stackName("other").build(),
+                    request -> DeleteStackResponse.builder().build());
+            } catch (final IllegalStateException e) {
+                out.write(e.getMessage().getBytes(StandardCharsets.UTF_8));
+            }
+        }, 0);
+
+        assertThat(result.isDiverged()).isTrue();
+        assertThat(result.getCallsReplayed()).isZero();
+        assertThat(result.getDivergence()).contains(DeleteStackRequest.class.getName());
+        assertThat(result.getResponse()).startsWith("Replay diverged");
+    }
+
+    @Test
+    public void replay_passThroughCall_diverges() throws IOException {
+        final Path capture = capture((in, out, serviceCalls) -> {
+            serviceCalls.passThrough(DescribeStackEventsRequest.builder().stackName("stack").build(),
+                "injectCredentialsAndInvokeIterableV2");
+        });
+        assertThat(new String(Files.readAllBytes(capture), StandardCharsets.UTF_8))
+            .contains("\"type\":\"passThrough\"", "injectCredentialsAndInvokeIterableV2");
+
+        final InvocationReplay.Result result = InvocationReplay.load(capture).run((in, out, serviceCalls) -> {
+            assertThatThrownBy(() -> serviceCalls.passThrough(DescribeStackEventsRequest.builder().stackName("stack").build(),
+                "injectCredentialsAndInvokeIterableV2")).isInstanceOf(IllegalStateException.class);
+        }, 0);
+
+        assertThat(result.isDiverged()).isTrue();
+        assertThat(result.getDivergence()).contains(DescribeStackEventsRequest.class.getName(),
+            "injectCredentialsAndInvokeIterableV2");
+    }
+
+    @Test
+    public void load_withoutRequest_fails() throws IOException {
+        final Path capture = tempDir.resolve("empty.jsonl");
+        Files.write(capture, "{\"type\":\"result\",\"status\":\"SUCCESS\"}\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> InvocationReplay.load(capture)).isInstanceOf(IOException.class)
+            .hasMessageStartingWith("No request captured");
+    }
+
+    private Path capture(final InvocationReplay.Processor processor) throws IOException {
+        final JSONObject request = new JSONObject(REQUEST);
+        try (InvocationRecorder recorder = InvocationRecorder.start(tempDir, InvocationRecorder.redactionFor(request))) {
+            recorder.recordRequest(REQUEST);
+            processor.process(new ByteArrayInputStream(REQUEST.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream(),
+                recorder);
+            recorder.recordResult(OperationStatus.SUCCESS, null);
+            return recorder.getFile();
+        }
+    }
+
+    //
+    // a handler reading stack events, then failing to create a stack which exists
+    //
+    private static void handle(final InputStream in, final OutputStream out, final ServiceCallInterceptor serviceCalls)
+        throws IOException {
+        final String name = new JSONObject(IOUtils.toString(in, StandardCharsets.UTF_8)).getJSONObject("requestData")
+            .getJSONObject("resourceProperties").getString("Name");
+        final DescribeStackEventsResponse events = serviceCalls.intercept(
+            DescribeStackEventsRequest.builder().stackName(name).build(), request -> DescribeStackEventsResponse.builder()
+                .stackEvents(StackEvent.builder().eventId("e-1").timestamp(Instant.now()).build()).build());
+        String outcome;
+        try {
+            serviceCalls.intercept(CreateStackRequest.builder().stackName(name).build(), request -> {
+                throw AlreadyExistsException.builder().statusCode(400)
+                    .awsErrorDetails(AwsErrorDetails.builder().errorCode("AlreadyExistsException").errorMessage("exists")
+                        .sdkHttpResponse(SdkHttpResponse.builder().statusCode(400).build()).build())
+                    .build();
+            });
+            outcome = "created";
+        } catch (final AlreadyExistsException e) {
+            outcome = e.awsErrorDetails().errorCode();
+        }
+        out.write(String.format("%s %s", events.stackEvents().get(0).eventId(), outcome).getBytes(StandardCharsets.UTF_8));
+    }
+}
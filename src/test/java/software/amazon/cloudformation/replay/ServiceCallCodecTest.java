@@ -0,0 +1,102 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.awscore.DefaultAwsResponseMetadata;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.cloudformation.model.AlreadyExistsException;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsRequest;
+import software.amazon.awssdk.services.cloudformation.model.DescribeStackEventsResponse;
+import software.amazon.awssdk.services.cloudformation.model.ResourceStatus;
+import software.amazon.awssdk.services.cloudformation.model.StackEvent;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+public class ServiceCallCodecTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void response_roundTripsThroughJson() throws IOException {
+        final DescribeStackEventsResponse.Builder builder = DescribeStackEventsResponse.builder().nextToken("token")
+            .stackEvents(StackEvent.builder().eventId("e-1").resourceStatus(ResourceStatus.CREATE_COMPLETE)
+                .timestamp(Instant.parse("2020-01-01T00:00:00.123Z")).build(), StackEvent.builder().eventId("e-2").build());
+        builder.responseMetadata(DefaultAwsResponseMetadata.create(Collections.singletonMap("AWS_REQUEST_ID", "req-1")));
+        builder.sdkHttpResponse(SdkHttpResponse.builder().statusCode(200).build());
+        final DescribeStackEventsResponse response = builder.build();
+
+        final AwsResponse rebuilt = ServiceCallCodec.response(reparse(ServiceCallCodec.describe(response)));
+
+        assertThat(rebuilt).isEqualTo(response);
+        assertThat(rebuilt.responseMetadata().requestId()).isEqualTo("req-1");
+        assertThat(rebuilt.sdkHttpResponse().statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void response_mapsAndNumbers() throws IOException {
+        final HeadObjectResponse response = HeadObjectResponse.builder().contentLength(42L)
+            .metadata(Collections.singletonMap("key", "value")).lastModified(Instant.parse("2020-01-01T00:00:00Z")).build();
+
+        // only the fields, the response carries no metadata before it is captured
+        assertThat(ServiceCallCodec.response(reparse(ServiceCallCodec.describe(response))).equalsBySdkFields(response)).isTrue();
+    }
+
+    @Test
+    public void toJson_request() {
+        final JsonNode node = ServiceCallCodec.toJson(DescribeStackEventsRequest.builder().stackName("stack").build());
+
+        assertThat(node.get("StackName").asText()).isEqualTo("stack");
+        assertThat(node.has("NextToken")).isFalse();
+    }
+
+    @Test
+    public void error_serviceException() throws IOException {
+        final AwsServiceException error = AlreadyExistsException.builder().message("exists").statusCode(400).requestId("req-2")
+            .awsErrorDetails(AwsErrorDetails.builder().errorCode("AlreadyExistsException").errorMessage("exists")
+                .serviceName("CloudFormation").sdkHttpResponse(SdkHttpResponse.builder().statusCode(400).build()).build())
+            .build();
+
+        final RuntimeException rebuilt = ServiceCallCodec.error(reparse(ServiceCallCodec.describe(error)));
+
+        assertThat(rebuilt).isInstanceOf(AlreadyExistsException.class).hasMessage(error.getMessage());
+        final AwsServiceException serviceException = (AwsServiceException) rebuilt;
+        assertThat(serviceException.statusCode()).isEqualTo(400);
+        assertThat(serviceException.requestId()).isEqualTo("req-2");
+        assertThat(serviceException.awsErrorDetails().errorCode()).isEqualTo("AlreadyExistsException");
+        assertThat(serviceException.awsErrorDetails().serviceName()).isEqualTo("CloudFormation");
+    }
+
+    @Test
+    public void error_otherException() throws IOException {
+        final RuntimeException rebuilt = ServiceCallCodec
+            .error(reparse(ServiceCallCodec.describe(new IllegalStateException("timed out"))));
+
+        assertThat(rebuilt).isInstanceOf(SdkClientException.class).hasMessage("java.lang.IllegalStateException: timed out");
+    }
+
+    private static JsonNode reparse(final JsonNode node) throws IOException {
+        return MAPPER.readTree(MAPPER.writeValueAsString(node));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import software.amazon.cloudformation.resource.exceptions.ValidationException;
+
+public class CompiledValidatorTest {
+
+    private static final String SCHEMA_PATH = "src/test/java/software/amazon/cloudformation/data/compiled-validator.schema.json";
+
+    //
+    // compiled from compiled-validator.schema.json the way codegen does
+    //
+    private static final CompiledValidator.ObjectNode TAG = CompiledValidator.object()
+        .property("Key", CompiledValidator.string().minLength(1))
+        .property("Value", CompiledValidator.string().enumValues("a", "b")).required("Key");
+
+    private final CompiledValidator compiled = new CompiledValidator(CompiledValidator.object()
+        .property("Id", CompiledValidator.string())
+        .property("Name", CompiledValidator.string().maxLength(5).pattern("^[a-z]+$"))
+        .property("Count", CompiledValidator.integer().minimum("1").maximum("10"))
+        .property("Ratio", CompiledValidator.number()).property("Flag", CompiledValidator.bool())
+        .property("Tags", CompiledValidator.array(TAG).minItems(1).maxItems(2))
+        .property("Labels", CompiledValidator.map(CompiledValidator.string().maxLength(2))).property("Parent", TAG)
+        .required("Name", "Id"));
+
+    @ParameterizedTest
+    @ValueSource(strings = { "{\"Id\":\"i\",\"Name\":\"abc\"}",
+        "{\"Id\":\"i\",\"Name\":\"abc\",\"Count\":3,\"Ratio\":0.5,\"Flag\":true,\"Tags\":[{\"Key\":\"k\",\"Value\":\"a\"}]}",
+        "{\"Name\":\"abc\"}", "{}", "{\"Id\":\"i\",\"Name\":\"ABCDEFG\"}", "{\"Id\":\"i\",\"Name\":\"ABC\"}",
+        "{\"Id\":\"i\",\"Name\":\"abc\",\"Count\":0}", "{\"Id\":\"i\",\"Name\":\"abc\",\"Count\":11}",
+        "{\"Id\":\"i\",\"Name\":\"abc\",\"Tags\":[]}",
+        "{\"Id\":\"i\",\"Name\":\"abc\",\"Tags\":[{},{\"Key\":\"\"},{\"Key\":\"k\"}]}",
+        "{\"Id\":\"i\",\"Name\":\"abc\",\"Parent\":{\"Key\":\"k\",\"Value\":\"c\"}}",
+        "{\"Id\":\"i\",\"Name\":\"abc\",\"Labels\":{\"a\":\"abc\",\"b\":\"ab\",\"c\":\"abcd\"}}",
+        "{\"Id\":\"i\",\"Name\":\"abc\",\"Ratio\":{},\"Flag\":[]}", "{\"Id\":\"i\",\"Name\":\"abc\",\"Labels\":{\"a\":1}}",
+        "{\"Name\":\"ABCDEFG\",\"Count\":0,\"Ratio\":[],\"Flag\":{},\"Labels\":{\"a\":\"abc\",\"b\":\"abc\"},"
+            + "\"Tags\":[{\"Value\":\"c\"},{\"Key\":\"\"},{\"Key\":\"k\"}],\"Parent\":{\"Key\":\"k\",\"Value\":\"c\"}}" })
+    public void validate_matchesSchemaValidator(final String model) throws IOException {
+        final ValidationException expected = validateWithSchema(new JSONObject(model));
+        final ValidationException actual = validateCompiled(new JSONObject(model));
+
+        if (expected == null) {
+            assertThat(actual).isNull();
+        } else {
+            assertThat(actual).isNotNull();
+            assertThat(describe(actual)).isEqualTo(describe(expected));
+        }
+    }
+
+    @Test
+    public void validate_unknownKey_rejectedBeforeSchemaFailures() {
+        assertThatThrownBy(() -> compiled.validate(new JSONObject("{\"Parent\":{\"Key\":\"k\",\"Other\":1}}")))
+            .isInstanceOf(ValidationException.class).hasMessage("#: extraneous key [Other] is not permitted")
+            .extracting("keyword", "schemaPointer").containsExactly("additionalProperties", "#");
+    }
+
+    @Test
+    public void validate_coercesLikeTheModelRoundTrip() {
+        // keys match case insensitively, nulls are absent and scalars coerce to the property type,
+        // map values are held untyped and not coerced
+        compiled.validate(new JSONObject("{\"id\":\"i\",\"NAME\":\"abc\",\"Count\":\"7\",\"Ratio\":\"0.5\",\"Flag\":\"true\","
+            + "\"Parent\":null,\"Labels\":{\"a\":\"x\",\"b\":null},\"Tags\":[{\"Key\":5}]}"));
+
+        assertThatThrownBy(() -> compiled.validate(new JSONObject("{\"Id\":\"i\",\"Name\":null}")))
+            .isInstanceOf(ValidationException.class).hasMessage("#: required key [Name] not found");
+        assertThatThrownBy(() -> compiled.validate(new JSONObject("{\"Id\":\"i\",\"Name\":\"abc\",\"Tags\":[null]}")))
+            .isInstanceOf(ValidationException.class).hasMessage("#/Tags/0: expected type: JSONObject, found: Null");
+    }
+
+    private ValidationException validateWithSchema(final JSONObject model) throws IOException {
+        final JSONObject schema = new JSONObject(new String(Files.readAllBytes(Paths.get(SCHEMA_PATH)), StandardCharsets.UTF_8));
+        try {
+            new Validator().validateObject(model, schema);
+            return null;
+        } catch (final ValidationException e) {
+            return e;
+        }
+    }
+
+    private ValidationException validateCompiled(final JSONObject model) {
+        try {
+            compiled.validate(model);
+            return null;
+        } catch (final ValidationException e) {
+            return e;
+        }
+    }
+
+    private static List<String> describe(final ValidationException e) {
+        final List<String> lines = new ArrayList<>();
+        lines.add(String.format("%s (%s, %s)", e.getMessage(), e.getKeyword(), e.getSchemaPointer()));
+        for (final ValidationException cause : e.getCausingExceptions()) {
+            for (final String line : describe(cause)) {
+                lines.add("  " + line);
+            }
+        }
+        return lines;
+    }
+}
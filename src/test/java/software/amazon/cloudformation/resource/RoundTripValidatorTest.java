@@ -0,0 +1,56 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.resource;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import software.amazon.cloudformation.TestModel;
+import software.amazon.cloudformation.resource.exceptions.ValidationException;
+
+public class RoundTripValidatorTest {
+
+    private static final JSONObject SCHEMA = new JSONObject("{\"properties\":{\"property1\":{\"type\":\"string\","
+        + "\"maxLength\":3},\"property2\":{\"type\":\"integer\"},\"tags\":{\"type\":\"object\"}},"
+        + "\"required\":[\"property1\"],\"additionalProperties\":false}");
+
+    private final RoundTripValidator<TestModel> validator = new RoundTripValidator<>(new Serializer(),
+        new TypeReference<TestModel>() {
+        }, SCHEMA);
+
+    @Test
+    public void validate_validModel() {
+        assertThatCode(() -> validator.validate(new JSONObject("{\"property1\":\"abc\",\"property2\":\"7\"}")))
+            .doesNotThrowAnyException();
+    }
+
+    @Test
+    public void validate_unknownKey() {
+        assertThatThrownBy(() -> validator.validate(new JSONObject("{\"property1\":\"abc\",\"other\":1}")))
+            .isInstanceOf(ValidationException.class).hasMessage("#: extraneous key [other] is not permitted")
+            .extracting("keyword", "schemaPointer").containsExactly("additionalProperties", "#");
+    }
+
+    @Test
+    public void validate_validatesTheRoundTrippedModel() {
+        // null properties are dropped by the round trip, so the required key is missing
+        assertThatThrownBy(() -> validator.validate(new JSONObject("{\"property1\":null}")))
+            .isInstanceOf(ValidationException.class).hasMessage("#: required key [property1] not found");
+        assertThatThrownBy(() -> validator.validate(new JSONObject("{\"property1\":\"abcd\"}")))
+            .isInstanceOf(ValidationException.class).hasMessageContaining("#/property1");
+    }
+}
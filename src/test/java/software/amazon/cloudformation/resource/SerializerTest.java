@@ -16,14 +16,32 @@ package software.amazon.cloudformation.resource;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.entry;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.io.IOUtils;
 import org.assertj.core.util.Maps;
 import org.junit.jupiter.api.Test;
@@ -31,6 +49,7 @@ import software.amazon.cloudformation.Action;
 import software.amazon.cloudformation.TestConfigurationModel;
 import software.amazon.cloudformation.TestContext;
 import software.amazon.cloudformation.TestModel;
+import software.amazon.cloudformation.exceptions.ResponseTooLargeException;
 import software.amazon.cloudformation.proxy.HandlerRequest;
 import software.amazon.cloudformation.proxy.RequestData;
 
@@ -60,6 +79,59 @@ public class SerializerTest {
         serializer.serialize(new TestModel());
     }
 
+    @Test
+    public void testSerialize_toStream_matchesString() throws IOException {
+        final Serializer serializer = new Serializer();
+        final TestModel model = TestModel.builder().property1("caf\u00e9 \u2603").property2(123).build();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        serializer.serialize(model, out);
+        // the stream is left open for the caller
+        out.write('\n');
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(serializer.serialize(model) + "\n");
+    }
+
+    @Test
+    public void testSerialize_withRawArrayField_writesElementsFirst() throws IOException {
+        final Serializer serializer = new Serializer();
+        final TestModel model = TestModel.builder().property1("abc").build();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        serializer.serialize(model, "property2", Arrays.asList("{\"a\":1}", "2"), out, Long.MAX_VALUE);
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+            .isEqualTo("{\"property2\":[{\"a\":1},2],\"property1\":\"abc\"}");
+        assertThatThrownBy(() -> serializer.serialize(model, "property2", Arrays.asList("1"), new ByteArrayOutputStream(), 8))
+            .isInstanceOf(ResponseTooLargeException.class);
+    }
+
+    @Test
+    public void testCopy_returnsEqualDistinctValue() {
+        final Serializer serializer = new Serializer();
+        final TestContext context = TestContext.builder().contextPropertyA("a").build();
+
+        final TestContext copy = serializer.copy(context);
+
+        assertThat(copy).isEqualTo(context).isNotSameAs(context);
+        assertThat(serializer.<TestContext>copy(null)).isNull();
+    }
+
+    @Test
+    public void testSerialize_toStream_failsPastByteLimit() throws IOException {
+        final Serializer serializer = new Serializer();
+        final TestModel model = TestModel.builder().property1("abc").property2(123).build();
+        final int length = serializer.serialize(model).getBytes(StandardCharsets.UTF_8).length;
+
+        final ByteArrayOutputStream fits = new ByteArrayOutputStream();
+        serializer.serialize(model, fits, length);
+        assertThat(fits.size()).isEqualTo(length);
+
+        final ByteArrayOutputStream tooLarge = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> serializer.serialize(model, tooLarge, length - 1)).isInstanceOf(ResponseTooLargeException.class);
+        assertThat(tooLarge.size()).isLessThan(length);
+    }
+
     @Test
     public void testDeserialize_AccuratePayload() throws IOException {
         final Serializer s = new Serializer();
@@ -175,4 +247,129 @@ public class SerializerTest {
         assertThat(requestData.getResourceProperties().getProperty1()).isEqualTo("abc");
         assertThat(requestData.getResourceProperties().getProperty2()).isEqualTo(123);
     }
+
+    @Test
+    public void testModules_UsedForModelInsteadOfReflection() throws IOException {
+        final CountingModule module = new CountingModule();
+        final Serializer generated = new Serializer(false, Collections.singletonList(module));
+        final Serializer reflective = new Serializer();
+
+        final String in = loadRequestJson("create.request.json");
+        final HandlerRequest<TestModel, TestContext, TestConfigurationModel> r = generated.deserialize(in, typeReference);
+        assertThat(module.reads.get()).isPositive();
+        assertThat(r.getRequestData().getResourceProperties())
+            .isEqualTo(reflective.deserialize(in, typeReference).getRequestData().getResourceProperties());
+
+        final Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("key", "value");
+        tags.put("absent", null);
+        final TestModel model = TestModel.builder().property1("abc").property2(123).tags(tags).build();
+        final ObjectMapper json = new ObjectMapper();
+        assertThat(json.readTree(generated.serialize(model))).isEqualTo(json.readTree(reflective.serialize(model)));
+        assertThat(module.writes.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testModules_HonourCaseInsensitiveAndStrictProperties() throws IOException {
+        final Serializer generated = new Serializer(false, Collections.singletonList(new CountingModule()));
+        final TypeReference<TestModel> modelReference = new TypeReference<TestModel>() {
+        };
+
+        assertThat(generated.deserialize("{\"Property1\":\"abc\",\"unknown\":[1]}", modelReference).getProperty1())
+            .isEqualTo("abc");
+        assertThatThrownBy(() -> generated.deserializeStrict("{\"property1\":\"abc\",\"unknown\":1}", modelReference))
+            .isInstanceOf(UnrecognizedPropertyException.class);
+        assertThat(new Serializer().deserialize("{\"Property1\":\"abc\",\"unknown\":[1]}", modelReference).getProperty1())
+            .isEqualTo("abc");
+    }
+
+    /*
+     * The shape of what the Java codegen emits per model, see
+     * templates/generate/serde/ModelSerde.java
+     */
+    private static final class CountingModule extends SimpleModule {
+        private static final long serialVersionUID = 1L;
+        private final AtomicInteger reads = new AtomicInteger();
+        private final AtomicInteger writes = new AtomicInteger();
+
+        private CountingModule() {
+            super("TestModelSerializers");
+            addSerializer(TestModel.class, new StdSerializer<TestModel>(TestModel.class) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public void serialize(final TestModel model, final JsonGenerator gen, final SerializerProvider provider)
+                    throws IOException {
+                    writes.incrementAndGet();
+                    gen.writeStartObject(model);
+                    if (model.getProperty1() != null) {
+                        gen.writeFieldName("property1");
+                        gen.writeString(model.getProperty1());
+                    }
+                    if (model.getProperty2() != null) {
+                        gen.writeFieldName("property2");
+                        gen.writeNumber(model.getProperty2());
+                    }
+                    if (model.getTags() != null) {
+                        gen.writeFieldName("tags");
+                        gen.writeStartObject();
+                        for (final Map.Entry<String, String> entry : model.getTags().entrySet()) {
+                            if (entry.getValue() != null) {
+                                gen.writeFieldName(entry.getKey());
+                                gen.writeString(entry.getValue());
+                            }
+                        }
+                        gen.writeEndObject();
+                    }
+                    gen.writeEndObject();
+                }
+            });
+            addDeserializer(TestModel.class, new StdDeserializer<TestModel>(TestModel.class) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public TestModel deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+                    reads.incrementAndGet();
+                    final TestModel model = new TestModel();
+                    for (JsonToken token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+                        final String name = p.currentName();
+                        p.nextToken();
+                        if (!readProperty(model, name, p, ctxt)) {
+                            final String canonical = ctxt.isEnabled(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+                                && "property1".equalsIgnoreCase(name) ? "property1" : null;
+                            if (canonical == null || !readProperty(model, canonical, p, ctxt)) {
+                                ctxt.handleUnknownProperty(p, null, TestModel.class, name);
+                            }
+                        }
+                    }
+                    return model;
+                }
+
+                private boolean readProperty(final TestModel model, final String name, final JsonParser p,
+                                             final DeserializationContext ctxt)
+                    throws IOException {
+                    switch (name) {
+                        case "property1":
+                            model.setProperty1(p.currentToken() == JsonToken.VALUE_NULL ? null : p.getText());
+                            return true;
+                        case "property2":
+                            model.setProperty2(
+                                p.currentToken() == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, Integer.class));
+                            return true;
+                        case "tags":
+                            final Map<String, String> tags = new LinkedHashMap<>();
+                            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                                final String key = p.currentName();
+                                p.nextToken();
+                                tags.put(key, p.getText());
+                            }
+                            model.setTags(tags);
+                            return true;
+                        default:
+                            return false;
+                    }
+                }
+            });
+        }
+    }
 }
@@ -175,4 +175,27 @@ public class CloudWatchSchedulerTest {
         verify(client, times(1))
             .putRule(argThat(new PutRuleRequestMatcher("reinvoke-handler-", "cron(41 14 31 10 ? 2019)", RuleState.ENABLED)));
     }
+
+    @Test
+    public void test_reschedule_roundsSecondsUpToMinutes() {
+        final CloudWatchEventsProvider provider = mock(CloudWatchEventsProvider.class);
+        final CloudWatchEventsClient client = getCloudWatchEvents();
+        when(provider.get()).thenReturn(client);
+        final CronHelper cronHelper = getCronHelper();
+        when(cronHelper.generateOneTimeCronExpression(2)).thenReturn("cron(42 14 31 10 ? 2019)");
+        final ReinvocationScheduler scheduler = new CloudWatchScheduler(provider, loggerProxy, cronHelper, serializer);
+        ((CloudWatchScheduler) scheduler).refreshClient();
+        final HandlerRequest<TestModel, TestContext, TestConfigurationModel> request = new HandlerRequest<>();
+        request.setRequestContext(requestContext);
+        when(requestContext.getCloudWatchEventsRuleName()).thenReturn("rulename");
+        when(requestContext.getCloudWatchEventsTargetId()).thenReturn("targetid");
+
+        scheduler.reschedule(FUNCTION_ARN, 61, request);
+        scheduler.cleanup(requestContext);
+
+        verify(client, times(1))
+            .putRule(argThat(new PutRuleRequestMatcher("reinvoke-handler-", "cron(42 14 31 10 ? 2019)", RuleState.ENABLED)));
+        verify(client, times(1)).removeTargets(any(RemoveTargetsRequest.class));
+        verify(client, times(1)).deleteRule(any(DeleteRuleRequest.class));
+    }
 }
@@ -0,0 +1,122 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.cloudformation.Action;
+import software.amazon.cloudformation.TestConfigurationModel;
+import software.amazon.cloudformation.TestContext;
+import software.amazon.cloudformation.TestModel;
+import software.amazon.cloudformation.proxy.HandlerRequest;
+import software.amazon.cloudformation.proxy.Logger;
+import software.amazon.cloudformation.proxy.MetricsPublisherProxy;
+import software.amazon.cloudformation.resource.Serializer;
+
+@ExtendWith(MockitoExtension.class)
+public class InProcessSchedulerTest {
+
+    @Mock
+    private Logger loggerProxy;
+
+    @Mock
+    private MetricsPublisherProxy metricsPublisherProxy;
+
+    private final List<JSONObject> requests = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<String> completed = new CompletableFuture<>();
+    private InProcessScheduler scheduler;
+
+    @AfterEach
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void reschedule_reinvokesUntilNoLongerInProgress() throws Exception {
+        scheduler = new InProcessScheduler(new Serializer(), request -> {
+            requests.add(new JSONObject(request));
+            return requests.size() < 3
+                ? "{\"status\":\"IN_PROGRESS\",\"callbackDelaySeconds\":0,\"callbackContext\":{\"cycle\":" + requests.size()
+                    + "}}"
+                : "{\"status\":\"SUCCESS\"}";
+        }, completed::complete, loggerProxy, metricsPublisherProxy);
+        final HandlerRequest<TestModel, TestContext, TestConfigurationModel> request = new HandlerRequest<>();
+        request.setAction(Action.CREATE);
+        request.setBearerToken("token");
+
+        scheduler.reschedule(null, 0, request);
+
+        assertThat(completed.get(10, TimeUnit.SECONDS)).isEqualTo("{\"status\":\"SUCCESS\"}");
+        assertThat(requests).hasSize(3);
+        assertThat(requests.get(0).getString("action")).isEqualTo("CREATE");
+        assertThat(requests.get(0).has("callbackContext")).isFalse();
+        // each request carries the callback context of the previous response
+        assertThat(requests.get(1).getJSONObject("callbackContext").getInt("cycle")).isEqualTo(1);
+        assertThat(requests.get(2).getJSONObject("callbackContext").getInt("cycle")).isEqualTo(2);
+        assertThat(requests.get(2).getString("bearerToken")).isEqualTo("token");
+        verify(metricsPublisherProxy, timeout(1000).times(3)).publishReinvocationMetric(any(), anyLong(), anyInt());
+        assertThat(scheduler.getQueueDepth()).isZero();
+    }
+
+    @Test
+    public void schedule_waitsForTheDelay() throws Exception {
+        scheduler = new InProcessScheduler(new Serializer(), request -> "{\"status\":\"FAILED\"}", completed::complete,
+                                           loggerProxy, metricsPublisherProxy);
+
+        final long start = System.nanoTime();
+        scheduler.schedule("{\"action\":\"READ\"}", Duration.ofMillis(300));
+        scheduler.schedule("{\"action\":\"READ\"}", Duration.ofHours(1));
+
+        assertThat(completed.get(10, TimeUnit.SECONDS)).isEqualTo("{\"status\":\"FAILED\"}");
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(300));
+        // the re-invocation an hour from now is still waiting
+        verify(metricsPublisherProxy, timeout(1000)).publishReinvocationMetric(any(), anyLong(), eq(1));
+        assertThat(scheduler.getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    public void schedule_reinvocationFailureIsLogged() {
+        scheduler = new InProcessScheduler(new Serializer(), request -> {
+            throw new IOException("broken pipe");
+        }, completed::complete, loggerProxy, null);
+
+        scheduler.schedule("{\"action\":\"DELETE\"}", Duration.ZERO);
+
+        verify(loggerProxy, timeout(5000)).log(contains("Re-invocation of DELETE request failed"));
+        verify(loggerProxy, times(1)).log(any());
+        assertThat(completed).isNotDone();
+    }
+}
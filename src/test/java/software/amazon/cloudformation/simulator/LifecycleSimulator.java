@@ -0,0 +1,135 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.simulator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.Builder;
+import org.json.JSONObject;
+import software.amazon.cloudformation.AbstractWrapper;
+import software.amazon.cloudformation.proxy.OperationStatus;
+
+/**
+ * Drives a handler wrapper through whole CloudFormation operations offline.
+ * Every operation starts from the request template and is re-invoked the way
+ * CloudFormation does it: the callbackContext of an IN_PROGRESS response is
+ * carried into the next request after waiting callbackDelaySeconds, until the
+ * handler reports SUCCESS or FAILED or maxCycles is reached.
+ *
+ * Operations run on {@code concurrency} workers. Each worker gets its own
+ * wrapper from the factory and reuses it for all the operations it runs, like
+ * a warm container. Wire the wrapper with stubbed AWS clients, as the wrapper
+ * tests do, to load test a handler without calling AWS.
+ *
+ * {@code
+ *     SimulationReport report = LifecycleSimulator.builder()
+ *         .wrapperFactory(() -> newWrapperWithStubbedClients())
+ *         .requestTemplate(loadRequestJson("create.request.json"))
+ *         .operations(1000).concurrency(16).delayScale(0.0)
+ *         .build().run();
+ * }
+ */
+@Builder
+public class LifecycleSimulator {
+
+    private final Supplier<? extends AbstractWrapper<?, ?, ?>> wrapperFactory;
+    private final String requestTemplate;
+    @Builder.Default
+    private final int operations = 1;
+    @Builder.Default
+    private final int concurrency = 1;
+    @Builder.Default
+    private final int maxCycles = 100;
+    /**
+     * multiplies callbackDelaySeconds, 0 re-invokes immediately
+     */
+    @Builder.Default
+    private final double delayScale = 1.0;
+
+    /**
+     * @return latency, context size and throughput of all the operations
+     * @throws InterruptedException if interrupted while operations are running
+     */
+    public SimulationReport run() throws InterruptedException {
+        final ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        final ThreadLocal<AbstractWrapper<?, ?, ?>> wrappers = ThreadLocal.withInitial(wrapperFactory);
+        final List<Callable<SimulationReport.Operation>> tasks = new ArrayList<>(operations);
+        for (int i = 0; i < operations; i++) {
+            tasks.add(() -> runOperation(wrappers.get()));
+        }
+        final long start = System.nanoTime();
+        try {
+            final List<SimulationReport.Operation> results = new ArrayList<>(operations);
+            for (final Future<SimulationReport.Operation> each : workers.invokeAll(tasks)) {
+                results.add(getUnchecked(each));
+            }
+            return SimulationReport.of(results, System.nanoTime() - start);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private SimulationReport.Operation runOperation(final AbstractWrapper<?, ?, ?> wrapper) throws Exception {
+        final JSONObject request = new JSONObject(requestTemplate);
+        request.put("bearerToken", UUID.randomUUID().toString());
+        final SimulationReport.Operation operation = new SimulationReport.Operation();
+        long delayMillis = 0L;
+        for (int cycle = 0; cycle < maxCycles; cycle++) {
+            if (delayMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(delayMillis);
+            }
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final long start = System.nanoTime();
+            wrapper.processRequest(new ByteArrayInputStream(request.toString().getBytes(StandardCharsets.UTF_8)), output);
+            final long latency = System.nanoTime() - start;
+
+            final JSONObject response = new JSONObject(new String(output.toByteArray(), StandardCharsets.UTF_8));
+            final String status = response.optString("status", OperationStatus.FAILED.name());
+            operation.addCycle(latency);
+            operation.setOutcome(status);
+            if (!OperationStatus.IN_PROGRESS.name().equals(status)) {
+                break;
+            }
+            final Object callbackContext = response.opt("callbackContext");
+            final boolean hasContext = callbackContext != null && callbackContext != JSONObject.NULL;
+            operation.addCarriedContext(hasContext ? callbackContext.toString().getBytes(StandardCharsets.UTF_8).length : 0);
+            delayMillis = Math.round(response.optInt("callbackDelaySeconds", 0) * 1000 * delayScale);
+            request.put("callbackContext", hasContext ? callbackContext : JSONObject.NULL);
+        }
+        return operation;
+    }
+
+    private static SimulationReport.Operation getUnchecked(final Future<SimulationReport.Operation> future)
+        throws InterruptedException {
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            final SimulationReport.Operation failed = new SimulationReport.Operation();
+            failed.setOutcome(SimulationReport.ERROR);
+            return failed;
+        }
+    }
+}
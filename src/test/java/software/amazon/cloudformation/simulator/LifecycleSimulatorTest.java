@@ -0,0 +1,117 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.simulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import java.util.Collections;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.cloudformation.Action;
+import software.amazon.cloudformation.ExecutableWrapperOverride;
+import software.amazon.cloudformation.TestConfigurationModel;
+import software.amazon.cloudformation.TestContext;
+import software.amazon.cloudformation.TestModel;
+import software.amazon.cloudformation.injection.CredentialsProvider;
+import software.amazon.cloudformation.loggers.CloudWatchLogPublisher;
+import software.amazon.cloudformation.loggers.LogPublisher;
+import software.amazon.cloudformation.metrics.MetricsPublisher;
+import software.amazon.cloudformation.proxy.AmazonWebServicesClientProxy;
+import software.amazon.cloudformation.proxy.HandlerRequest;
+import software.amazon.cloudformation.proxy.OperationStatus;
+import software.amazon.cloudformation.proxy.ProgressEvent;
+import software.amazon.cloudformation.proxy.ResourceHandlerRequest;
+import software.amazon.cloudformation.resource.SchemaValidator;
+import software.amazon.cloudformation.resource.SerializerTest;
+
+public class LifecycleSimulatorTest {
+
+    @Test
+    public void run_reinvokesWithCallbackContextUntilSuccess() throws Exception {
+        final SimulationReport report = LifecycleSimulator.builder().wrapperFactory(() -> new PollingWrapper(3, 0))
+            .requestTemplate(SerializerTest.loadRequestJson("create.request.json")).operations(8).concurrency(4).delayScale(0.0)
+            .build().run();
+
+        assertThat(report.getOperations()).isEqualTo(8);
+        assertThat(report.getOutcomes()).isEqualTo(Collections.singletonMap("SUCCESS", 8));
+        // three IN_PROGRESS cycles carrying a growing context, then SUCCESS
+        assertThat(report.getCycles()).isEqualTo(32);
+        assertThat(report.getMaxContextBytes()).isEqualTo("{\"contextPropertyA\":\"xxx\"}".length());
+        assertThat(report.getContextGrowthBytesPerCycle()).isEqualTo(1.0);
+        assertThat(report.getP50CycleMillis()).isLessThanOrEqualTo(report.getP90CycleMillis());
+        assertThat(report.getP90CycleMillis()).isLessThanOrEqualTo(report.getP99CycleMillis());
+        assertThat(report.getP99CycleMillis()).isLessThanOrEqualTo(report.getMaxCycleMillis());
+        assertThat(report.getOperationsPerSecond()).isPositive();
+        assertThat(report.getCyclesPerSecond()).isGreaterThan(report.getOperationsPerSecond());
+    }
+
+    @Test
+    public void run_honorsCallbackDelayAndStopsAtMaxCycles() throws Exception {
+        final SimulationReport report = LifecycleSimulator.builder().wrapperFactory(() -> new PollingWrapper(100, 1))
+            .requestTemplate(SerializerTest.loadRequestJson("create.request.json")).maxCycles(3).delayScale(0.05).build().run();
+
+        assertThat(report.getOutcomes()).isEqualTo(Collections.singletonMap("IN_PROGRESS", 1));
+        assertThat(report.getCycles()).isEqualTo(3);
+        // two waits of 50 milliseconds between the three cycles
+        assertThat(report.getOperationsPerSecond()).isLessThan(10.0);
+    }
+
+    /*
+     * Stays IN_PROGRESS for the given number of cycles, adding a character to the
+     * context on every cycle
+     */
+    private static final class PollingWrapper extends ExecutableWrapperOverride {
+        private final int inProgressCycles;
+        private final int callbackDelaySeconds;
+
+        private PollingWrapper(final int inProgressCycles,
+                               final int callbackDelaySeconds) {
+            super(mock(CredentialsProvider.class), mock(LogPublisher.class), mock(CloudWatchLogPublisher.class),
+                  mock(MetricsPublisher.class), mock(SchemaValidator.class), mock(SdkHttpClient.class));
+            this.inProgressCycles = inProgressCycles;
+            this.callbackDelaySeconds = callbackDelaySeconds;
+        }
+
+        @Override
+        public ProgressEvent<TestModel, TestContext> invokeHandler(final AmazonWebServicesClientProxy awsClientProxy,
+                                                                   final ResourceHandlerRequest<TestModel> request,
+                                                                   final Action action,
+                                                                   final TestContext callbackContext,
+                                                                   final TestConfigurationModel typeConfiguration) {
+            final String progress = callbackContext == null ? "" : callbackContext.getContextPropertyA();
+            if (progress.length() >= inProgressCycles) {
+                return ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.SUCCESS)
+                    .resourceModel(request.getDesiredResourceState()).build();
+            }
+            return ProgressEvent.<TestModel, TestContext>builder().status(OperationStatus.IN_PROGRESS)
+                .callbackContext(new TestContext(progress + "x")).callbackDelaySeconds(callbackDelaySeconds)
+                .resourceModel(request.getDesiredResourceState()).build();
+        }
+
+        @Override
+        protected JSONObject provideResourceSchemaJSONObject() {
+            return new JSONObject(new JSONTokener(ExecutableWrapperOverride.class.getResourceAsStream("wrapper-override.json")));
+        }
+
+        @Override
+        protected ResourceHandlerRequest<TestModel>
+            transform(final HandlerRequest<TestModel, TestContext, TestConfigurationModel> request) {
+            return ResourceHandlerRequest.<TestModel>builder()
+                .desiredResourceState(request.getRequestData().getResourceProperties()).build();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import lombok.Data;
+
+/**
+ * What a {@link LifecycleSimulator} run measured. Latencies are per cycle, one
+ * processRequest call, in milliseconds. Context growth is how many bytes the
+ * serialized callbackContext carried into re-invocations grows by per cycle,
+ * averaged over the operations that were re-invoked more than once.
+ */
+@Data
+public class SimulationReport {
+
+    /**
+     * outcome of an operation whose processRequest call threw
+     */
+    public static final String ERROR = "ERROR";
+
+    private final int operations;
+    /**
+     * number of operations per final status, IN_PROGRESS if maxCycles was reached
+     */
+    private final Map<String, Integer> outcomes;
+    private final int cycles;
+    private final double p50CycleMillis;
+    private final double p90CycleMillis;
+    private final double p99CycleMillis;
+    private final double maxCycleMillis;
+    private final int maxContextBytes;
+    private final double contextGrowthBytesPerCycle;
+    private final double operationsPerSecond;
+    private final double cyclesPerSecond;
+
+    static SimulationReport of(final List<Operation> results, final long elapsedNanos) {
+        final Map<String, Integer> outcomes = new TreeMap<>();
+        final List<Long> latencies = new ArrayList<>();
+        int maxContextBytes = 0;
+        double growth = 0.0;
+        int reinvoked = 0;
+        for (final Operation each : results) {
+            outcomes.merge(each.getOutcome(), 1, Integer::sum);
+            latencies.addAll(each.getLatencies());
+            for (final int bytes : each.getContextBytes()) {
+                maxContextBytes = Math.max(maxContextBytes, bytes);
+            }
+            final int cycles = each.getContextBytes().size();
+            if (cycles > 1) {
+                growth += (double) (each.getContextBytes().get(cycles - 1) - each.getContextBytes().get(0)) / (cycles - 1);
+                reinvoked++;
+            }
+        }
+        Collections.sort(latencies);
+        final double seconds = Math.max(elapsedNanos, 1L) / (double) TimeUnit.SECONDS.toNanos(1);
+        return new SimulationReport(results.size(), outcomes, latencies.size(), percentile(latencies, 50),
+                                    percentile(latencies, 90), percentile(latencies, 99), percentile(latencies, 100),
+                                    maxContextBytes, reinvoked == 0 ? 0.0 : growth / reinvoked, results.size() / seconds,
+                                    latencies.size() / seconds);
+    }
+
+    /*
+     * nearest rank percentile of sorted latencies, in milliseconds
+     */
+    private static double percentile(final List<Long> sorted, final int percentile) {
+        if (sorted.isEmpty()) {
+            return 0.0;
+        }
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Data
+    static class Operation {
+        private final List<Long> latencies = new ArrayList<>();
+        private final List<Integer> contextBytes = new ArrayList<>();
+        private String outcome;
+
+        void addCycle(final long latencyNanos) {
+            latencies.add(latencyNanos);
+        }
+
+        void addCarriedContext(final int callbackContextBytes) {
+            contextBytes.add(callbackContextBytes);
+        }
+    }
+}
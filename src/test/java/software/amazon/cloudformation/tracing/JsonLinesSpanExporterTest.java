@@ -0,0 +1,63 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JsonLinesSpanExporterTest {
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void export_writesOneLinePerSpan() throws IOException {
+        final Path file = tempDir.resolve("spans.jsonl");
+        final JsonLinesSpanExporter exporter = JsonLinesSpanExporter.file(file);
+
+        try (Span root = Span.root("Invocation", exporter)) {
+            root.child("Handler").attribute("status", "SUCCESS").close();
+        }
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(2);
+        final JSONObject child = new JSONObject(lines.get(0));
+        final JSONObject root = new JSONObject(lines.get(1));
+        assertThat(child.getString("name")).isEqualTo("Handler");
+        assertThat(child.getString("parentSpanId")).isEqualTo(root.getString("spanId"));
+        assertThat(child.getString("traceId")).isEqualTo(root.getString("traceId"));
+        assertThat(child.getJSONObject("attributes").getString("status")).isEqualTo("SUCCESS");
+        assertThat(child.getLong("durationMicros")).isGreaterThanOrEqualTo(0L);
+        assertThat(root.has("parentSpanId")).isFalse();
+        assertThat(root.getString("start")).isNotEmpty();
+    }
+
+    @Test
+    public void exporterFor_setting() {
+        assertThat(TracingSetting.exporterFor(null)).isEmpty();
+        assertThat(TracingSetting.exporterFor(" ")).isEmpty();
+        assertThat(TracingSetting.exporterFor("stdout")).get().isInstanceOf(JsonLinesSpanExporter.class);
+        assertThat(TracingSetting.exporterFor(tempDir.resolve("spans.jsonl").toString())).get()
+            .isInstanceOf(JsonLinesSpanExporter.class);
+        assertThat(TracingSetting.configuredExporter()).isNull();
+    }
+}
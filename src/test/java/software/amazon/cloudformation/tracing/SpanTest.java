@@ -0,0 +1,101 @@
+/*
+* Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License").
+* You may not use this file except in compliance with the License.
+* A copy of the License is located at
+*
+*  http://aws.amazon.com/apache2.0
+*
+* or in the "license" file accompanying this file. This file is distributed
+* on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+* express or implied. See the License for the specific language governing
+* permissions and limitations under the License.
+*/
+package software.amazon.cloudformation.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+public class SpanTest {
+
+    @Test
+    public void root_withoutExporter_recordsNothing() {
+        final Span root = Span.root("Invocation", null);
+
+        assertThat(root).isSameAs(Span.NOOP);
+        assertThat(root.isRecording()).isFalse();
+        assertThat(root.child("Decode")).isSameAs(Span.NOOP);
+        assertThat(root.attribute("key", "value").getAttributes()).isEmpty();
+        assertThat(Span.current()).isSameAs(Span.NOOP);
+        root.close();
+    }
+
+    @Test
+    public void child_becomesCurrentUntilClosed() {
+        final InMemorySpanExporter exporter = new InMemorySpanExporter();
+
+        try (Span root = Span.root("Invocation", exporter)) {
+            assertThat(Span.current()).isSameAs(root);
+            try (Span child = Span.current().child("Handler")) {
+                assertThat(Span.current()).isSameAs(child);
+                try (Span grandchild = Span.current().child("AwsRequest")) {
+                    grandchild.attribute("requestId", "abc");
+                }
+                assertThat(Span.current()).isSameAs(child);
+            }
+            assertThat(Span.current()).isSameAs(root);
+        }
+        assertThat(Span.current()).isSameAs(Span.NOOP);
+
+        assertThat(exporter.getSpans()).extracting(Span::getName).containsExactly("AwsRequest", "Handler", "Invocation");
+        final Span root = exporter.getSpans("Invocation").get(0);
+        final Span child = exporter.getSpans("Handler").get(0);
+        final Span grandchild = exporter.getSpans("AwsRequest").get(0);
+        assertThat(root.getParentSpanId()).isNull();
+        assertThat(child.getParentSpanId()).isEqualTo(root.getSpanId());
+        assertThat(grandchild.getParentSpanId()).isEqualTo(child.getSpanId());
+        assertThat(grandchild.getTraceId()).isEqualTo(root.getTraceId()).hasSize(32);
+        assertThat(grandchild.getAttributes()).containsEntry("requestId", "abc");
+        assertThat(root.getDuration()).isGreaterThanOrEqualTo(child.getDuration());
+        assertThat(root.isRecording()).isFalse();
+    }
+
+    @Test
+    public void close_closesOpenChildrenFirst() {
+        final InMemorySpanExporter exporter = new InMemorySpanExporter();
+
+        final Span root = Span.root("Invocation", exporter);
+        final Span decode = root.child("Decode");
+        decode.child("Parse");
+        root.close();
+        decode.close();
+
+        assertThat(exporter.getSpans()).extracting(Span::getName).containsExactly("Parse", "Decode", "Invocation");
+        assertThat(Span.current()).isSameAs(Span.NOOP);
+    }
+
+    @Test
+    public void asyncChild_isNotCurrent() {
+        final InMemorySpanExporter exporter = new InMemorySpanExporter();
+
+        try (Span root = Span.root("Invocation", exporter)) {
+            final Span async = root.asyncChild("AwsRequest");
+            assertThat(Span.current()).isSameAs(root);
+            async.appendAttribute("requestId", "a").appendAttribute("requestId", "b").close();
+        }
+
+        assertThat(exporter.getSpans("AwsRequest").get(0).getAttributes()).containsEntry("requestId", "a,b");
+    }
+
+    @Test
+    public void close_exporterFailure_isIgnored() {
+        final Span root = Span.root("Invocation", span -> {
+            throw new IllegalStateException("exporter failed");
+        });
+
+        root.close();
+
+        assertThat(Span.current()).isSameAs(Span.NOOP);
+    }
+}
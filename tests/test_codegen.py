@@ -1,5 +1,6 @@
 # fixture and parameter have the same name
 # pylint: disable=redefined-outer-name,protected-access
+import json
 import xml.etree.ElementTree as ET
 from pathlib import Path
 from shutil import copyfile
@@ -163,6 +164,14 @@ def assert_test_initialize(
     assert handler_properties["Handler"] == handler
     assert handler_properties["Runtime"] == test_project._plugin.RUNTIME
 
+    appcds = pom_tree.find("maven:profiles/maven:profile[maven:id='appcds']", namespace)
+    main_class = handler.split("::")[0] + "Executable"
+    assert main_class in ET.tostring(appcds, encoding="unicode")
+    assert appcds.find(".//maven:plugin/maven:version", namespace).text
+    test_resources = test_project.root / "src" / "test" / "resources"
+    training_request = test_resources / "appcds-training-request.json"
+    assert json.loads(training_request.read_text(encoding="utf-8"))["awsAccountId"]
+
 
 def test_generate(project):
     project.load_schema()
@@ -345,6 +354,93 @@ def test_generate_low_protocol_version_is_updated(project):
     assert project.settings["protocolVersion"] == "2.0.0"
 
 
+def test_generate_with_serializers(project, tmpdir):
+    copyfile(
+        str(Path.cwd() / "tests/data/schema-with-typeconfiguration.json"),
+        str(tmpdir / "schema-with-typeconfiguration.json"),
+    )
+    project.type_info = ("schema", "with", "typeconfiguration")
+    project.settings["generateSerializers"] = True
+    project.load_schema()
+    project.load_configuration_schema()
+    project.generate()
+
+    package = ("software", "amazon", "foo", RESOURCE.lower())
+    serde_root = project._plugin._get_generated_root(project).joinpath(
+        *package, "serde"
+    )
+    assert (serde_root / "ResourceModelSerde.java").is_file()
+    assert (serde_root / "TypeConfigurationModelSerde.java").is_file()
+    assert (serde_root / "CredentialsSerde.java").is_file()
+    module = (serde_root / "ModelSerializersModule.java").read_text(encoding="utf-8")
+    assert "addDeserializer(Credentials.class" in module
+
+    wrapper = (
+        project._plugin._get_generated_root(project).joinpath(*package)
+        / "HandlerWrapper.java"
+    ).read_text(encoding="utf-8")
+    assert "new ModelSerializersModule()" in wrapper
+
+    serde_test = project._plugin._get_generated_tests_root(project).joinpath(
+        *package, "serde", "ModelSerializersTest.java"
+    )
+    assert "roundTrip_ResourceModel" in serde_test.read_text(encoding="utf-8")
+
+
+def test_generate_without_serializers(project):
+    project.load_schema()
+    project.generate()
+
+    generated_root = project._plugin._get_generated_root(project)
+    assert not list(generated_root.rglob("*Serde.java"))
+    wrapper = next(generated_root.rglob("HandlerWrapper.java"))
+    assert "ModelSerializersModule" not in wrapper.read_text(encoding="utf-8")
+
+
+def test_generate_with_validator(project):
+    project.settings["generateValidator"] = True
+    project.load_schema()
+    project.generate()
+
+    generated_root = project._plugin._get_generated_root(project)
+    validator = next(generated_root.rglob("ResourceModelValidator.java"))
+    assert "new CompiledValidator(object()" in validator.read_text(encoding="utf-8")
+    for wrapper in generated_root.rglob("HandlerWrapper*.java"):
+        assert "ResourceModelValidator.VALIDATOR" in wrapper.read_text(encoding="utf-8")
+
+
+def test_generate_with_validator_writes_comparison_test(project):
+    project.settings["generateValidator"] = True
+    project.load_schema()
+    inputs = project.root / "inputs"
+    inputs.mkdir(exist_ok=True)
+    (inputs / "inputs_1_create.json").write_text('{"Input": "x"}', encoding="utf-8")
+    (inputs / "inputs_1_broken.json").write_text("{", encoding="utf-8")
+    project.generate()
+
+    generated_tests_root = project._plugin._get_generated_tests_root(project)
+    test = next(generated_tests_root.rglob("ResourceModelValidatorTest.java"))
+    contents = test.read_text(encoding="utf-8")
+    assert "ResourceModelValidator.VALIDATOR.validate" in contents
+    assert "new RoundTripValidator<>(" in contents
+    assert '"{\\"Input\\":\\"x\\"}",' in contents
+    assert '"{}",' in contents
+
+
+def test_generate_with_validator_unsupported_schema(project):
+    project.settings["generateValidator"] = True
+    project.load_schema()
+    project.schema["properties"]["Unsupported"] = {"type": ["string", "integer"]}
+    project.generate()
+
+    generated_root = project._plugin._get_generated_root(project)
+    assert not list(generated_root.rglob("ResourceModelValidator.java"))
+    generated_tests_root = project._plugin._get_generated_tests_root(project)
+    assert not list(generated_tests_root.rglob("ResourceModelValidatorTest.java"))
+    wrapper = next(generated_root.rglob("HandlerWrapper.java"))
+    assert "provideModelValidator" not in wrapper.read_text(encoding="utf-8")
+
+
 def update_pom_with_plugin_version(project, version_id):
     pom_tree = ET.parse(project.root / "pom.xml")
     root = pom_tree.getroot()
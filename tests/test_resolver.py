@@ -1,6 +1,6 @@
 import pytest
 from rpdk.core.jsonutils.resolver import MULTIPLE, ContainerType, ResolvedType
-from rpdk.java.resolver import PRIMITIVE_TYPES, translate_type
+from rpdk.java.resolver import PRIMITIVE_TYPES, serde_kind, translate_type
 
 RESOLVED_TYPES = [
     (ResolvedType(ContainerType.PRIMITIVE, item_type), formats["default"])
@@ -66,3 +66,34 @@ def test_translate_type_integer_formats(resolved_type, java_type):
 def test_translate_type_unavailable_format():
     resolved_type = ResolvedType(ContainerType.PRIMITIVE, "integer", "int128")
     assert translate_type(resolved_type) == PRIMITIVE_TYPES["integer"]["default"]
+
+
+@pytest.mark.parametrize(
+    "resolved_type,kind",
+    [
+        (ResolvedType(ContainerType.MODEL, "Tag"), "model"),
+        (ResolvedType(ContainerType.PRIMITIVE, "string"), "String"),
+        (ResolvedType(ContainerType.PRIMITIVE, "integer", "int64"), "Long"),
+        (ResolvedType(ContainerType.MULTIPLE, MULTIPLE), "Object"),
+        (
+            ResolvedType(
+                ContainerType.LIST, ResolvedType(ContainerType.PRIMITIVE, "string")
+            ),
+            "List",
+        ),
+        (
+            ResolvedType(
+                ContainerType.SET, ResolvedType(ContainerType.PRIMITIVE, "string")
+            ),
+            "Set",
+        ),
+        (
+            ResolvedType(
+                ContainerType.DICT, ResolvedType(ContainerType.MODEL, "Tag")
+            ),
+            "Map",
+        ),
+    ],
+)
+def test_serde_kind(resolved_type, kind):
+    assert serde_kind(resolved_type) == kind
@@ -0,0 +1,154 @@
+import json
+
+import pytest
+from rpdk.java.validator import EXTRANEOUS_KEY, compile_validator, sample_models
+
+SCHEMA = {
+    "typeName": "Company::Test::Type",
+    "definitions": {
+        "Tag": {
+            "type": "object",
+            "properties": {
+                "Key": {"type": "string", "minLength": 1},
+                "Value": {"type": "string", "enum": ["a", "b"]},
+            },
+            "required": ["Key"],
+            "additionalProperties": False,
+        }
+    },
+    "properties": {
+        "Name": {"type": "string", "pattern": "^[a-z]+$", "maxLength": 5},
+        "Count": {"type": "integer", "format": "int64", "minimum": 1},
+        "Mode": {"type": "number", "enum": [1, 2.5]},
+        "Tags": {"type": "array", "items": {"$ref": "#/definitions/Tag"}},
+        "Labels": {"type": "object", "additionalProperties": {"type": "string"}},
+        "Parent": {"$ref": "#/definitions/Tag"},
+        "Anything": {"description": "free form"},
+    },
+    "required": ["Name"],
+    "additionalProperties": False,
+}
+
+
+def test_compile_validator():
+    compiled = compile_validator(SCHEMA)
+
+    assert compiled.definitions == [
+        (
+            "DEFINITION_TAG",
+            "#/definitions/Tag",
+            "object()\n"
+            '.property("Key", string().minLength(1))\n'
+            '.property("Value", string().enumValues("a", "b"))\n'
+            '.required("Key")',
+        )
+    ]
+    assert compiled.root.split("\n") == [
+        "object()",
+        '.property("Name", string().maxLength(5).pattern("^[a-z]+$"))',
+        '.property("Count", integer().minimum("1"))',
+        '.property("Mode", number().enumValues(new java.math.BigDecimal("1"), '
+        'new java.math.BigDecimal("2.5")))',
+        '.property("Tags", array(DEFINITION_TAG))',
+        '.property("Labels", map(string()))',
+        '.property("Parent", DEFINITION_TAG)',
+        '.property("Anything", any())',
+        '.required("Name")',
+    ]
+
+
+def test_compile_validator_nested_models_are_indented():
+    schema = {
+        "properties": {
+            "Outer": {
+                "type": "object",
+                "properties": {"Inner": {"type": "string"}},
+            }
+        }
+    }
+
+    assert compile_validator(schema).root.split("\n") == [
+        "object()",
+        '.property("Outer", object()',
+        '    .property("Inner", string()))',
+    ]
+
+
+@pytest.mark.parametrize(
+    "property_schema",
+    [
+        {"type": "string", "format": "date-time"},
+        {"type": ["string", "integer"]},
+        {"oneOf": [{"type": "string"}, {"type": "integer"}]},
+        {"type": "array", "uniqueItems": True, "items": {"type": "string"}},
+        {"type": "object", "patternProperties": {"^a": {"type": "string"}}},
+        {"type": "object", "additionalProperties": False},
+        {
+            "type": "object",
+            "additionalProperties": {
+                "type": "object",
+                "properties": {"A": {"type": "string"}},
+            },
+        },
+        {"enum": ["a", "b"]},
+        {"type": "string", "enum": [None]},
+        {"$ref": "#/definitions/Missing"},
+        {"$ref": "#/definitions/Node"},
+    ],
+)
+def test_compile_validator_unsupported(property_schema):
+    schema = {
+        "definitions": {
+            "Node": {
+                "type": "object",
+                "properties": {"Child": {"$ref": "#/definitions/Node"}},
+            }
+        },
+        "properties": {"Property": property_schema},
+    }
+
+    assert compile_validator(schema) is None
+
+
+def test_compile_validator_unsupported_root():
+    schema = {
+        "properties": {"A": {"type": "string"}, "B": {"type": "string"}},
+        "oneOf": [{"required": ["A"]}, {"required": ["B"]}],
+    }
+
+    assert compile_validator(schema) is None
+    assert compile_validator({"additionalProperties": False}) is None
+
+
+def test_sample_models():
+    samples = [json.loads(sample) for sample in sample_models(SCHEMA, [{"Name": "x"}])]
+
+    complete = {
+        "Name": "a",
+        "Count": 1,
+        "Mode": 1,
+        "Tags": [{"Key": "a", "Value": "a"}],
+        "Labels": {"key": "a"},
+        "Parent": {"Key": "a", "Value": "a"},
+        "Anything": "value",
+    }
+    assert samples[:4] == [{"Name": "x"}, {}, complete, {**complete, EXTRANEOUS_KEY: 1}]
+    assert {**complete, "Name": None} in samples
+    assert {**complete, "Name": []} in samples
+    assert {**complete, "Count": "text"} in samples
+    assert {**complete, "Parent": "text"} in samples
+    # untyped values take anything, so they are only sampled null
+    assert {**complete, "Anything": None} in samples
+    assert len(samples) == 4 + 2 * 6 + 1
+
+
+def test_sample_models_without_duplicates():
+    schema = {"properties": {"Name": {"type": "string"}}}
+
+    assert sample_models(schema, [{}, {"Name": "a"}]) == [
+        "{}",
+        '{"Name":"a"}',
+        '{"Name":"a","ExtraneousSampleKey":1}',
+        '{"Name":null}',
+        '{"Name":[]}',
+    ]